@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.camel.builder.ErrorHandlerBuilder;
+import org.apache.camel.converter.stream.StreamCachePool;
 import org.apache.camel.model.DataFormatDefinition;
 import org.apache.camel.model.RouteDefinition;
 import org.apache.camel.spi.CamelContextNameStrategy;
@@ -827,6 +828,21 @@ public interface CamelContext extends SuspendableService, RuntimeConfiguration {
      */
     void setInflightRepository(InflightRepository repository);
 
+    /**
+     * Gets the pool used for caching streams, if any
+     *
+     * @return the pool, or <tt>null</tt> if streams are cached in byte arrays and temporary files
+     */
+    StreamCachePool getStreamCachePool();
+
+    /**
+     * Sets a pool to use for caching streams, which keeps the streams in pooled memory within a
+     * memory budget and spools to a single spool file when the budget is exceeded
+     *
+     * @param streamCachePool the pool
+     */
+    void setStreamCachePool(StreamCachePool streamCachePool);
+
     /**
      * Gets the the application context class loader which may be helpful for running camel in other containers
      *
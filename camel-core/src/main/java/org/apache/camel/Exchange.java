@@ -377,6 +377,9 @@ public interface Exchange {
     /**
      * Creates a copy of the current message exchange so that it can be
      * forwarded to another destination
+     * <p/>
+     * The properties and headers of the copy may be shared copy-on-write with this exchange,
+     * so changes to either exchange is not visible to the other.
      */
     Exchange copy();
 
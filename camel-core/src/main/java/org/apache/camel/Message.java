@@ -27,7 +27,7 @@ import javax.activation.DataHandler;
  * represents an inbound or outbound message as part of an {@link Exchange}.
  * <p/>
  * See {@link org.apache.camel.impl.DefaultMessage DefaultMessage} for how headers
- * is represented in Camel using a {@link org.apache.camel.util.CaseInsensitiveMap CaseInsensitiveMap}.
+ * is represented in Camel using a {@link org.apache.camel.util.CaseInsensitiveHeaderMap CaseInsensitiveHeaderMap}.
  *
  * @version $Revision$
  */
@@ -138,7 +138,7 @@ public interface Message {
      * Returns all of the headers associated with the message.
      * <p/>
      * See {@link org.apache.camel.impl.DefaultMessage DefaultMessage} for how headers
-     * is represented in Camel using a {@link org.apache.camel.util.CaseInsensitiveMap CaseInsensitiveMap}.
+     * is represented in Camel using a {@link org.apache.camel.util.CaseInsensitiveHeaderMap CaseInsensitiveHeaderMap}.
      * <p/>
      * <b>Important:</b> If you want to walk the returned {@link Map} and fetch all the keys and values, you should use
      * the {@link java.util.Map#entrySet()} method, which ensure you get the keys in the original case.
@@ -159,6 +159,17 @@ public class DefaultErrorHandlerBuilder extends ErrorHandlerBuilderSupport {
         return this;
     }
 
+    /**
+     * Sets the maximum number of exchanges waiting for an asynchronous delayed redelivery.
+     *
+     * @see org.apache.camel.processor.RedeliveryPolicy#setMaximumPendingRedeliveries(int)
+     * @return the builder
+     */
+    public DefaultErrorHandlerBuilder maximumPendingRedeliveries(int maximumPendingRedeliveries) {
+        getRedeliveryPolicy().setMaximumPendingRedeliveries(maximumPendingRedeliveries);
+        return this;
+    }
+
     /**
      * Sets whether the exchange should be marked as handled or not.
      *
@@ -39,6 +39,7 @@ import org.apache.camel.impl.ExpressionAdapter;
 import org.apache.camel.language.bean.BeanLanguage;
 import org.apache.camel.model.language.MethodCallExpression;
 import org.apache.camel.spi.Language;
+import org.apache.camel.util.ChannelTokenizer;
 import org.apache.camel.util.ExchangeHelper;
 import org.apache.camel.util.FileUtil;
 import org.apache.camel.util.ObjectHelper;
@@ -51,6 +52,8 @@ import org.apache.camel.util.OgnlHelper;
  */
 public final class ExpressionBuilder {
 
+    private static final Pattern REGEX_META_CHARS = Pattern.compile("[\\\\\\[\\](){}.*+?^$|]");
+
     /**
      * Utility classes should not have a public constructor.
      */
@@ -928,9 +931,35 @@ public final class ExpressionBuilder {
      */
     public static Expression tokenizeExpression(final Expression expression,
                                                 final String token) {
+        return tokenizeExpression(expression, token, 1);
+    }
+
+    /**
+     * Returns a tokenize expression which will tokenize the string with the
+     * given token, grouping the given number of tokens together.
+     * <p/>
+     * Files and streams are tokenized in a streaming fashion by the {@link ChannelTokenizer}
+     * if the token is a literal, which is also used for grouping tokens.
+     *
+     * @throws IllegalArgumentException if grouping tokens using a token which is a regular expression
+     */
+    public static Expression tokenizeExpression(final Expression expression,
+                                                final String token, final int group) {
+        // the scanner treats the token as a regular expression so only use the literal tokenizer
+        // if that does not change the meaning of the token
+        final boolean literal = !REGEX_META_CHARS.matcher(token).find();
+        if (group > 1 && !literal) {
+            throw new IllegalArgumentException("Grouping tokens is only supported with a literal token, was: " + token);
+        }
         return new ExpressionAdapter() {
             public Object evaluate(Exchange exchange) {
                 Object value = expression.evaluate(exchange, Object.class);
+                if (literal) {
+                    ChannelTokenizer tokenizer = ChannelTokenizer.createTokenizer(exchange, value, token, group);
+                    if (tokenizer != null) {
+                        return tokenizer;
+                    }
+                }
                 Scanner scanner = ObjectHelper.getScanner(exchange, value);
                 scanner.useDelimiter(token);
                 return scanner;
@@ -938,6 +967,9 @@ public final class ExpressionBuilder {
 
             @Override
             public String toString() {
+                if (group > 1) {
+                    return "tokenize(" + expression + ", " + token + ", " + group + ")";
+                }
                 return "tokenize(" + expression + ", " + token + ")";
             }
         };
@@ -169,6 +169,15 @@ public class ValueBuilder implements Expression {
         return new ValueBuilder(newExp);
     }
 
+    /**
+     * Tokenizes the string conversion of this expression using the given
+     * token, grouping the given number of tokens together
+     */
+    public ValueBuilder tokenize(String token, int group) {
+        Expression newExp = ExpressionBuilder.tokenizeExpression(expression, token, group);
+        return new ValueBuilder(newExp);
+    }
+
     /**
      * Tokenizes the string conversion of this expression using the given
      * regular expression
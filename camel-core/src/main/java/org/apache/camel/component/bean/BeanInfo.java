@@ -72,6 +72,7 @@ public class BeanInfo {
     private final List<MethodInfo> operationsWithCustomAnnotation = new ArrayList<MethodInfo>();
     private final List<MethodInfo> operationsWithHandlerAnnotation = new ArrayList<MethodInfo>();
     private final Map<Method, MethodInfo> methodMap = new ConcurrentHashMap<Method, MethodInfo>();
+    private final Map<Method, MethodInfo> invocationMethods = new ConcurrentHashMap<Method, MethodInfo>();
     private MethodInfo defaultMethod;
     private BeanInfo superBeanInfo;
 
@@ -122,13 +123,28 @@ public class BeanInfo {
     }
 
     public MethodInvocation createInvocation(Method method, Object pojo, Exchange exchange) {
-        MethodInfo methodInfo = introspect(type, method);
+        MethodInfo methodInfo = getInvocationMethodInfo(method);
         if (methodInfo != null) {
             return methodInfo.createMethodInvocation(pojo, exchange);
         }
         return null;
     }
 
+    /**
+     * Gets the method info used for invoking the given method, which is introspected the first time
+     * the method is invoked, as introspecting creates the parameter bindings.
+     */
+    MethodInfo getInvocationMethodInfo(Method method) {
+        MethodInfo methodInfo = invocationMethods.get(method);
+        if (methodInfo == null) {
+            methodInfo = introspect(type, method);
+            if (methodInfo != null) {
+                invocationMethods.put(method, methodInfo);
+            }
+        }
+        return methodInfo;
+    }
+
     public MethodInvocation createInvocation(Object pojo, Exchange exchange) throws AmbiguousMethodCallException, MethodNotFoundException {
         MethodInfo methodInfo = null;
 
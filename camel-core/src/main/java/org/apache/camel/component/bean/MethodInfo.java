@@ -21,6 +21,7 @@ import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -54,6 +55,7 @@ import static org.apache.camel.util.ObjectHelper.asString;
  */
 public class MethodInfo {
     private static final transient Log LOG = LogFactory.getLog(MethodInfo.class);
+    private static final Object[] EMPTY_ARGUMENTS = new Object[0];
 
     private CamelContext camelContext;
     private Class<?> type;
@@ -106,6 +108,16 @@ public class MethodInfo {
         this.hasHandlerAnnotation = hasHandlerAnnotation;
         this.parametersExpression = createParametersExpression();
 
+        // the method is invoked on every exchange so avoid the access check Method.invoke
+        // does each time, this does not grant any access the method did not already have
+        if (Modifier.isPublic(method.getModifiers()) && Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            try {
+                method.setAccessible(true);
+            } catch (SecurityException e) {
+                // ignore and let Method.invoke do the access check
+            }
+        }
+
         Pattern oneway = findOneWayAnnotation(method);
         if (oneway != null) {
             pattern = oneway.value();
@@ -329,21 +341,43 @@ public class MethodInfo {
         }
 
         final Expression[] expressions = new Expression[size];
+        // the parameter types where primitives are boxed, so we can check whether a value must be converted
+        final Class<?>[] types = new Class<?>[size];
         for (int i = 0; i < size; i++) {
             Expression parameterExpression = parameters.get(i).getExpression();
             expressions[i] = parameterExpression;
+            types[i] = ObjectHelper.convertPrimitiveTypeToWrapperType(parameters.get(i).getType());
             if (LOG.isTraceEnabled()) {
                 LOG.trace("Parameter #" + i + " has expression: " + parameterExpression);
             }
         }
+
+        if (size == 0) {
+            // no parameters so there is nothing to evaluate
+            return new Expression() {
+                @SuppressWarnings("unchecked")
+                public <T> T evaluate(Exchange exchange, Class<T> type) {
+                    return (T) EMPTY_ARGUMENTS;
+                }
+
+                @Override
+                public String toString() {
+                    return "ParametersExpression: []";
+                }
+            };
+        }
+
         return new Expression() {
             @SuppressWarnings("unchecked")
             public <T> T evaluate(Exchange exchange, Class<T> type) {
                 Object[] answer = new Object[size];
-                Object body = exchange.getIn().getBody();
+                Object body = null;
                 boolean multiParameterArray = false;
-                if (exchange.getIn().getHeader(Exchange.BEAN_MULTI_PARAMETER_ARRAY) != null) {
-                    multiParameterArray = exchange.getIn().getHeader(Exchange.BEAN_MULTI_PARAMETER_ARRAY, Boolean.class);
+                Object multi = exchange.getIn().getHeader(Exchange.BEAN_MULTI_PARAMETER_ARRAY);
+                if (multi != null) {
+                    Boolean flag = exchange.getContext().getTypeConverter().convertTo(Boolean.class, multi);
+                    multiParameterArray = flag != null && flag;
+                    body = exchange.getIn().getBody();
                 }
                 for (int i = 0; i < size; i++) {
                     Object value = null;
@@ -354,24 +388,26 @@ public class MethodInfo {
                         if (expression != null) {
                             // use object first to avoid type conversion so we know if there is a value or not
                             Object result = expression.evaluate(exchange, Object.class);
-                            if (result != null) {
+                            if (result == null) {
+                                if (LOG.isTraceEnabled()) {
+                                    LOG.trace("Parameter #" + i + " evaluated as null");
+                                }
+                            } else if (types[i].isInstance(result)) {
+                                // already the expected type so no need to convert
+                                value = result;
+                            } else {
                                 // we got a value now try to convert it to the expected type
                                 try {
                                     value = exchange.getContext().getTypeConverter().mandatoryConvertTo(parameters.get(i).getType(), result);
-                                    if (LOG.isTraceEnabled()) {
-                                        LOG.trace("Parameter #" + i + " evaluated as: " + value + " type: " + ObjectHelper.type(value));
-                                    }
                                 } catch (NoTypeConversionAvailableException e) {
                                     throw ObjectHelper.wrapCamelExecutionException(exchange, e);
                                 }
-                            } else {
-                                if (LOG.isTraceEnabled()) {
-                                    LOG.trace("Parameter #" + i + " evaluated as null");
-                                }
+                            }
+                            if (value != null && LOG.isTraceEnabled()) {
+                                LOG.trace("Parameter #" + i + " evaluated as: " + value + " type: " + ObjectHelper.type(value));
                             }
                         }
                     }
-                    // now lets try to coerce the value to the required type
                     answer[i] = value;
                 }
                 return (T) answer;
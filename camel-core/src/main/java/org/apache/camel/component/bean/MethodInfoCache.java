@@ -17,11 +17,13 @@
 package org.apache.camel.component.bean;
 
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.camel.CamelContext;
 import org.apache.camel.util.CastUtils;
-import org.apache.camel.util.LRUCache;
+import org.apache.camel.util.ConcurrentLRUCache;
 
 /**
  * Represents a cache of MethodInfo objects to avoid the expense of introspection for each invocation of a method
@@ -44,11 +46,11 @@ public class MethodInfoCache {
 
     public MethodInfoCache(CamelContext camelContext, Map<Class<?>, BeanInfo> classCache, Map<Method, MethodInfo> methodCache) {
         this.camelContext = camelContext;
-        this.classCache = classCache;
-        this.methodCache = methodCache;
+        this.classCache = threadSafe(classCache);
+        this.methodCache = threadSafe(methodCache);
     }
 
-    public synchronized MethodInfo getMethodInfo(Method method) {
+    public MethodInfo getMethodInfo(Method method) {
         MethodInfo answer = methodCache.get(method);
         if (answer == null) {
             answer = createMethodInfo(method);
@@ -63,7 +65,7 @@ public class MethodInfoCache {
         return info.getMethodInfo(method);
     }
 
-    protected synchronized BeanInfo getBeanInfo(Class<?> declaringClass) {
+    protected BeanInfo getBeanInfo(Class<?> declaringClass) {
         BeanInfo beanInfo = classCache.get(declaringClass);
         if (beanInfo == null) {
             beanInfo = createBeanInfo(declaringClass);
@@ -77,7 +79,12 @@ public class MethodInfoCache {
     }
 
     protected static Map<Object, Object> createLruCache(int size) {
-        return new LRUCache<Object, Object>(size);
+        return new ConcurrentLRUCache<Object, Object>(size);
+    }
+
+    private static <K, V> Map<K, V> threadSafe(Map<K, V> cache) {
+        // the infos is immutable so its okay if two threads creates the same info concurrently
+        return cache instanceof ConcurrentMap ? cache : Collections.synchronizedMap(cache);
     }
 
     private static Map<Class<?>, BeanInfo> createClassCache(int size) {
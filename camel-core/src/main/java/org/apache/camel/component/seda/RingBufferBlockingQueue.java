@@ -0,0 +1,350 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.seda;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.camel.util.ObjectHelper;
+
+/**
+ * A bounded {@link BlockingQueue} backed by a preallocated ring buffer.
+ * <p/>
+ * Unlike the {@link java.util.concurrent.LinkedBlockingQueue} no node is allocated per element, and producers
+ * and consumers do not take any lock when offering and polling elements. Each slot in the ring has a sequence
+ * number which tells whether the slot is free to be written or ready to be read, and the producers and consumers
+ * claim slots by advancing the tail and head sequence using compare and set.
+ * <p/>
+ * The capacity is rounded up to the nearest power of two, and is at least two, as the sequence number of a slot
+ * could otherwise not tell a published slot from a free slot. How threads wait when the queue is empty (or full)
+ * is controlled by the {@link WaitStrategy}. Only the {@link WaitStrategy#Blocking} strategy use a lock,
+ * and only when a thread actually have to wait.
+ * <p/>
+ * The {@link #iterator()} returns a snapshot of the elements, which does not support removal.
+ *
+ * @version $Revision$
+ */
+public class RingBufferBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    // number of times to spin before yielding when using the yielding wait strategy
+    private static final int SPIN_TRIES = 100;
+
+    private final AtomicReferenceArray<E> buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final WaitStrategy waitStrategy;
+
+    // only used by the blocking wait strategy
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicInteger takeWaiters = new AtomicInteger();
+    private final AtomicInteger putWaiters = new AtomicInteger();
+
+    public RingBufferBlockingQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public RingBufferBlockingQueue(int capacity) {
+        this(capacity, WaitStrategy.Blocking);
+    }
+
+    public RingBufferBlockingQueue(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be a positive number, was: " + capacity);
+        }
+        ObjectHelper.notNull(waitStrategy, "waitStrategy");
+
+        // round up to power of two so we can mask instead of modulus
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.buffer = new AtomicReferenceArray<E>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            // the slot is free to be written at this sequence
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    public int getCapacity() {
+        return buffer.length();
+    }
+
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        for (;;) {
+            long pos = tail.get();
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                // the slot is free so try to claim it
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    buffer.set(index, e);
+                    // publish the element so it can be read
+                    sequences.set(index, pos + 1);
+                    signal(takeWaiters, notEmpty);
+                    return true;
+                }
+            } else if (diff < 0) {
+                // the slot has not been read since last revolution so we are full
+                return false;
+            }
+            // another producer claimed the slot so try again
+        }
+    }
+
+    public E poll() {
+        for (;;) {
+            long pos = head.get();
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                // the slot is published so try to claim it
+                if (head.compareAndSet(pos, pos + 1)) {
+                    E e = buffer.get(index);
+                    buffer.set(index, null);
+                    // free the slot so it can be written on the next revolution
+                    sequences.set(index, pos + buffer.length());
+                    signal(putWaiters, notFull);
+                    return e;
+                }
+            } else if (diff < 0) {
+                // the slot has not yet been published so we are empty
+                return null;
+            }
+            // another consumer claimed the slot so try again
+        }
+    }
+
+    public E peek() {
+        long pos = head.get();
+        int index = (int) pos & mask;
+        if (sequences.get(index) == pos + 1) {
+            // may return null if a consumer polled the element concurrently
+            return buffer.get(index);
+        }
+        return null;
+    }
+
+    public void put(E e) throws InterruptedException {
+        int counter = 0;
+        while (!offer(e)) {
+            counter = waitFor(false, Long.MAX_VALUE, counter);
+        }
+    }
+
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        long deadline = System.nanoTime() + nanos;
+        int counter = 0;
+        while (!offer(e)) {
+            nanos = deadline - System.nanoTime();
+            if (nanos <= 0) {
+                return false;
+            }
+            counter = waitFor(false, nanos, counter);
+        }
+        return true;
+    }
+
+    public E take() throws InterruptedException {
+        int counter = 0;
+        for (;;) {
+            E e = poll();
+            if (e != null) {
+                return e;
+            }
+            counter = waitFor(true, Long.MAX_VALUE, counter);
+        }
+    }
+
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        long deadline = System.nanoTime() + nanos;
+        int counter = 0;
+        for (;;) {
+            E e = poll();
+            if (e != null) {
+                return e;
+            }
+            nanos = deadline - System.nanoTime();
+            if (nanos <= 0) {
+                return null;
+            }
+            counter = waitFor(true, nanos, counter);
+        }
+    }
+
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        while (n < maxElements) {
+            E e = poll();
+            if (e == null) {
+                break;
+            }
+            c.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    public int remainingCapacity() {
+        return buffer.length() - size();
+    }
+
+    @Override
+    public int size() {
+        for (;;) {
+            long before = head.get();
+            long pos = tail.get();
+            if (head.get() == before) {
+                // claimed slots which are not yet published counts as well
+                long size = pos - before;
+                return (int) Math.max(0, Math.min(size, buffer.length()));
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        List<E> answer = new ArrayList<E>();
+        long pos = head.get();
+        long end = tail.get();
+        for (; pos < end; pos++) {
+            int index = (int) pos & mask;
+            if (sequences.get(index) == pos + 1) {
+                E e = buffer.get(index);
+                if (e != null) {
+                    answer.add(e);
+                }
+            }
+        }
+        return Collections.unmodifiableList(answer).iterator();
+    }
+
+    @Override
+    public String toString() {
+        return "RingBufferBlockingQueue[capacity=" + buffer.length() + ", size=" + size() + ", waitStrategy=" + waitStrategy + "]";
+    }
+
+    /**
+     * Waits until the queue is not empty (or not full) according to the wait strategy.
+     *
+     * @param forTake whether we wait to take (or to put)
+     * @param nanos   the maximum time to wait
+     * @param counter the number of times we have waited so far
+     * @return the updated counter
+     */
+    private int waitFor(boolean forTake, long nanos, int counter) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+
+        switch (waitStrategy) {
+        case BusySpin:
+            return counter;
+        case Yielding:
+            if (counter < SPIN_TRIES) {
+                return counter + 1;
+            }
+            Thread.yield();
+            return counter;
+        default:
+            AtomicInteger waiters = forTake ? takeWaiters : putWaiters;
+            Condition condition = forTake ? notEmpty : notFull;
+            lock.lockInterruptibly();
+            try {
+                // must register as waiter before checking so a producer/consumer will signal us
+                waiters.incrementAndGet();
+                try {
+                    if (forTake ? !isReadable() : !isWritable()) {
+                        condition.awaitNanos(nanos);
+                    }
+                } finally {
+                    waiters.decrementAndGet();
+                }
+            } finally {
+                lock.unlock();
+            }
+            return counter;
+        }
+    }
+
+    private void signal(AtomicInteger waiters, Condition condition) {
+        // only take the lock if someone is waiting, which is never the case with the spinning wait strategies
+        if (waiters.get() > 0) {
+            lock.lock();
+            try {
+                condition.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private boolean isReadable() {
+        long pos = head.get();
+        return sequences.get((int) pos & mask) == pos + 1;
+    }
+
+    private boolean isWritable() {
+        long pos = tail.get();
+        return sequences.get((int) pos & mask) == pos;
+    }
+
+}
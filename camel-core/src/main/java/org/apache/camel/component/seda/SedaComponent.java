@@ -19,7 +19,6 @@ package org.apache.camel.component.seda;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 
 import org.apache.camel.Endpoint;
 import org.apache.camel.Exchange;
@@ -43,18 +42,22 @@ public class SedaComponent extends DefaultComponent {
         }
 
         // create queue
-        BlockingQueue<Exchange> queue;
-        Integer size = getAndRemoveParameter(parameters, "size", Integer.class);
-        if (size != null && size > 0) {
-            queue = new LinkedBlockingQueue<Exchange>(size);
-        } else {
-            queue = new LinkedBlockingQueue<Exchange>();
-        }
+        BlockingQueue<Exchange> queue = doCreateQueue(parameters);
 
         queues.put(key, queue);
         return queue;
     }
 
+    /**
+     * Creates a new queue using the <tt>size</tt>, <tt>queueType</tt> and <tt>waitStrategy</tt> parameters.
+     */
+    protected BlockingQueue<Exchange> doCreateQueue(Map<String, Object> parameters) {
+        Integer size = getAndRemoveParameter(parameters, "size", Integer.class);
+        QueueType queueType = getAndRemoveParameter(parameters, "queueType", QueueType.class, QueueType.Linked);
+        WaitStrategy waitStrategy = getAndRemoveParameter(parameters, "waitStrategy", WaitStrategy.class, WaitStrategy.Blocking);
+        return SedaEndpoint.createQueue(size != null ? size : 0, queueType, waitStrategy);
+    }
+
     @Override
     protected Endpoint createEndpoint(String uri, String remaining, Map<String, Object> parameters) throws Exception {
         int consumers = getAndRemoveParameter(parameters, "concurrentConsumers", Integer.class, 1);
@@ -18,13 +18,15 @@ package org.apache.camel.component.seda;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.camel.AsyncCallback;
 import org.apache.camel.AsyncProcessor;
-import org.apache.camel.Consumer;
+import org.apache.camel.BatchConsumer;
 import org.apache.camel.Endpoint;
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
@@ -42,20 +44,30 @@ import org.apache.commons.logging.LogFactory;
 
 /**
  * A Consumer for the SEDA component.
+ * <p/>
+ * By default the consumer takes one exchange at a time from the queue. If {@link #setMaxMessagesPerPoll(int)}
+ * is set to another value than 1, then the consumer drains up to that number of exchanges from the queue
+ * at once. The drained exchanges is processed one by one, and if {@link SedaEndpoint#isBatchConsumer()} is enabled
+ * the exchanges is enriched with the {@link Exchange#BATCH_INDEX}, {@link Exchange#BATCH_SIZE} and
+ * {@link Exchange#BATCH_COMPLETE} properties as a {@link BatchConsumer} does.
  *
  * @version $Revision$
  */
-public class SedaConsumer extends ServiceSupport implements Consumer, Runnable, ShutdownAware {
+public class SedaConsumer extends ServiceSupport implements BatchConsumer, Runnable, ShutdownAware {
     private static final transient Log LOG = LogFactory.getLog(SedaConsumer.class);
 
     private SedaEndpoint endpoint;
     private AsyncProcessor processor;
     private ExecutorService executor;
     private ExceptionHandler exceptionHandler;
+    private int maxMessagesPerPoll;
+    // number of exchanges drained from the queue which is not yet processed
+    private final AtomicInteger pendingExchanges = new AtomicInteger();
 
     public SedaConsumer(SedaEndpoint endpoint, Processor processor) {
         this.endpoint = endpoint;
         this.processor = AsyncProcessorTypeConverter.convert(processor);
+        this.maxMessagesPerPoll = endpoint.getMaxMessagesPerPoll();
     }
 
     @Override
@@ -89,12 +101,32 @@ public class SedaConsumer extends ServiceSupport implements Consumer, Runnable,
     }
 
     public int getPendingExchangesSize() {
-        // number of pending messages on the queue
-        return endpoint.getQueue().size();
+        // number of pending messages on the queue and the messages we have drained but not yet processed
+        return endpoint.getQueue().size() + pendingExchanges.get();
+    }
+
+    public int getMaxMessagesPerPoll() {
+        return maxMessagesPerPoll;
+    }
+
+    /**
+     * Sets the maximum number of exchanges to take from the queue at each poll.
+     * <p/>
+     * Is default 1 to take one exchange at a time. Use 0 or a negative number to take all the exchanges on the queue.
+     */
+    public void setMaxMessagesPerPoll(int maxMessagesPerPoll) {
+        this.maxMessagesPerPoll = maxMessagesPerPoll;
+    }
+
+    public boolean isBatchAllowed() {
+        return isRunAllowed();
     }
 
     public void run() {
         BlockingQueue<Exchange> queue = endpoint.getQueue();
+        // reuse the same list to drain the queue, so we do not create a new list on each poll
+        List<Exchange> batch = maxMessagesPerPoll != 1 ? new ArrayList<Exchange>() : null;
+
         while (queue != null && isRunAllowed()) {
             final Exchange exchange;
             try {
@@ -105,31 +137,101 @@ public class SedaConsumer extends ServiceSupport implements Consumer, Runnable,
                 }
                 continue;
             }
-            if (exchange != null) {
-                if (isRunAllowed()) {
-                    try {
-                        sendToConsumers(exchange);
-
-                        // log exception if an exception occurred and was not handled
-                        if (exchange.getException() != null) {
-                            getExceptionHandler().handleException("Error processing exchange", exchange, exchange.getException());
-                        }
-                    } catch (Exception e) {
-                        getExceptionHandler().handleException("Error processing exchange", exchange, e);
-                    }
-                } else {
-                    if (LOG.isWarnEnabled()) {
-                        LOG.warn("This consumer is stopped during polling an exchange, so putting it back on the seda queue: " + exchange);
-                    }
-                    try {
-                        queue.put(exchange);
-                    } catch (InterruptedException e) {
-                        if (LOG.isDebugEnabled()) {
-                            LOG.debug("Sleep interrupted, are we stopping? " + (isStopping() || isStopped()));
-                        }
-                        continue;
+            if (exchange == null) {
+                continue;
+            }
+
+            if (batch == null) {
+                processExchange(queue, exchange);
+            } else {
+                // drain the exchanges which is already on the queue, so we do not have to wait for each of them
+                batch.add(exchange);
+                int max = maxMessagesPerPoll > 0 ? maxMessagesPerPoll - 1 : Integer.MAX_VALUE;
+                queue.drainTo(batch, max);
+                pendingExchanges.addAndGet(batch.size());
+                try {
+                    processBatch(queue, batch);
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Processes the batch of exchanges.
+     * <p/>
+     * This is not used by the consumer itself, as it drains the queue and processes the exchanges directly.
+     */
+    public void processBatch(Queue<Object> exchanges) throws Exception {
+        List<Exchange> batch = new ArrayList<Exchange>(exchanges.size());
+        while (!exchanges.isEmpty()) {
+            batch.add((Exchange) exchanges.poll());
+        }
+        pendingExchanges.addAndGet(batch.size());
+        processBatch(endpoint.getQueue(), batch);
+    }
+
+    protected void processBatch(BlockingQueue<Exchange> queue, List<Exchange> batch) {
+        int total = batch.size();
+        boolean batchConsumer = endpoint.isBatchConsumer();
+
+        for (int index = 0; index < total; index++) {
+            Exchange exchange = batch.get(index);
+            if (batchConsumer) {
+                // add current index and total as properties
+                exchange.setProperty(Exchange.BATCH_INDEX, index);
+                exchange.setProperty(Exchange.BATCH_SIZE, total);
+                exchange.setProperty(Exchange.BATCH_COMPLETE, index == total - 1);
+            }
+            try {
+                if (!processExchange(queue, exchange)) {
+                    // we are stopping so put the remainder back on the queue as well
+                    for (int i = index + 1; i < total; i++) {
+                        pendingExchanges.decrementAndGet();
+                        putBack(queue, batch.get(i));
                     }
+                    return;
+                }
+            } finally {
+                pendingExchanges.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Processes the exchange
+     *
+     * @return <tt>true</tt> if processed, <tt>false</tt> if we are stopping and the exchange was put back on the queue
+     */
+    private boolean processExchange(BlockingQueue<Exchange> queue, Exchange exchange) {
+        if (isRunAllowed()) {
+            try {
+                sendToConsumers(exchange);
+
+                // log exception if an exception occurred and was not handled
+                if (exchange.getException() != null) {
+                    getExceptionHandler().handleException("Error processing exchange", exchange, exchange.getException());
                 }
+            } catch (Exception e) {
+                getExceptionHandler().handleException("Error processing exchange", exchange, e);
+            }
+            return true;
+        } else {
+            putBack(queue, exchange);
+            return false;
+        }
+    }
+
+    private void putBack(BlockingQueue<Exchange> queue, Exchange exchange) {
+        if (LOG.isWarnEnabled()) {
+            LOG.warn("This consumer is stopped during polling an exchange, so putting it back on the seda queue: " + exchange);
+        }
+        try {
+            queue.put(exchange);
+        } catch (InterruptedException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Sleep interrupted, are we stopping? " + (isStopping() || isStopped()));
             }
         }
     }
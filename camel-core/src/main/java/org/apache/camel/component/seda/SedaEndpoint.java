@@ -46,6 +46,10 @@ import org.apache.camel.spi.BrowsableEndpoint;
 public class SedaEndpoint extends DefaultEndpoint implements BrowsableEndpoint, MultipleConsumersSupport {
     private volatile BlockingQueue<Exchange> queue;
     private int size;
+    private QueueType queueType = QueueType.Linked;
+    private WaitStrategy waitStrategy = WaitStrategy.Blocking;
+    private int maxMessagesPerPoll = 1;
+    private boolean batchConsumer;
     private int concurrentConsumers = 1;
     private volatile ExecutorService multicastExecutor;
     private boolean multipleConsumers;
@@ -64,8 +68,7 @@ public class SedaEndpoint extends DefaultEndpoint implements BrowsableEndpoint,
 
     public SedaEndpoint(String endpointUri, Component component, BlockingQueue<Exchange> queue, int concurrentConsumers) {
         super(endpointUri, component);
-        this.queue = queue;
-        this.size = queue.remainingCapacity();
+        setQueue(queue);
         this.concurrentConsumers = concurrentConsumers;
     }
 
@@ -75,8 +78,7 @@ public class SedaEndpoint extends DefaultEndpoint implements BrowsableEndpoint,
 
     public SedaEndpoint(String endpointUri, BlockingQueue<Exchange> queue, int concurrentConsumers) {
         super(endpointUri);
-        this.queue = queue;
-        this.size = queue.remainingCapacity();
+        setQueue(queue);
         this.concurrentConsumers = concurrentConsumers;
     }
     
@@ -90,14 +92,29 @@ public class SedaEndpoint extends DefaultEndpoint implements BrowsableEndpoint,
 
     public synchronized BlockingQueue<Exchange> getQueue() {
         if (queue == null) {
-            if (size > 0) {
-                queue = new LinkedBlockingQueue<Exchange>(size);
-            } else {
-                queue = new LinkedBlockingQueue<Exchange>();
-            }
+            queue = createQueue(size, queueType, waitStrategy);
         }
         return queue;
     }
+
+    /**
+     * Creates a new queue
+     *
+     * @param size         the size of the queue, use 0 or negative for the default size
+     * @param queueType    the type of queue
+     * @param waitStrategy the wait strategy, only used by the ring buffer
+     * @return the queue
+     */
+    public static BlockingQueue<Exchange> createQueue(int size, QueueType queueType, WaitStrategy waitStrategy) {
+        if (queueType == QueueType.RingBuffer) {
+            // a ring buffer is always bounded
+            return new RingBufferBlockingQueue<Exchange>(size > 0 ? size : RingBufferBlockingQueue.DEFAULT_CAPACITY, waitStrategy);
+        } else if (size > 0) {
+            return new LinkedBlockingQueue<Exchange>(size);
+        } else {
+            return new LinkedBlockingQueue<Exchange>();
+        }
+    }
     
     protected synchronized MulticastProcessor getConumserMulticastProcessor() {
         return conumserMulticastProcessor;
@@ -126,6 +143,10 @@ public class SedaEndpoint extends DefaultEndpoint implements BrowsableEndpoint,
     public void setQueue(BlockingQueue<Exchange> queue) {
         this.queue = queue;
         this.size = queue.remainingCapacity();
+        if (queue instanceof RingBufferBlockingQueue) {
+            this.queueType = QueueType.RingBuffer;
+            this.waitStrategy = ((RingBufferBlockingQueue) queue).getWaitStrategy();
+        }
     }
 
     public int getSize() {
@@ -136,6 +157,52 @@ public class SedaEndpoint extends DefaultEndpoint implements BrowsableEndpoint,
         this.size = size;
     }
 
+    public QueueType getQueueType() {
+        return queueType;
+    }
+
+    /**
+     * The type of queue to create, such as a preallocated ring buffer. Is only used when the queue is created.
+     */
+    public void setQueueType(QueueType queueType) {
+        this.queueType = queueType;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    /**
+     * How to wait on an empty (or full) ring buffer queue.
+     */
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+
+    public int getMaxMessagesPerPoll() {
+        return maxMessagesPerPoll;
+    }
+
+    /**
+     * The maximum number of exchanges the consumer takes from the queue at once.
+     * Is default 1, use 0 or a negative number to take all the exchanges on the queue.
+     */
+    public void setMaxMessagesPerPoll(int maxMessagesPerPoll) {
+        this.maxMessagesPerPoll = maxMessagesPerPoll;
+    }
+
+    public boolean isBatchConsumer() {
+        return batchConsumer;
+    }
+
+    /**
+     * Whether the exchanges the consumer takes from the queue at once should be processed as a batch,
+     * with the batch index, size and complete properties set on each exchange.
+     */
+    public void setBatchConsumer(boolean batchConsumer) {
+        this.batchConsumer = batchConsumer;
+    }
+
     public void setConcurrentConsumers(int concurrentConsumers) {
         this.concurrentConsumers = concurrentConsumers;
     }
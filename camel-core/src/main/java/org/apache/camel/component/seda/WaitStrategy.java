@@ -0,0 +1,42 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.seda;
+
+/**
+ * How threads wait on a {@link RingBufferBlockingQueue} when the queue is empty (or full).
+ *
+ * @version $Revision$
+ */
+public enum WaitStrategy {
+
+    /**
+     * Park the thread until its signalled. Uses the least CPU and is the default.
+     */
+    Blocking,
+
+    /**
+     * Spin a while and then yield the thread. Lower latency at the cost of some CPU usage.
+     */
+    Yielding,
+
+    /**
+     * Spin without yielding. Lowest latency but occupies a CPU core per waiting thread,
+     * so only use it when you have a core to spare for each consumer.
+     */
+    BusySpin
+
+}
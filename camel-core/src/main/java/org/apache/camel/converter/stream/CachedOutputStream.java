@@ -42,13 +42,18 @@ import org.apache.commons.logging.LogFactory;
  * You can get a cached input stream of this stream. The temp file which is created with this 
  * output stream will be deleted when you close this output stream or the all cached 
  * fileInputStream is closed after the exchange is completed.
+ * <p/>
+ * If a {@link StreamCachePool} is configured on the {@link org.apache.camel.CamelContext} the content
+ * is cached in chunks of the pool instead, using the threshold to decide when to spool the chunks
+ * to the spool file of the pool. The pool is only used when the stream is closed on completion of the exchange.
  */
 public class CachedOutputStream extends OutputStream {
     public static final String THRESHOLD = "CamelCachedOutputStreamThreshold";
     public static final String TEMP_DIR = "CamelCachedOutputStreamOutputDirectory";
     private static final transient Log LOG = LogFactory.getLog(CachedOutputStream.class);
     
-    private OutputStream currentStream = new ByteArrayOutputStream(2048);
+    private OutputStream currentStream;
+    private PooledOutputStream pooledStream;
     private boolean inMemory = true;
     private int totalLength;
     private File tempFile;
@@ -70,6 +75,16 @@ public class CachedOutputStream extends OutputStream {
         if (dir != null) {
             this.outputDir = exchange.getContext().getTypeConverter().convertTo(File.class, dir);
         }
+
+        // only use the pool if we close the stream when the exchange is done, as otherwise
+        // the chunks would not be returned to the pool if the caller does not close the stream
+        StreamCachePool pool = exchange.getContext().getStreamCachePool();
+        if (closedOnCompletion && pool != null && pool.isStarted()) {
+            pooledStream = pool.createOutputStream(threshold);
+            currentStream = pooledStream;
+        } else {
+            currentStream = new ByteArrayOutputStream(2048);
+        }
         
         if (closedOnCompletion) {
             // add on completion so we can cleanup after the exchange is done such as deleting temporary files
@@ -142,6 +157,10 @@ public class CachedOutputStream extends OutputStream {
     public InputStream getInputStream() throws IOException {
         flush();
 
+        if (pooledStream != null) {
+            return (InputStream) pooledStream.getStreamCache();
+        }
+
         if (inMemory) {
             if (currentStream instanceof ByteArrayOutputStream) {
                 return new ByteArrayInputStream(((ByteArrayOutputStream) currentStream).toByteArray());
@@ -169,6 +188,10 @@ public class CachedOutputStream extends OutputStream {
     public StreamCache getStreamCache() throws IOException {
         flush();
 
+        if (pooledStream != null) {
+            return pooledStream.getStreamCache();
+        }
+
         if (inMemory) {
             if (currentStream instanceof ByteArrayOutputStream) {
                 return new InputStreamCache(((ByteArrayOutputStream) currentStream).toByteArray());
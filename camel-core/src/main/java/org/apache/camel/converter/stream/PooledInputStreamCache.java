@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.converter.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import org.apache.camel.StreamCache;
+import org.apache.camel.util.IOHelper;
+
+/**
+ * A {@link StreamCache} reading the chunks cached by a {@link PooledOutputStream}.
+ *
+ * @version $Revision$
+ */
+public class PooledInputStreamCache extends InputStream implements StreamCache {
+    private final PooledOutputStream owner;
+    private final StreamCachePool.Chunk[] chunks;
+    private final long length;
+    private final int chunkSize;
+    private long position;
+    private long mark;
+
+    PooledInputStreamCache(PooledOutputStream owner, StreamCachePool.Chunk[] chunks, long length) {
+        this.owner = owner;
+        this.chunks = chunks;
+        this.length = length;
+        this.chunkSize = chunks.length > 0 ? chunks[0].buffer.capacity() : 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkReleased();
+        if (position >= length) {
+            return -1;
+        }
+        int index = (int) (position / chunkSize);
+        int offset = (int) (position % chunkSize);
+        int answer = chunks[index].buffer.get(offset) & 0xff;
+        // the chunks may have been released and reused while we were reading
+        checkReleased();
+        position++;
+        return answer;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        checkReleased();
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= length) {
+            return -1;
+        }
+        int total = 0;
+        while (len > 0 && position < length) {
+            int index = (int) (position / chunkSize);
+            int offset = (int) (position % chunkSize);
+            int n = (int) Math.min(Math.min(len, chunkSize - offset), length - position);
+            ByteBuffer source = chunks[index].buffer.duplicate();
+            source.limit(offset + n);
+            source.position(offset);
+            source.get(b, off, n);
+            position += n;
+            off += n;
+            len -= n;
+            total += n;
+        }
+        // the chunks may have been released and reused while we were reading
+        checkReleased();
+        return total;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        checkReleased();
+        long skipped = Math.max(0, Math.min(n, length - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        checkReleased();
+        return (int) Math.min(Integer.MAX_VALUE, length - position);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        mark = position;
+    }
+
+    @Override
+    public synchronized void reset() {
+        position = mark;
+    }
+
+    public void writeTo(OutputStream os) throws IOException {
+        IOHelper.copy(this, os);
+    }
+
+    /**
+     * Checks the chunks has not been released. This is checked both before and after reading from the chunks,
+     * as the owner marks itself as released before it returns the chunks to the pool, so if the chunks is not
+     * released after the read, then the data we read has not been overwritten by another stream.
+     */
+    private void checkReleased() throws IOException {
+        if (owner.isReleased()) {
+            throw new IOException("Stream cache has been released");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PooledInputStreamCache[size: " + length + "]";
+    }
+}
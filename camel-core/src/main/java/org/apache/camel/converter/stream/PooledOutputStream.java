@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.converter.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.camel.StreamCache;
+
+/**
+ * An output stream which caches the data in chunks acquired from a {@link StreamCachePool}.
+ * <p/>
+ * Closing the stream releases the chunks back to the pool, after which the
+ * stream caches created by this stream can no longer be read.
+ *
+ * @version $Revision$
+ */
+public class PooledOutputStream extends OutputStream {
+    private final StreamCachePool pool;
+    private final long threshold;
+    private final List<StreamCachePool.Chunk> chunks = new ArrayList<StreamCachePool.Chunk>();
+    private StreamCachePool.Chunk current;
+    private long length;
+    private volatile boolean released;
+
+    PooledOutputStream(StreamCachePool pool, long threshold) {
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureChunk();
+        current.buffer.put((byte) b);
+        length++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            ensureChunk();
+            int n = Math.min(len, current.buffer.remaining());
+            current.buffer.put(b, off, n);
+            length += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!released) {
+            // mark as released before the chunks is returned to the pool, see PooledInputStreamCache
+            released = true;
+            if (current != null) {
+                pool.written(current, current.buffer.position());
+            }
+            for (StreamCachePool.Chunk chunk : chunks) {
+                pool.release(chunk);
+            }
+            chunks.clear();
+            current = null;
+        }
+    }
+
+    /**
+     * Creates a new stream cache which reads the data written so far.
+     */
+    public StreamCache getStreamCache() throws IOException {
+        if (released) {
+            throw new IOException("Stream cache has been released");
+        }
+        return new PooledInputStreamCache(this, chunks.toArray(new StreamCachePool.Chunk[chunks.size()]), length);
+    }
+
+    public long length() {
+        return length;
+    }
+
+    boolean isReleased() {
+        return released;
+    }
+
+    private void ensureChunk() throws IOException {
+        if (released) {
+            throw new IOException("Stream cache has been released");
+        }
+        if (current == null || !current.buffer.hasRemaining()) {
+            if (current != null) {
+                // update the statistics once per chunk rather than for every write
+                pool.written(current, current.buffer.position());
+            }
+            boolean inMemory = threshold <= 0 || length < threshold;
+            current = pool.acquire(inMemory);
+            chunks.add(current);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PooledOutputStream[size: " + length + "]";
+    }
+}
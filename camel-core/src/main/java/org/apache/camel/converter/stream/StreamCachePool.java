@@ -0,0 +1,337 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.converter.stream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.camel.impl.ServiceSupport;
+import org.apache.camel.util.FileUtil;
+import org.apache.camel.util.IOHelper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A pool of fixed size chunks used by {@link CachedOutputStream} to cache streams, instead of
+ * growing byte arrays and creating a temporary file per stream.
+ * <p/>
+ * Chunks are kept in memory as direct buffers sliced from larger slabs, bounded by a global
+ * memory budget shared by all streams of the {@link org.apache.camel.CamelContext}. When the
+ * budget is used, or a stream is larger than its threshold, the chunks are spooled to a single
+ * memory mapped spool file instead. The chunks are returned to the pool when the stream cache is
+ * closed, which by default happens when the exchange is done, so the memory and spool file slots
+ * are reused by the following streams.
+ * <p/>
+ * <b>Important:</b> as chunks are reused a stream cache must not be read after its exchange is done,
+ * which can happen if the stream cache is handed over to another exchange, such as by the wire tap.
+ * Reading a released stream cache fails with an {@link IOException}.
+ * <p/>
+ * Configure the pool using {@link org.apache.camel.CamelContext#setStreamCachePool(StreamCachePool)}.
+ *
+ * @version $Revision$
+ */
+public class StreamCachePool extends ServiceSupport {
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+    public static final long DEFAULT_MAX_MEMORY = 32 * 1024 * 1024;
+    private static final transient Log LOG = LogFactory.getLog(StreamCachePool.class);
+    private static final int SLAB_SIZE = 1024 * 1024;
+    private static final int SEGMENT_CHUNKS = 64;
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private long maxMemory = DEFAULT_MAX_MEMORY;
+    private File spoolDirectory;
+
+    private final Queue<Chunk> freeMemoryChunks = new ConcurrentLinkedQueue<Chunk>();
+    private final Queue<Chunk> freeSpoolChunks = new ConcurrentLinkedQueue<Chunk>();
+    private final AtomicLong memoryAllocated = new AtomicLong();
+    private final AtomicInteger memoryChunksInUse = new AtomicInteger();
+    private final AtomicInteger spoolChunksInUse = new AtomicInteger();
+    private final AtomicLong totalInMemoryBytes = new AtomicLong();
+    private final AtomicLong totalSpooledBytes = new AtomicLong();
+    private final Object lock = new Object();
+    private File spoolFile;
+    private RandomAccessFile spoolAccess;
+    private int spoolSegments;
+    private volatile int generation;
+
+    /**
+     * A chunk of cached data, either in memory or a slot in the spool file.
+     */
+    static final class Chunk {
+        final ByteBuffer buffer;
+        final boolean spooled;
+        final int generation;
+
+        Chunk(ByteBuffer buffer, boolean spooled, int generation) {
+            this.buffer = buffer;
+            this.spooled = spooled;
+            this.generation = generation;
+        }
+    }
+
+    public StreamCachePool() {
+    }
+
+    public StreamCachePool(long maxMemory) {
+        this.maxMemory = maxMemory;
+    }
+
+    /**
+     * Creates a new output stream which caches the written data in chunks of this pool.
+     *
+     * @param threshold number of bytes the stream may keep in memory before it is spooled, use 0 or negative for no limit
+     * @return the output stream
+     */
+    public PooledOutputStream createOutputStream(long threshold) {
+        return new PooledOutputStream(this, threshold);
+    }
+
+    /**
+     * Acquires a chunk, which is in memory if allowed and the memory budget permits, otherwise spooled.
+     */
+    Chunk acquire(boolean inMemory) throws IOException {
+        Chunk chunk = null;
+        if (inMemory) {
+            chunk = freeMemoryChunks.poll();
+            if (chunk == null) {
+                chunk = allocateMemoryChunks();
+            }
+        }
+        if (chunk != null) {
+            memoryChunksInUse.incrementAndGet();
+        } else {
+            chunk = freeSpoolChunks.poll();
+            if (chunk == null) {
+                chunk = allocateSpoolChunks();
+            }
+            spoolChunksInUse.incrementAndGet();
+        }
+        chunk.buffer.clear();
+        return chunk;
+    }
+
+    /**
+     * Returns the chunk to the pool so it can be reused
+     */
+    void release(Chunk chunk) {
+        if (chunk.generation != generation) {
+            // the chunk was acquired before the pool was restarted
+            return;
+        }
+        if (chunk.spooled) {
+            spoolChunksInUse.decrementAndGet();
+            freeSpoolChunks.add(chunk);
+        } else {
+            memoryChunksInUse.decrementAndGet();
+            freeMemoryChunks.add(chunk);
+        }
+    }
+
+    void written(Chunk chunk, int bytes) {
+        if (chunk.spooled) {
+            totalSpooledBytes.addAndGet(bytes);
+        } else {
+            totalInMemoryBytes.addAndGet(bytes);
+        }
+    }
+
+    private Chunk allocateMemoryChunks() {
+        synchronized (lock) {
+            // another thread may have allocated a slab meanwhile
+            Chunk chunk = freeMemoryChunks.poll();
+            if (chunk != null) {
+                return chunk;
+            }
+            long available = maxMemory - memoryAllocated.get();
+            int size = (int) Math.min(Math.max(SLAB_SIZE, chunkSize), available);
+            int chunks = size / chunkSize;
+            if (chunks == 0) {
+                // the memory budget is used
+                return null;
+            }
+            ByteBuffer slab = ByteBuffer.allocateDirect(chunks * chunkSize);
+            memoryAllocated.addAndGet(chunks * chunkSize);
+            for (int i = 1; i < chunks; i++) {
+                freeMemoryChunks.add(new Chunk(slice(slab, i * chunkSize), false, generation));
+            }
+            return new Chunk(slice(slab, 0), false, generation);
+        }
+    }
+
+    private Chunk allocateSpoolChunks() throws IOException {
+        synchronized (lock) {
+            Chunk chunk = freeSpoolChunks.poll();
+            if (chunk != null) {
+                return chunk;
+            }
+            if (spoolAccess == null) {
+                if (!isStarted()) {
+                    throw new IOException("StreamCachePool is not started");
+                }
+                spoolFile = spoolDirectory != null
+                        ? FileUtil.createTempFile("camel-spool", ".tmp", spoolDirectory) : FileUtil.createTempFile("camel-spool", ".tmp");
+                spoolAccess = new RandomAccessFile(spoolFile, "rw");
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Created stream cache spool file: " + spoolFile);
+                }
+            }
+            // grow the spool file with a new segment of chunks
+            long segmentSize = (long) chunkSize * SEGMENT_CHUNKS;
+            MappedByteBuffer segment = spoolAccess.getChannel().map(FileChannel.MapMode.READ_WRITE, spoolSegments * segmentSize, segmentSize);
+            spoolSegments++;
+            for (int i = 1; i < SEGMENT_CHUNKS; i++) {
+                freeSpoolChunks.add(new Chunk(slice(segment, i * chunkSize), true, generation));
+            }
+            return new Chunk(slice(segment, 0), true, generation);
+        }
+    }
+
+    private ByteBuffer slice(ByteBuffer buffer, int offset) {
+        ByteBuffer answer = buffer.duplicate();
+        answer.position(offset);
+        answer.limit(offset + chunkSize);
+        return answer.slice();
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("ChunkSize must be positive, was: " + chunkSize);
+        }
+        if (spoolDirectory != null && !spoolDirectory.exists()) {
+            spoolDirectory.mkdirs();
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        synchronized (lock) {
+            generation++;
+            freeMemoryChunks.clear();
+            freeSpoolChunks.clear();
+            memoryAllocated.set(0);
+            memoryChunksInUse.set(0);
+            spoolChunksInUse.set(0);
+            spoolSegments = 0;
+            if (spoolAccess != null) {
+                IOHelper.close(spoolAccess.getChannel(), "spool file", LOG);
+                spoolAccess = null;
+                FileUtil.deleteFile(spoolFile);
+                spoolFile = null;
+            }
+        }
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Size of the chunks the streams are cached in, default 16kb
+     */
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    /**
+     * The maximum number of bytes all the streams may keep in memory, default 32mb
+     */
+    public void setMaxMemory(long maxMemory) {
+        this.maxMemory = maxMemory;
+    }
+
+    public File getSpoolDirectory() {
+        return spoolDirectory;
+    }
+
+    /**
+     * Directory of the spool file, uses the temporary directory by default
+     */
+    public void setSpoolDirectory(File spoolDirectory) {
+        this.spoolDirectory = spoolDirectory;
+    }
+
+    public File getSpoolFile() {
+        return spoolFile;
+    }
+
+    /**
+     * Number of bytes of memory allocated for chunks
+     */
+    public long getMemoryAllocated() {
+        return memoryAllocated.get();
+    }
+
+    /**
+     * Number of bytes of memory in use by stream caches
+     */
+    public long getMemoryUsed() {
+        return (long) memoryChunksInUse.get() * chunkSize;
+    }
+
+    /**
+     * Number of bytes of the spool file
+     */
+    public long getSpoolSize() {
+        synchronized (lock) {
+            return (long) spoolSegments * SEGMENT_CHUNKS * chunkSize;
+        }
+    }
+
+    /**
+     * Number of bytes of the spool file in use by stream caches
+     */
+    public long getSpoolUsed() {
+        return (long) spoolChunksInUse.get() * chunkSize;
+    }
+
+    /**
+     * Total number of bytes which has been cached in memory
+     */
+    public long getTotalInMemoryBytes() {
+        return totalInMemoryBytes.get();
+    }
+
+    /**
+     * Total number of bytes which has been spooled to the spool file
+     */
+    public long getTotalSpooledBytes() {
+        return totalSpooledBytes.get();
+    }
+
+    public void resetStatistics() {
+        totalInMemoryBytes.set(0);
+        totalSpooledBytes.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "StreamCachePool[maxMemory: " + maxMemory + ", chunkSize: " + chunkSize + "]";
+    }
+}
@@ -40,6 +40,15 @@ public class ActiveMQUuidGenerator implements UuidGenerator {
     private String seed;
     private final AtomicLong sequence = new AtomicLong(1);
     private final int length;
+    // a buffer per thread which holds the seed, so only the sequence needs to be written for each id
+    private final ThreadLocal<char[]> buffers = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            char[] buffer = new char[length];
+            seed.getChars(0, seed.length(), buffer, 0);
+            return buffer;
+        }
+    };
 
     static {
         String stub = "";
@@ -92,10 +101,28 @@ public class ActiveMQUuidGenerator implements UuidGenerator {
     }
 
     public String generateUuid() {
-        StringBuilder sb = new StringBuilder(length);
-        sb.append(seed);
-        sb.append(sequence.getAndIncrement());
-        return sb.toString();
+        char[] buffer = buffers.get();
+        int end = writeSequence(buffer, seed.length(), sequence.getAndIncrement());
+        return new String(buffer, 0, end);
+    }
+
+    /**
+     * Writes the decimal digits of the (positive) sequence number into the buffer at the given offset
+     *
+     * @return the end offset of the digits
+     */
+    private static int writeSequence(char[] buffer, int offset, long value) {
+        int digits = 1;
+        for (long limit = 10; digits < 19 && value >= limit; limit *= 10) {
+            digits++;
+        }
+        int end = offset + digits;
+        int pos = end;
+        do {
+            buffer[--pos] = (char) ('0' + (int) (value % 10));
+            value /= 10;
+        } while (value != 0);
+        return end;
     }
 
     /**
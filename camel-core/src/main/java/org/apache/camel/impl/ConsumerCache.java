@@ -17,6 +17,7 @@
 package org.apache.camel.impl;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
@@ -25,7 +26,7 @@ import org.apache.camel.FailedToCreateConsumerException;
 import org.apache.camel.IsSingleton;
 import org.apache.camel.PollingConsumer;
 import org.apache.camel.util.CamelContextHelper;
-import org.apache.camel.util.LRUCache;
+import org.apache.camel.util.ConcurrentLRUCache;
 import org.apache.camel.util.ServiceHelper;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -45,7 +46,7 @@ public class ConsumerCache extends ServiceSupport {
     }
 
     public ConsumerCache(CamelContext camelContext, int maximumCacheSize) {
-        this(camelContext, new LRUCache<String, PollingConsumer>(maximumCacheSize));
+        this(camelContext, new ConcurrentLRUCache<String, PollingConsumer>(maximumCacheSize));
     }
 
     public ConsumerCache(CamelContext camelContext, Map<String, PollingConsumer> cache) {
@@ -53,7 +54,20 @@ public class ConsumerCache extends ServiceSupport {
         this.consumers = cache;
     }
 
-    public synchronized PollingConsumer getConsumer(Endpoint endpoint) {
+    public PollingConsumer getConsumer(Endpoint endpoint) {
+        if (consumers instanceof ConcurrentMap) {
+            // lookup the cached consumers without locking, which is the common case
+            PollingConsumer answer = consumers.get(endpoint.getEndpointUri());
+            if (answer != null) {
+                return answer;
+            }
+        }
+        synchronized (this) {
+            return doGetOrCreateConsumer(endpoint);
+        }
+    }
+
+    private PollingConsumer doGetOrCreateConsumer(Endpoint endpoint) {
         String key = endpoint.getEndpointUri();
         PollingConsumer answer = consumers.get(key);
         if (answer == null) {
@@ -61,6 +61,7 @@ import org.apache.camel.TypeConverter;
 import org.apache.camel.VetoCamelContextStartException;
 import org.apache.camel.builder.ErrorHandlerBuilder;
 import org.apache.camel.component.properties.PropertiesComponent;
+import org.apache.camel.converter.stream.StreamCachePool;
 import org.apache.camel.impl.converter.DefaultTypeConverter;
 import org.apache.camel.management.DefaultManagementAgent;
 import org.apache.camel.management.DefaultManagementLifecycleStrategy;
@@ -172,6 +173,7 @@ public class DefaultCamelContext extends ServiceSupport implements CamelContext,
     private ProcessorFactory processorFactory;
     private InterceptStrategy defaultTracer;
     private InflightRepository inflightRepository = new DefaultInflightRepository();
+    private StreamCachePool streamCachePool;
     private final List<RouteStartupOrder> routeStartupOrder = new ArrayList<RouteStartupOrder>();
     // start auto assigning route ids using numbering 1000 and upwards
     private int defaultRouteStartupOrder = 1000;
@@ -1294,6 +1296,9 @@ public class DefaultCamelContext extends ServiceSupport implements CamelContext,
         addService(producerServicePool);
         addService(inflightRepository);
         addService(shutdownStrategy);
+        if (streamCachePool != null) {
+            addService(streamCachePool);
+        }
 
         startServices(components.values());
 
@@ -2009,6 +2014,14 @@ public class DefaultCamelContext extends ServiceSupport implements CamelContext,
         this.inflightRepository = repository;
     }
 
+    public StreamCachePool getStreamCachePool() {
+        return streamCachePool;
+    }
+
+    public void setStreamCachePool(StreamCachePool streamCachePool) {
+        this.streamCachePool = streamCachePool;
+    }
+
     public void setAutoStartup(Boolean autoStartup) {
         this.autoStartup = autoStartup;
     }
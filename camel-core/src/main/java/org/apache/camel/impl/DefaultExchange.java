@@ -17,8 +17,10 @@
 package org.apache.camel.impl;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.camel.CamelContext;
@@ -39,11 +41,19 @@ import org.apache.camel.util.ObjectHelper;
 public final class DefaultExchange implements Exchange {
 
     protected final CamelContext context;
-    private Map<String, Object> properties;
+    // the properties set on this exchange since it was last copied, over the properties it shares
+    private volatile Map<String, Object> properties;
+    // the properties shared with the exchange this exchange was copied from, and with its own copies
+    private volatile SharedProperties sharedProperties;
+    // whether the properties map has been handed out to the caller who can mutate it at any time,
+    // and thus cannot be shared with a copy of this exchange
+    private volatile boolean propertiesExposed;
     private Message in;
     private Message out;
     private Exception exception;
-    private String exchangeId;
+    private volatile String exchangeId;
+    // the id shared with the exchange this exchange was created from, so the id is only created when needed
+    private SharedId sharedExchangeId;
     private UnitOfWork unitOfWork;
     private ExchangePattern pattern;
     private Endpoint fromEndpoint;
@@ -83,7 +93,8 @@ public final class DefaultExchange implements Exchange {
     public Exchange copy() {
         DefaultExchange exchange = new DefaultExchange(this);
 
-        exchange.setProperties(safeCopy(getProperties()));
+        // the copy shares the properties, and sets its own properties in a map over the shared properties
+        exchange.sharedProperties = freezeProperties();
         safeCopy(exchange.getIn(), getIn());
         if (hasOut()) {
             safeCopy(exchange.getOut(), getOut());
@@ -98,29 +109,25 @@ public final class DefaultExchange implements Exchange {
         }
     }
 
-    private static Map<String, Object> safeCopy(Map<String, Object> properties) {
-        if (properties == null) {
-            return null;
-        }
-        return new ConcurrentHashMap<String, Object>(properties);
-    }
-
     public CamelContext getContext() {
         return context;
     }
 
     public Object getProperty(String name) {
-        if (hasProperties()) {
-            return properties.get(name);
+        // read our own properties before the shared, as that is the reverse order of freezeProperties()
+        Map<String, Object> own = properties;
+        if (own != null) {
+            Object value = own.get(name);
+            if (value != null) {
+                return value == SharedProperties.REMOVED ? null : value;
+            }
         }
-        return null;
+        SharedProperties shared = sharedProperties;
+        return shared != null ? shared.get(name) : null;
     }
 
     public Object getProperty(String name, Object defaultValue) {
-        Object answer = null;
-        if (hasProperties()) {
-            answer = properties.get(name);
-        }
+        Object answer = getProperty(name);
         return answer != null ? answer : defaultValue;
     }
 
@@ -151,35 +158,184 @@ public final class DefaultExchange implements Exchange {
     public void setProperty(String name, Object value) {
         if (value != null) {
             // avoid the NullPointException
-            getProperties().put(name, value);
+            ownProperties().put(name, value);
         } else {
             // if the value is null, we just remove the key from the map
             if (name != null) {
-                getProperties().remove(name);
+                removeProperty(name);
             }
         }
     }
 
     public Object removeProperty(String name) {
-        if (!hasProperties()) {
+        Object answer = getProperty(name);
+        if (answer == null) {
             return null;
         }
-        return getProperties().remove(name);
+        SharedProperties shared = sharedProperties;
+        if (shared != null && shared.get(name) != null) {
+            // the shared property must stay for the others sharing it, so only hide it from this exchange
+            ownProperties().put(name, SharedProperties.REMOVED);
+        } else {
+            properties.remove(name);
+        }
+        return answer;
     }
 
-    public Map<String, Object> getProperties() {
-        if (properties == null) {
+    public synchronized Map<String, Object> getProperties() {
+        // the caller may keep the map and mutate it later, so it must hold all the properties and it can
+        // no longer be frozen by copy()
+        SharedProperties shared = sharedProperties;
+        if (shared != null) {
+            Map<String, Object> answer = new ConcurrentHashMap<String, Object>();
+            shared.copyTo(answer);
+            if (properties != null) {
+                SharedProperties.apply(properties, answer);
+            }
+            properties = answer;
+            sharedProperties = null;
+        } else if (properties == null) {
             properties = new ConcurrentHashMap<String, Object>();
         }
+        propertiesExposed = true;
         return properties;
     }
 
+    /**
+     * Gets the map for the properties set on this exchange, which is on top of the shared properties.
+     */
+    private Map<String, Object> ownProperties() {
+        Map<String, Object> answer = properties;
+        if (answer == null) {
+            answer = new ConcurrentHashMap<String, Object>();
+            properties = answer;
+        }
+        return answer;
+    }
+
+    /**
+     * Freezes the properties set on this exchange so they can be shared with an exchange created from it,
+     * after which this exchange sets its properties in a new map on top of them.
+     *
+     * @return the properties to share, or <tt>null</tt> if there are none
+     */
+    private synchronized SharedProperties freezeProperties() {
+        Map<String, Object> own = properties;
+        if (own == null || own.isEmpty()) {
+            return sharedProperties;
+        }
+        if (propertiesExposed) {
+            // the map has been handed out so it can be changed at any time and must be copied, and
+            // it holds all the properties as nothing is shared once handed out
+            return new SharedProperties(new ConcurrentHashMap<String, Object>(own), null);
+        }
+        SharedProperties answer = new SharedProperties(own, sharedProperties);
+        // publish the frozen properties before dropping our own map, so concurrent readers see them
+        sharedProperties = answer;
+        properties = null;
+        return answer;
+    }
+
+    /**
+     * Uses the same properties as the given exchange, replacing the properties of this exchange.
+     * <p/>
+     * If the given exchange is a {@link DefaultExchange} then the properties are shared, and not copied
+     * when either this exchange or the given exchange sets or removes a property.
+     *
+     * @param source the exchange to use the properties from
+     */
+    public void shareProperties(Exchange source) {
+        SharedProperties shared = null;
+        Map<String, Object> own = null;
+        if (source instanceof DefaultExchange) {
+            shared = ((DefaultExchange) source).freezeProperties();
+        } else if (source.hasProperties()) {
+            own = new ConcurrentHashMap<String, Object>(source.getProperties());
+        }
+        synchronized (this) {
+            this.sharedProperties = shared;
+            this.properties = own;
+            this.propertiesExposed = false;
+        }
+    }
+
+    /**
+     * Sets the properties of the given exchange on this exchange, as
+     * <tt>getProperties().putAll(source.getProperties())</tt> does, but without copying the properties.
+     * <p/>
+     * If the given exchange is a {@link DefaultExchange} which shares properties with this exchange, then
+     * only the properties it has set since are looked at.
+     *
+     * @param source the exchange to set the properties from
+     */
+    public void mergeProperties(Exchange source) {
+        if (source == this) {
+            return;
+        }
+        if (!(source instanceof DefaultExchange)) {
+            if (source.hasProperties()) {
+                getProperties().putAll(source.getProperties());
+            }
+            return;
+        }
+
+        // the properties below those this exchange shares, and has not changed since, are already the same
+        Map<String, Object> own = properties;
+        SharedProperties common = own == null || own.isEmpty() ? sharedProperties : null;
+
+        // read the properties of the source in the same order as getProperty(), and the first one found wins
+        DefaultExchange other = (DefaultExchange) source;
+        Set<String> merged = new HashSet<String>();
+        mergeProperties(other.properties, merged);
+        for (SharedProperties level = other.sharedProperties; level != null && level != common; level = level.getParent()) {
+            mergeProperties(level.getProperties(), merged);
+        }
+    }
+
+    private void mergeProperties(Map<String, Object> source, Set<String> merged) {
+        if (source == null) {
+            return;
+        }
+        for (Map.Entry<String, Object> entry : source.entrySet()) {
+            String name = entry.getKey();
+            Object value = entry.getValue();
+            // removed properties are not merged, as putAll does not remove either
+            if (merged.add(name) && value != SharedProperties.REMOVED && getProperty(name) != value) {
+                setProperty(name, value);
+            }
+        }
+    }
+
+    /**
+     * Gets the map which holds the given property, to tell whether the properties are shared or copied.
+     */
+    Map<String, Object> getPropertyHolder(String name) {
+        Map<String, Object> own = properties;
+        if (own != null && own.containsKey(name)) {
+            return own;
+        }
+        SharedProperties shared = sharedProperties;
+        return shared != null ? shared.getHolder(name) : null;
+    }
+
     public boolean hasProperties() {
-        return properties != null && !properties.isEmpty();
+        Map<String, Object> own = properties;
+        if (own != null) {
+            for (Object value : own.values()) {
+                if (value != SharedProperties.REMOVED) {
+                    return true;
+                }
+            }
+        }
+        SharedProperties shared = sharedProperties;
+        return shared != null && shared.hasAny(this);
     }
 
-    public void setProperties(Map<String, Object> properties) {
+    public synchronized void setProperties(Map<String, Object> properties) {
         this.properties = properties;
+        this.sharedProperties = null;
+        // the map is owned by the caller
+        this.propertiesExposed = true;
     }
 
     public Message getIn() {
@@ -288,14 +444,66 @@ public final class DefaultExchange implements Exchange {
     }
 
     public String getExchangeId() {
+        String answer = exchangeId;
+        if (answer == null) {
+            answer = resolveExchangeId();
+        }
+        return answer;
+    }
+
+    private synchronized String resolveExchangeId() {
         if (exchangeId == null) {
-            exchangeId = createExchangeId();
+            if (sharedExchangeId != null) {
+                String id = sharedExchangeId.get();
+                exchangeId = id != null ? id : sharedExchangeId.setIfAbsent(createExchangeId());
+            } else {
+                exchangeId = createExchangeId();
+            }
         }
         return exchangeId;
     }
 
-    public void setExchangeId(String id) {
+    public synchronized void setExchangeId(String id) {
         this.exchangeId = id;
+        this.sharedExchangeId = null;
+    }
+
+    /**
+     * Uses the same exchange id as the given exchange.
+     * <p/>
+     * If the given exchange has not created its id yet then the id is shared, and is not created
+     * until either this exchange or the given exchange needs it.
+     *
+     * @param source the exchange to use the id from
+     */
+    public void shareExchangeId(Exchange source) {
+        if (source instanceof DefaultExchange) {
+            SharedId shared = ((DefaultExchange) source).getSharedExchangeId();
+            if (shared != null) {
+                synchronized (this) {
+                    this.exchangeId = null;
+                    this.sharedExchangeId = shared;
+                }
+                return;
+            }
+        }
+        setExchangeId(source.getExchangeId());
+    }
+
+    /**
+     * Gets the id to share with an exchange created from this exchange, which is created the first time
+     * it is shared, under the lock of this exchange so concurrent copies get the same id.
+     *
+     * @return the shared id, or <tt>null</tt> if this exchange has already created its id
+     */
+    private synchronized SharedId getSharedExchangeId() {
+        if (exchangeId != null) {
+            return null;
+        }
+        if (sharedExchangeId == null) {
+            sharedExchangeId = new SharedId(null);
+        }
+        return sharedExchangeId;
     }
 
     public boolean isFailed() {
@@ -16,31 +16,46 @@
  */
 package org.apache.camel.impl;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.camel.Endpoint;
 import org.apache.camel.Exchange;
 import org.apache.camel.spi.InflightRepository;
+import org.apache.camel.util.concurrent.StripedCounter;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 /**
- * Default implement which just uses a counter
+ * Default implement which uses striped counters, so threads adding and removing exchanges concurrently
+ * rarely contend on the same counter.
+ * <p/>
+ * The exchanges themselves are only tracked if {@link #setInflightBrowseEnabled(boolean)} is enabled.
  *
  * @version $Revision$
  */
 public class DefaultInflightRepository extends ServiceSupport implements InflightRepository  {
 
     private static final transient Log LOG = LogFactory.getLog(DefaultInflightRepository.class);
-    private final AtomicInteger totalCount = new AtomicInteger();
+    private final StripedCounter totalCount = new StripedCounter();
     // use endpoint key as key so endpoints with lenient properties is registered using the same key (eg dynamic http endpoints)
-    private final ConcurrentHashMap<String, AtomicInteger> endpointCount = new ConcurrentHashMap<String, AtomicInteger>();
+    private final ConcurrentMap<String, StripedCounter> endpointCount = new ConcurrentHashMap<String, StripedCounter>();
+    private final ConcurrentMap<Exchange, Long> inflightExchanges = new ConcurrentHashMap<Exchange, Long>();
+    private volatile boolean inflightBrowseEnabled;
 
     public void add(Exchange exchange) {
-        int count = totalCount.incrementAndGet();
+        totalCount.increment();
         if (LOG.isTraceEnabled()) {
-            LOG.trace("Total " + count + " inflight exchanges. Last added: " + exchange.getExchangeId());
+            LOG.trace("Total " + totalCount.get() + " inflight exchanges. Last added: " + exchange.getExchangeId());
+        }
+
+        if (inflightBrowseEnabled) {
+            inflightExchanges.put(exchange, System.currentTimeMillis());
         }
 
         if (exchange.getFromEndpoint() == null) {
@@ -48,16 +63,26 @@ public class DefaultInflightRepository extends ServiceSupport implements Infligh
         }
 
         String key = exchange.getFromEndpoint().getEndpointKey();
-        AtomicInteger existing = endpointCount.putIfAbsent(key, new AtomicInteger(1));
-        if (existing != null) {
-            existing.addAndGet(1);
+        StripedCounter counter = endpointCount.get(key);
+        if (counter == null) {
+            // only create a new counter when missing as a striped counter is not cheap to create
+            counter = new StripedCounter();
+            StripedCounter existing = endpointCount.putIfAbsent(key, counter);
+            if (existing != null) {
+                counter = existing;
+            }
         }
+        counter.increment();
     }
 
     public void remove(Exchange exchange) {
-        int count = totalCount.decrementAndGet();
+        totalCount.add(-1);
         if (LOG.isTraceEnabled()) {
-            LOG.trace("Total " + count + " inflight exchanges. Last removed: " + exchange.getExchangeId());
+            LOG.trace("Total " + totalCount.get() + " inflight exchanges. Last removed: " + exchange.getExchangeId());
+        }
+
+        if (inflightBrowseEnabled) {
+            inflightExchanges.remove(exchange);
         }
 
         if (exchange.getFromEndpoint() == null) {
@@ -65,19 +90,54 @@ public class DefaultInflightRepository extends ServiceSupport implements Infligh
         }
 
         String key = exchange.getFromEndpoint().getEndpointKey();
-        AtomicInteger existing = endpointCount.get(key);
+        StripedCounter existing = endpointCount.get(key);
         if (existing != null) {
-            existing.addAndGet(-1);
+            existing.add(-1);
         }
     }
 
     public int size() {
-        return totalCount.get();
+        return (int) totalCount.get();
     }
 
     public int size(Endpoint endpoint) {
-        AtomicInteger answer = endpointCount.get(endpoint.getEndpointKey());
-        return answer != null ? answer.get() : 0;
+        StripedCounter answer = endpointCount.get(endpoint.getEndpointKey());
+        return answer != null ? (int) answer.get() : 0;
+    }
+
+    public boolean isInflightBrowseEnabled() {
+        return inflightBrowseEnabled;
+    }
+
+    public void setInflightBrowseEnabled(boolean inflightBrowseEnabled) {
+        this.inflightBrowseEnabled = inflightBrowseEnabled;
+        if (!inflightBrowseEnabled) {
+            inflightExchanges.clear();
+        }
+    }
+
+    public List<InflightExchange> browse(int limit) {
+        if (!inflightBrowseEnabled || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        long now = System.currentTimeMillis();
+        List<InflightExchange> answer = new ArrayList<InflightExchange>(inflightExchanges.size());
+        for (Map.Entry<Exchange, Long> entry : inflightExchanges.entrySet()) {
+            answer.add(new DefaultInflightExchange(entry.getKey(), now - entry.getValue()));
+        }
+        // oldest first
+        Collections.sort(answer, new Comparator<InflightExchange>() {
+            public int compare(InflightExchange o1, InflightExchange o2) {
+                long d1 = o1.getDuration();
+                long d2 = o2.getDuration();
+                return d1 > d2 ? -1 : (d1 < d2 ? 1 : 0);
+            }
+        });
+        if (answer.size() > limit) {
+            answer = new ArrayList<InflightExchange>(answer.subList(0, limit));
+        }
+        return answer;
     }
 
     @Override
@@ -93,5 +153,34 @@ public class DefaultInflightRepository extends ServiceSupport implements Infligh
             LOG.info("Shutting down with no inflight exchanges.");
         }
         endpointCount.clear();
+        inflightExchanges.clear();
+    }
+
+    private static final class DefaultInflightExchange implements InflightExchange {
+        private final Exchange exchange;
+        private final long duration;
+
+        private DefaultInflightExchange(Exchange exchange, long duration) {
+            this.exchange = exchange;
+            this.duration = duration;
+        }
+
+        public Exchange getExchange() {
+            return exchange;
+        }
+
+        public long getDuration() {
+            return duration;
+        }
+
+        public String getFromRouteId() {
+            return exchange.getFromRouteId();
+        }
+
+        @Override
+        public String toString() {
+            return "InflightExchange[exchangeId: " + exchange.getExchangeId() + ", routeId: " + getFromRouteId()
+                + ", duration: " + duration + " millis]";
+        }
     }
 }
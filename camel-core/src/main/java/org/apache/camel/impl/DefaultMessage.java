@@ -23,6 +23,7 @@ import javax.activation.DataHandler;
 
 import org.apache.camel.Exchange;
 import org.apache.camel.Message;
+import org.apache.camel.util.CaseInsensitiveHeaderMap;
 import org.apache.camel.util.CaseInsensitiveMap;
 import org.apache.camel.util.EndpointHelper;
 import org.apache.camel.util.MessageHelper;
@@ -30,10 +31,10 @@ import org.apache.camel.util.MessageHelper;
 /**
  * The default implementation of {@link org.apache.camel.Message}
  * <p/>
- * This implementation uses a {@link org.apache.camel.util.CaseInsensitiveMap} storing the headers.
+ * This implementation uses a {@link org.apache.camel.util.CaseInsensitiveHeaderMap} storing the headers.
  * This allows us to be able to lookup headers using case insensitive keys, making it easier for end users
  * as they do not have to be worried about using exact keys.
- * See more details at {@link org.apache.camel.util.CaseInsensitiveMap}.
+ * See more details at {@link org.apache.camel.util.CaseInsensitiveHeaderMap}.
  *
  * @version $Revision$
  */
@@ -151,11 +152,11 @@ public class DefaultMessage extends MessageSupport {
     }
 
     public void setHeaders(Map<String, Object> headers) {
-        if (headers instanceof CaseInsensitiveMap) {
+        if (headers instanceof CaseInsensitiveHeaderMap || headers instanceof CaseInsensitiveMap) {
             this.headers = headers;
         } else {
             // wrap it in a case insensitive map
-            this.headers = new CaseInsensitiveMap(headers);
+            this.headers = new CaseInsensitiveHeaderMap(headers);
         }
     }
 
@@ -180,7 +181,7 @@ public class DefaultMessage extends MessageSupport {
      *         the underlying inbound transport
      */
     protected Map<String, Object> createHeaders() {
-        Map<String, Object> map = new CaseInsensitiveMap();
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
         populateInitialHeaders(map);
         return map;
     }
@@ -20,6 +20,7 @@ import org.apache.camel.Exchange;
 import org.apache.camel.InvalidPayloadException;
 import org.apache.camel.Message;
 import org.apache.camel.TypeConverter;
+import org.apache.camel.spi.UuidGenerator;
 
 /**
  * A base class for implementation inheritance providing the core
@@ -34,7 +35,9 @@ import org.apache.camel.TypeConverter;
 public abstract class MessageSupport implements Message {
     private Exchange exchange;
     private Object body;
-    private String messageId;
+    private volatile String messageId;
+    // the id shared with the message this message was copied from, so the id is only created when needed
+    private SharedId sharedMessageId;
 
     public Object getBody() {
         if (body == null) {
@@ -132,7 +135,7 @@ public abstract class MessageSupport implements Message {
             return;
         }
 
-        setMessageId(that.getMessageId());
+        copyMessageIdFrom(that);
         setBody(that.getBody());
         if (hasHeaders()) {
             getHeaders().clear();
@@ -174,14 +177,68 @@ public abstract class MessageSupport implements Message {
     }
 
     public String getMessageId() {
+        String answer = messageId;
+        if (answer == null) {
+            answer = resolveMessageId();
+        }
+        return answer;
+    }
+
+    private synchronized String resolveMessageId() {
         if (messageId == null) {
-            messageId = createMessageId();
+            if (sharedMessageId != null) {
+                String id = sharedMessageId.get();
+                messageId = id != null ? id : sharedMessageId.setIfAbsent(createMessageId());
+            } else {
+                messageId = createMessageId();
+            }
         }
-        return this.messageId;
+        return messageId;
     }
 
-    public void setMessageId(String messageId) {
+    public synchronized void setMessageId(String messageId) {
         this.messageId = messageId;
+        this.sharedMessageId = null;
+    }
+
+    /**
+     * Uses the same message id as the given message.
+     * <p/>
+     * If the given message is of the same type and has not created its id yet then the id is shared,
+     * and is not created until either this message or the given message needs it.
+     *
+     * @param that the message to use the id from
+     */
+    protected void copyMessageIdFrom(Message that) {
+        if (that.getClass() == getClass()) {
+            SharedId shared = ((MessageSupport) that).getSharedMessageId();
+            if (shared != null) {
+                synchronized (this) {
+                    this.messageId = null;
+                    this.sharedMessageId = shared;
+                }
+                return;
+            }
+        }
+        setMessageId(that.getMessageId());
+    }
+
+    /**
+     * Gets the id to share with a copy of this message, which is created the first time this message
+     * is copied. The source is locked so concurrent copies get the same shared id, and do not race
+     * with this message creating its own id.
+     *
+     * @return the shared id, or <tt>null</tt> if this message has already created its id
+     */
+    private synchronized SharedId getSharedMessageId() {
+        if (messageId != null) {
+            return null;
+        }
+        if (sharedMessageId == null) {
+            UuidGenerator generator = exchange != null ? exchange.getContext().getUuidGenerator() : null;
+            sharedMessageId = new SharedId(generator);
+        }
+        return sharedMessageId;
     }
 
     /**
@@ -191,6 +248,9 @@ public abstract class MessageSupport implements Message {
         String uuid = null;
         if (exchange != null) {
             uuid = exchange.getContext().getUuidGenerator().generateUuid();
+        } else if (sharedMessageId != null && sharedMessageId.getUuidGenerator() != null) {
+            // a copy which is not part of an exchange uses the generator of the message it was copied from
+            uuid = sharedMessageId.getUuidGenerator().generateUuid();
         }
         // fall back to the simple UUID generator
         if (uuid == null) {
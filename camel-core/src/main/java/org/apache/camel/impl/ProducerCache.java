@@ -17,6 +17,7 @@
 package org.apache.camel.impl;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.camel.AsyncCallback;
 import org.apache.camel.AsyncProcessor;
@@ -34,6 +35,7 @@ import org.apache.camel.impl.converter.AsyncProcessorTypeConverter;
 import org.apache.camel.processor.UnitOfWorkProducer;
 import org.apache.camel.spi.ServicePool;
 import org.apache.camel.util.CamelContextHelper;
+import org.apache.camel.util.ConcurrentLRUCache;
 import org.apache.camel.util.EventHelper;
 import org.apache.camel.util.LRUCache;
 import org.apache.camel.util.ServiceHelper;
@@ -59,7 +61,7 @@ public class ProducerCache extends ServiceSupport {
     }
 
     public ProducerCache(Object source, CamelContext camelContext, int cacheSize) {
-        this(source, camelContext, camelContext.getProducerServicePool(), new LRUCache<String, Producer>(cacheSize));
+        this(source, camelContext, camelContext.getProducerServicePool(), new ConcurrentLRUCache<String, Producer>(cacheSize));
     }
 
     public ProducerCache(Object source, CamelContext camelContext, ServicePool<Endpoint, Producer> producerServicePool, Map<String, Producer> cache) {
@@ -344,9 +346,23 @@ public class ProducerCache extends ServiceSupport {
         });
     }
 
-    protected synchronized Producer doGetProducer(Endpoint endpoint, boolean pooled) {
+    protected Producer doGetProducer(Endpoint endpoint, boolean pooled) {
+        if (producers instanceof ConcurrentMap) {
+            // lookup the cached producers without locking, which is the common case
+            Producer answer = producers.get(endpoint.getEndpointUri());
+            if (answer != null) {
+                return answer;
+            }
+        }
+        synchronized (this) {
+            return doGetOrCreateProducer(endpoint, pooled);
+        }
+    }
+
+    private Producer doGetOrCreateProducer(Endpoint endpoint, boolean pooled) {
         String key = endpoint.getEndpointUri();
-        Producer answer = producers.get(key);
+        // another thread may just have added the producer, check first so we do not count the miss twice
+        Producer answer = producers.containsKey(key) ? producers.get(key) : null;
         if (pooled && answer == null) {
             // try acquire from connection pool
             answer = pool.acquire(endpoint);
@@ -412,13 +428,65 @@ public class ProducerCache extends ServiceSupport {
      */
     public int getCapacity() {
         int capacity = -1;
-        if (producers instanceof LRUCache) {
-            LRUCache cache = (LRUCache) producers;
-            capacity = cache.getMaxCacheSize();
+        if (producers instanceof ConcurrentLRUCache) {
+            capacity = ((ConcurrentLRUCache) producers).getMaxCacheSize();
+        } else if (producers instanceof LRUCache) {
+            capacity = ((LRUCache) producers).getMaxCacheSize();
         }
         return capacity;
     }
 
+    /**
+     * Gets the number of cache hits.
+     * <p/>
+     * Will return <tt>-1</tt> if it cannot determine this if a custom cache was used.
+     *
+     * @return the hits
+     */
+    public long getHits() {
+        if (producers instanceof ConcurrentLRUCache) {
+            return ((ConcurrentLRUCache) producers).getHits();
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the number of cache misses.
+     * <p/>
+     * Will return <tt>-1</tt> if it cannot determine this if a custom cache was used.
+     *
+     * @return the misses
+     */
+    public long getMisses() {
+        if (producers instanceof ConcurrentLRUCache) {
+            return ((ConcurrentLRUCache) producers).getMisses();
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the number of producers evicted from the cache because it was full.
+     * <p/>
+     * Will return <tt>-1</tt> if it cannot determine this if a custom cache was used.
+     *
+     * @return the evicted
+     */
+    public long getEvicted() {
+        if (producers instanceof ConcurrentLRUCache) {
+            return ((ConcurrentLRUCache) producers).getEvicted();
+        }
+        return -1;
+    }
+
+    /**
+     * Resets the cache statistics
+     */
+    public void resetCacheStatistics() {
+        if (producers instanceof ConcurrentLRUCache) {
+            ((ConcurrentLRUCache) producers).resetStatistics();
+        }
+    }
+
     @Override
     public String toString() {
         return "ProducerCache for source: " + source;
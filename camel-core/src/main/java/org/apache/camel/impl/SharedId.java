@@ -0,0 +1,64 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.impl;
+
+import org.apache.camel.spi.UuidGenerator;
+
+/**
+ * An id which is shared between an exchange or message and its copies, and which is not created
+ * before any of them needs it. The first one to read the id creates it, and the others then use
+ * that same id.
+ *
+ * @version $Revision$
+ */
+final class SharedId {
+
+    private final UuidGenerator uuidGenerator;
+    private volatile String id;
+
+    SharedId(UuidGenerator uuidGenerator) {
+        this.uuidGenerator = uuidGenerator;
+    }
+
+    /**
+     * Gets the generator of the one that shared its id, which copies that cannot resolve a generator on
+     * their own should use, or <tt>null</tt> if not known
+     */
+    UuidGenerator getUuidGenerator() {
+        return uuidGenerator;
+    }
+
+    /**
+     * Gets the id, or <tt>null</tt> if it has not been created yet
+     */
+    String get() {
+        return id;
+    }
+
+    /**
+     * Sets the id unless it has already been created
+     *
+     * @param candidate the newly created id
+     * @return the shared id
+     */
+    synchronized String setIfAbsent(String candidate) {
+        if (id == null) {
+            id = candidate;
+        }
+        return id;
+    }
+}
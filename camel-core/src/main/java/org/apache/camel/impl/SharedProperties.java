@@ -0,0 +1,136 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Properties which are shared between an exchange and its copies. Each level holds the properties set
+ * on an exchange before it was copied, over the level it was itself copied from, so a copy only needs
+ * its own small map for the properties it sets itself, and never copies the properties it shares.
+ * <p/>
+ * The maps of the levels are frozen and must not be changed once shared.
+ *
+ * @version $Revision$
+ */
+final class SharedProperties {
+
+    /**
+     * Marks a shared property which has been removed from the exchange owning the map it is in.
+     */
+    static final Object REMOVED = new Object();
+
+    // the levels are merged into one when deeper, so looking up a property does not get slower
+    // with every copy of a copy
+    private static final int MAX_DEPTH = 4;
+
+    private final Map<String, Object> properties;
+    private final SharedProperties parent;
+    private final int depth;
+
+    SharedProperties(Map<String, Object> properties, SharedProperties parent) {
+        if (parent != null && parent.depth >= MAX_DEPTH) {
+            Map<String, Object> merged = new HashMap<String, Object>();
+            parent.copyTo(merged);
+            apply(properties, merged);
+            this.properties = merged;
+            this.parent = null;
+            this.depth = 1;
+        } else {
+            this.properties = properties;
+            this.parent = parent;
+            this.depth = parent != null ? parent.depth + 1 : 1;
+        }
+    }
+
+    /**
+     * Gets the properties of this level, which may mark removed properties
+     */
+    Map<String, Object> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Gets the level this level is on top of, or <tt>null</tt> if none
+     */
+    SharedProperties getParent() {
+        return parent;
+    }
+
+    /**
+     * Gets the property, or <tt>null</tt> if not found or it has been removed
+     */
+    Object get(String name) {
+        for (SharedProperties level = this; level != null; level = level.parent) {
+            Object value = level.properties.get(name);
+            if (value != null) {
+                return value == REMOVED ? null : value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether any of the properties is still present, when looked up through the given exchange
+     */
+    boolean hasAny(DefaultExchange exchange) {
+        for (SharedProperties level = this; level != null; level = level.parent) {
+            for (Map.Entry<String, Object> entry : level.properties.entrySet()) {
+                if (entry.getValue() != REMOVED && exchange.getProperty(entry.getKey()) != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the properties into the given map
+     */
+    void copyTo(Map<String, Object> answer) {
+        if (parent != null) {
+            parent.copyTo(answer);
+        }
+        apply(properties, answer);
+    }
+
+    /**
+     * Gets the map holding the given property, or <tt>null</tt> if not found
+     */
+    Map<String, Object> getHolder(String name) {
+        for (SharedProperties level = this; level != null; level = level.parent) {
+            if (level.properties.containsKey(name)) {
+                return level.properties;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Applies the properties, which may mark removed properties, on top of the given map
+     */
+    static void apply(Map<String, Object> properties, Map<String, Object> answer) {
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            if (entry.getValue() == REMOVED) {
+                answer.remove(entry.getKey());
+            } else {
+                answer.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+}
@@ -24,7 +24,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.camel.CamelExecutionException;
 import org.apache.camel.Exchange;
@@ -47,15 +50,31 @@ import org.apache.commons.logging.LogFactory;
 /**
  * Default implementation of a type converter registry used for
  * <a href="http://camel.apache.org/type-converter.html">type converters</a> in Camel.
+ * <p/>
+ * The type converters resolved for a given from and to type is cached in a two level cache
+ * which is keyed by the from type and then the to type. Looking up the cache is lock free and
+ * does not create any key objects. The cache also remembers when there is no type converter
+ * for the given types, so we do not lookup again, or try the fallback type converters for a known miss.
+ * The cache is cleared when a type converter is added.
  *
  * @version $Revision$
  */
 public class DefaultTypeConverter extends ServiceSupport implements TypeConverter, TypeConverterRegistry {
     private static final transient Log LOG = LogFactory.getLog(DefaultTypeConverter.class);
+    // marker in the cache when there is no type converter, so we should try the fallback type converters
+    private static final TypeConverter NO_CONVERTER = new NoTypeConverter();
+    // marker in the cache when the types cannot be converted at all
+    private static final TypeConverter MISS_CONVERTER = new NoTypeConverter();
     private final Map<TypeMapping, TypeConverter> typeMappings = new ConcurrentHashMap<TypeMapping, TypeConverter>();
-    private final Map<TypeMapping, TypeMapping> misses = new ConcurrentHashMap<TypeMapping, TypeMapping>();
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, TypeConverter>> cache
+            = new ConcurrentHashMap<Class<?>, ConcurrentMap<Class<?>, TypeConverter>>();
     private final List<TypeConverterLoader> typeConverterLoaders = new ArrayList<TypeConverterLoader>();
-    private final List<FallbackTypeConverter> fallbackConverters = new ArrayList<FallbackTypeConverter>();
+    private final List<FallbackTypeConverter> fallbackConverters = new CopyOnWriteArrayList<FallbackTypeConverter>();
+    private final AtomicLong hitCounter = new AtomicLong();
+    private final AtomicLong missCounter = new AtomicLong();
+    private final AtomicLong fallbackCounter = new AtomicLong();
+    private final AtomicLong promotionCounter = new AtomicLong();
+    private volatile boolean statisticsEnabled;
     private Injector injector;
     private final FactoryFinder factoryFinder;
     private final PropertyEditorTypeConverter propertyEditorTypeConverter = new PropertyEditorTypeConverter();
@@ -166,36 +185,55 @@ public class DefaultTypeConverter extends ServiceSupport implements TypeConverte
         }
 
         // check if we have tried it before and if its a miss
-        TypeMapping key = new TypeMapping(type, value.getClass());
-        if (misses.containsKey(key)) {
+        TypeConverter converter = getCachedTypeConverter(type, value.getClass());
+        if (converter == MISS_CONVERTER) {
             // we have tried before but we cannot convert this one
+            if (statisticsEnabled) {
+                missCounter.incrementAndGet();
+            }
             return Void.TYPE;
         }
 
         // try to find a suitable type converter
-        TypeConverter converter = getOrFindTypeConverter(type, value);
+        if (converter == null) {
+            converter = getOrFindTypeConverter(type, value);
+        } else if (converter == NO_CONVERTER) {
+            converter = null;
+        }
         if (converter != null) {
             if (LOG.isTraceEnabled()) {
-                LOG.trace("Using converter: " + converter + " to convert " + key);
+                LOG.trace("Using converter: " + converter + " to convert [" + value.getClass() + "=>" + type + "]");
             }
             Object rc = converter.convertTo(type, exchange, value);
             if (rc != null) {
+                if (statisticsEnabled) {
+                    hitCounter.incrementAndGet();
+                }
                 return rc;
             }
         }
 
         // fallback converters
         for (FallbackTypeConverter fallback : fallbackConverters) {
+            if (statisticsEnabled) {
+                fallbackCounter.incrementAndGet();
+            }
             Object rc = fallback.getFallbackTypeConverter().convertTo(type, exchange, value);
 
             if (Void.TYPE.equals(rc)) {
                 // it cannot be converted so give up
+                if (statisticsEnabled) {
+                    missCounter.incrementAndGet();
+                }
                 return Void.TYPE;
             }
 
             if (rc != null) {
                 // if fallback can promote then let it be promoted to a first class type converter
                 if (fallback.isCanPromote()) {
+                    if (statisticsEnabled) {
+                        promotionCounter.incrementAndGet();
+                    }
                     // add it as a known type converter since we found a fallback that could do it
                     if (LOG.isDebugEnabled()) {
                         LOG.debug("Promoting fallback type converter as a known type converter to convert from: "
@@ -224,9 +262,10 @@ public class DefaultTypeConverter extends ServiceSupport implements TypeConverte
         }
 
         // Could not find suitable conversion, so remember it
-        synchronized (misses) {
-            misses.put(key, key);
+        if (statisticsEnabled) {
+            missCounter.incrementAndGet();
         }
+        cacheTypeConverter(type, value.getClass(), MISS_CONVERTER);
 
         // Could not find suitable conversion, so return Void to indicate not found
         return Void.TYPE;
@@ -246,6 +285,8 @@ public class DefaultTypeConverter extends ServiceSupport implements TypeConverte
                     LOG.warn("Overriding type converter from: " + converter + " to: " + typeConverter);
                 }
                 typeMappings.put(key, typeConverter);
+                // a new type converter can change which type converter to use, or turn a miss into a hit
+                cache.clear();
             }
         }
     }
@@ -318,10 +359,103 @@ public class DefaultTypeConverter extends ServiceSupport implements TypeConverte
                     typeMappings.put(key, converter);
                 }
             }
+            if (fromType != null) {
+                // remember the outcome so we do not have to lookup again
+                // (done while holding the lock so we do not race with a type converter being added)
+                cacheTypeConverter(toType, fromType, converter != null ? converter : NO_CONVERTER);
+            }
         }
         return converter;
     }
 
+    /**
+     * Gets the cached type converter without creating any key objects and without locking.
+     *
+     * @return the type converter, or one of the markers for no type converter or a miss, or <tt>null</tt> if not cached
+     */
+    private TypeConverter getCachedTypeConverter(Class<?> toType, Class<?> fromType) {
+        ConcurrentMap<Class<?>, TypeConverter> converters = cache.get(fromType);
+        return converters != null ? converters.get(toType) : null;
+    }
+
+    private void cacheTypeConverter(Class<?> toType, Class<?> fromType, TypeConverter converter) {
+        ConcurrentMap<Class<?>, TypeConverter> converters = cache.get(fromType);
+        if (converters == null) {
+            converters = new ConcurrentHashMap<Class<?>, TypeConverter>();
+            ConcurrentMap<Class<?>, TypeConverter> existing = cache.putIfAbsent(fromType, converters);
+            if (existing != null) {
+                converters = existing;
+            }
+        }
+        if (converter == MISS_CONVERTER) {
+            // a miss is final
+            converters.put(toType, converter);
+        } else {
+            // do not override a miss which may have been found concurrently
+            converters.putIfAbsent(toType, converter);
+        }
+    }
+
+    // Statistics
+    // -------------------------------------------------------------------------
+
+    /**
+     * Number of conversions done by a known type converter
+     */
+    public long getHitCounter() {
+        return hitCounter.get();
+    }
+
+    /**
+     * Number of conversions which was not possible
+     */
+    public long getMissCounter() {
+        return missCounter.get();
+    }
+
+    /**
+     * Number of times a fallback type converter was invoked
+     */
+    public long getFallbackCounter() {
+        return fallbackCounter.get();
+    }
+
+    /**
+     * Number of times a fallback type converter was promoted to a known type converter
+     */
+    public long getPromotionCounter() {
+        return promotionCounter.get();
+    }
+
+    /**
+     * Number of from and to type pairs in the converter cache
+     */
+    public int getCacheSize() {
+        int size = 0;
+        for (Map<Class<?>, TypeConverter> converters : cache.values()) {
+            size += converters.size();
+        }
+        return size;
+    }
+
+    public boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    /**
+     * Whether to gather statistics (disabled by default) as counting adds a bit of overhead to each conversion.
+     */
+    public void setStatisticsEnabled(boolean statisticsEnabled) {
+        this.statisticsEnabled = statisticsEnabled;
+    }
+
+    public void resetStatistics() {
+        hitCounter.set(0);
+        missCounter.set(0);
+        fallbackCounter.set(0);
+        promotionCounter.set(0);
+    }
+
     public TypeConverter lookup(Class<?> toType, Class<?> fromType) {
         return doLookup(toType, fromType, false);
     }
@@ -424,7 +558,7 @@ public class DefaultTypeConverter extends ServiceSupport implements TypeConverte
     @Override
     protected void doStop() throws Exception {
         typeMappings.clear();
-        misses.clear();
+        cache.clear();
         // let property editor type converter stop and cleanup resources
         ServiceHelper.stopService(propertyEditorTypeConverter);
     }
@@ -478,6 +612,28 @@ public class DefaultTypeConverter extends ServiceSupport implements TypeConverte
         }
     }
 
+    /**
+     * Marker type converter used in the converter cache
+     */
+    private static final class NoTypeConverter implements TypeConverter {
+
+        public <T> T convertTo(Class<T> type, Object value) {
+            return null;
+        }
+
+        public <T> T convertTo(Class<T> type, Exchange exchange, Object value) {
+            return null;
+        }
+
+        public <T> T mandatoryConvertTo(Class<T> type, Object value) throws NoTypeConversionAvailableException {
+            throw new NoTypeConversionAvailableException(value, type);
+        }
+
+        public <T> T mandatoryConvertTo(Class<T> type, Exchange exchange, Object value) throws NoTypeConversionAvailableException {
+            throw new NoTypeConversionAvailableException(value, type);
+        }
+    }
+
     /**
      * Represents a fallback type converter
      */
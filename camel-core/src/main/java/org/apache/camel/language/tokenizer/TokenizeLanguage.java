@@ -32,6 +32,7 @@ public class TokenizeLanguage implements Language, IsSingleton {
     private String token;
     private String headerName;
     private boolean regex;
+    private int group = 1;
 
     public static Expression tokenize(String token) {
         return tokenize(token, false);
@@ -67,9 +68,12 @@ public class TokenizeLanguage implements Language, IsSingleton {
         ObjectHelper.notNull(token, "token");
         Expression exp = headerName == null ? ExpressionBuilder.bodyExpression() : ExpressionBuilder.headerExpression(headerName);
         if (regex) {
+            if (group > 1) {
+                throw new IllegalArgumentException("Grouping tokens is only supported with a literal token, was: " + token);
+            }
             return ExpressionBuilder.regexTokenizeExpression(exp, token);
         } else {
-            return ExpressionBuilder.tokenizeExpression(exp, token);
+            return ExpressionBuilder.tokenizeExpression(exp, token, group);
         }
     }
 
@@ -104,6 +108,14 @@ public class TokenizeLanguage implements Language, IsSingleton {
         this.regex = regex;
     }
 
+    public int getGroup() {
+        return group;
+    }
+
+    public void setGroup(int group) {
+        this.group = group;
+    }
+
     public boolean isSingleton() {
         return false;
     }
@@ -0,0 +1,129 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.management;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.camel.util.concurrent.StripedCounter;
+import org.fusesource.commons.management.Statistic;
+
+/**
+ * A lock free {@link Statistic} which can be updated concurrently without synchronization.
+ * <p/>
+ * Counters is kept in a {@link StripedCounter} and the other modes is updated using compare and set.
+ *
+ * @version $Revision$
+ */
+public class ConcurrentStatistic implements Statistic {
+
+    private final UpdateMode updateMode;
+    private final StripedCounter counter;
+    private final AtomicLong value;
+    private final StripedCounter updateCount = new StripedCounter();
+
+    public ConcurrentStatistic(UpdateMode updateMode) {
+        this.updateMode = updateMode;
+        if (updateMode == UpdateMode.COUNTER) {
+            this.counter = new StripedCounter();
+            this.value = null;
+        } else {
+            this.counter = null;
+            this.value = new AtomicLong(initialValue());
+        }
+    }
+
+    public void updateValue(long newValue) {
+        switch (updateMode) {
+        case COUNTER:
+            counter.add(newValue);
+            break;
+        case VALUE:
+            // avoid writing to the shared value if its unchanged, such as a timestamp updated within the same millis
+            if (value.get() != newValue) {
+                value.set(newValue);
+            }
+            break;
+        case DIFFERENCE:
+            while (true) {
+                long old = value.get();
+                if (value.compareAndSet(old, Math.abs(old - newValue))) {
+                    break;
+                }
+            }
+            break;
+        case MAXIMUM:
+            while (true) {
+                long old = value.get();
+                if (old >= newValue || value.compareAndSet(old, newValue)) {
+                    break;
+                }
+            }
+            break;
+        case MINIMUM:
+            while (true) {
+                long old = value.get();
+                if (old <= newValue || value.compareAndSet(old, newValue)) {
+                    break;
+                }
+            }
+            break;
+        default:
+            break;
+        }
+        updateCount.increment();
+    }
+
+    public void increment() {
+        updateValue(1);
+    }
+
+    public long getValue() {
+        if (counter != null) {
+            return counter.get();
+        }
+        long answer = value.get();
+        // min and max starts at the opposite extreme so the first update always wins
+        return answer == initialValue() ? 0 : answer;
+    }
+
+    public long getUpdateCount() {
+        return updateCount.get();
+    }
+
+    public void reset() {
+        if (counter != null) {
+            counter.reset();
+        } else {
+            value.set(initialValue());
+        }
+        updateCount.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "" + getValue();
+    }
+
+    private long initialValue() {
+        if (updateMode == UpdateMode.MAXIMUM) {
+            return Long.MIN_VALUE;
+        } else if (updateMode == UpdateMode.MINIMUM) {
+            return Long.MAX_VALUE;
+        }
+        return 0;
+    }
+}
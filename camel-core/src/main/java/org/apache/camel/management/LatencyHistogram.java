@@ -0,0 +1,208 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.management;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of latencies, used for computing percentiles such as the 99th percentile processing time.
+ * <p/>
+ * The values is recorded in buckets where values up to 63 has their own bucket, and larger values is
+ * grouped in buckets of 32 sub buckets per power of two, which gives a precision of about 3%, similar to
+ * a <i>HdrHistogram</i> with two significant digits. Values larger than {@link #MAX_VALUE} is recorded
+ * as {@link #MAX_VALUE}.
+ * <p/>
+ * The histogram also keeps the number of values recorded in each second for the last minute,
+ * which is used for computing the throughput in a sliding window.
+ * <p/>
+ * The buckets and the per second counts is striped by thread, in the same way as a
+ * {@link org.apache.camel.util.concurrent.StripedCounter}, so recording a value is two atomic increments
+ * which concurrent threads rarely contend on. Reading the percentiles and the throughput sums the stripes.
+ *
+ * @version $Revision$
+ */
+public class LatencyHistogram {
+
+    /**
+     * The largest value which can be recorded, which is about 4.6 hours when recording millis.
+     */
+    public static final long MAX_VALUE = (1L << 24) - 1;
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int WINDOW_SECONDS = 60;
+    private static final int BUCKETS = indexOf(MAX_VALUE) + 1;
+    // fewer stripes than a striped counter as each stripe has all the buckets
+    private static final int MAX_STRIPES = 4;
+
+    private final AtomicLongArray[] buckets;
+    private final AtomicLongArray[] windowCounts;
+    private final AtomicLongArray[] windowSeconds;
+    private final int mask;
+
+    public LatencyHistogram() {
+        int stripes = 1;
+        int processors = Runtime.getRuntime().availableProcessors();
+        while (stripes < processors && stripes < MAX_STRIPES) {
+            stripes <<= 1;
+        }
+        this.mask = stripes - 1;
+        this.buckets = new AtomicLongArray[stripes];
+        this.windowCounts = new AtomicLongArray[stripes];
+        this.windowSeconds = new AtomicLongArray[stripes];
+        for (int i = 0; i < stripes; i++) {
+            buckets[i] = new AtomicLongArray(BUCKETS);
+            windowCounts[i] = new AtomicLongArray(WINDOW_SECONDS);
+            windowSeconds[i] = new AtomicLongArray(WINDOW_SECONDS);
+        }
+    }
+
+    /**
+     * Records the value
+     *
+     * @param value the value such as the processing time in millis
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        } else if (value > MAX_VALUE) {
+            value = MAX_VALUE;
+        }
+        int stripe = stripe();
+        buckets[stripe].incrementAndGet(indexOf(value));
+        recordThroughput(stripe, currentTime() / 1000);
+    }
+
+    /**
+     * Gets the value at the given percentile, which is the highest value in the bucket the percentile falls into.
+     *
+     * @param percentile the percentile such as <tt>99.9</tt>
+     * @return the value, or <tt>0</tt> if no values has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100, was: " + percentile);
+        }
+
+        // take a copy as the buckets may be updated concurrently
+        int length = BUCKETS;
+        long[] counts = new long[length];
+        long total = 0;
+        for (AtomicLongArray stripe : buckets) {
+            for (int i = 0; i < length; i++) {
+                long count = stripe.get(i);
+                counts[i] += count;
+                total += count;
+            }
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long count = 0;
+        for (int i = 0; i < length; i++) {
+            count += counts[i];
+            if (count >= target) {
+                return highestValueAt(i);
+            }
+        }
+        return MAX_VALUE;
+    }
+
+    /**
+     * Gets the number of values recorded
+     */
+    public long getCount() {
+        long answer = 0;
+        for (AtomicLongArray stripe : buckets) {
+            for (int i = 0; i < BUCKETS; i++) {
+                answer += stripe.get(i);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Gets the average number of values recorded per second in the last minute, not counting the current second.
+     */
+    public double getThroughput() {
+        long now = currentTime() / 1000;
+        long total = 0;
+        for (int stripe = 0; stripe <= mask; stripe++) {
+            for (int i = 0; i < WINDOW_SECONDS; i++) {
+                long second = windowSeconds[stripe].get(i);
+                if (second < now && second >= now - WINDOW_SECONDS) {
+                    total += windowCounts[stripe].get(i);
+                }
+            }
+        }
+        return (double) total / WINDOW_SECONDS;
+    }
+
+    public void reset() {
+        for (int stripe = 0; stripe <= mask; stripe++) {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[stripe].set(i, 0);
+            }
+            for (int i = 0; i < WINDOW_SECONDS; i++) {
+                windowCounts[stripe].set(i, 0);
+                windowSeconds[stripe].set(i, 0);
+            }
+        }
+    }
+
+    protected long currentTime() {
+        return System.currentTimeMillis();
+    }
+
+    private void recordThroughput(int stripe, long second) {
+        int index = (int) (second % WINDOW_SECONDS);
+        AtomicLongArray seconds = windowSeconds[stripe];
+        AtomicLongArray counts = windowCounts[stripe];
+        long old = seconds.get(index);
+        if (old != second && seconds.compareAndSet(index, old, second)) {
+            // we moved the slot to a new second, so start counting from zero
+            // (a concurrent increment can be lost, which is okay for a throughput estimate)
+            counts.set(index, 0);
+        }
+        counts.incrementAndGet(index);
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 32)) & mask;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS * 2) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    static long highestValueAt(int index) {
+        if (index < SUB_BUCKETS * 2) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
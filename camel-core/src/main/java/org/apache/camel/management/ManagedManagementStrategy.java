@@ -37,7 +37,6 @@ import org.apache.camel.spi.ManagementAgent;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.fusesource.commons.management.Statistic;
-import org.fusesource.commons.management.basic.StatisticImpl;
 
 /**
  * A JMX capable {@link org.apache.camel.spi.ManagementStrategy} that Camel by default uses if possible.
@@ -158,7 +157,7 @@ public class ManagedManagementStrategy extends DefaultManagementStrategy {
 
     @Override
     public Statistic createStatistic(String name, Object owner, Statistic.UpdateMode updateMode) {
-        return new StatisticImpl(updateMode);
+        return new ConcurrentStatistic(updateMode);
     }
 
     private ObjectName getObjectName(Object managedObject, Object preferedName) throws Exception {
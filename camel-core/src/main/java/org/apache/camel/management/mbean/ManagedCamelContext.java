@@ -16,12 +16,14 @@
  */
 package org.apache.camel.management.mbean;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.camel.CamelContext;
 import org.apache.camel.ProducerTemplate;
 import org.apache.camel.ServiceStatus;
+import org.apache.camel.spi.InflightRepository;
 import org.apache.camel.spi.ManagementStrategy;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedOperation;
@@ -96,6 +98,26 @@ public class ManagedCamelContext {
         return context.getInflightRepository().size();
     }
 
+    @ManagedAttribute(description = "Whether the inflight Exchanges are tracked so they can be browsed")
+    public Boolean getInflightBrowseEnabled() {
+        return context.getInflightRepository().isInflightBrowseEnabled();
+    }
+
+    @ManagedAttribute(description = "Whether the inflight Exchanges are tracked so they can be browsed")
+    public void setInflightBrowseEnabled(Boolean enabled) {
+        context.getInflightRepository().setInflightBrowseEnabled(enabled);
+    }
+
+    @ManagedOperation(description = "Browse the inflight Exchanges which has been inflight the longest")
+    public String[] browseInflightExchanges(int limit) {
+        List<InflightRepository.InflightExchange> list = context.getInflightRepository().browse(limit);
+        String[] answer = new String[list.size()];
+        for (int i = 0; i < answer.length; i++) {
+            answer[i] = list.get(i).toString();
+        }
+        return answer;
+    }
+
     @ManagedAttribute(description = "Shutdown timeout")
     public void setTimeout(long timeout) {
         context.getShutdownStrategy().setTimeout(timeout);
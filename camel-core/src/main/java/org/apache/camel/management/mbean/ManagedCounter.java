@@ -41,7 +41,7 @@ public abstract class ManagedCounter {
         return exchangesTotal.getValue();
     }
 
-    public synchronized void increment() {
+    public void increment() {
         exchangesTotal.increment();
     }
 }
@@ -128,6 +128,56 @@ public class ManagedErrorHandler {
         redelivery.getRedeliveryPolicy().setMaximumRedeliveries(maximum);
     }
 
+    @ManagedAttribute(description = "Number of exchanges being redelivered asynchronously")
+    public Integer getPendingRedeliveryCount() {
+        if (!isSupportRedelivery()) {
+            return null;
+        }
+
+        RedeliveryErrorHandler redelivery = (RedeliveryErrorHandler) errorHandler;
+        return redelivery.getPendingRedeliveryCount();
+    }
+
+    @ManagedAttribute(description = "RedeliveryPolicy for asynchronous delayed redelivery")
+    public Boolean getAsyncDelayedRedelivery() {
+        if (!isSupportRedelivery()) {
+            return null;
+        }
+
+        RedeliveryErrorHandler redelivery = (RedeliveryErrorHandler) errorHandler;
+        return redelivery.getRedeliveryPolicy().isAsyncDelayedRedelivery();
+    }
+
+    @ManagedAttribute(description = "RedeliveryPolicy for asynchronous delayed redelivery")
+    public void setAsyncDelayedRedelivery(Boolean async) {
+        if (!isSupportRedelivery()) {
+            throw new IllegalArgumentException("This error handler does not support redelivery");
+        }
+
+        RedeliveryErrorHandler redelivery = (RedeliveryErrorHandler) errorHandler;
+        redelivery.getRedeliveryPolicy().setAsyncDelayedRedelivery(async);
+    }
+
+    @ManagedAttribute(description = "RedeliveryPolicy for maximum pending asynchronous redeliveries")
+    public Integer getMaximumPendingRedeliveries() {
+        if (!isSupportRedelivery()) {
+            return null;
+        }
+
+        RedeliveryErrorHandler redelivery = (RedeliveryErrorHandler) errorHandler;
+        return redelivery.getRedeliveryPolicy().getMaximumPendingRedeliveries();
+    }
+
+    @ManagedAttribute(description = "RedeliveryPolicy for maximum pending asynchronous redeliveries")
+    public void setMaximumPendingRedeliveries(Integer maximum) {
+        if (!isSupportRedelivery()) {
+            throw new IllegalArgumentException("This error handler does not support redelivery");
+        }
+
+        RedeliveryErrorHandler redelivery = (RedeliveryErrorHandler) errorHandler;
+        redelivery.getRedeliveryPolicy().setMaximumPendingRedeliveries(maximum);
+    }
+
     @ManagedAttribute(description = "RedeliveryPolicy for maximum redelivery delay")
     public Long getMaximumRedeliveryDelay() {
         if (!isSupportRedelivery()) {
@@ -18,6 +18,7 @@ package org.apache.camel.management.mbean;
 
 import java.util.Date;
 
+import org.apache.camel.management.LatencyHistogram;
 import org.apache.camel.management.PerformanceCounter;
 import org.apache.camel.spi.ManagementStrategy;
 import org.fusesource.commons.management.Statistic;
@@ -34,11 +35,11 @@ public abstract class ManagedPerformanceCounter extends ManagedCounter implement
     private Statistic maxProcessingTime;
     private Statistic totalProcessingTime;
     private Statistic lastProcessingTime;
-    private Statistic meanProcessingTime;
     private Statistic firstExchangeCompletedTimestamp;
     private Statistic firstExchangeFailureTimestamp;
     private Statistic lastExchangeCompletedTimestamp;
     private Statistic lastExchangeFailureTimestamp;
+    private final LatencyHistogram processingTimes = new LatencyHistogram();
     private boolean statisticsEnabled = true;
 
     public void init(ManagementStrategy strategy) {
@@ -49,7 +50,6 @@ public abstract class ManagedPerformanceCounter extends ManagedCounter implement
         this.maxProcessingTime = strategy.createStatistic("org.apache.camel.maximumProcessingTime", this, Statistic.UpdateMode.MAXIMUM);
         this.totalProcessingTime = strategy.createStatistic("org.apache.camel.totalProcessingTime", this, Statistic.UpdateMode.COUNTER);
         this.lastProcessingTime = strategy.createStatistic("org.apache.camel.lastProcessingTime", this, Statistic.UpdateMode.VALUE);
-        this.meanProcessingTime = strategy.createStatistic("org.apache.camel.meanProcessingTime", this, Statistic.UpdateMode.VALUE);
 
         this.firstExchangeCompletedTimestamp = strategy.createStatistic("org.apache.camel.firstExchangeCompletedTimestamp", this, Statistic.UpdateMode.VALUE);
         this.firstExchangeFailureTimestamp = strategy.createStatistic("org.apache.camel.firstExchangeFailureTimestamp", this, Statistic.UpdateMode.VALUE);
@@ -67,11 +67,11 @@ public abstract class ManagedPerformanceCounter extends ManagedCounter implement
         maxProcessingTime.reset();
         totalProcessingTime.reset();
         lastProcessingTime.reset();
-        meanProcessingTime.reset();
         firstExchangeCompletedTimestamp.reset();
         firstExchangeFailureTimestamp.reset();
         lastExchangeCompletedTimestamp.reset();
         lastExchangeFailureTimestamp.reset();
+        processingTimes.reset();
     }
 
     @ManagedAttribute(description = "Number of completed exchanges")
@@ -91,7 +91,8 @@ public abstract class ManagedPerformanceCounter extends ManagedCounter implement
 
     @ManagedAttribute(description = "Mean Processing Time [milliseconds]")
     public long getMeanProcessingTime() throws Exception {
-        return meanProcessingTime.getValue();
+        long count = exchangesCompleted.getValue();
+        return count > 0 ? totalProcessingTime.getValue() / count : 0;
     }
 
     @ManagedAttribute(description = "Max Processing Time [milliseconds]")
@@ -109,6 +110,36 @@ public abstract class ManagedPerformanceCounter extends ManagedCounter implement
         return lastProcessingTime.getValue();
     }
 
+    @ManagedAttribute(description = "50th Percentile Processing Time [milliseconds]")
+    public long getP50ProcessingTime() throws Exception {
+        return processingTimes.getValueAtPercentile(50);
+    }
+
+    @ManagedAttribute(description = "95th Percentile Processing Time [milliseconds]")
+    public long getP95ProcessingTime() throws Exception {
+        return processingTimes.getValueAtPercentile(95);
+    }
+
+    @ManagedAttribute(description = "99th Percentile Processing Time [milliseconds]")
+    public long getP99ProcessingTime() throws Exception {
+        return processingTimes.getValueAtPercentile(99);
+    }
+
+    @ManagedAttribute(description = "99.9th Percentile Processing Time [milliseconds]")
+    public long getP999ProcessingTime() throws Exception {
+        return processingTimes.getValueAtPercentile(99.9);
+    }
+
+    @ManagedAttribute(description = "Completed exchanges per second in the last minute")
+    public double getThroughput() throws Exception {
+        return processingTimes.getThroughput();
+    }
+
+    @ManagedOperation(description = "Processing time [milliseconds] at the given percentile")
+    public long processingTimeAtPercentile(double percentile) throws Exception {
+        return processingTimes.getValueAtPercentile(percentile);
+    }
+
     @ManagedAttribute(description = "Last Exchange Completed Timestamp")
     public Date getLastExchangeCompletedTimestamp() {
         long value = lastExchangeCompletedTimestamp.getValue();
@@ -146,9 +177,14 @@ public abstract class ManagedPerformanceCounter extends ManagedCounter implement
     /**
      * This method is called when an exchange has been processed successfully.
      * 
+     * <p/>
+     * The statistics is lock free and the counters and the histogram is striped, so concurrent exchanges
+     * rarely contend on this counter. The remaining shared writes is when the min or max processing time
+     * changes, and when the last processing time or the last completed timestamp changes.
+     *
      * @param time in milliseconds it spent on processing the exchange
      */
-    public synchronized void completedExchange(long time) {
+    public void completedExchange(long time) {
         increment();
         exchangesCompleted.increment();
 
@@ -156,29 +192,26 @@ public abstract class ManagedPerformanceCounter extends ManagedCounter implement
         maxProcessingTime.updateValue(time);
         totalProcessingTime.updateValue(time);
         lastProcessingTime.updateValue(time);
+        processingTimes.record(time);
 
-        long now = new Date().getTime();
-        if (firstExchangeCompletedTimestamp.getUpdateCount() == 0) {
+        long now = System.currentTimeMillis();
+        // check the value rather than the update count as its cheaper to read
+        if (firstExchangeCompletedTimestamp.getValue() == 0) {
             firstExchangeCompletedTimestamp.updateValue(now);
         }
 
         lastExchangeCompletedTimestamp.updateValue(now);
-
-        // update mean
-        long count = exchangesCompleted.getValue();
-        long mean = count > 0 ? totalProcessingTime.getValue() / count : 0;
-        meanProcessingTime.updateValue(mean);
     }
 
     /**
      * This method is called when an exchange has been processed and failed.
      */
-    public synchronized void failedExchange() {
+    public void failedExchange() {
         increment();
         exchangesFailed.increment();
 
-        long now = new Date().getTime();
-        if (firstExchangeFailureTimestamp.getUpdateCount() == 0) {
+        long now = System.currentTimeMillis();
+        if (firstExchangeFailureTimestamp.getValue() == 0) {
             firstExchangeFailureTimestamp.updateValue(now);
         }
 
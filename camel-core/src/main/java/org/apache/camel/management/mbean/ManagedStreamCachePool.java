@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.management.mbean;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.converter.stream.StreamCachePool;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * @version $Revision$
+ */
+@ManagedResource(description = "Managed StreamCachePool")
+public class ManagedStreamCachePool extends ManagedService {
+
+    private final StreamCachePool pool;
+
+    public ManagedStreamCachePool(CamelContext context, StreamCachePool pool) {
+        super(context, pool);
+        this.pool = pool;
+    }
+
+    public StreamCachePool getStreamCachePool() {
+        return pool;
+    }
+
+    @ManagedAttribute(description = "Size of the chunks in bytes")
+    public Integer getChunkSize() {
+        return pool.getChunkSize();
+    }
+
+    @ManagedAttribute(description = "Maximum memory in bytes")
+    public Long getMaxMemory() {
+        return pool.getMaxMemory();
+    }
+
+    @ManagedAttribute(description = "Memory allocated in bytes")
+    public Long getMemoryAllocated() {
+        return pool.getMemoryAllocated();
+    }
+
+    @ManagedAttribute(description = "Memory in use in bytes")
+    public Long getMemoryUsed() {
+        return pool.getMemoryUsed();
+    }
+
+    @ManagedAttribute(description = "Spool file size in bytes")
+    public Long getSpoolSize() {
+        return pool.getSpoolSize();
+    }
+
+    @ManagedAttribute(description = "Spool file in use in bytes")
+    public Long getSpoolUsed() {
+        return pool.getSpoolUsed();
+    }
+
+    @ManagedAttribute(description = "Total bytes cached in memory")
+    public Long getTotalInMemoryBytes() {
+        return pool.getTotalInMemoryBytes();
+    }
+
+    @ManagedAttribute(description = "Total bytes spooled to the spool file")
+    public Long getTotalSpooledBytes() {
+        return pool.getTotalSpooledBytes();
+    }
+
+    @ManagedOperation(description = "Reset statistics")
+    public void resetStatistics() {
+        pool.resetStatistics();
+    }
+
+}
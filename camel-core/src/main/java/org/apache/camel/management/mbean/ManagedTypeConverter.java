@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.management.mbean;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.impl.converter.DefaultTypeConverter;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * @version $Revision$
+ */
+@ManagedResource(description = "Managed TypeConverter")
+public class ManagedTypeConverter extends ManagedService {
+
+    private final DefaultTypeConverter typeConverter;
+
+    public ManagedTypeConverter(CamelContext context, DefaultTypeConverter typeConverter) {
+        super(context, typeConverter);
+        this.typeConverter = typeConverter;
+    }
+
+    public DefaultTypeConverter getTypeConverter() {
+        return typeConverter;
+    }
+
+    @ManagedAttribute(description = "Number of type converters registered")
+    public Integer getNumberOfTypeConverters() {
+        return typeConverter.getTypeMappings().size();
+    }
+
+    @ManagedAttribute(description = "Number of from and to types in the converter cache")
+    public Integer getCacheSize() {
+        return typeConverter.getCacheSize();
+    }
+
+    @ManagedAttribute(description = "Number of conversions done by a known type converter")
+    public long getHitCounter() {
+        return typeConverter.getHitCounter();
+    }
+
+    @ManagedAttribute(description = "Number of conversions which was not possible")
+    public long getMissCounter() {
+        return typeConverter.getMissCounter();
+    }
+
+    @ManagedAttribute(description = "Number of fallback type converter invocations")
+    public long getFallbackCounter() {
+        return typeConverter.getFallbackCounter();
+    }
+
+    @ManagedAttribute(description = "Number of fallback type converters promoted to known type converters")
+    public long getPromotionCounter() {
+        return typeConverter.getPromotionCounter();
+    }
+
+    @ManagedAttribute(description = "Statistics enabled")
+    public boolean isStatisticsEnabled() {
+        return typeConverter.isStatisticsEnabled();
+    }
+
+    @ManagedAttribute(description = "Statistics enabled")
+    public void setStatisticsEnabled(boolean statisticsEnabled) {
+        typeConverter.setStatisticsEnabled(statisticsEnabled);
+    }
+
+    @ManagedOperation(description = "Reset the statistics")
+    public void resetStatistics() {
+        typeConverter.resetStatistics();
+    }
+
+}
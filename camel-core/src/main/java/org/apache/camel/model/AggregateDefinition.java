@@ -92,6 +92,10 @@ public class AggregateDefinition extends ProcessorDefinition<AggregateDefinition
     private Integer closeCorrelationKeyOnCompletion;
     @XmlAttribute
     private Boolean discardOnCompletionTimeout;
+    @XmlAttribute
+    private Integer lockStripes;
+    @XmlAttribute
+    private Boolean timingWheelTimeout;
 
     public AggregateDefinition() {
     }
@@ -208,6 +212,12 @@ public class AggregateDefinition extends ProcessorDefinition<AggregateDefinition
         if (isDiscardOnCompletionTimeout() != null) {
             answer.setDiscardOnCompletionTimeout(isDiscardOnCompletionTimeout());
         }
+        if (getLockStripes() != null) {
+            answer.setLockStripes(getLockStripes());
+        }
+        if (isTimingWheelTimeout() != null) {
+            answer.setTimingWheelTimeout(isTimingWheelTimeout());
+        }
 
         return answer;
     }
@@ -403,6 +413,22 @@ public class AggregateDefinition extends ProcessorDefinition<AggregateDefinition
         this.discardOnCompletionTimeout = discardOnCompletionTimeout;
     }
 
+    public Integer getLockStripes() {
+        return lockStripes;
+    }
+
+    public void setLockStripes(Integer lockStripes) {
+        this.lockStripes = lockStripes;
+    }
+
+    public Boolean isTimingWheelTimeout() {
+        return timingWheelTimeout;
+    }
+
+    public void setTimingWheelTimeout(Boolean timingWheelTimeout) {
+        this.timingWheelTimeout = timingWheelTimeout;
+    }
+
     // Fluent API
     //-------------------------------------------------------------------------
 
@@ -454,6 +480,32 @@ public class AggregateDefinition extends ProcessorDefinition<AggregateDefinition
         return this;
     }
 
+    /**
+     * Aggregates different correlation keys concurrently by striping the correlation keys across
+     * the given number of locks. Exchanges with the same correlation key is still aggregated in sequence.
+     * <p/>
+     * This can improve performance when using an IO bound {@link AggregationRepository}.
+     * Cannot be used together with {@link #completionFromBatchConsumer()}.
+     *
+     * @param lockStripes the number of locks
+     * @return builder
+     */
+    public AggregateDefinition lockStripes(int lockStripes) {
+        setLockStripes(lockStripes);
+        return this;
+    }
+
+    /**
+     * Uses a timing wheel to keep track of the completion timeouts, which scales better
+     * than the default when having many correlation keys in progress.
+     *
+     * @return builder
+     */
+    public AggregateDefinition timingWheelTimeout() {
+        setTimingWheelTimeout(true);
+        return this;
+    }
+
     /**
      * Enables the batch completion mode where we aggregate from a {@link org.apache.camel.BatchConsumer}
      * and aggregate the total number of exchanges the {@link org.apache.camel.BatchConsumer} has reported
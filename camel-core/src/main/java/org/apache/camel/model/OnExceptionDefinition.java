@@ -377,6 +377,18 @@ public class OnExceptionDefinition extends ProcessorDefinition<OnExceptionDefini
         return this;
     }
 
+    /**
+     * Sets the maximum number of exchanges waiting for an asynchronous delayed redelivery.
+     *
+     * @see org.apache.camel.processor.RedeliveryPolicy#setMaximumPendingRedeliveries(int)
+     * @param maximumPendingRedeliveries  the maximum, or a negative value for no maximum
+     * @return the builder
+     */
+    public OnExceptionDefinition maximumPendingRedeliveries(int maximumPendingRedeliveries) {
+        getOrCreateRedeliveryPolicy().setMaximumPendingRedeliveries(maximumPendingRedeliveries);
+        return this;
+    }
+
     /**
      * Sets the logging level to use when retries has exhausted
      *
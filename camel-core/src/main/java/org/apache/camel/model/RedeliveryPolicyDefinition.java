@@ -43,6 +43,8 @@ public class RedeliveryPolicyDefinition {
     @XmlAttribute
     private Boolean asyncDelayedRedelivery;
     @XmlAttribute
+    private Integer maximumPendingRedeliveries;
+    @XmlAttribute
     private Double backOffMultiplier;
     @XmlAttribute
     private Boolean useExponentialBackOff;
@@ -96,6 +98,9 @@ public class RedeliveryPolicyDefinition {
         if (asyncDelayedRedelivery != null && asyncDelayedRedelivery) {
             answer.asyncDelayedRedelivery();
         }
+        if (maximumPendingRedeliveries != null) {
+            answer.setMaximumPendingRedeliveries(maximumPendingRedeliveries);
+        }
         if (retriesExhaustedLogLevel != null) {
             answer.setRetriesExhaustedLogLevel(retriesExhaustedLogLevel);
         }
@@ -358,6 +363,27 @@ public class RedeliveryPolicyDefinition {
         return this;
     }
 
+    /**
+     * Allow asynchronous delayed redelivery.
+     *
+     * @return the builder
+     */
+    public RedeliveryPolicyDefinition asyncDelayedRedelivery() {
+        setAsyncDelayedRedelivery(true);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of exchanges waiting for an asynchronous delayed redelivery.
+     *
+     * @param maximumPendingRedeliveries  the maximum, or a negative value for no maximum
+     * @return the builder
+     */
+    public RedeliveryPolicyDefinition maximumPendingRedeliveries(int maximumPendingRedeliveries) {
+        setMaximumPendingRedeliveries(maximumPendingRedeliveries);
+        return this;
+    }
+
     // Properties
     //-------------------------------------------------------------------------
 
@@ -393,6 +419,14 @@ public class RedeliveryPolicyDefinition {
         this.asyncDelayedRedelivery = asyncDelayedRedelivery;
     }
 
+    public Integer getMaximumPendingRedeliveries() {
+        return maximumPendingRedeliveries;
+    }
+
+    public void setMaximumPendingRedeliveries(Integer maximumPendingRedeliveries) {
+        this.maximumPendingRedeliveries = maximumPendingRedeliveries;
+    }
+
     public Integer getMaximumRedeliveries() {
         return maximumRedeliveries;
     }
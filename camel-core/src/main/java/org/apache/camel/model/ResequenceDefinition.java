@@ -152,6 +152,37 @@ public class ResequenceDefinition extends ProcessorDefinition<ResequenceDefiniti
         return this;
     }
 
+    /**
+     * Resequences the exchanges in the given number of independent partitions for the batch resequencer mode.
+     * <p/>
+     * Each partition is batched, reordered and sent on its own using a shared thread pool, so the order
+     * is only kept within a partition. Requires a {@link #partitionExpression(Expression) partition expression}.
+     *
+     * @param partitions  the number of partitions
+     * @return the builder
+     */
+    public ResequenceDefinition partitions(int partitions) {
+        if (batchConfig == null) {
+            throw new IllegalStateException("partitions() only supported for batch resequencer");
+        }
+        batchConfig.setPartitions(partitions);
+        return this;
+    }
+
+    /**
+     * Sets the expression which assigns the exchanges to partitions for the batch resequencer mode.
+     *
+     * @param expression  the partition key expression
+     * @return the builder
+     */
+    public ResequenceDefinition partitionExpression(Expression expression) {
+        if (batchConfig == null) {
+            throw new IllegalStateException("partitionExpression() only supported for batch resequencer");
+        }
+        batchConfig.setPartitionExpression(new ExpressionSubElementDefinition(expression));
+        return this;
+    }
+
     /**
      * Sets the capacity for the stream resequencer
      *
@@ -167,6 +198,22 @@ public class ResequenceDefinition extends ProcessorDefinition<ResequenceDefiniti
 
     }
 
+    /**
+     * Uses a ring buffer for the stream resequencer, which requires <tt>long</tt> sequence numbers.
+     * <p/>
+     * The capacity is then the window of sequence numbers the resequencer holds, and exchanges
+     * with a sequence number beyond the window waits until the window has moved.
+     *
+     * @return the builder
+     */
+    public ResequenceDefinition ringBuffer() {
+        if (streamConfig == null) {
+            throw new IllegalStateException("ringBuffer() only supported for stream resequencer");
+        }
+        streamConfig.setRingBuffer(true);
+        return this;
+    }
+
     /**
      * Enables duplicates for the batch resequencer mode
      * @return the builder
@@ -284,6 +331,12 @@ public class ResequenceDefinition extends ProcessorDefinition<ResequenceDefiniti
                 config.getAllowDuplicates(), config.getReverse());
         resequencer.setBatchSize(config.getBatchSize());
         resequencer.setBatchTimeout(config.getBatchTimeout());
+        if (config.getPartitions() != null) {
+            resequencer.setPartitions(config.getPartitions());
+        }
+        if (config.getPartitionExpression() != null) {
+            resequencer.setPartitionExpression(config.getPartitionExpression().createExpression(routeContext));
+        }
         return resequencer;
     }
 
@@ -301,7 +354,7 @@ public class ResequenceDefinition extends ProcessorDefinition<ResequenceDefiniti
 
         config.getComparator().setExpressions(resolveExpressionList(routeContext));
         Processor processor = this.createChildProcessor(routeContext, true);
-        StreamResequencer resequencer = new StreamResequencer(routeContext.getCamelContext(), processor, config.getComparator());
+        StreamResequencer resequencer = new StreamResequencer(routeContext.getCamelContext(), processor, config.getComparator(), config.isRingBuffer());
         resequencer.setTimeout(config.getTimeout());
         resequencer.setCapacity(config.getCapacity());
         return resequencer;
@@ -21,11 +21,14 @@ import java.util.concurrent.ScheduledExecutorService;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlTransient;
 
+import org.apache.camel.Expression;
 import org.apache.camel.Processor;
 import org.apache.camel.processor.Throttler;
+import org.apache.camel.processor.TokenBucketThrottler;
 import org.apache.camel.spi.RouteContext;
 import org.apache.camel.util.concurrent.ExecutorServiceHelper;
 
@@ -49,6 +52,12 @@ public class ThrottleDefinition extends OutputDefinition<ThrottleDefinition> imp
     private Boolean asyncDelayed;
     @XmlAttribute
     private Boolean callerRunsWhenRejected = Boolean.TRUE;
+    @XmlAttribute
+    private Long burstSize;
+    @XmlAttribute
+    private Integer maximumQueueSize;
+    @XmlElement(name = "correlationExpression")
+    private ExpressionSubElementDefinition correlationExpression;
 
     public ThrottleDefinition() {
     }
@@ -77,6 +86,10 @@ public class ThrottleDefinition extends OutputDefinition<ThrottleDefinition> imp
     public Processor createProcessor(RouteContext routeContext) throws Exception {
         Processor childProcessor = this.createChildProcessor(routeContext, true);
 
+        if (isTokenBucket()) {
+            return createTokenBucketThrottler(routeContext, childProcessor);
+        }
+
         ScheduledExecutorService scheduled = null;
         if (getAsyncDelayed() != null && getAsyncDelayed()) {
             scheduled = ExecutorServiceHelper.getConfiguredScheduledExecutorService(routeContext, "Throttle", this);
@@ -95,6 +108,33 @@ public class ThrottleDefinition extends OutputDefinition<ThrottleDefinition> imp
         return answer;
     }
 
+    /**
+     * Whether any of the options which requires the {@link TokenBucketThrottler} has been configured
+     */
+    protected boolean isTokenBucket() {
+        return burstSize != null || maximumQueueSize != null || correlationExpression != null;
+    }
+
+    protected Processor createTokenBucketThrottler(RouteContext routeContext, Processor childProcessor) throws Exception {
+        // the token bucket throttler is always asynchronous
+        ScheduledExecutorService scheduled = ExecutorServiceHelper.getConfiguredScheduledExecutorService(routeContext, "Throttle", this);
+        if (scheduled == null) {
+            scheduled = routeContext.getCamelContext().getExecutorServiceStrategy().newScheduledThreadPool(this, "Throttle");
+        }
+
+        TokenBucketThrottler answer = new TokenBucketThrottler(childProcessor, maximumRequestsPerPeriod, timePeriodMillis, scheduled);
+        if (getBurstSize() != null) {
+            answer.setBurstSize(getBurstSize());
+        }
+        if (getMaximumQueueSize() != null) {
+            answer.setMaximumQueueSize(getMaximumQueueSize());
+        }
+        if (getCorrelationExpression() != null) {
+            answer.setCorrelationExpression(getCorrelationExpression().createExpression(routeContext));
+        }
+        return answer;
+    }
+
     // Fluent API
     // -------------------------------------------------------------------------
 
@@ -143,6 +183,46 @@ public class ThrottleDefinition extends OutputDefinition<ThrottleDefinition> imp
         return this;
     }
 
+    /**
+     * Sets the number of exchanges which can pass through at once after being idle.
+     * <p/>
+     * Setting this option uses a token bucket throttler which never blocks while waiting.
+     *
+     * @param burstSize  the burst size
+     * @return the builder
+     */
+    public ThrottleDefinition burstSize(long burstSize) {
+        setBurstSize(burstSize);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of exchanges waiting to be throttled. Exchanges exceeding this
+     * is rejected with a {@link java.util.concurrent.RejectedExecutionException} instead of being delayed.
+     * <p/>
+     * Setting this option uses a token bucket throttler which never blocks while waiting.
+     *
+     * @param maximumQueueSize  the maximum queue size, use <tt>0</tt> to never wait
+     * @return the builder
+     */
+    public ThrottleDefinition maximumQueueSize(int maximumQueueSize) {
+        setMaximumQueueSize(maximumQueueSize);
+        return this;
+    }
+
+    /**
+     * Throttles each value of the correlation expression separately, for example per customer.
+     * <p/>
+     * Setting this option uses a token bucket throttler which never blocks while waiting.
+     *
+     * @param correlationExpression  the correlation expression
+     * @return the builder
+     */
+    public ThrottleDefinition correlationExpression(Expression correlationExpression) {
+        setCorrelationExpression(new ExpressionSubElementDefinition(correlationExpression));
+        return this;
+    }
+
     public ThrottleDefinition executorService(ExecutorService executorService) {
         setExecutorService(executorService);
         return this;
@@ -188,6 +268,30 @@ public class ThrottleDefinition extends OutputDefinition<ThrottleDefinition> imp
         this.callerRunsWhenRejected = callerRunsWhenRejected;
     }
 
+    public Long getBurstSize() {
+        return burstSize;
+    }
+
+    public void setBurstSize(Long burstSize) {
+        this.burstSize = burstSize;
+    }
+
+    public Integer getMaximumQueueSize() {
+        return maximumQueueSize;
+    }
+
+    public void setMaximumQueueSize(Integer maximumQueueSize) {
+        this.maximumQueueSize = maximumQueueSize;
+    }
+
+    public ExpressionSubElementDefinition getCorrelationExpression() {
+        return correlationExpression;
+    }
+
+    public void setCorrelationExpression(ExpressionSubElementDefinition correlationExpression) {
+        this.correlationExpression = correlationExpression;
+    }
+
     public ExecutorService getExecutorService() {
         return executorService;
     }
@@ -19,9 +19,12 @@ package org.apache.camel.model.config;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlEnum;
 import javax.xml.bind.annotation.XmlRootElement;
 
+import org.apache.camel.model.ExpressionSubElementDefinition;
+
 /**
  * Defines the configuration parameters for the batch-processing
  * {@link org.apache.camel.processor.Resequencer}. Usage example:
@@ -50,6 +53,14 @@ import javax.xml.bind.annotation.XmlRootElement;
  *         new BatchResequencerConfig(300, 400L)).to(&quot;mock:result&quot;)
  * </pre>
  * 
+ * Exchanges can be resequenced in independent partitions, where the order is
+ * only kept within each partition:
+ * 
+ * <pre>
+ * from(&quot;direct:start&quot;).resequence(body()).batch().partitions(4)
+ *         .partitionExpression(header(&quot;customer&quot;)).to(&quot;mock:result&quot;)
+ * </pre>
+ * 
  * @version $Revision$
  */
 @XmlRootElement
@@ -68,6 +79,12 @@ public class BatchResequencerConfig {
     @XmlAttribute
     private Boolean reverse = Boolean.FALSE;
 
+    @XmlAttribute
+    private Integer partitions;
+
+    @XmlElement(name = "partitionExpression", required = false)
+    private ExpressionSubElementDefinition partitionExpression;
+
     /**
      * Creates a new {@link BatchResequencerConfig} instance using default
      * values for <code>batchSize</code> (100) and <code>batchTimeout</code>
@@ -133,4 +150,20 @@ public class BatchResequencerConfig {
     public void setReverse(Boolean reverse) {
         this.reverse = reverse;
     }
+
+    public Integer getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(Integer partitions) {
+        this.partitions = partitions;
+    }
+
+    public ExpressionSubElementDefinition getPartitionExpression() {
+        return partitionExpression;
+    }
+
+    public void setPartitionExpression(ExpressionSubElementDefinition partitionExpression) {
+        this.partitionExpression = partitionExpression;
+    }
 }
@@ -59,6 +59,9 @@ public class StreamResequencerConfig {
 
     @XmlAttribute
     private Long timeout; // optional XML attribute requires wrapper object
+
+    @XmlAttribute
+    private Boolean ringBuffer;
     
     @XmlTransient
     private ExpressionResultComparator comparator;
@@ -129,6 +132,14 @@ public class StreamResequencerConfig {
         this.timeout = timeout;
     }
 
+    public boolean isRingBuffer() {
+        return ringBuffer != null && ringBuffer;
+    }
+
+    public void setRingBuffer(boolean ringBuffer) {
+        this.ringBuffer = ringBuffer;
+    }
+
     public ExpressionResultComparator getComparator() {
         return comparator;
     }
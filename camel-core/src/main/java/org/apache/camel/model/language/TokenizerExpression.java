@@ -39,6 +39,8 @@ public class TokenizerExpression extends ExpressionDefinition {
     private String headerName;
     @XmlAttribute(required = false)
     private Boolean regex;
+    @XmlAttribute(required = false)
+    private Integer group;
 
     public TokenizerExpression() {
     }
@@ -72,6 +74,14 @@ public class TokenizerExpression extends ExpressionDefinition {
         return regex;
     }
 
+    public Integer getGroup() {
+        return group;
+    }
+
+    public void setGroup(Integer group) {
+        this.group = group;
+    }
+
     @Override
     public Expression createExpression(CamelContext camelContext) {
         TokenizeLanguage language = new TokenizeLanguage();
@@ -80,6 +90,9 @@ public class TokenizerExpression extends ExpressionDefinition {
         if (regex != null) {
             language.setRegex(regex);
         }
+        if (group != null) {
+            language.setGroup(group);
+        }
         return language.createExpression();
     }
 
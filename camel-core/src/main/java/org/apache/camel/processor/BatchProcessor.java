@@ -22,7 +22,10 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
@@ -30,6 +33,7 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
+import org.apache.camel.Expression;
 import org.apache.camel.Navigate;
 import org.apache.camel.Predicate;
 import org.apache.camel.Processor;
@@ -61,6 +65,11 @@ public class BatchProcessor extends ServiceSupport implements Processor, Navigat
     private boolean groupExchanges;
     private boolean batchConsumer;
     private Predicate completionPredicate;
+    private int partitions;
+    private Expression partitionExpression;
+    private ScheduledExecutorService executorService;
+    private boolean shutdownExecutorService;
+    private BatchPartition[] batchPartitions;
 
     private final CamelContext camelContext;
     private final Processor processor;
@@ -169,6 +178,54 @@ public class BatchProcessor extends ServiceSupport implements Processor, Navigat
         this.completionPredicate = completionPredicate;
     }
 
+    public int getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Sets the number of partitions. When more than one partition is configured the exchanges are assigned
+     * to a partition by the {@link #setPartitionExpression(Expression) partition expression}, and each
+     * partition is batched, ordered and sent independently of the others using a shared thread pool.
+     * Ordering is only kept within a partition. By default this feature is <b>not</b> enabled.
+     *
+     * @param partitions the number of partitions
+     */
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    public Expression getPartitionExpression() {
+        return partitionExpression;
+    }
+
+    /**
+     * Sets the expression used to assign an exchange to a partition. Exchanges which evaluate to the
+     * same value always end up in the same partition.
+     *
+     * @param partitionExpression the partition key expression
+     */
+    public void setPartitionExpression(Expression partitionExpression) {
+        this.partitionExpression = partitionExpression;
+    }
+
+    public ScheduledExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    /**
+     * Sets the thread pool used by the partitions for sending the batches and triggering the batch timeout.
+     * If none is set a thread pool with a thread per partition is created when started.
+     *
+     * @param executorService the thread pool
+     */
+    public void setExecutorService(ScheduledExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    public boolean isPartitioned() {
+        return partitions > 1;
+    }
+
     public Processor getProcessor() {
         return processor;
     }
@@ -198,7 +255,7 @@ public class BatchProcessor extends ServiceSupport implements Processor, Navigat
      * A strategy method to decide if the "out" batch is completed. That is, whether the resulting exchange in
      * the out collection should be sent.
      */
-    private boolean isOutBatchCompleted() {
+    private boolean isOutBatchCompleted(Collection<Exchange> collection) {
         if (outBatchSize == 0) {
             // out batch is disabled, so go ahead and send.
             return true;
@@ -206,6 +263,17 @@ public class BatchProcessor extends ServiceSupport implements Processor, Navigat
         return collection.size() > 0 && collection.size() >= outBatchSize;
     }
 
+    /**
+     * Strategy method to create the collection of a partition, which must order the exchanges the same way
+     * as the collection given to this batch processor.
+     */
+    protected Collection<Exchange> createPartitionCollection() {
+        if (collection instanceof SortedSet) {
+            return new TreeSet<Exchange>(((SortedSet<Exchange>) collection).comparator());
+        }
+        return new LinkedList<Exchange>();
+    }
+
     /**
      * Strategy Method to process an exchange in the batch. This method allows derived classes to perform
      * custom processing before or after an individual exchange is processed
@@ -219,12 +287,33 @@ public class BatchProcessor extends ServiceSupport implements Processor, Navigat
 
     protected void doStart() throws Exception {
         ServiceHelper.startServices(processor);
-        sender.start();
+        if (isPartitioned()) {
+            ObjectHelper.notNull(partitionExpression, "partitionExpression", this);
+            if (executorService == null) {
+                executorService = camelContext.getExecutorServiceStrategy().newScheduledThreadPool(this, "Batch Sender", partitions);
+                shutdownExecutorService = true;
+            }
+            batchPartitions = new BatchPartition[partitions];
+            for (int i = 0; i < partitions; i++) {
+                batchPartitions[i] = new BatchPartition(createPartitionCollection());
+            }
+        } else {
+            sender.start();
+        }
     }
 
     protected void doStop() throws Exception {
-        sender.cancel();
-        ServiceHelper.stopServices(sender);
+        if (batchPartitions != null) {
+            if (shutdownExecutorService) {
+                camelContext.getExecutorServiceStrategy().shutdownNow(executorService);
+                executorService = null;
+                shutdownExecutorService = false;
+            }
+            batchPartitions = null;
+        } else {
+            sender.cancel();
+            ServiceHelper.stopServices(sender);
+        }
         ServiceHelper.stopServices(processor);
         collection.clear();
     }
@@ -246,7 +335,182 @@ public class BatchProcessor extends ServiceSupport implements Processor, Navigat
             }
         }
 
-        sender.enqueueExchange(exchange);
+        BatchPartition[] current = batchPartitions;
+        if (current != null) {
+            current[partitionIndex(exchange, current.length)].enqueueExchange(exchange);
+        } else {
+            sender.enqueueExchange(exchange);
+        }
+    }
+
+    private int partitionIndex(Exchange exchange, int size) {
+        Object key = partitionExpression.evaluate(exchange, Object.class);
+        if (key == null) {
+            return 0;
+        }
+        // spread the hash code as poor hash codes would otherwise end up in the same few partitions
+        int h = key.hashCode();
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+        return (h & Integer.MAX_VALUE) % size;
+    }
+
+    private void sendExchange(Exchange exchange) {
+        try {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Sending aggregated exchange: " + exchange);
+            }
+            processExchange(exchange);
+        } catch (Throwable t) {
+            // must catch throwable to avoid growing memory
+            getExceptionHandler().handleException("Error processing aggregated exchange: " + exchange, t);
+        }
+    }
+
+    /**
+     * A partition of the exchanges which is batched and ordered on its own. The completed batches are sent
+     * by a task on the shared thread pool, and at most one task per partition is running at any time so the
+     * batches of a partition are sent in the order they were completed.
+     */
+    private final class BatchPartition implements Runnable {
+
+        private final Lock lock = new ReentrantLock();
+        private final Queue<Exchange> queue = new LinkedList<Exchange>();
+        private final Collection<Exchange> collection;
+        private final Queue<List<Exchange>> completed = new LinkedList<List<Exchange>>();
+        private boolean sending;
+        private boolean timeoutScheduled;
+        private long batchNumber;
+
+        private BatchPartition(Collection<Exchange> collection) {
+            this.collection = collection;
+        }
+
+        public void enqueueExchange(Exchange exchange) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Received exchange to be batched: " + exchange);
+            }
+            boolean matches = completionPredicate != null && completionPredicate.matches(exchange);
+            if (matches && LOG.isTraceEnabled()) {
+                LOG.trace("Exchange matched completion predicate: " + exchange);
+            }
+
+            lock.lock();
+            try {
+                queue.add(exchange);
+                if (matches) {
+                    // the exchange is the last in the queue so this batch is complete with all that is queued
+                    drainQueue(queue.size());
+                    complete();
+                } else {
+                    boolean drained = false;
+                    while (isInBatchCompleted(queue.size())) {
+                        drained = true;
+                        drainQueue(batchSize);
+                    }
+                    if (drained && isOutBatchCompleted(collection)) {
+                        complete();
+                    }
+                }
+                scheduleTimeout();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * This method should be called with lock held
+         */
+        private void drainQueue(int size) {
+            for (int i = 0; i < size; ++i) {
+                Exchange e = queue.poll();
+                if (e == null) {
+                    break;
+                }
+                try {
+                    collection.add(e);
+                } catch (Exception t) {
+                    e.setException(t);
+                } catch (Throwable t) {
+                    getExceptionHandler().handleException(t);
+                }
+            }
+        }
+
+        /**
+         * Moves the ordered collection to the completed batches and makes sure a task is sending them.
+         * This method should be called with lock held
+         */
+        private void complete() {
+            batchNumber++;
+            timeoutScheduled = false;
+            if (collection.isEmpty()) {
+                return;
+            }
+            List<Exchange> batch = new ArrayList<Exchange>(collection);
+            collection.clear();
+            completed.add(batch);
+            if (!sending) {
+                sending = true;
+                executorService.execute(this);
+            }
+        }
+
+        /**
+         * Schedules the batch timeout if there are pending exchanges and no timeout is scheduled already.
+         * This method should be called with lock held
+         */
+        private void scheduleTimeout() {
+            if (timeoutScheduled || (queue.isEmpty() && collection.isEmpty())) {
+                return;
+            }
+            timeoutScheduled = true;
+            final long number = batchNumber;
+            executorService.schedule(new Runnable() {
+                public void run() {
+                    onTimeout(number);
+                }
+            }, batchTimeout, TimeUnit.MILLISECONDS);
+        }
+
+        private void onTimeout(long number) {
+            lock.lock();
+            try {
+                // a completed batch in the meantime has already rescheduled the timeout
+                if (number != batchNumber || !isRunAllowed()) {
+                    return;
+                }
+                if (LOG.isTraceEnabled()) {
+                    LOG.trace("Collecting exchanges to be aggregated triggered by batch timeout");
+                }
+                drainQueue(batchSize);
+                complete();
+                scheduleTimeout();
+            } catch (Throwable t) {
+                getExceptionHandler().handleException(t);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public void run() {
+            while (true) {
+                List<Exchange> batch;
+                lock.lock();
+                try {
+                    batch = completed.poll();
+                    if (batch == null) {
+                        sending = false;
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                for (Exchange exchange : batch) {
+                    sendExchange(exchange);
+                }
+            }
+        }
     }
 
     /**
@@ -326,7 +590,7 @@ public class BatchProcessor extends ServiceSupport implements Processor, Navigat
                                 LOG.trace("Collecting exchanges to be aggregated triggered by new exchanges received");
                             }
 
-                            if (!isOutBatchCompleted()) {
+                            if (!isOutBatchCompleted(collection)) {
                                 continue;
                             }
                         }
@@ -412,15 +676,7 @@ public class BatchProcessor extends ServiceSupport implements Processor, Navigat
             while (iter.hasNext()) {
                 Exchange exchange = iter.next();
                 iter.remove();
-                try {
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug("Sending aggregated exchange: " + exchange);
-                    }
-                    processExchange(exchange);
-                } catch (Throwable t) {
-                    // must catch throwable to avoid growing memory
-                    getExceptionHandler().handleException("Error processing aggregated exchange: " + exchange, t);
-                }
+                sendExchange(exchange);
             }
         }
     }
@@ -211,15 +211,16 @@ public class Pipeline extends MulticastProcessor implements AsyncProcessor, Trac
      * @return a new exchange
      */
     protected Exchange createNextExchange(Exchange previousExchange) {
-        Exchange answer = new DefaultExchange(previousExchange);
+        DefaultExchange answer = new DefaultExchange(previousExchange);
         // we must use the same id as this is a snapshot strategy where Camel copies a snapshot
         // before processing the next step in the pipeline, so we have a snapshot of the exchange
         // just before. This snapshot is used if Camel should do redeliveries (re try) using
         // DeadLetterChannel. That is why it's important the id is the same, as it is the *same*
         // exchange being routed.
-        answer.setExchangeId(previousExchange.getExchangeId());
+        answer.shareExchangeId(previousExchange);
 
-        answer.getProperties().putAll(previousExchange.getProperties());
+        // share rather than copy the properties, as setting a property on either exchange does not affect the other
+        answer.shareProperties(previousExchange);
 
         // now lets set the input of the next exchange to the output of the
         // previous message if it is not null
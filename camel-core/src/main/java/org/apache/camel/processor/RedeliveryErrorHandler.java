@@ -20,6 +20,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.camel.AsyncCallback;
 import org.apache.camel.AsyncProcessor;
@@ -60,6 +61,8 @@ public abstract class RedeliveryErrorHandler extends ErrorHandlerSupport impleme
     protected final Predicate handledPolicy;
     protected final Logger logger;
     protected final boolean useOriginalMessagePolicy;
+    // number of exchanges being redelivered asynchronously
+    private final AtomicInteger pendingRedeliveries = new AtomicInteger();
 
     /**
      * Contains the current redelivery data
@@ -70,6 +73,7 @@ public abstract class RedeliveryErrorHandler extends ErrorHandlerSupport impleme
         long redeliveryDelay;
         Predicate retryWhilePredicate;
         boolean redeliverFromSync;
+        boolean pendingRedelivery;
 
         // default behavior which can be overloaded on a per exception basis
         RedeliveryPolicy currentRedeliveryPolicy = redeliveryPolicy;
@@ -249,7 +253,8 @@ public abstract class RedeliveryErrorHandler extends ErrorHandlerSupport impleme
                 if (data.redeliveryDelay > 0) {
                     // okay there is a delay so create a scheduled task to have it executed in the future
 
-                    if (data.currentRedeliveryPolicy.isAsyncDelayedRedelivery() && !exchange.isTransacted()) {
+                    if (data.currentRedeliveryPolicy.isAsyncDelayedRedelivery() && !exchange.isTransacted()
+                            && reservePendingRedelivery(exchange, data.currentRedeliveryPolicy)) {
                         // let the RedeliverTask be the logic which tries to redeliver the Exchange which we can used a scheduler to
                         // have it being executed in the future, or immediately
                         // we are continuing asynchronously
@@ -257,18 +262,31 @@ public abstract class RedeliveryErrorHandler extends ErrorHandlerSupport impleme
                         // mark we are routing async from now and that this redelivery task came from a synchronous routing
                         data.sync = false;
                         data.redeliverFromSync = true;
-                        AsyncRedeliveryTask task = new AsyncRedeliveryTask(exchange, callback, data);
+                        data.pendingRedelivery = true;
+                        AsyncCallback target = releasePendingRedelivery(callback);
+                        AsyncRedeliveryTask task = new AsyncRedeliveryTask(exchange, target, data);
 
                         // schedule the redelivery task
                         if (log.isTraceEnabled()) {
                             log.trace("Scheduling redelivery task to run in " + data.redeliveryDelay + " millis for exchangeId: " + exchange.getExchangeId());
                         }
-                        executorService.schedule(task, data.redeliveryDelay, TimeUnit.MILLISECONDS);
+                        try {
+                            executorService.schedule(task, data.redeliveryDelay, TimeUnit.MILLISECONDS);
+                        } catch (RejectedExecutionException e) {
+                            // the scheduler is shutting down, so fail the exchange and release its reservation
+                            data.sync = true;
+                            data.redeliverFromSync = false;
+                            data.pendingRedelivery = false;
+                            exchange.setException(e);
+                            target.done(true);
+                            return true;
+                        }
 
                         return false;
                     } else {
                         // async delayed redelivery was disabled or we are transacted so we must be synchronous
                         // as the transaction manager requires to execute in the same thread context
+                        // (or there are already too many pending redeliveries, so we block to throttle the caller)
                         try {
                             data.currentRedeliveryPolicy.sleep(data.redeliveryDelay);
                         } catch (InterruptedException e) {
@@ -373,19 +391,67 @@ public abstract class RedeliveryErrorHandler extends ErrorHandlerSupport impleme
             // have it being executed in the future, or immediately
             // Note: the data.redeliverFromSync should be kept as is, in case it was enabled previously
             // to ensure the callback will continue routing from where we left
-            AsyncRedeliveryTask task = new AsyncRedeliveryTask(exchange, callback, data);
+            AsyncCallback target = callback;
+            if (!data.pendingRedelivery) {
+                // the exchange is now being redelivered asynchronously until its done
+                pendingRedeliveries.incrementAndGet();
+                data.pendingRedelivery = true;
+                target = releasePendingRedelivery(callback);
+            }
+            AsyncRedeliveryTask task = new AsyncRedeliveryTask(exchange, target, data);
 
             // calculate the redelivery delay
             data.redeliveryDelay = data.currentRedeliveryPolicy.calculateRedeliveryDelay(data.redeliveryDelay, data.redeliveryCounter);
-            if (data.redeliveryDelay > 0) {
-                // schedule the redelivery task
-                if (log.isTraceEnabled()) {
-                    log.trace("Scheduling redelivery task to run in " + data.redeliveryDelay + " millis for exchangeId: " + exchange.getExchangeId());
+            try {
+                if (data.redeliveryDelay > 0) {
+                    // schedule the redelivery task
+                    if (log.isTraceEnabled()) {
+                        log.trace("Scheduling redelivery task to run in " + data.redeliveryDelay + " millis for exchangeId: " + exchange.getExchangeId());
+                    }
+                    executorService.schedule(task, data.redeliveryDelay, TimeUnit.MILLISECONDS);
+                } else {
+                    // execute the task immediately
+                    executorService.submit(task);
                 }
-                executorService.schedule(task, data.redeliveryDelay, TimeUnit.MILLISECONDS);
-            } else {
-                // execute the task immediately
-                executorService.submit(task);
+            } catch (RejectedExecutionException e) {
+                // the scheduler is shutting down, so fail the exchange (the callback releases its reservation)
+                exchange.setException(e);
+                target.done(data.sync);
+            }
+        }
+    }
+
+    /**
+     * Wraps the callback so the exchange is no longer counted as pending when it is done.
+     */
+    private AsyncCallback releasePendingRedelivery(final AsyncCallback callback) {
+        return new AsyncCallback() {
+            public void done(boolean doneSync) {
+                pendingRedeliveries.decrementAndGet();
+                callback.done(doneSync);
+            }
+        };
+    }
+
+    /**
+     * Reserves a place for the exchange to be redelivered asynchronously, unless the maximum number
+     * of pending redeliveries of the given policy has been reached.
+     *
+     * @return <tt>true</tt> if reserved, <tt>false</tt> if the redelivery should be delayed synchronously
+     */
+    private boolean reservePendingRedelivery(Exchange exchange, RedeliveryPolicy policy) {
+        int max = policy.getMaximumPendingRedeliveries();
+        while (true) {
+            int current = pendingRedeliveries.get();
+            if (max >= 0 && current >= max) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Maximum pending redeliveries " + max + " reached, so redelivering synchronously for exchangeId: "
+                        + exchange.getExchangeId());
+                }
+                return false;
+            }
+            if (pendingRedeliveries.compareAndSet(current, current + 1)) {
+                return true;
             }
         }
     }
@@ -462,6 +528,14 @@ public abstract class RedeliveryErrorHandler extends ErrorHandlerSupport impleme
         return useOriginalMessagePolicy;
     }
 
+    /**
+     * Gets the number of exchanges which are being redelivered asynchronously, which are either waiting
+     * for the redelivery delay or being redelivered
+     */
+    public int getPendingRedeliveryCount() {
+        return pendingRedeliveries.get();
+    }
+
     public RedeliveryPolicy getRedeliveryPolicy() {
         return redeliveryPolicy;
     }
@@ -38,6 +38,7 @@ import org.apache.commons.logging.LogFactory;
  *   <li>redeliveryDelay = 1000L (the initial delay)</li>
  *   <li>maximumRedeliveryDelay = 60 * 1000L</li>
  *   <li>asyncDelayedRedelivery = false</li>
+ *   <li>maximumPendingRedeliveries = -1</li>
  *   <li>backOffMultiplier = 2</li>
  *   <li>useExponentialBackOff = false</li>
  *   <li>collisionAvoidanceFactor = 0.15d</li>
@@ -96,6 +97,7 @@ public class RedeliveryPolicy implements Cloneable, Serializable {
     protected boolean logRetryAttempted = true;
     protected String delayPattern;
     protected boolean asyncDelayedRedelivery;
+    protected int maximumPendingRedeliveries = -1;
 
     public RedeliveryPolicy() {
     }
@@ -106,6 +108,7 @@ public class RedeliveryPolicy implements Cloneable, Serializable {
             + ", redeliveryDelay=" + redeliveryDelay
             + ", maximumRedeliveryDelay=" + maximumRedeliveryDelay
             + ", asyncDelayedRedelivery=" + asyncDelayedRedelivery
+            + ", maximumPendingRedeliveries=" + maximumPendingRedeliveries
             + ", retriesExhaustedLogLevel=" + retriesExhaustedLogLevel
             + ", retryAttemptedLogLevel=" + retryAttemptedLogLevel
             + ", logRetryAttempted=" + logRetryAttempted
@@ -404,6 +407,16 @@ public class RedeliveryPolicy implements Cloneable, Serializable {
         return this;
     }
 
+    /**
+     * Sets the maximum number of exchanges waiting for an asynchronous delayed redelivery.
+     *
+     * @see #setMaximumPendingRedeliveries(int)
+     */
+    public RedeliveryPolicy maximumPendingRedeliveries(int maximumPendingRedeliveries) {
+        setMaximumPendingRedeliveries(maximumPendingRedeliveries);
+        return this;
+    }
+
     // Properties
     // -------------------------------------------------------------------------
     @Deprecated
@@ -641,4 +654,24 @@ public class RedeliveryPolicy implements Cloneable, Serializable {
     public void setAsyncDelayedRedelivery(boolean asyncDelayedRedelivery) {
         this.asyncDelayedRedelivery = asyncDelayedRedelivery;
     }
+
+    public int getMaximumPendingRedeliveries() {
+        return maximumPendingRedeliveries;
+    }
+
+    /**
+     * Sets the maximum number of exchanges which can be redelivered asynchronously at the same time,
+     * per error handler. An exchange counts from its first asynchronous delayed redelivery until it is done.
+     * <p/>
+     * When the maximum is reached the redelivery of a new failed exchange is delayed synchronously,
+     * blocking the current thread, which throttles the consumer until pending redeliveries complete.
+     * Exchanges which are already redelivered asynchronously continue to do so.
+     * <p/>
+     * By default there is no maximum (-1).
+     *
+     * @param maximumPendingRedeliveries the maximum, or a negative value for no maximum
+     */
+    public void setMaximumPendingRedeliveries(int maximumPendingRedeliveries) {
+        this.maximumPendingRedeliveries = maximumPendingRedeliveries;
+    }
 }
@@ -267,13 +267,13 @@ public class RoutingSlip extends ServiceSupport implements AsyncProcessor, Trace
     }
 
     protected Exchange prepareExchangeForRoutingSlip(Exchange current, Endpoint endpoint) {
-        Exchange copy = new DefaultExchange(current);
+        DefaultExchange copy = new DefaultExchange(current);
         // we must use the same id as this is a snapshot strategy where Camel copies a snapshot
         // before processing the next step in the pipeline, so we have a snapshot of the exchange
         // just before. This snapshot is used if Camel should do redeliveries (re try) using
         // DeadLetterChannel. That is why it's important the id is the same, as it is the *same*
         // exchange being routed.
-        copy.setExchangeId(current.getExchangeId());
+        copy.shareExchangeId(current);
         copyOutToIn(copy, current);
         return copy;
     }
@@ -417,7 +417,7 @@ public class RoutingSlip extends ServiceSupport implements AsyncProcessor, Trace
     /**
      * Copy the outbound data in 'source' to the inbound data in 'result'.
      */
-    private void copyOutToIn(Exchange result, Exchange source) {
+    private void copyOutToIn(DefaultExchange result, Exchange source) {
         result.setException(source.getException());
 
         if (source.hasOut() && source.getOut().isFault()) {
@@ -426,7 +426,7 @@ public class RoutingSlip extends ServiceSupport implements AsyncProcessor, Trace
 
         result.setIn(getResultMessage(source));
 
-        result.getProperties().clear();
-        result.getProperties().putAll(source.getProperties());
+        // share rather than copy the properties, as setting a property on either exchange does not affect the other
+        result.shareProperties(source);
     }
 }
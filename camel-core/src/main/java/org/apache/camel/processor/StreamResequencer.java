@@ -30,7 +30,9 @@ import org.apache.camel.Processor;
 import org.apache.camel.impl.LoggingExceptionHandler;
 import org.apache.camel.impl.ServiceSupport;
 import org.apache.camel.processor.resequencer.ResequencerEngine;
+import org.apache.camel.processor.resequencer.RingBufferResequencerEngine;
 import org.apache.camel.processor.resequencer.SequenceElementComparator;
+import org.apache.camel.processor.resequencer.SequenceNumberComparator;
 import org.apache.camel.processor.resequencer.SequenceSender;
 import org.apache.camel.spi.ExceptionHandler;
 import org.apache.camel.util.ObjectHelper;
@@ -53,6 +55,10 @@ import org.apache.camel.util.ServiceHelper;
  * Instances of this class poll for {@link Exchange}s from a given
  * <code>endpoint</code>. Resequencing work and the delivery of messages to
  * the next <code>processor</code> is done within the single polling thread.
+ * <p>
+ * If the sequence numbers are <code>long</code> values the resequencer can use a
+ * {@link RingBufferResequencerEngine} instead, where the capacity is the window of
+ * sequence numbers the resequencer holds.
  * 
  * @version $Revision$
  * 
@@ -76,10 +82,30 @@ public class StreamResequencer extends ServiceSupport implements SequenceSender<
      * @param comparator a sequence element comparator for exchanges.
      */
     public StreamResequencer(CamelContext camelContext, Processor processor, SequenceElementComparator<Exchange> comparator) {
+        this(camelContext, processor, comparator, false);
+    }
+
+    /**
+     * Creates a new {@link StreamResequencer} instance.
+     *
+     * @param processor next processor that processes re-ordered exchanges.
+     * @param comparator a sequence element comparator for exchanges.
+     * @param ringBuffer whether to use a {@link RingBufferResequencerEngine}, which requires the
+     *                   comparator to be a {@link SequenceNumberComparator}.
+     */
+    @SuppressWarnings("unchecked")
+    public StreamResequencer(CamelContext camelContext, Processor processor, SequenceElementComparator<Exchange> comparator, boolean ringBuffer) {
         ObjectHelper.notNull(camelContext, "CamelContext");
         this.camelContext = camelContext;
         this.exceptionHandler = new LoggingExceptionHandler(getClass());
-        this.engine = new ResequencerEngine<Exchange>(comparator);
+        if (ringBuffer) {
+            if (!(comparator instanceof SequenceNumberComparator)) {
+                throw new IllegalArgumentException("Ring buffer requires a SequenceNumberComparator, was: " + comparator);
+            }
+            this.engine = new RingBufferResequencerEngine<Exchange>((SequenceNumberComparator<Exchange>) comparator);
+        } else {
+            this.engine = new ResequencerEngine<Exchange>(comparator);
+        }
         this.engine.setSequenceSender(this);
         this.processor = processor;
     }
@@ -125,6 +151,16 @@ public class StreamResequencer extends ServiceSupport implements SequenceSender<
 
     public void setCapacity(int capacity) {
         this.capacity = capacity;
+        if (engine instanceof RingBufferResequencerEngine) {
+            ((RingBufferResequencerEngine<?>) engine).setCapacity(capacity);
+        }
+    }
+
+    /**
+     * Returns the engine resequencing the exchanges.
+     */
+    public ResequencerEngine<Exchange> getEngine() {
+        return engine;
     }
 
     public void setTimeout(long timeout) {
@@ -166,8 +202,11 @@ public class StreamResequencer extends ServiceSupport implements SequenceSender<
     }
 
     public void process(Exchange exchange) throws Exception {
-        while (engine.size() >= capacity) {
-            Thread.sleep(getTimeout());
+        // the ring buffer applies backpressure by itself if the exchange is beyond its window
+        if (!(engine instanceof RingBufferResequencerEngine)) {
+            while (engine.size() >= capacity) {
+                Thread.sleep(getTimeout());
+            }
         }
         engine.insert(exchange);
         delivery.request();
@@ -0,0 +1,335 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.apache.camel.Expression;
+import org.apache.camel.Processor;
+import org.apache.camel.util.ConcurrentLRUCache;
+import org.apache.camel.util.ObjectHelper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A <a href="http://camel.apache.org/throttler.html">Throttler</a> which uses token buckets
+ * and never blocks the caller while waiting.
+ * <p/>
+ * The bucket is refilled at a rate of {@link #getMaximumRequestsPerPeriod()} per {@link #getTimePeriodMillis()},
+ * and can hold up to {@link #getBurstSize()} permits, which is the number of exchanges that can pass through at once
+ * after being idle. When no permit is available the exchange is scheduled to continue routing when its permit becomes
+ * available, and the calling thread is returned immediately. If there already is {@link #getMaximumQueueSize()}
+ * exchanges waiting, the exchange is rejected with a {@link RejectedExecutionException} instead.
+ * <p/>
+ * If a correlation expression is configured, then each distinct correlation value has its own bucket, allowing to
+ * throttle for example per customer. The buckets for the most recently used {@link #getMaximumBuckets()} correlation
+ * values is kept.
+ * <p/>
+ * Permits is reserved using compare and set, so the throttler is lock free. Transacted exchanges will block the
+ * calling thread while waiting, as they must be processed by the same thread.
+ *
+ * @version $Revision$
+ */
+public class TokenBucketThrottler extends DelegateAsyncProcessor implements Traceable {
+    private static final transient Log LOG = LogFactory.getLog(TokenBucketThrottler.class);
+    private static final Object DEFAULT_KEY = new Object();
+
+    private final ScheduledExecutorService executorService;
+    private final long maximumRequestsPerPeriod;
+    private final long timePeriodMillis;
+    private long burstSize;
+    private int maximumQueueSize = -1;
+    private int maximumBuckets = 1000;
+    private Expression correlationExpression;
+    private volatile ConcurrentMap<Object, TokenBucket> buckets;
+
+    public TokenBucketThrottler(Processor processor, long maximumRequestsPerPeriod, long timePeriodMillis,
+                                ScheduledExecutorService executorService) {
+        super(processor);
+        if (maximumRequestsPerPeriod <= 0) {
+            throw new IllegalArgumentException("MaximumRequestsPerPeriod must be a positive number, was: " + maximumRequestsPerPeriod);
+        }
+        if (timePeriodMillis <= 0) {
+            throw new IllegalArgumentException("TimePeriodMillis must be a positive number, was: " + timePeriodMillis);
+        }
+        this.maximumRequestsPerPeriod = maximumRequestsPerPeriod;
+        this.timePeriodMillis = timePeriodMillis;
+        this.burstSize = maximumRequestsPerPeriod;
+        this.executorService = executorService;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenBucketThrottler[requests: " + maximumRequestsPerPeriod + " per: " + timePeriodMillis + " (ms) to: "
+               + getProcessor() + "]";
+    }
+
+    public String getTraceLabel() {
+        return "throttle[" + maximumRequestsPerPeriod + " per: " + timePeriodMillis + "]";
+    }
+
+    @Override
+    public boolean process(final Exchange exchange, final AsyncCallback callback) {
+        if (!isRunAllowed()) {
+            exchange.setException(new RejectedExecutionException("Run is not allowed"));
+            callback.done(true);
+            return true;
+        }
+
+        final TokenBucket bucket;
+        try {
+            bucket = getBucket(exchange);
+        } catch (Exception e) {
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        }
+
+        long delay = bucket.acquire(currentNanoTime());
+        if (delay == 0) {
+            return processNext(exchange, callback);
+        } else if (delay < 0) {
+            exchange.setException(new RejectedExecutionException("Exceeded the maximum queue size of " + maximumQueueSize
+                    + " exchanges waiting to be throttled"));
+            callback.done(true);
+            return true;
+        }
+
+        if (exchange.isTransacted()) {
+            // must use the same thread when transacted so we have to block
+            try {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                exchange.setException(e);
+                callback.done(true);
+                return true;
+            } finally {
+                bucket.dequeue();
+            }
+            return processNext(exchange, callback);
+        }
+
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Scheduling throttled exchangeId: " + exchange.getExchangeId() + " to continue in " + delay + " nanos");
+        }
+        try {
+            executorService.schedule(new Runnable() {
+                public void run() {
+                    bucket.dequeue();
+                    if (!isRunAllowed()) {
+                        exchange.setException(new RejectedExecutionException("Run is not allowed"));
+                        callback.done(false);
+                        return;
+                    }
+                    boolean sync = processNext(exchange, new AsyncCallback() {
+                        public void done(boolean doneSync) {
+                            if (!doneSync) {
+                                callback.done(false);
+                            }
+                        }
+                    });
+                    if (sync) {
+                        // we continued routing asynchronous from the callers point of view
+                        callback.done(false);
+                    }
+                }
+            }, delay, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            bucket.dequeue();
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        }
+        // tell Camel routing engine we continue routing asynchronous
+        return false;
+    }
+
+    // Properties
+    // -----------------------------------------------------------------------
+
+    public ScheduledExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    public long getMaximumRequestsPerPeriod() {
+        return maximumRequestsPerPeriod;
+    }
+
+    public long getTimePeriodMillis() {
+        return timePeriodMillis;
+    }
+
+    public long getBurstSize() {
+        return burstSize;
+    }
+
+    /**
+     * Sets the number of exchanges which can pass through at once after being idle.
+     * <p/>
+     * Is by default the maximum requests per period.
+     */
+    public void setBurstSize(long burstSize) {
+        this.burstSize = burstSize;
+    }
+
+    public int getMaximumQueueSize() {
+        return maximumQueueSize;
+    }
+
+    /**
+     * Sets the maximum number of exchanges waiting for a permit, per bucket. Exchanges exceeding this
+     * is rejected. Use <tt>0</tt> to never wait, and <tt>-1</tt> (default) for no limit.
+     */
+    public void setMaximumQueueSize(int maximumQueueSize) {
+        this.maximumQueueSize = maximumQueueSize;
+    }
+
+    public int getMaximumBuckets() {
+        return maximumBuckets;
+    }
+
+    /**
+     * Sets the maximum number of buckets to keep when throttling by a correlation expression.
+     */
+    public void setMaximumBuckets(int maximumBuckets) {
+        this.maximumBuckets = maximumBuckets;
+    }
+
+    public Expression getCorrelationExpression() {
+        return correlationExpression;
+    }
+
+    /**
+     * Sets an expression to throttle each correlation value separately.
+     */
+    public void setCorrelationExpression(Expression correlationExpression) {
+        this.correlationExpression = correlationExpression;
+    }
+
+    /**
+     * Gets the number of exchanges currently waiting for a permit
+     */
+    public int getQueueSize() {
+        int answer = 0;
+        if (buckets != null) {
+            for (TokenBucket bucket : buckets.values()) {
+                answer += bucket.queued.get();
+            }
+        }
+        return answer;
+    }
+
+    // Implementation methods
+    // -----------------------------------------------------------------------
+
+    protected long currentNanoTime() {
+        return System.nanoTime();
+    }
+
+    protected TokenBucket getBucket(Exchange exchange) {
+        Object key = DEFAULT_KEY;
+        if (correlationExpression != null) {
+            key = correlationExpression.evaluate(exchange, Object.class);
+            if (key == null) {
+                key = DEFAULT_KEY;
+            }
+        }
+        TokenBucket answer = buckets.get(key);
+        if (answer == null) {
+            TokenBucket bucket = new TokenBucket(currentNanoTime());
+            answer = buckets.putIfAbsent(key, bucket);
+            if (answer == null) {
+                answer = bucket;
+            }
+        }
+        return answer;
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        ObjectHelper.notNull(executorService, "executorService", this);
+        if (burstSize <= 0) {
+            throw new IllegalArgumentException("BurstSize must be a positive number, was: " + burstSize);
+        }
+        if (buckets == null) {
+            buckets = new ConcurrentLRUCache<Object, TokenBucket>(maximumBuckets);
+        }
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        super.doStop();
+        // keep the map as exchanges may still be in flight, but start from full buckets when started again
+        if (buckets != null) {
+            buckets.clear();
+        }
+    }
+
+    /**
+     * A token bucket implemented as the <i>generic cell rate algorithm</i>, which tracks the time when the bucket
+     * would be full again, rather than the number of tokens, so a permit can be reserved with a single compare and set.
+     */
+    protected final class TokenBucket {
+        // the time in nanos a permit is added to the bucket
+        private final long interval = TimeUnit.MILLISECONDS.toNanos(timePeriodMillis) / maximumRequestsPerPeriod;
+        // how far ahead of the current time we can reserve permits without waiting
+        private final long tolerance = interval * (burstSize - 1);
+        private final AtomicLong theoreticalArrivalTime;
+        private final AtomicInteger queued = new AtomicInteger();
+
+        private TokenBucket(long now) {
+            this.theoreticalArrivalTime = new AtomicLong(now);
+        }
+
+        /**
+         * Reserves a permit.
+         *
+         * @return the delay in nanos until the permit is available, or <tt>-1</tt> if rejected as the queue is full
+         */
+        long acquire(long now) {
+            while (true) {
+                long tat = theoreticalArrivalTime.get();
+                long start = tat - now > 0 ? tat : now;
+                long delay = start - tolerance - now;
+                // count the exchanges waiting, and reject if there already is too many waiting
+                if (delay > 0 && queued.incrementAndGet() > maximumQueueSize && maximumQueueSize >= 0) {
+                    queued.decrementAndGet();
+                    return -1;
+                }
+                if (theoreticalArrivalTime.compareAndSet(tat, start + interval)) {
+                    return delay > 0 ? delay : 0;
+                }
+                if (delay > 0) {
+                    // another thread got there first so try again
+                    queued.decrementAndGet();
+                }
+            }
+        }
+
+        void dequeue() {
+            queued.decrementAndGet();
+        }
+    }
+}
@@ -17,7 +17,7 @@
 package org.apache.camel.processor.aggregate;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -49,12 +49,13 @@ import org.apache.camel.spi.AggregationRepository;
 import org.apache.camel.spi.ExceptionHandler;
 import org.apache.camel.spi.RecoverableAggregationRepository;
 import org.apache.camel.spi.Synchronization;
+import org.apache.camel.util.ConcurrentLRUCache;
 import org.apache.camel.util.DefaultTimeoutMap;
 import org.apache.camel.util.ExchangeHelper;
-import org.apache.camel.util.LRUCache;
 import org.apache.camel.util.ObjectHelper;
 import org.apache.camel.util.ServiceHelper;
 import org.apache.camel.util.TimeoutMap;
+import org.apache.camel.util.TimingWheelTimeoutMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -79,7 +80,8 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
 
     private static final Log LOG = LogFactory.getLog(AggregateProcessor.class);
 
-    private final Lock lock = new ReentrantLock();
+    // the aggregation locks, which is a single shared lock unless lock striping is enabled
+    private Lock[] locks = new Lock[]{new ReentrantLock()};
     private final CamelContext camelContext;
     private final Processor processor;
     private final AggregationStrategy aggregationStrategy;
@@ -92,7 +94,7 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
     private AggregationRepository aggregationRepository = new MemoryAggregationRepository();
     private Map<Object, Object> closedCorrelationKeys;
     private Set<String> batchConsumerCorrelationKeys = new LinkedHashSet<String>();
-    private final Set<String> inProgressCompleteExchanges = new HashSet<String>();
+    private final Set<String> inProgressCompleteExchanges = Collections.synchronizedSet(new HashSet<String>());
     private final Map<String, RedeliveryData> redeliveryState = new ConcurrentHashMap<String, RedeliveryData>();
     // optional dead letter channel for exhausted recovered exchanges
     private Processor deadLetterProcessor;
@@ -107,6 +109,8 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
     private boolean ignoreInvalidCorrelationKeys;
     private Integer closeCorrelationKeyOnCompletion;
     private boolean parallelProcessing;
+    private int lockStripes;
+    private boolean timingWheelTimeout;
 
     // different ways to have completion triggered
     private boolean eagerCheckCompletion;
@@ -177,9 +181,11 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
             throw new ClosedCorrelationKeyException(key, exchange);
         }
 
-        // when memory based then its fast using synchronized, but if the aggregation repository is IO
+        // when memory based then its fast using a single shared lock, but if the aggregation repository is IO
         // bound such as JPA etc then concurrent aggregation per correlation key could
         // improve performance as we can run aggregation repository get/add in parallel
+        // (the same key always map to the same lock, so ordering per correlation key is kept)
+        Lock lock = getLock(key);
         lock.lock();
         try {
             doAggregation(key, exchange);
@@ -188,11 +194,46 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
         }
     }
 
+    /**
+     * Gets the lock to use for aggregating the given correlation key.
+     *
+     * @param key the correlation key
+     * @return the lock which guards the correlation key
+     */
+    protected Lock getLock(String key) {
+        if (locks.length == 1) {
+            return locks[0];
+        }
+        int hash = key.hashCode();
+        // spread the bits so keys with similar hash codes do not pile up on the same stripe
+        hash ^= (hash >>> 20) ^ (hash >>> 12);
+        hash ^= (hash >>> 7) ^ (hash >>> 4);
+        return locks[(hash & 0x7fffffff) % locks.length];
+    }
+
+    /**
+     * Acquires all the aggregation locks, which is needed by the background tasks which
+     * may complete any correlation key.
+     * <p/>
+     * The locks is always acquired in the same order to avoid deadlocks.
+     */
+    private void lockAll() {
+        for (Lock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+
     /**
      * Aggregates the exchange with the given correlation key
      * <p/>
-     * This method <b>must</b> be run synchronized as we cannot aggregate the same correlation key
-     * in parallel.
+     * This method <b>must</b> be run while holding the lock for the given correlation key
+     * as we cannot aggregate the same correlation key in parallel.
      *
      * @param key      the correlation key
      * @param exchange the exchange
@@ -504,6 +545,41 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
         this.parallelProcessing = parallelProcessing;
     }
 
+    public int getLockStripes() {
+        return lockStripes;
+    }
+
+    /**
+     * Sets the number of locks to stripe the correlation keys across.
+     * <p/>
+     * By default a single shared lock is used which means all correlation keys are aggregated one
+     * at a time. By using more stripes, then different correlation keys can be aggregated
+     * concurrently, which is useful if the {@link AggregationRepository} is IO bound.
+     * The same correlation key is always aggregated in sequence.
+     *
+     * @param lockStripes number of locks, use <tt>0</tt> or <tt>1</tt> for a single shared lock
+     */
+    public void setLockStripes(int lockStripes) {
+        this.lockStripes = lockStripes;
+    }
+
+    public boolean isTimingWheelTimeout() {
+        return timingWheelTimeout;
+    }
+
+    /**
+     * Whether to keep track of the completion timeouts using a timing wheel.
+     * <p/>
+     * By default all the correlation keys is scanned to find the timed out keys. When having many
+     * correlation keys in progress then a timing wheel is faster, as it only has to look at the
+     * correlation keys which is due to timeout.
+     *
+     * @param timingWheelTimeout <tt>true</tt> to use a {@link TimingWheelTimeoutMap}
+     */
+    public void setTimingWheelTimeout(boolean timingWheelTimeout) {
+        this.timingWheelTimeout = timingWheelTimeout;
+    }
+
     public AggregationRepository getAggregationRepository() {
         return aggregationRepository;
     }
@@ -563,49 +639,88 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
         }
     }
 
+    /**
+     * Callback when the completion timeout is triggered for the given correlation key.
+     *
+     * @param key        the correlation key
+     * @param exchangeId the id of the exchange which last updated the timeout
+     * @return <tt>true</tt> to remove the correlation key from the timeout map
+     */
+    private boolean onTimeoutEviction(String key, String exchangeId) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Completion timeout triggered for correlation key: " + key);
+        }
+
+        boolean inProgress = inProgressCompleteExchanges.contains(exchangeId);
+        if (inProgress) {
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Aggregated exchange with id: " + exchangeId + " is already in progress.");
+            }
+            return true;
+        }
+
+        // get the aggregated exchange
+        Exchange answer = aggregationRepository.get(camelContext, key);
+        if (answer != null) {
+            // indicate it was completed by timeout
+            answer.setProperty(Exchange.AGGREGATED_COMPLETED_BY, "timeout");
+            onCompletion(key, answer, true);
+        }
+        return true;
+    }
+
     /**
      * Background task that looks for aggregated exchanges which is triggered by completion timeouts.
      */
     private final class AggregationTimeoutMap extends DefaultTimeoutMap<String, String> {
 
         private AggregationTimeoutMap(ScheduledExecutorService executor, long requestMapPollTimeMillis) {
-            // do NOT use locking on the timeout map as this aggregator has its own shared lock we will use instead
+            // do NOT use locking on the timeout map as this aggregator has its own shared lock(s) we will use instead
             super(executor, requestMapPollTimeMillis, false);
         }
 
         @Override
         public void purge() {
-            // must acquire the shared aggregation lock to be able to purge
-            lock.lock();
+            // must acquire all the aggregation locks to be able to purge
+            lockAll();
             try {
                 super.purge();
             } finally {
-                lock.unlock();
+                unlockAll();
             }
         }
 
         @Override
         public boolean onEviction(String key, String exchangeId) {
-            if (log.isDebugEnabled()) {
-                log.debug("Completion timeout triggered for correlation key: " + key);
-            }
+            return onTimeoutEviction(key, exchangeId);
+        }
+    }
 
-            boolean inProgress = inProgressCompleteExchanges.contains(exchangeId);
-            if (inProgress) {
-                if (LOG.isTraceEnabled()) {
-                    LOG.trace("Aggregated exchange with id: " + exchangeId + " is already in progress.");
-                }
-                return true;
-            }
+    /**
+     * Background task that looks for aggregated exchanges which is triggered by completion timeouts,
+     * using a timing wheel to find the timed out correlation keys.
+     */
+    private final class AggregationTimingWheelTimeoutMap extends TimingWheelTimeoutMap<String, String> {
 
-            // get the aggregated exchange
-            Exchange answer = aggregationRepository.get(camelContext, key);
-            if (answer != null) {
-                // indicate it was completed by timeout
-                answer.setProperty(Exchange.AGGREGATED_COMPLETED_BY, "timeout");
-                onCompletion(key, answer, true);
+        private AggregationTimingWheelTimeoutMap(ScheduledExecutorService executor, long requestMapPollTimeMillis) {
+            // must use locking as the wheel is updated for different correlation keys concurrently when using lock stripes
+            super(executor, requestMapPollTimeMillis, true);
+        }
+
+        @Override
+        public void purge() {
+            // must acquire all the aggregation locks to be able to purge
+            lockAll();
+            try {
+                super.purge();
+            } finally {
+                unlockAll();
             }
-            return true;
+        }
+
+        @Override
+        public boolean onEviction(String key, String exchangeId) {
+            return onTimeoutEviction(key, exchangeId);
         }
     }
 
@@ -629,8 +744,8 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
             Set<String> keys = aggregationRepository.getKeys();
 
             if (keys != null && !keys.isEmpty()) {
-                // must acquire the shared aggregation lock to be able to trigger interval completion
-                lock.lock();
+                // must acquire all the aggregation locks to be able to trigger interval completion
+                lockAll();
                 try {
                     for (String key : keys) {
                         Exchange exchange = aggregationRepository.get(camelContext, key);
@@ -644,7 +759,7 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
                         }
                     }
                 } finally {
-                    lock.unlock();
+                    unlockAll();
                 }
             }
 
@@ -759,13 +874,26 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
                     + " [completionTimeout, completionInterval, completionSize, completionPredicate, completionFromBatchConsumer] must be set");
         }
 
+        if (getLockStripes() > 1) {
+            if (isCompletionFromBatchConsumer()) {
+                throw new IllegalArgumentException("Option lockStripes cannot be used together with completionFromBatchConsumer.");
+            }
+            LOG.info("Using " + getLockStripes() + " lock stripes to aggregate different correlation keys concurrently.");
+            locks = new Lock[getLockStripes()];
+            for (int i = 0; i < locks.length; i++) {
+                locks[i] = new ReentrantLock();
+            }
+        } else {
+            locks = new Lock[]{new ReentrantLock()};
+        }
+
         if (getCloseCorrelationKeyOnCompletion() != null) {
             if (getCloseCorrelationKeyOnCompletion() > 0) {
-                LOG.info("Using ClosedCorrelationKeys with a LRUCache with a capacity of " + getCloseCorrelationKeyOnCompletion());
-                closedCorrelationKeys = new LRUCache<Object, Object>(getCloseCorrelationKeyOnCompletion());
+                LOG.info("Using ClosedCorrelationKeys with a ConcurrentLRUCache with a capacity of " + getCloseCorrelationKeyOnCompletion());
+                closedCorrelationKeys = new ConcurrentLRUCache<Object, Object>(getCloseCorrelationKeyOnCompletion());
             } else {
                 LOG.info("Using ClosedCorrelationKeys with unbounded capacity");
-                closedCorrelationKeys = new HashMap<Object, Object>();
+                closedCorrelationKeys = new ConcurrentHashMap<Object, Object>();
             }
         }
 
@@ -821,7 +949,11 @@ public class AggregateProcessor extends ServiceSupport implements Processor, Nav
             LOG.info("Using CompletionTimeout to trigger after " + getCompletionTimeout() + " millis of inactivity.");
             ScheduledExecutorService scheduler = camelContext.getExecutorServiceStrategy().newScheduledThreadPool(this, "AggregateTimeoutChecker", 1);
             // check for timed out aggregated messages once every second
-            timeoutMap = new AggregationTimeoutMap(scheduler, 1000L);
+            if (isTimingWheelTimeout()) {
+                timeoutMap = new AggregationTimingWheelTimeoutMap(scheduler, 1000L);
+            } else {
+                timeoutMap = new AggregationTimeoutMap(scheduler, 1000L);
+            }
             ServiceHelper.startService(timeoutMap);
         }
     }
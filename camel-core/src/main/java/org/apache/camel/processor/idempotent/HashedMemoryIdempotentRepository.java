@@ -0,0 +1,323 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.idempotent;
+
+import java.util.Arrays;
+
+import org.apache.camel.spi.IdempotentRepository;
+
+/**
+ * A memory based implementation of {@link org.apache.camel.spi.IdempotentRepository} which only keeps
+ * a 64 bit hash of the keys in primitive <tt>long</tt> arrays.
+ * <p/>
+ * Compared to the {@link MemoryIdempotentRepository} the keys themselves is not retained, which means each
+ * key costs about 48 bytes regardless of its length, and no objects is created per key which the garbage
+ * collector must trace. This allows keeping track of many millions of keys.
+ * The keys is spread over a number of segments, which each has their own lock, so concurrent callers
+ * rarely contend on the same lock.
+ * <p/>
+ * The keys is evicted in the order they was added, either when the {@link #setMaxEntries(int) maximum number of entries}
+ * is reached, or when they are older than the {@link #setTimeToLive(long) time to live}.
+ * Notice the maximum number of entries is divided evenly between the segments, and a segment will evict its oldest key
+ * when its full, so keys can be evicted slightly before the total maximum is reached.
+ * <p/>
+ * As only the hash is kept there is a very small probability that two different keys has the same hash,
+ * in which case the latter key is regarded as a duplicate. With 64 bit hashes this is less than
+ * 1 in 100000 when keeping 10 million keys.
+ *
+ * @version $Revision$
+ */
+public class HashedMemoryIdempotentRepository implements IdempotentRepository<String> {
+
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final int maxEntries;
+    private long timeToLive;
+
+    public HashedMemoryIdempotentRepository() {
+        this(1000);
+    }
+
+    public HashedMemoryIdempotentRepository(int maxEntries) {
+        this(maxEntries, 16);
+    }
+
+    public HashedMemoryIdempotentRepository(int maxEntries, int concurrencyLevel) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("MaxEntries must be a positive number, was: " + maxEntries);
+        }
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("ConcurrencyLevel must be a positive number, was: " + concurrencyLevel);
+        }
+        this.maxEntries = maxEntries;
+
+        // use a power of two number of segments, and no more segments than entries
+        int size = 1;
+        int bits = 0;
+        while (size * 2 <= concurrencyLevel && size * 2 <= maxEntries) {
+            size <<= 1;
+            bits++;
+        }
+        this.segments = new Segment[size];
+        this.segmentShift = 64 - bits;
+        // round down so we never keep more than the maximum
+        int perSegment = maxEntries / size;
+        for (int i = 0; i < size; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * Creates a new hashed memory based repository.
+     *
+     * @param maxEntries  the maximum number of keys to keep
+     */
+    public static IdempotentRepository<String> hashedMemoryIdempotentRepository(int maxEntries) {
+        return new HashedMemoryIdempotentRepository(maxEntries);
+    }
+
+    /**
+     * Creates a new hashed memory based repository.
+     *
+     * @param maxEntries  the maximum number of keys to keep
+     * @param timeToLive  the time in millis to keep the keys, use 0 or negative to keep them until evicted by size
+     */
+    public static IdempotentRepository<String> hashedMemoryIdempotentRepository(int maxEntries, long timeToLive) {
+        HashedMemoryIdempotentRepository answer = new HashedMemoryIdempotentRepository(maxEntries);
+        answer.setTimeToLive(timeToLive);
+        return answer;
+    }
+
+    public boolean add(String key) {
+        long hash = hash(key);
+        return segmentFor(hash).add(hash, timeToLive > 0 ? currentTime() : 0, timeToLive);
+    }
+
+    public boolean contains(String key) {
+        long hash = hash(key);
+        return segmentFor(hash).contains(hash, timeToLive > 0 ? currentTime() : 0, timeToLive);
+    }
+
+    public boolean remove(String key) {
+        long hash = hash(key);
+        return segmentFor(hash).remove(hash);
+    }
+
+    public boolean confirm(String key) {
+        // noop
+        return true;
+    }
+
+    /**
+     * Gets the number of keys currently kept, which may include keys which has expired but not yet been evicted.
+     */
+    public int size() {
+        int answer = 0;
+        for (Segment segment : segments) {
+            answer += segment.size();
+        }
+        return answer;
+    }
+
+    /**
+     * Removes all the keys
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Sets the time in millis to keep the keys. Use 0 or negative to keep the keys until they are evicted
+     * due the maximum number of entries has been reached.
+     */
+    public void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    protected long currentTime() {
+        return System.currentTimeMillis();
+    }
+
+    private Segment segmentFor(long hash) {
+        // use the high bits for the segment as the low bits is used for the slot within the segment
+        return segments.length == 1 ? segments[0] : segments[(int) (hash >>> segmentShift)];
+    }
+
+    /**
+     * Computes a 64 bit hash of the key (FNV-1a followed by a bit mixing step).
+     * The hash is never 0 as that is used for marking empty slots.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * A segment is an open addressing hash table (using linear probing) of the hashes,
+     * and a ring buffer of the hashes in the order they was added, which is used for evicting the oldest.
+     * <p/>
+     * Each slot in the table also holds the sequence number of its position in the ring buffer, so keys which
+     * has been removed and added again is not evicted by their old position in the ring buffer.
+     */
+    private static final class Segment {
+        private final long[] hashes;
+        private final long[] sequences;
+        private final int mask;
+        private final long[] ringHashes;
+        private final long[] ringTimes;
+        // the sequence of the oldest and next entry in the ring buffer
+        private long head;
+        private long tail;
+        private int count;
+
+        private Segment(int capacity) {
+            // keep the table at most half full so probing is short
+            int size = 2;
+            while (size < capacity * 2) {
+                size <<= 1;
+            }
+            this.hashes = new long[size];
+            this.sequences = new long[size];
+            this.mask = size - 1;
+            this.ringHashes = new long[capacity];
+            this.ringTimes = new long[capacity];
+        }
+
+        synchronized boolean add(long hash, long now, long timeToLive) {
+            expire(now, timeToLive);
+            int index = find(hash);
+            if (index >= 0) {
+                return false;
+            }
+            if (tail - head == ringHashes.length) {
+                evictOldest();
+            }
+
+            int ring = (int) (tail % ringHashes.length);
+            ringHashes[ring] = hash;
+            ringTimes[ring] = now;
+
+            index = (int) hash & mask;
+            while (hashes[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            hashes[index] = hash;
+            sequences[index] = tail;
+            tail++;
+            count++;
+            return true;
+        }
+
+        synchronized boolean contains(long hash, long now, long timeToLive) {
+            expire(now, timeToLive);
+            return find(hash) >= 0;
+        }
+
+        synchronized boolean remove(long hash) {
+            int index = find(hash);
+            if (index < 0) {
+                return false;
+            }
+            delete(index);
+            return true;
+        }
+
+        synchronized int size() {
+            return count;
+        }
+
+        synchronized void clear() {
+            Arrays.fill(hashes, 0);
+            head = tail;
+            count = 0;
+        }
+
+        private int find(long hash) {
+            int index = (int) hash & mask;
+            while (true) {
+                long slot = hashes[index];
+                if (slot == hash) {
+                    return index;
+                } else if (slot == 0) {
+                    return -1;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        private void expire(long now, long timeToLive) {
+            if (timeToLive > 0) {
+                // the ring buffer is in the order the keys was added so we only need to look at the oldest
+                while (head < tail && ringTimes[(int) (head % ringTimes.length)] + timeToLive <= now) {
+                    evictOldest();
+                }
+            }
+        }
+
+        private void evictOldest() {
+            long hash = ringHashes[(int) (head % ringHashes.length)];
+            int index = find(hash);
+            // the key may have been removed, or removed and added again since
+            if (index >= 0 && sequences[index] == head) {
+                delete(index);
+            }
+            head++;
+        }
+
+        private void delete(int index) {
+            // shift the following entries back so we do not need tombstones
+            int gap = index;
+            int next = index;
+            while (true) {
+                next = (next + 1) & mask;
+                long hash = hashes[next];
+                if (hash == 0) {
+                    break;
+                }
+                int home = (int) hash & mask;
+                // the entry can only be moved to the gap if its home slot is not cyclically in (gap, next]
+                boolean keep = gap <= next ? gap < home && home <= next : gap < home || home <= next;
+                if (!keep) {
+                    hashes[gap] = hash;
+                    sequences[gap] = sequences[next];
+                    gap = next;
+                }
+            }
+            hashes[gap] = 0;
+            count--;
+        }
+    }
+}
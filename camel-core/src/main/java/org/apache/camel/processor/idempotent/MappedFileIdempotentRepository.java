@@ -0,0 +1,868 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.idempotent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.camel.impl.ServiceSupport;
+import org.apache.camel.spi.IdempotentRepository;
+import org.apache.camel.util.FileUtil;
+import org.apache.camel.util.ObjectHelper;
+import org.apache.camel.util.StopWatch;
+import org.apache.camel.util.TimeUtils;
+import org.apache.camel.util.concurrent.ExecutorServiceHelper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A file based implementation of {@link org.apache.camel.spi.IdempotentRepository} which uses a
+ * memory mapped file, holding both a hash index and an append only log of the keys.
+ * <p/>
+ * Unlike the {@link FileIdempotentRepository} the keys is not loaded into memory when starting, as the
+ * hash index is stored in the file as well, which means starting is <tt>O(1)</tt> regardless of the number of keys.
+ * The index is divided into segments which each has its own read/write lock, so {@link #contains(String)}
+ * and {@link #add(String)} do not contend on a global lock.
+ * <p/>
+ * The repository is bounded by the {@link #setMaxEntries(int) maximum number of entries} and the
+ * {@link #setMaxFileStoreSize(long) maximum file size}. When either is about to be reached,
+ * the store is compacted in the background into a new file which only contains the live keys.
+ * If there are more keys than the maximum number of entries, the oldest keys is evicted, keeping the newest
+ * three quarters. Adding and checking keys continue while compacting, and are only paused when the new file is swapped in.
+ * <p/>
+ * Notice the store is swapped by renaming the new file over the old file, which some operating systems
+ * such as Windows may not allow while the old file is still mapped.
+ *
+ * @version $Revision$
+ */
+public class MappedFileIdempotentRepository extends ServiceSupport implements IdempotentRepository<String> {
+    private static final transient Log LOG = LogFactory.getLog(MappedFileIdempotentRepository.class);
+
+    private static final int MAGIC = 0x43414d4c;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int HEADER_SLOTS = 8;
+    private static final int HEADER_SEGMENTS = 12;
+    private static final int HEADER_LOG_CAPACITY = 16;
+    private static final int HEADER_LOG_END = 20;
+    private static final long EMPTY = 0L;
+    private static final long TOMBSTONE = -1L;
+
+    private File fileStore;
+    private int maxEntries = 100000;
+    private long maxFileStoreSize = 32 * 1024 * 1024L;
+    private int concurrencyLevel = 16;
+
+    private volatile Store store;
+    private ReentrantReadWriteLock[] locks;
+    private final AtomicInteger size = new AtomicInteger();
+    private ExecutorService executor;
+
+    // compaction state
+    private final ReentrantLock compactLock = new ReentrantLock();
+    private final AtomicBoolean compactScheduled = new AtomicBoolean();
+    private volatile boolean compacting;
+    private final Queue<Integer> compactAdded = new ConcurrentLinkedQueue<Integer>();
+    private final Set<String> compactRemoved = Collections.synchronizedSet(new HashSet<String>());
+
+    public MappedFileIdempotentRepository() {
+    }
+
+    public MappedFileIdempotentRepository(File fileStore, int maxEntries) {
+        this.fileStore = fileStore;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Creates a new memory mapped file based repository.
+     *
+     * @param fileStore  the file store
+     * @param maxEntries the maximum number of keys to keep
+     */
+    public static IdempotentRepository<String> mappedFileIdempotentRepository(File fileStore, int maxEntries) {
+        return new MappedFileIdempotentRepository(fileStore, maxEntries);
+    }
+
+    /**
+     * Creates a new memory mapped file based repository.
+     *
+     * @param fileStore  the file store
+     * @param maxEntries the maximum number of keys to keep
+     * @param maxFileStoreSize  the max size in bytes for the filestore file
+     */
+    public static IdempotentRepository<String> mappedFileIdempotentRepository(File fileStore, int maxEntries, long maxFileStoreSize) {
+        MappedFileIdempotentRepository repository = new MappedFileIdempotentRepository(fileStore, maxEntries);
+        repository.setMaxFileStoreSize(maxFileStoreSize);
+        return repository;
+    }
+
+    public boolean add(String key) {
+        byte[] data = toBytes(key);
+        int hash = hash(key);
+
+        // try twice as we may have to compact the store to make room
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Store s = getStore();
+            int segment = s.segmentOf(hash);
+            ReentrantReadWriteLock.WriteLock lock = locks[segment].writeLock();
+            boolean full;
+            boolean soft;
+            lock.lock();
+            try {
+                s = lockedStore();
+                if (s.find(segment, hash, data) >= 0) {
+                    return false;
+                }
+                int offset = s.append(data);
+                full = offset < 0 || !s.insert(segment, hash, offset);
+                if (!full) {
+                    size.incrementAndGet();
+                    if (compacting) {
+                        // let the compaction know the key was added while compacting
+                        compactAdded.add(offset);
+                    }
+                    soft = size.get() >= maxEntries || s.needsCompaction(segment);
+                } else {
+                    soft = false;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (!full) {
+                if (soft) {
+                    scheduleCompaction();
+                }
+                return true;
+            }
+
+            // no room so we must compact now
+            compact();
+        }
+
+        throw new IllegalStateException("Cannot add key: " + key + " to idempotent filestore: " + fileStore
+                + " as its full. Increase maxFileStoreSize or decrease maxEntries.");
+    }
+
+    public boolean contains(String key) {
+        byte[] data = toBytes(key);
+        int hash = hash(key);
+
+        Store s = getStore();
+        int segment = s.segmentOf(hash);
+        ReentrantReadWriteLock.ReadLock lock = locks[segment].readLock();
+        lock.lock();
+        try {
+            return lockedStore().find(segment, hash, data) >= 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean remove(String key) {
+        byte[] data = toBytes(key);
+        int hash = hash(key);
+
+        Store s = getStore();
+        int segment = s.segmentOf(hash);
+        ReentrantReadWriteLock.WriteLock lock = locks[segment].writeLock();
+        lock.lock();
+        try {
+            if (!lockedStore().delete(segment, hash, data)) {
+                return false;
+            }
+            size.decrementAndGet();
+            if (compacting) {
+                // let the compaction know the key was removed while compacting
+                compactRemoved.add(key);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean confirm(String key) {
+        // noop
+        return true;
+    }
+
+    /**
+     * Number of keys in the repository
+     */
+    public int size() {
+        getStore();
+        return size.get();
+    }
+
+    public File getFileStore() {
+        return fileStore;
+    }
+
+    public void setFileStore(File fileStore) {
+        this.fileStore = fileStore;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Sets the maximum number of keys to keep. When exceeded the oldest keys is evicted.
+     * <p/>
+     * The default is 100000. Is only used when the file store is created.
+     */
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public long getMaxFileStoreSize() {
+        return maxFileStoreSize;
+    }
+
+    /**
+     * Sets the maximum file size for the file store in bytes, which includes the index.
+     * <p/>
+     * The default is 32mb. Is only used when the file store is created.
+     */
+    public void setMaxFileStoreSize(long maxFileStoreSize) {
+        this.maxFileStoreSize = maxFileStoreSize;
+    }
+
+    public int getConcurrencyLevel() {
+        return concurrencyLevel;
+    }
+
+    /**
+     * Sets the number of segments the index is divided into, which is rounded up to a power of two.
+     * <p/>
+     * The default is 16. Is only used when the file store is created.
+     */
+    public void setConcurrencyLevel(int concurrencyLevel) {
+        this.concurrencyLevel = concurrencyLevel;
+    }
+
+    /**
+     * Compacts the file store now, so it only contains the live keys.
+     * <p/>
+     * If there are more keys than the maximum number of entries, then the oldest keys is evicted.
+     */
+    public void compact() {
+        getStore();
+        try {
+            compactStore();
+        } catch (IOException e) {
+            throw ObjectHelper.wrapRuntimeCamelException(e);
+        }
+    }
+
+    private void compactStore() throws IOException {
+        compactLock.lock();
+        try {
+            // the store may have been closed in the meantime
+            if (store != null) {
+                doCompact(store);
+            }
+        } finally {
+            compactLock.unlock();
+        }
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        getStore();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        compactLock.lock();
+        try {
+            synchronized (this) {
+                if (executor != null) {
+                    executor.shutdown();
+                    executor = null;
+                }
+                if (store != null) {
+                    // wait for the keys being added or checked before closing the store
+                    for (ReentrantReadWriteLock lock : locks) {
+                        lock.writeLock().lock();
+                    }
+                    try {
+                        store.close();
+                        store = null;
+                    } finally {
+                        for (ReentrantReadWriteLock lock : locks) {
+                            lock.writeLock().unlock();
+                        }
+                    }
+                }
+            }
+        } finally {
+            compactLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the store, which is opened (or created) on first use.
+     */
+    protected Store getStore() {
+        Store answer = store;
+        if (answer == null) {
+            synchronized (this) {
+                answer = store;
+                if (answer == null) {
+                    try {
+                        answer = openStore();
+                    } catch (IOException e) {
+                        throw ObjectHelper.wrapRuntimeCamelException(e);
+                    }
+                }
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Gets the store while holding a segment lock, which fails if the repository has been stopped
+     * after the store was looked up.
+     */
+    private Store lockedStore() {
+        Store answer = store;
+        if (answer == null) {
+            throw new IllegalStateException("Idempotent filestore: " + fileStore + " has been stopped");
+        }
+        return answer;
+    }
+
+    private Store openStore() throws IOException {
+        ObjectHelper.notNull(fileStore, "fileStore");
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("MaxEntries must be a positive number, was: " + maxEntries);
+        }
+
+        // remove any left over from a compaction which did not complete
+        File tmp = getCompactFile();
+        if (tmp.exists()) {
+            FileUtil.deleteFile(tmp);
+        }
+
+        Store answer;
+        if (fileStore.exists() && fileStore.length() > 0) {
+            answer = Store.open(fileStore);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Opened idempotent filestore: " + fileStore + " with " + answer.count() + " keys");
+            }
+        } else {
+            if (fileStore.getParentFile() != null) {
+                fileStore.getParentFile().mkdirs();
+            }
+            // the index should have at least twice the slots of the max entries to keep the probing short
+            int segments = powerOfTwo(Math.max(1, concurrencyLevel));
+            int slots = powerOfTwo(Math.max(maxEntries * 2, segments * 64));
+            long logCapacity = maxFileStoreSize - Store.logStart(slots, segments);
+            if (logCapacity <= 0 || maxFileStoreSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("MaxFileStoreSize must be between " + Store.logStart(slots, segments)
+                        + " and " + Integer.MAX_VALUE + " bytes for " + maxEntries + " entries, was: " + maxFileStoreSize);
+            }
+            answer = Store.create(fileStore, slots, segments, (int) logCapacity);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Created idempotent filestore: " + fileStore + " with " + slots + " index slots in " + segments + " segments");
+            }
+        }
+
+        // keep the locks when reopened, as a key may be added concurrently using the old locks
+        if (locks == null || locks.length != answer.segments) {
+            locks = new ReentrantReadWriteLock[answer.segments];
+            for (int i = 0; i < locks.length; i++) {
+                locks[i] = new ReentrantReadWriteLock();
+            }
+        }
+        size.set(answer.count());
+        executor = ExecutorServiceHelper.newSingleThreadExecutor(ExecutorServiceHelper.DEFAULT_PATTERN,
+                "MappedFileIdempotentRepository", true);
+        store = answer;
+        return answer;
+    }
+
+    private void scheduleCompaction() {
+        ExecutorService target = executor;
+        if (target != null && compactScheduled.compareAndSet(false, true)) {
+            target.submit(new Runnable() {
+                public void run() {
+                    try {
+                        compactStore();
+                    } catch (Throwable e) {
+                        LOG.warn("Error compacting idempotent filestore: " + fileStore + ". This exception will be ignored.", e);
+                    } finally {
+                        compactScheduled.set(false);
+                    }
+                }
+            });
+        }
+    }
+
+    private void doCompact(Store old) throws IOException {
+        StopWatch watch = new StopWatch();
+        compacting = true;
+        try {
+            // phase 1: copy the live keys into a new store, while keys can still be added and removed
+            List<int[]> collected = new ArrayList<int[]>(old.segments);
+            int total = 0;
+            for (int segment = 0; segment < old.segments; segment++) {
+                locks[segment].readLock().lock();
+                try {
+                    int[] offsets = old.offsets(segment);
+                    collected.add(offsets);
+                    total += offsets.length;
+                } finally {
+                    locks[segment].readLock().unlock();
+                }
+            }
+            int[] offsets = new int[total];
+            int pos = 0;
+            for (int[] part : collected) {
+                System.arraycopy(part, 0, offsets, pos, part.length);
+                pos += part.length;
+            }
+            // the log is append only so the offsets is in the order the keys was added
+            Arrays.sort(offsets);
+
+            // keep the newest keys if we have too many, or they take up more than half the log
+            int first = 0;
+            if (offsets.length >= maxEntries) {
+                first = offsets.length - (maxEntries - maxEntries / 4);
+            }
+            long bytes = 0;
+            for (int i = offsets.length - 1; i >= first; i--) {
+                bytes += old.recordLength(offsets[i]);
+                if (bytes > old.logCapacity / 2) {
+                    first = i + 1;
+                    break;
+                }
+            }
+
+            File tmp = getCompactFile();
+            Store fresh = Store.create(tmp, old.slots, old.segments, old.logCapacity);
+            for (int i = first; i < offsets.length; i++) {
+                copy(old, fresh, offsets[i]);
+            }
+
+            // phase 2: catch up with the changes done while copying and swap in the new store
+            for (ReentrantReadWriteLock lock : locks) {
+                lock.writeLock().lock();
+            }
+            try {
+                for (String key : compactRemoved) {
+                    byte[] data = toBytes(key);
+                    int hash = hash(key);
+                    int segment = fresh.segmentOf(hash);
+                    fresh.delete(segment, hash, data);
+                    // the key may have been added again
+                    int index = old.find(segment, hash, data);
+                    if (index >= 0) {
+                        copy(old, fresh, old.offsetAt(index));
+                    }
+                }
+                for (Integer offset : compactAdded) {
+                    // skip keys we have already copied (or evicted), or which has been removed since
+                    if (Arrays.binarySearch(offsets, offset) < 0 && old.isLive(offset)) {
+                        copy(old, fresh, offset);
+                    }
+                }
+
+                fresh.force();
+                old.close();
+                if (!FileUtil.renameFile(tmp, fileStore)) {
+                    throw new IOException("Cannot rename compacted idempotent filestore from: " + tmp + " to: " + fileStore);
+                }
+                store = fresh;
+                size.set(fresh.count());
+            } finally {
+                compacting = false;
+                compactAdded.clear();
+                compactRemoved.clear();
+                for (ReentrantReadWriteLock lock : locks) {
+                    lock.writeLock().unlock();
+                }
+            }
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Compacted idempotent filestore: " + fileStore + " from " + offsets.length + " to "
+                        + size.get() + " keys in " + TimeUtils.printDuration(watch.stop()));
+            }
+        } finally {
+            compacting = false;
+        }
+    }
+
+    private static void copy(Store from, Store to, int offset) {
+        byte[] data = from.readRecord(offset);
+        int hash = hash(toString(data));
+        int segment = to.segmentOf(hash);
+        if (to.find(segment, hash, data) < 0) {
+            int newOffset = to.append(data);
+            if (newOffset < 0 || !to.insert(segment, hash, newOffset)) {
+                // should not happen as we only keep what fits
+                LOG.warn("Cannot copy key: " + toString(data) + " to compacted idempotent filestore as its full");
+            }
+        }
+    }
+
+    private File getCompactFile() {
+        return new File(fileStore.getPath() + ".compact");
+    }
+
+    private static int hash(String key) {
+        // spread the bits as the high bits is used for the segment and the low bits for the slot
+        int h = key.hashCode();
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int powerOfTwo(int value) {
+        int answer = 1;
+        while (answer < value) {
+            answer <<= 1;
+        }
+        return answer;
+    }
+
+    private static byte[] toBytes(String key) {
+        try {
+            return key.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw ObjectHelper.wrapRuntimeCamelException(e);
+        }
+    }
+
+    private static String toString(byte[] data) {
+        try {
+            return new String(data, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw ObjectHelper.wrapRuntimeCamelException(e);
+        }
+    }
+
+    /**
+     * The memory mapped file holding the header, the segment counters, the index and the log.
+     * <p/>
+     * An index slot is a long with the hash of the key in the high int and the offset of the key
+     * in the log plus one in the low int, so zero is an empty slot. A record in the log is the length
+     * followed by the UTF-8 bytes of the key. The segment counters is the number of keys and the
+     * number of used slots (including removed keys) in the segment.
+     * <p/>
+     * The caller must hold the lock for the segment.
+     */
+    private static final class Store {
+        private final RandomAccessFile file;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int slots;
+        private final int segments;
+        private final int segmentSlots;
+        private final int segmentBits;
+        private final int indexStart;
+        private final int logStart;
+        private final int logCapacity;
+        private final AtomicInteger logEnd;
+
+        private Store(File file, int slots, int segments, int logCapacity, boolean create) throws IOException {
+            this.slots = slots;
+            this.segments = segments;
+            this.segmentSlots = slots / segments;
+            this.segmentBits = Integer.numberOfTrailingZeros(segments);
+            this.indexStart = HEADER_SIZE + segments * 8;
+            this.logStart = logStart(slots, segments);
+            this.logCapacity = logCapacity;
+
+            this.file = new RandomAccessFile(file, "rw");
+            if (create) {
+                this.file.setLength(0);
+                this.file.setLength((long) logStart + logCapacity);
+            }
+            this.channel = this.file.getChannel();
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) logStart + logCapacity);
+            if (create) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(HEADER_SLOTS, slots);
+                buffer.putInt(HEADER_SEGMENTS, segments);
+                buffer.putInt(HEADER_LOG_CAPACITY, logCapacity);
+                buffer.putInt(HEADER_LOG_END, 0);
+            }
+            this.logEnd = new AtomicInteger(buffer.getInt(HEADER_LOG_END));
+        }
+
+        static Store create(File file, int slots, int segments, int logCapacity) throws IOException {
+            return new Store(file, slots, segments, logCapacity, true);
+        }
+
+        static Store open(File file) throws IOException {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                if (raf.length() < HEADER_SIZE || raf.readInt() != MAGIC) {
+                    throw new IOException("File is not an idempotent filestore: " + file);
+                }
+                int version = raf.readInt();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported idempotent filestore version: " + version + " in file: " + file);
+                }
+                int slots = raf.readInt();
+                int segments = raf.readInt();
+                int logCapacity = raf.readInt();
+                return new Store(file, slots, segments, logCapacity, false);
+            } finally {
+                raf.close();
+            }
+        }
+
+        static int logStart(int slots, int segments) {
+            return HEADER_SIZE + segments * 8 + slots * 8;
+        }
+
+        int segmentOf(int hash) {
+            return segmentBits == 0 ? 0 : hash >>> (32 - segmentBits);
+        }
+
+        int count() {
+            int answer = 0;
+            for (int i = 0; i < segments; i++) {
+                answer += buffer.getInt(HEADER_SIZE + i * 8);
+            }
+            return answer;
+        }
+
+        /**
+         * Finds the slot of the key
+         *
+         * @return the slot, or <tt>-1</tt> if not found
+         */
+        int find(int segment, int hash, byte[] data) {
+            int base = segment * segmentSlots;
+            int mask = segmentSlots - 1;
+            int index = hash & mask;
+            for (int i = 0; i < segmentSlots; i++) {
+                long slot = getSlot(base + index);
+                if (slot == EMPTY) {
+                    return -1;
+                }
+                if (slot != TOMBSTONE && (int) (slot >>> 32) == hash && recordEquals(offsetOf(slot), data)) {
+                    return base + index;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * Inserts the key at the given offset in the log (the key must not already be in the index)
+         *
+         * @return <tt>false</tt> if there is no room in the segment
+         */
+        boolean insert(int segment, int hash, int offset) {
+            int base = segment * segmentSlots;
+            int mask = segmentSlots - 1;
+            int index = hash & mask;
+            for (int i = 0; i < segmentSlots; i++) {
+                long slot = getSlot(base + index);
+                if (slot == TOMBSTONE || slot == EMPTY) {
+                    if (slot == EMPTY) {
+                        // keep some empty slots so probing always terminates
+                        int used = getUsed(segment);
+                        if (used + 1 > segmentSlots / 4 * 3) {
+                            return false;
+                        }
+                        setUsed(segment, used + 1);
+                    }
+                    putSlot(base + index, ((long) hash << 32) | ((offset + 1) & 0xFFFFFFFFL));
+                    setCount(segment, getCount(segment) + 1);
+                    return true;
+                }
+                index = (index + 1) & mask;
+            }
+            return false;
+        }
+
+        boolean delete(int segment, int hash, byte[] data) {
+            int index = find(segment, hash, data);
+            if (index < 0) {
+                return false;
+            }
+            putSlot(index, TOMBSTONE);
+            setCount(segment, getCount(segment) - 1);
+            return true;
+        }
+
+        /**
+         * Whether the log is filling up or the segment has many removed keys
+         */
+        boolean needsCompaction(int segment) {
+            return logEnd.get() > logCapacity / 4 * 3 || getUsed(segment) - getCount(segment) > segmentSlots / 4;
+        }
+
+        int offsetAt(int index) {
+            return offsetOf(getSlot(index));
+        }
+
+        /**
+         * Whether the key at the given offset is still in the index
+         */
+        boolean isLive(int offset) {
+            byte[] data = readRecord(offset);
+            int hash = hash(MappedFileIdempotentRepository.toString(data));
+            int index = find(segmentOf(hash), hash, data);
+            return index >= 0 && offsetOf(getSlot(index)) == offset;
+        }
+
+        /**
+         * The offsets of the keys in the segment
+         */
+        int[] offsets(int segment) {
+            int[] answer = new int[getCount(segment)];
+            int base = segment * segmentSlots;
+            int n = 0;
+            for (int i = 0; i < segmentSlots && n < answer.length; i++) {
+                long slot = getSlot(base + i);
+                if (slot != EMPTY && slot != TOMBSTONE) {
+                    answer[n++] = offsetOf(slot);
+                }
+            }
+            if (n < answer.length) {
+                int[] copy = new int[n];
+                System.arraycopy(answer, 0, copy, 0, n);
+                answer = copy;
+            }
+            return answer;
+        }
+
+        /**
+         * Appends the key to the log
+         *
+         * @return the offset in the log, or <tt>-1</tt> if there is no room in the log
+         */
+        int append(byte[] data) {
+            int length = 4 + data.length;
+            int offset;
+            do {
+                offset = logEnd.get();
+                if (offset + length > logCapacity) {
+                    return -1;
+                }
+            } while (!logEnd.compareAndSet(offset, offset + length));
+
+            int pos = logStart + offset;
+            buffer.putInt(pos, data.length);
+            for (int i = 0; i < data.length; i++) {
+                buffer.put(pos + 4 + i, data[i]);
+            }
+
+            // store the end of the log before the key is added to the index, as other threads can append concurrently
+            // we must keep writing until we have written the latest end
+            int end;
+            do {
+                end = logEnd.get();
+                buffer.putInt(HEADER_LOG_END, end);
+            } while (logEnd.get() != end);
+
+            return offset;
+        }
+
+        int recordLength(int offset) {
+            return 4 + buffer.getInt(logStart + offset);
+        }
+
+        byte[] readRecord(int offset) {
+            int pos = logStart + offset;
+            byte[] data = new byte[buffer.getInt(pos)];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = buffer.get(pos + 4 + i);
+            }
+            return data;
+        }
+
+        void force() {
+            buffer.force();
+        }
+
+        void close() throws IOException {
+            force();
+            channel.close();
+            file.close();
+        }
+
+        private boolean recordEquals(int offset, byte[] data) {
+            int pos = logStart + offset;
+            if (buffer.getInt(pos) != data.length) {
+                return false;
+            }
+            for (int i = 0; i < data.length; i++) {
+                if (buffer.get(pos + 4 + i) != data[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long getSlot(int index) {
+            return buffer.getLong(indexStart + index * 8);
+        }
+
+        private void putSlot(int index, long slot) {
+            buffer.putLong(indexStart + index * 8, slot);
+        }
+
+        private static int offsetOf(long slot) {
+            return (int) slot - 1;
+        }
+
+        private int getCount(int segment) {
+            return buffer.getInt(HEADER_SIZE + segment * 8);
+        }
+
+        private void setCount(int segment, int count) {
+            buffer.putInt(HEADER_SIZE + segment * 8, count);
+        }
+
+        private int getUsed(int segment) {
+            return buffer.getInt(HEADER_SIZE + segment * 8 + 4);
+        }
+
+        private void setUsed(int segment, int used) {
+            buffer.putInt(HEADER_SIZE + segment * 8 + 4, used);
+        }
+    }
+
+}
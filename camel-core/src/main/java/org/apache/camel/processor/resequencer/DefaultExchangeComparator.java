@@ -33,7 +33,7 @@ import org.apache.camel.Expression;
  * 
  * @version $Revision$
  */
-public class DefaultExchangeComparator implements ExpressionResultComparator {
+public class DefaultExchangeComparator implements ExpressionResultComparator, SequenceNumberComparator<Exchange> {
 
     private Expression expression;
 
@@ -67,12 +67,12 @@ public class DefaultExchangeComparator implements ExpressionResultComparator {
     }
 
     public int compare(Exchange o1, Exchange o2) {
-        Long n1 = getSequenceNumber(o1);
-        Long n2 = getSequenceNumber(o2);
-        return n1.compareTo(n2);
+        long n1 = getSequenceNumber(o1);
+        long n2 = getSequenceNumber(o2);
+        return n1 < n2 ? -1 : (n1 == n2 ? 0 : 1);
     }
 
-    private long getSequenceNumber(Exchange exchange) {
+    public long getSequenceNumber(Exchange exchange) {
         return expression.evaluate(exchange, Long.class);
     }
     
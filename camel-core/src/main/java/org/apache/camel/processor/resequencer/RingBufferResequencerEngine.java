@@ -0,0 +1,277 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.resequencer;
+
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link ResequencerEngine} for elements with <code>long</code> sequence numbers,
+ * which keeps the pending elements in a ring buffer indexed by their sequence number.
+ * <p>
+ * The ring buffer is a window of <code>capacity</code> sequence numbers starting at the
+ * next sequence number to deliver. Inserting and delivering an element is a constant time
+ * array access, and gaps are timed out using the arrival time of the first element after
+ * the gap instead of a timer task per element.
+ * <p>
+ * An element with a sequence number beyond the window blocks the inserting thread until
+ * the window has moved far enough, which bounds the memory used and applies backpressure
+ * to the producers. An element with a sequence number lower than the last delivered element
+ * is late, and is delivered as soon as possible as it can no longer be delivered in order.
+ * Duplicate sequence numbers are ignored, as with the {@link ResequencerEngine}.
+ * <p>
+ * The number of gaps timed out, late elements and elements inserted beyond the window
+ * are available as counters.
+ *
+ * @version $Revision$
+ */
+public class RingBufferResequencerEngine<E> extends ResequencerEngine<E> {
+
+    private final SequenceNumberComparator<E> comparator;
+    private final LinkedList<E> lateElements = new LinkedList<E>();
+    private final AtomicLong gapCount = new AtomicLong();
+    private final AtomicLong lateCount = new AtomicLong();
+    private final AtomicLong outOfWindowCount = new AtomicLong();
+    private int capacity = 1000;
+    private int mask;
+    private Object[] elements;
+    private long[] arrivals;
+    private int pending;
+    private long head;
+    private boolean headDelivered;
+    private long highest;
+    private long lowest;
+    private E lastDelivered;
+    private boolean stopped;
+
+    public RingBufferResequencerEngine(SequenceNumberComparator<E> comparator) {
+        super(comparator);
+        this.comparator = comparator;
+    }
+
+    /**
+     * Returns the capacity, which is the number of sequence numbers the ring buffer holds.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets the capacity, which is rounded up to a power of two when this engine is started.
+     *
+     * @param capacity the number of sequence numbers the ring buffer holds.
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, was: " + capacity);
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        elements = new Object[size];
+        arrivals = new long[size];
+        mask = size - 1;
+        pending = 0;
+        headDelivered = false;
+        lowest = Long.MAX_VALUE;
+        lateElements.clear();
+        stopped = false;
+    }
+
+    @Override
+    public synchronized void stop() {
+        // wake up any threads waiting for the window to move
+        stopped = true;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized int size() {
+        return pending + lateElements.size();
+    }
+
+    /**
+     * Returns the number of gaps which have timed out
+     */
+    public long getGapCount() {
+        return gapCount.get();
+    }
+
+    /**
+     * Returns the number of late elements, which arrived after a higher sequence number was delivered
+     */
+    public long getLateCount() {
+        return lateCount.get();
+    }
+
+    /**
+     * Returns the number of elements which had to wait as their sequence number was beyond the window
+     */
+    public long getOutOfWindowCount() {
+        return outOfWindowCount.get();
+    }
+
+    public void resetCounters() {
+        gapCount.set(0);
+        lateCount.set(0);
+        outOfWindowCount.set(0);
+    }
+
+    @Override
+    E getLastDelivered() {
+        return lastDelivered;
+    }
+
+    @Override
+    synchronized void setLastDelivered(E o) {
+        lastDelivered = o;
+        head = comparator.getSequenceNumber(o) + 1;
+        headDelivered = true;
+    }
+
+    /**
+     * Inserts the given element, waiting for the window to move if its sequence number is
+     * beyond the window.
+     *
+     * @param o an element.
+     */
+    @Override
+    public synchronized void insert(E o) {
+        long number = comparator.getSequenceNumber(o);
+        boolean counted = false;
+        while (true) {
+            if (pending == 0 && !headDelivered) {
+                head = number;
+            }
+            if (number < head) {
+                if (!headDelivered && highest - number < elements.length) {
+                    // nothing delivered yet so the window can move backwards
+                    head = number;
+                } else {
+                    lateCount.incrementAndGet();
+                    lateElements.add(o);
+                    return;
+                }
+            }
+            if (number - head < elements.length) {
+                break;
+            }
+            if (pending == 0) {
+                // nothing is waiting so move the window, the sequence numbers skipped are late if they arrive
+                head = number - elements.length + 1;
+                break;
+            }
+            if (stopped) {
+                throw new IllegalStateException("Resequencer is stopped");
+            }
+            if (!counted) {
+                outOfWindowCount.incrementAndGet();
+                counted = true;
+            }
+            try {
+                wait(getTimeout());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting to insert element with sequence number " + number);
+            }
+        }
+
+        int index = (int) (number & mask);
+        if (elements[index] != null) {
+            // duplicate sequence number
+            return;
+        }
+        elements[index] = o;
+        arrivals[index] = System.currentTimeMillis();
+        if (pending == 0 || number > highest) {
+            highest = number;
+        }
+        if (number < lowest) {
+            lowest = number;
+        }
+        pending++;
+    }
+
+    @Override
+    public synchronized void deliver() throws Exception {
+        while (deliverNext()) {
+            // do nothing here
+        }
+    }
+
+    /**
+     * Delivers the next element if the element is in sequence or its gap has timed out.
+     *
+     * @return <code>true</code> if the element has been delivered
+     *         <code>false</code> otherwise.
+     * @throws Exception thrown by {@link SequenceSender#sendElement(Object)}.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized boolean deliverNext() throws Exception {
+        if (!lateElements.isEmpty()) {
+            E late = lateElements.removeFirst();
+            getSequenceSender().sendElement(late);
+            return true;
+        }
+        if (pending == 0) {
+            return false;
+        }
+
+        int index = (int) (head & mask);
+        if (elements[index] == null || !headDelivered) {
+            // there is a gap or the first element, so wait for the timeout of the lowest element
+            index = (int) (lowest & mask);
+            if (System.currentTimeMillis() - arrivals[index] < getTimeout()) {
+                return false;
+            }
+            if (lowest != head) {
+                gapCount.incrementAndGet();
+            }
+            head = lowest;
+        }
+
+        E element = (E) elements[index];
+        elements[index] = null;
+        pending--;
+        head++;
+        headDelivered = true;
+        lowest = pending == 0 ? Long.MAX_VALUE : nextPending(head);
+        lastDelivered = element;
+        // the window has moved
+        notifyAll();
+
+        getSequenceSender().sendElement(element);
+        return true;
+    }
+
+    private long nextPending(long from) {
+        for (long number = from; number <= highest; number++) {
+            if (elements[(int) (number & mask)] != null) {
+                return number;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+}
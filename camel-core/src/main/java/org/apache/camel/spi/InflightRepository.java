@@ -16,6 +16,8 @@
  */
 package org.apache.camel.spi;
 
+import java.util.List;
+
 import org.apache.camel.Endpoint;
 import org.apache.camel.Exchange;
 import org.apache.camel.Service;
@@ -27,6 +29,27 @@ import org.apache.camel.Service;
  */
 public interface InflightRepository extends Service {
 
+    /**
+     * Information about an inflight exchange.
+     */
+    interface InflightExchange {
+
+        /**
+         * The exchange being inflight
+         */
+        Exchange getExchange();
+
+        /**
+         * The time in millis the exchange has been inflight
+         */
+        long getDuration();
+
+        /**
+         * The id of the route the exchange is from, or <tt>null</tt> if not from a route
+         */
+        String getFromRouteId();
+    }
+
     /**
      * Adds the exchange to the inflight registry
      *
@@ -60,4 +83,27 @@ public interface InflightRepository extends Service {
      */
     int size(Endpoint endpoint);
 
+    /**
+     * Whether the inflight exchanges themselves are tracked so they can be {@link #browse(int) browsed}.
+     */
+    boolean isInflightBrowseEnabled();
+
+    /**
+     * Sets whether the inflight exchanges themselves are tracked so they can be {@link #browse(int) browsed},
+     * which is disabled by default as it adds overhead to every exchange.
+     *
+     * @param inflightBrowseEnabled whether to track the inflight exchanges
+     */
+    void setInflightBrowseEnabled(boolean inflightBrowseEnabled);
+
+    /**
+     * Browses the inflight exchanges which has been inflight the longest, oldest first.
+     * <p/>
+     * Will return an empty list unless {@link #isInflightBrowseEnabled()} is enabled.
+     *
+     * @param limit maximum number of exchanges to return
+     * @return the oldest inflight exchanges.
+     */
+    List<InflightExchange> browse(int limit);
+
 }
@@ -0,0 +1,512 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map that uses case insensitive keys, but preserves the original keys, which is used for storing
+ * the headers on {@link org.apache.camel.impl.DefaultMessage}.
+ * <p/>
+ * This map has the same behavior as {@link CaseInsensitiveMap} but is purpose built to be fast for headers:
+ * <ul>
+ *   <li>the keys is hashed and compared case insensitive, so no lower case copies of the keys is created
+ *       when doing a lookup</li>
+ *   <li>there is a single hash table which stores the original key together with the value</li>
+ *   <li>{@link #copy()} is copy-on-write, the copy shares the hash table with this map until
+ *       either of them is changed</li>
+ * </ul>
+ * When copying from this map to a regular Map such as {@link java.util.HashMap} then the original keys are
+ * copied over and you get the old behavior back using a regular Map with case sensitive keys.
+ * <p/>
+ * The iterators allows the map to be changed while iterating, such as removing entries.
+ * However if the hash table is resized while iterating then a {@link ConcurrentModificationException} is thrown.
+ * <p/>
+ * This map is <b>not</b> designed to be thread safe as concurrent access to it is not supposed to be performed
+ * by the Camel routing engine.
+ *
+ * @version $Revision$
+ */
+public class CaseInsensitiveHeaderMap extends AbstractMap<String, Object> implements Serializable {
+    private static final long serialVersionUID = 5405127012612587917L;
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private transient HeaderEntry[] table;
+    private transient int size;
+    private transient int threshold;
+    // whether the table is shared with a copy of this map and must be copied before changing it
+    private transient boolean shared;
+    // number of times the table has been resized, which the iterators use to detect they are invalid
+    private transient int resizeCount;
+    private transient Set<Map.Entry<String, Object>> entrySetView;
+
+    public CaseInsensitiveHeaderMap() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public CaseInsensitiveHeaderMap(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+        int capacity = 1;
+        while (capacity < initialCapacity && capacity < MAXIMUM_CAPACITY) {
+            capacity <<= 1;
+        }
+        table = new HeaderEntry[capacity];
+        threshold = thresholdOf(capacity);
+    }
+
+    public CaseInsensitiveHeaderMap(Map<? extends String, ?> map) {
+        this(Math.max(DEFAULT_INITIAL_CAPACITY, (int) (map.size() / 0.75f) + 1));
+        putAll(map);
+    }
+
+    /**
+     * Creates a copy of this map.
+     * <p/>
+     * The copy is cheap as it shares the hash table with this map, which is first copied
+     * when either this map or the copy is changed.
+     *
+     * @return the copy
+     */
+    public CaseInsensitiveHeaderMap copy() {
+        CaseInsensitiveHeaderMap answer = new CaseInsensitiveHeaderMap(0);
+        answer.share(this);
+        return answer;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        HeaderEntry entry = getEntry(key);
+        return entry != null ? entry.value : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return getEntry(key) != null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        ObjectHelper.notNull(key, "key");
+        if (shared) {
+            unshare();
+        }
+
+        int hash = hash(key);
+        HeaderEntry[] tab = table;
+        int index = hash & (tab.length - 1);
+        for (HeaderEntry e = tab[index]; e != null; e = e.next) {
+            if (e.hash == hash && matches(e.key, key)) {
+                // use the latest key so its case is preserved
+                e.key = key;
+                Object old = e.value;
+                e.value = value;
+                return old;
+            }
+        }
+
+        tab[index] = new HeaderEntry(hash, key, value, tab[index]);
+        if (++size > threshold) {
+            resize(tab.length * 2);
+        }
+        return null;
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> map) {
+        if (map == null || map.isEmpty()) {
+            return;
+        }
+        if (size == 0 && map instanceof CaseInsensitiveHeaderMap) {
+            // we are empty so we can share the hash table from the other map
+            share((CaseInsensitiveHeaderMap) map);
+            return;
+        }
+        for (Map.Entry<? extends String, ?> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (key == null) {
+            return null;
+        }
+        String s = key.toString();
+        int hash = hash(s);
+        int index = hash & (table.length - 1);
+
+        // only copy the shared table if we have the key
+        if (shared && getEntry(s) == null) {
+            return null;
+        }
+        if (shared) {
+            unshare();
+        }
+
+        HeaderEntry prev = null;
+        for (HeaderEntry e = table[index]; e != null; prev = e, e = e.next) {
+            if (e.hash == hash && matches(e.key, s)) {
+                removeEntry(index, prev, e);
+                return e.value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        if (shared) {
+            // just drop the shared table
+            table = new HeaderEntry[table.length];
+            shared = false;
+        } else {
+            HeaderEntry[] tab = table;
+            for (int i = 0; i < tab.length; i++) {
+                for (HeaderEntry e = tab[i]; e != null; e = e.next) {
+                    // mark it as removed so iterators skip it
+                    e.removed = true;
+                }
+                tab[i] = null;
+            }
+        }
+        size = 0;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (entrySetView == null) {
+            entrySetView = new EntrySet();
+        }
+        return entrySetView;
+    }
+
+    // Implementation methods
+    // -------------------------------------------------------------------------
+
+    private HeaderEntry getEntry(Object key) {
+        if (key == null) {
+            return null;
+        }
+        String s = key.toString();
+        int hash = hash(s);
+        HeaderEntry[] tab = table;
+        for (HeaderEntry e = tab[hash & (tab.length - 1)]; e != null; e = e.next) {
+            if (e.hash == hash && matches(e.key, s)) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    private void removeEntry(int index, HeaderEntry prev, HeaderEntry e) {
+        if (prev == null) {
+            table[index] = e.next;
+        } else {
+            prev.next = e.next;
+        }
+        // keep the next link so iterators positioned at this entry can continue
+        e.removed = true;
+        size--;
+    }
+
+    private void share(CaseInsensitiveHeaderMap other) {
+        table = other.table;
+        size = other.size;
+        threshold = other.threshold;
+        shared = true;
+        other.shared = true;
+    }
+
+    /**
+     * Copies the shared hash table so we have our own table we can change.
+     */
+    private void unshare() {
+        HeaderEntry[] src = table;
+        HeaderEntry[] dest = new HeaderEntry[src.length];
+        for (int i = 0; i < src.length; i++) {
+            HeaderEntry last = null;
+            for (HeaderEntry e = src[i]; e != null; e = e.next) {
+                HeaderEntry copy = new HeaderEntry(e.hash, e.key, e.value, null);
+                if (last == null) {
+                    dest[i] = copy;
+                } else {
+                    last.next = copy;
+                }
+                last = copy;
+            }
+        }
+        table = dest;
+        shared = false;
+    }
+
+    private void resize(int newCapacity) {
+        HeaderEntry[] src = table;
+        if (src.length >= MAXIMUM_CAPACITY) {
+            threshold = Integer.MAX_VALUE;
+            return;
+        }
+
+        HeaderEntry[] dest = new HeaderEntry[newCapacity];
+        for (int i = 0; i < src.length; i++) {
+            HeaderEntry e = src[i];
+            while (e != null) {
+                HeaderEntry next = e.next;
+                int index = e.hash & (newCapacity - 1);
+                e.next = dest[index];
+                dest[index] = e;
+                e = next;
+            }
+        }
+        table = dest;
+        threshold = thresholdOf(newCapacity);
+        resizeCount++;
+    }
+
+    private static int thresholdOf(int capacity) {
+        return (int) (capacity * 0.75f);
+    }
+
+    /**
+     * Computes the hash code of the key as if the key was in lower case, without creating a lower case copy.
+     */
+    static int hash(String key) {
+        int h = 0;
+        for (int i = 0, len = key.length(); i < len; i++) {
+            h = 31 * h + foldCase(key.charAt(i));
+        }
+        // spread the bits as the table size is a power of two
+        h ^= (h >>> 20) ^ (h >>> 12);
+        return h ^ (h >>> 7) ^ (h >>> 4);
+    }
+
+    private static char foldCase(char ch) {
+        if (ch < 128) {
+            // fast path for ASCII which is what headers is in most cases
+            return ch >= 'A' && ch <= 'Z' ? (char) (ch + ('a' - 'A')) : ch;
+        }
+        return Character.toLowerCase(Character.toUpperCase(ch));
+    }
+
+    private static boolean matches(String key, String other) {
+        return key == other || key.equalsIgnoreCase(other);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(table.length);
+        out.writeInt(size);
+        for (Map.Entry<String, Object> entry : entrySet()) {
+            out.writeObject(entry.getKey());
+            out.writeObject(entry.getValue());
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int capacity = in.readInt();
+        int count = in.readInt();
+        table = new HeaderEntry[capacity];
+        threshold = thresholdOf(capacity);
+        for (int i = 0; i < count; i++) {
+            String key = (String) in.readObject();
+            Object value = in.readObject();
+            put(key, value);
+        }
+    }
+
+    /**
+     * An entry in the hash table which holds the original key.
+     * <p/>
+     * The entries can be shared with copies of this map, so they are never handed out to the caller,
+     * which instead gets a {@link MapEntry} from the iterators.
+     */
+    private static final class HeaderEntry {
+        private final int hash;
+        private String key;
+        private Object value;
+        private HeaderEntry next;
+        private boolean removed;
+
+        private HeaderEntry(int hash, String key, Object value, HeaderEntry next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /**
+     * The entry returned from the iterators, which copies the hash table before changing the value
+     * if the table is shared, so the change does not affect copies of this map.
+     */
+    private final class MapEntry implements Map.Entry<String, Object> {
+        private HeaderEntry entry;
+
+        private MapEntry(HeaderEntry entry) {
+            this.entry = entry;
+        }
+
+        public String getKey() {
+            return entry.key;
+        }
+
+        public Object getValue() {
+            return entry.value;
+        }
+
+        public Object setValue(Object value) {
+            if (shared) {
+                unshare();
+            }
+            // the entry may be from a table we no longer own, so lookup the entry in our current table
+            HeaderEntry e = entry.removed ? null : getEntry(entry.key);
+            if (e == null) {
+                // the entry has been removed from this map, so only change this entry
+                Object old = entry.value;
+                entry = new HeaderEntry(entry.hash, entry.key, value, null);
+                entry.removed = true;
+                return old;
+            }
+            entry = e;
+            Object old = e.value;
+            e.value = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return ObjectHelper.equal(getKey(), e.getKey()) && ObjectHelper.equal(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            Object key = getKey();
+            Object value = getValue();
+            return (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+
+        @Override
+        public Iterator<Map.Entry<String, Object>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            CaseInsensitiveHeaderMap.this.clear();
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+        private final HeaderEntry[] tab = table;
+        private final int expectedResizeCount = resizeCount;
+        private int index;
+        private HeaderEntry next;
+        private HeaderEntry current;
+
+        private EntryIterator() {
+            next = advance(null);
+        }
+
+        public boolean hasNext() {
+            checkNotResized();
+            if (next != null && next.removed) {
+                // it has been removed since we moved to it
+                next = advance(next);
+            }
+            return next != null;
+        }
+
+        public Map.Entry<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            next = advance(current);
+            return new MapEntry(current);
+        }
+
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            checkNotResized();
+            if (!current.removed) {
+                CaseInsensitiveHeaderMap.this.remove(current.key);
+            }
+            current = null;
+        }
+
+        private HeaderEntry advance(HeaderEntry from) {
+            HeaderEntry e = from != null ? from.next : null;
+            while (true) {
+                while (e != null && e.removed) {
+                    e = e.next;
+                }
+                if (e != null || index >= tab.length) {
+                    return e;
+                }
+                e = tab[index++];
+            }
+        }
+
+        private void checkNotResized() {
+            if (resizeCount != expectedResizeCount) {
+                throw new ConcurrentModificationException("The map was resized while iterating");
+            }
+        }
+    }
+}
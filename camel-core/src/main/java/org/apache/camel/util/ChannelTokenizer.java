@@ -0,0 +1,422 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.RuntimeCamelException;
+import org.apache.camel.component.file.GenericFile;
+
+/**
+ * A streaming tokenizer which splits the content of a {@link ReadableByteChannel} using a literal delimiter.
+ * <p/>
+ * The delimiter is searched for at the byte level which avoids the regular expression matching and
+ * character decoding a {@link java.util.Scanner} performs for every token. Only the bytes of a token
+ * are decoded, and only when the token is requested as a {@link String} or {@link CharBuffer}.
+ * {@link FileChannel}s of larger files are memory mapped in regions, other channels are read
+ * into a heap buffer which grows if a single token does not fit.
+ * <p/>
+ * Optionally N tokens can be grouped together, in which case each element returned is the N tokens
+ * including the delimiters in between them.
+ * <p/>
+ * The tokens returned are the same as a {@link java.util.Scanner} would return using the delimiter,
+ * i.e. a delimiter at the very beginning and at the end of the content does not yield an empty token.
+ * <p/>
+ * Searching for the delimiter at the byte level is only safe for charsets where the encoded
+ * delimiter cannot be part of another character, use {@link #isSupportedCharset(Charset)}
+ * to check whether a charset can be used.
+ *
+ * @version $Revision$
+ */
+public class ChannelTokenizer implements Iterator<Object>, Closeable {
+
+    /**
+     * Initial size of the heap buffer used for reading non file channels
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Size of the regions a file is memory mapped in
+     */
+    public static final int DEFAULT_REGION_SIZE = 16 * 1024 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final FileChannel fileChannel;
+    private final Charset charset;
+    private final String charsetName;
+    private final byte[] delimiter;
+    private final int group;
+    private final boolean closeChannel;
+    private final int regionSize;
+    private long fileSize;
+    private long regionStart;
+    private ByteBuffer buffer;
+    private ByteBuffer next;
+    private boolean first = true;
+    private boolean eof;
+    private boolean closed;
+
+    public ChannelTokenizer(ReadableByteChannel channel, Charset charset, String delimiter) {
+        this(channel, charset, delimiter, 1, false);
+    }
+
+    public ChannelTokenizer(ReadableByteChannel channel, Charset charset, String delimiter, int group, boolean closeChannel) {
+        this(channel, charset, delimiter, group, closeChannel, DEFAULT_REGION_SIZE);
+    }
+
+    ChannelTokenizer(ReadableByteChannel channel, Charset charset, String delimiter, int group, boolean closeChannel, int regionSize) {
+        ObjectHelper.notNull(channel, "channel");
+        ObjectHelper.notNull(charset, "charset");
+        ObjectHelper.notNull(delimiter, "delimiter");
+        if (delimiter.length() == 0) {
+            throw new IllegalArgumentException("Delimiter must not be empty");
+        }
+        if (group < 1) {
+            throw new IllegalArgumentException("Group must be a positive number, was: " + group);
+        }
+        if (!isSupportedCharset(charset)) {
+            throw new IllegalArgumentException("Charset " + charset + " is not supported for byte level tokenizing");
+        }
+        this.channel = channel;
+        this.charset = charset;
+        this.charsetName = charset.name();
+        this.group = group;
+        this.closeChannel = closeChannel;
+        this.regionSize = regionSize;
+        try {
+            this.delimiter = delimiter.getBytes(charsetName);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalArgumentException("Charset " + charset + " is not supported: " + e.getMessage());
+        }
+
+        FileChannel fc = null;
+        if (channel instanceof FileChannel) {
+            try {
+                fc = (FileChannel) channel;
+                fileSize = fc.size();
+                regionStart = fc.position();
+                // only map if its worth it, as mapping has its own overhead
+                if (fileSize - regionStart <= DEFAULT_BUFFER_SIZE) {
+                    fc = null;
+                }
+            } catch (IOException e) {
+                throw new RuntimeCamelException(e);
+            }
+        }
+        this.fileChannel = fc;
+        if (fileChannel == null) {
+            buffer = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE);
+            buffer.limit(0);
+        } else {
+            buffer = ByteBuffer.allocate(0);
+        }
+    }
+
+    /**
+     * Creates a tokenizer for the given value if the value is streaming based, such as a file or stream.
+     * <p/>
+     * For other values <tt>null</tt> is returned, unless the tokens should be grouped, in which
+     * case the value is converted to a String first.
+     *
+     * @param exchange  the current exchange
+     * @param value     the value, typically the message IN body
+     * @param delimiter the literal delimiter
+     * @param group     number of tokens to group together
+     * @return the tokenizer, or <tt>null</tt> if the value should be tokenized in another way
+     */
+    public static ChannelTokenizer createTokenizer(Exchange exchange, Object value, String delimiter, int group) {
+        if (value instanceof GenericFile) {
+            // generic file is just a wrapper for the real file so call again with the real file
+            GenericFile<?> gf = (GenericFile<?>) value;
+            return createTokenizer(exchange, gf.getFile(), delimiter, group);
+        }
+
+        Charset charset = null;
+        String name = exchange.getProperty(Exchange.CHARSET_NAME, String.class);
+        if (name != null) {
+            charset = Charset.forName(name);
+        } else {
+            charset = Charset.defaultCharset();
+        }
+
+        if (isSupportedCharset(charset)) {
+            if (value instanceof File) {
+                try {
+                    FileInputStream fis = new FileInputStream((File) value);
+                    return new ChannelTokenizer(fis.getChannel(), charset, delimiter, group, true);
+                } catch (FileNotFoundException e) {
+                    throw new RuntimeCamelException(e);
+                }
+            } else if (value instanceof ReadableByteChannel) {
+                return new ChannelTokenizer((ReadableByteChannel) value, charset, delimiter, group, true);
+            } else if (value instanceof InputStream) {
+                InputStream is = (InputStream) value;
+                ReadableByteChannel channel = is instanceof FileInputStream
+                        ? ((FileInputStream) is).getChannel() : Channels.newChannel(is);
+                return new ChannelTokenizer(channel, charset, delimiter, group, true);
+            }
+        }
+
+        if (group > 1) {
+            // grouping is only supported by this tokenizer, so convert the value to a string
+            String text = exchange.getContext().getTypeConverter().convertTo(String.class, exchange, value);
+            if (text == null) {
+                text = "";
+            }
+            charset = Charset.forName("UTF-8");
+            try {
+                InputStream is = new ByteArrayInputStream(text.getBytes(charset.name()));
+                return new ChannelTokenizer(Channels.newChannel(is), charset, delimiter, group, true);
+            } catch (UnsupportedEncodingException e) {
+                throw new RuntimeCamelException(e);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Whether the given charset can be tokenized at the byte level, which is the case for
+     * single byte charsets and UTF-8.
+     */
+    public static boolean isSupportedCharset(Charset charset) {
+        if ("UTF-8".equals(charset.name())) {
+            return true;
+        }
+        return charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1.0f;
+    }
+
+    public boolean hasNext() {
+        if (next == null && !closed) {
+            try {
+                next = readGroup();
+            } catch (IOException e) {
+                throw new RuntimeCamelException(e);
+            }
+            if (next == null) {
+                close();
+            }
+        }
+        return next != null;
+    }
+
+    /**
+     * Returns the next token decoded as a {@link String}
+     */
+    public Object next() {
+        ByteBuffer slice = nextBuffer();
+        if (slice.hasArray()) {
+            try {
+                return new String(slice.array(), slice.arrayOffset() + slice.position(), slice.remaining(), charsetName);
+            } catch (UnsupportedEncodingException e) {
+                throw new RuntimeCamelException(e);
+            }
+        }
+        return charset.decode(slice).toString();
+    }
+
+    /**
+     * Returns the next token decoded as a {@link CharBuffer}
+     */
+    public CharBuffer nextCharBuffer() {
+        return charset.decode(nextBuffer());
+    }
+
+    /**
+     * Returns the bytes of the next token as a slice without copying the bytes.
+     * <p/>
+     * <b>Important:</b> unless the channel is memory mapped the slice shares the read buffer
+     * and is only valid until the next token is requested.
+     */
+    public ByteBuffer nextBuffer() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ByteBuffer answer = next;
+        next = null;
+        return answer;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("Remove is not supported by this iterator");
+    }
+
+    public void close() {
+        if (!closed) {
+            closed = true;
+            next = null;
+            buffer = null;
+            if (closeChannel) {
+                IOHelper.close(channel, "channel");
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ChannelTokenizer[" + channel + "]";
+    }
+
+    /**
+     * Reads the next group of tokens, the position of the buffer is the start of unconsumed data
+     * and the limit the end of the data read so far.
+     */
+    private ByteBuffer readGroup() throws IOException {
+        if (first) {
+            first = false;
+            // a delimiter at the very beginning does not yield an empty token
+            while (buffer.remaining() < delimiter.length && fill()) {
+                // keep reading
+            }
+            if (startsWith(buffer.position())) {
+                buffer.position(buffer.position() + delimiter.length);
+            }
+        }
+
+        int found = 0;
+        // offset relative to the position from where to continue searching for a delimiter
+        int offset = 0;
+        while (true) {
+            int start = buffer.position();
+            int index = indexOf(start + offset, buffer.limit());
+            if (index >= 0) {
+                if (++found == group) {
+                    ByteBuffer answer = slice(start, index);
+                    buffer.position(index + delimiter.length);
+                    return answer;
+                }
+                offset = index + delimiter.length - start;
+            } else {
+                // the last bytes could be the beginning of a delimiter so search them again after the fill
+                offset = Math.max(offset, buffer.remaining() - delimiter.length + 1);
+                if (!fill()) {
+                    if (!buffer.hasRemaining()) {
+                        return null;
+                    }
+                    start = buffer.position();
+                    int end = buffer.limit();
+                    if (found > 0 && end - start >= delimiter.length && startsWith(end - delimiter.length)) {
+                        // do not include the delimiter at the very end in the group
+                        end -= delimiter.length;
+                    }
+                    ByteBuffer answer = slice(start, end);
+                    buffer.position(buffer.limit());
+                    return answer;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads more data into the buffer, the unconsumed data may be moved so only positions
+     * relative to the buffer position remain valid.
+     *
+     * @return <tt>false</tt> if no more data could be read as the end of the channel was reached
+     */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        if (fileChannel != null) {
+            return map();
+        }
+
+        int remaining = buffer.remaining();
+        if (remaining == buffer.capacity()) {
+            // a single token does not fit in the buffer so grow it
+            ByteBuffer bigger = ByteBuffer.allocate(buffer.capacity() * 2);
+            bigger.put(buffer);
+            buffer = bigger;
+        } else {
+            buffer.compact();
+        }
+        int read = channel.read(buffer);
+        while (read == 0) {
+            // a non blocking channel may not have any data yet
+            Thread.yield();
+            read = channel.read(buffer);
+        }
+        buffer.flip();
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        return true;
+    }
+
+    private boolean map() throws IOException {
+        long start = regionStart + buffer.position();
+        long end = regionStart + buffer.limit();
+        if (end >= fileSize) {
+            eof = true;
+            return false;
+        }
+        // make sure the new region is always larger than the unconsumed data
+        long size = Math.max(regionSize, (end - start) * 2);
+        size = Math.min(Math.min(size, fileSize - start), Integer.MAX_VALUE);
+        buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        regionStart = start;
+        return true;
+    }
+
+    private int indexOf(int from, int to) {
+        byte b = delimiter[0];
+        int last = to - delimiter.length;
+        for (int i = from; i <= last; i++) {
+            if (buffer.get(i) == b && startsWith(i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean startsWith(int index) {
+        if (index + delimiter.length > buffer.limit()) {
+            return false;
+        }
+        for (int i = 1; i < delimiter.length; i++) {
+            if (buffer.get(index + i) != delimiter[i]) {
+                return false;
+            }
+        }
+        return buffer.get(index) == delimiter[0];
+    }
+
+    private ByteBuffer slice(int start, int end) {
+        ByteBuffer answer = buffer.duplicate();
+        answer.limit(end);
+        answer.position(start);
+        return answer.slice();
+    }
+
+}
@@ -0,0 +1,394 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.camel.Service;
+import org.apache.camel.util.concurrent.StripedCounter;
+
+/**
+ * A thread safe approximately Least Recently Used Cache, which can be used concurrently without
+ * synchronizing on the cache.
+ * <p/>
+ * Unlike {@link LRUCache} a lookup does not reorder the entries, it only marks the entry as recently used,
+ * which means lookups is lock free. When the cache is full the entries is evicted using the <i>CLOCK</i>
+ * algorithm, where an entry which has been used since it was last visited is given a second chance.
+ * The entries are kept in a {@link ConcurrentHashMap} which is segmented to allow concurrent updates,
+ * while evicting is done by one thread at a time.
+ * <p/>
+ * The cache keeps statistics of the number of hits, misses and evicted entries.
+ *
+ * @version $Revision$
+ */
+public class ConcurrentLRUCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>, Service {
+
+    private final ConcurrentMap<K, Node<K, V>> map;
+    private final ConcurrentLinkedQueue<Node<K, V>> clock = new ConcurrentLinkedQueue<Node<K, V>>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Lock evictionLock = new ReentrantLock();
+    private final int maxCacheSize;
+    // the lookups is counted using striped counters so concurrent lookups do not contend on the counters
+    private final StripedCounter hits = new StripedCounter();
+    private final StripedCounter misses = new StripedCounter();
+    private final AtomicLong evicted = new AtomicLong();
+    private Set<Map.Entry<K, V>> entrySet;
+
+    public ConcurrentLRUCache(int maximumCacheSize) {
+        this(16, maximumCacheSize, 16);
+    }
+
+    /**
+     * Constructs an empty <tt>ConcurrentLRUCache</tt> instance.
+     *
+     * @param initialCapacity  the initial capacity.
+     * @param maximumCacheSize the max capacity.
+     * @param concurrencyLevel the estimated number of concurrently updating threads.
+     * @throws IllegalArgumentException if the maximum cache size is not positive
+     */
+    public ConcurrentLRUCache(int initialCapacity, int maximumCacheSize, int concurrencyLevel) {
+        if (maximumCacheSize <= 0) {
+            throw new IllegalArgumentException("MaximumCacheSize must be a positive number, was: " + maximumCacheSize);
+        }
+        this.map = new ConcurrentHashMap<K, Node<K, V>>(Math.min(initialCapacity, maximumCacheSize), 0.75f, concurrencyLevel);
+        this.maxCacheSize = maximumCacheSize;
+    }
+
+    @Override
+    public V get(Object key) {
+        Node<K, V> node = map.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        // avoid writing to the node if its already marked
+        if (!node.used) {
+            node.used = true;
+        }
+        return node.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return doPut(key, value, false);
+    }
+
+    public V putIfAbsent(K key, V value) {
+        return doPut(key, value, true);
+    }
+
+    @Override
+    public V remove(Object key) {
+        Node<K, V> node = map.remove(key);
+        if (node == null) {
+            return null;
+        }
+        removed(node);
+        return node.value;
+    }
+
+    public boolean remove(Object key, Object value) {
+        while (true) {
+            Node<K, V> node = map.get(key);
+            if (node == null || !ObjectHelper.equal(node.value, value)) {
+                return false;
+            }
+            if (map.remove(key, node)) {
+                removed(node);
+                return true;
+            }
+        }
+    }
+
+    public V replace(K key, V value) {
+        ObjectHelper.notNull(value, "value");
+        Node<K, V> node = map.get(key);
+        if (node == null) {
+            return null;
+        }
+        synchronized (node) {
+            V answer = node.value;
+            node.value = value;
+            return answer;
+        }
+    }
+
+    public boolean replace(K key, V oldValue, V newValue) {
+        ObjectHelper.notNull(newValue, "newValue");
+        Node<K, V> node = map.get(key);
+        if (node == null) {
+            return false;
+        }
+        synchronized (node) {
+            if (!ObjectHelper.equal(node.value, oldValue)) {
+                return false;
+            }
+            node.value = newValue;
+            return true;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        evictionLock.lock();
+        try {
+            for (K key : map.keySet()) {
+                remove(key);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * Returns the maxCacheSize.
+     */
+    public int getMaxCacheSize() {
+        return maxCacheSize;
+    }
+
+    /**
+     * Gets the number of cache hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of cache misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the number of entries which has been evicted because the cache was full
+     */
+    public long getEvicted() {
+        return evicted.get();
+    }
+
+    /**
+     * Resets the cache statistics
+     */
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+        evicted.set(0);
+    }
+
+    public void start() throws Exception {
+        // noop
+    }
+
+    public void stop() throws Exception {
+        // stop the value and clear the cache
+        if (!isEmpty()) {
+            ServiceHelper.stopServices(values());
+            clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentLRUCache[size=" + size() + ", capacity=" + maxCacheSize + "]";
+    }
+
+    private V doPut(K key, V value, boolean onlyIfAbsent) {
+        ObjectHelper.notNull(value, "value");
+        while (true) {
+            Node<K, V> node = map.get(key);
+            if (node != null) {
+                synchronized (node) {
+                    V answer = node.value;
+                    if (!onlyIfAbsent) {
+                        node.value = value;
+                    }
+                    return answer;
+                }
+            }
+
+            node = new Node<K, V>(key, value);
+            if (map.putIfAbsent(key, node) == null) {
+                size.incrementAndGet();
+                clock.offer(node);
+                evictIfNeeded();
+                return null;
+            }
+            // another thread added the key so try again
+        }
+    }
+
+    private void removed(Node<K, V> node) {
+        size.decrementAndGet();
+        // removing is rare for a cache so its okay the clock is traversed
+        clock.remove(node);
+    }
+
+    private void evictIfNeeded() {
+        if (size.get() <= maxCacheSize) {
+            return;
+        }
+
+        evictionLock.lock();
+        try {
+            while (size.get() > maxCacheSize) {
+                Node<K, V> node = clock.poll();
+                if (node == null) {
+                    // another thread is about to add its node to the clock
+                    break;
+                }
+                if (node.used) {
+                    // give it a second chance
+                    node.used = false;
+                    clock.offer(node);
+                } else if (map.remove(node.key, node)) {
+                    size.decrementAndGet();
+                    evicted.incrementAndGet();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * A cache entry, which is marked when it is used.
+     */
+    private static final class Node<K, V> {
+        private final K key;
+        private volatile V value;
+        private volatile boolean used;
+
+        private Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            final Iterator<Node<K, V>> it = map.values().iterator();
+            return new Iterator<Map.Entry<K, V>>() {
+                private Node<K, V> current;
+
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                public Map.Entry<K, V> next() {
+                    current = it.next();
+                    return new Entry(current);
+                }
+
+                public void remove() {
+                    if (current == null) {
+                        throw new IllegalStateException();
+                    }
+                    ConcurrentLRUCache.this.remove(current.key, current.value);
+                    current = null;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentLRUCache.this.size();
+        }
+
+        @Override
+        public void clear() {
+            ConcurrentLRUCache.this.clear();
+        }
+    }
+
+    private final class Entry implements Map.Entry<K, V> {
+        private final Node<K, V> node;
+
+        private Entry(Node<K, V> node) {
+            this.node = node;
+        }
+
+        public K getKey() {
+            return node.key;
+        }
+
+        public V getValue() {
+            return node.value;
+        }
+
+        public V setValue(V value) {
+            return replace(node.key, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return ObjectHelper.equal(getKey(), e.getKey()) && ObjectHelper.equal(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return node.key.hashCode() ^ (node.value == null ? 0 : node.value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return node.key + "=" + node.value;
+        }
+    }
+}
@@ -36,6 +36,7 @@ import org.apache.camel.NoSuchHeaderException;
 import org.apache.camel.NoSuchPropertyException;
 import org.apache.camel.NoTypeConversionAvailableException;
 import org.apache.camel.TypeConverter;
+import org.apache.camel.impl.DefaultExchange;
 import org.apache.camel.spi.UnitOfWork;
 
 /**
@@ -216,9 +217,7 @@ public final class ExchangeHelper {
                 }
             }
 
-            if (source.hasProperties()) {
-                result.getProperties().putAll(source.getProperties());
-            }
+            copyProperties(result, source);
         }
     }
 
@@ -254,7 +253,18 @@ public final class ExchangeHelper {
         result.setException(source.getException());
 
         // copy properties
-        if (source.hasProperties()) {
+        copyProperties(result, source);
+    }
+
+    /**
+     * Copies the properties of the <code>source</code> exchange to the <code>result</code> exchange,
+     * keeping the properties the <code>source</code> does not have.
+     */
+    private static void copyProperties(Exchange result, Exchange source) {
+        if (result instanceof DefaultExchange) {
+            // avoid copying the properties the exchanges share
+            ((DefaultExchange) result).mergeProperties(source);
+        } else if (source.hasProperties()) {
             result.getProperties().putAll(source.getProperties());
         }
     }
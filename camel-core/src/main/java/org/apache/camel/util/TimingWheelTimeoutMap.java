@@ -0,0 +1,387 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.camel.Service;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A {@link TimeoutMap} which uses a hashed timing wheel to keep track of when the entries expire.
+ * <p/>
+ * The wheel consists of a number of buckets where each bucket covers one tick, which is the purge poll time.
+ * An entry is linked into the bucket for the tick it expires in, which means
+ * {@link #put(Object, Object, long)}, {@link #get(Object)} and {@link #remove(Object)} is <tt>O(1)</tt>.
+ * The purge task only visits the buckets for the ticks which has passed since last purge,
+ * and thus do not scan all the entries as the {@link DefaultTimeoutMap} does. This matters when having
+ * many entries in the map, such as many outstanding request/reply correlations.
+ * <p/>
+ * Entries which timeout later than a full revolution of the wheel stays in their bucket
+ * until they expire. Use a number of ticks per wheel which covers the typical timeouts.
+ * <p/>
+ * This implementation supports thread safe and non thread safe, in the manner you can enable locking or not.
+ * By default locking is enabled and thus we are thread safe.
+ *
+ * @version $Revision$
+ */
+public class TimingWheelTimeoutMap<K, V> implements TimeoutMap<K, V>, Runnable, Service {
+
+    public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    protected final transient Log log = LogFactory.getLog(getClass());
+
+    private final ConcurrentMap<K, WheelEntry<K, V>> map = new ConcurrentHashMap<K, WheelEntry<K, V>>();
+    private final ScheduledExecutorService executor;
+    private final long purgePollTime;
+    private final long initialDelay = 1000L;
+    private final Lock lock = new ReentrantLock();
+    private boolean useLock = true;
+    private final WheelEntry<K, V>[] wheel;
+    private final int mask;
+    private final long startTime;
+    // the next tick which has not yet been purged
+    private long nextTick;
+
+    public TimingWheelTimeoutMap() {
+        this(null, 1000L);
+    }
+
+    public TimingWheelTimeoutMap(boolean useLock) {
+        this(null, 1000L, useLock);
+    }
+
+    public TimingWheelTimeoutMap(ScheduledExecutorService executor, long requestMapPollTimeMillis) {
+        this(executor, requestMapPollTimeMillis, true);
+    }
+
+    public TimingWheelTimeoutMap(ScheduledExecutorService executor, long requestMapPollTimeMillis, boolean useLock) {
+        this(executor, requestMapPollTimeMillis, useLock, DEFAULT_TICKS_PER_WHEEL);
+    }
+
+    @SuppressWarnings("unchecked")
+    public TimingWheelTimeoutMap(ScheduledExecutorService executor, long requestMapPollTimeMillis, boolean useLock, int ticksPerWheel) {
+        if (requestMapPollTimeMillis <= 0) {
+            throw new IllegalArgumentException("RequestMapPollTimeMillis must be a positive number, was: " + requestMapPollTimeMillis);
+        }
+        if (ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("TicksPerWheel must be a positive number, was: " + ticksPerWheel);
+        }
+        this.executor = executor;
+        this.purgePollTime = requestMapPollTimeMillis;
+        this.useLock = useLock;
+
+        // round up to power of two so we can mask instead of modulus
+        int size = 1;
+        while (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        this.wheel = (WheelEntry<K, V>[]) new WheelEntry<?, ?>[size];
+        for (int i = 0; i < size; i++) {
+            // each bucket is a circular linked list with a sentinel head
+            wheel[i] = new WheelEntry<K, V>(null, null, 0);
+        }
+        this.mask = size - 1;
+        this.startTime = currentTime();
+        this.nextTick = 0;
+        schedulePoll();
+    }
+
+    public V get(K key) {
+        WheelEntry<K, V> entry;
+        if (useLock) {
+            lock.lock();
+        }
+        try {
+            entry = map.get(key);
+            if (entry == null) {
+                return null;
+            }
+            updateExpireTime(entry);
+            schedule(entry);
+        } finally {
+            if (useLock) {
+                lock.unlock();
+            }
+        }
+        return entry.getValue();
+    }
+
+    public void put(K key, V value, long timeoutMillis) {
+        WheelEntry<K, V> entry = new WheelEntry<K, V>(key, value, timeoutMillis);
+        if (useLock) {
+            lock.lock();
+        }
+        try {
+            WheelEntry<K, V> old = map.put(key, entry);
+            if (old != null) {
+                old.unlink();
+            }
+            updateExpireTime(entry);
+            schedule(entry);
+        } finally {
+            if (useLock) {
+                lock.unlock();
+            }
+        }
+    }
+
+    public V remove(K id) {
+        WheelEntry<K, V> entry;
+
+        if (useLock) {
+            lock.lock();
+        }
+        try {
+            entry = map.remove(id);
+            if (entry != null) {
+                entry.unlink();
+            }
+        } finally {
+            if (useLock) {
+                lock.unlock();
+            }
+        }
+
+        return entry != null ? entry.getValue() : null;
+    }
+
+    public Object[] getKeys() {
+        Object[] keys;
+        if (useLock) {
+            lock.lock();
+        }
+        try {
+            Set<K> keySet = map.keySet();
+            keys = new Object[keySet.size()];
+            keySet.toArray(keys);
+        } finally {
+            if (useLock) {
+                lock.unlock();
+            }
+        }
+        return keys;
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * The timer task which purges old requests
+     */
+    public void run() {
+        if (log.isTraceEnabled()) {
+            log.trace("Running purge task to see if any entries has been timed out");
+        }
+        try {
+            purge();
+        } catch (Throwable t) {
+            // must catch and log exception otherwise the executor will now schedule next run
+            log.error("Exception occurred during purge task", t);
+        }
+    }
+
+    public void purge() {
+        if (log.isTraceEnabled()) {
+            log.trace("There are " + map.size() + " in the timeout map");
+        }
+        long now = currentTime();
+
+        List<WheelEntry<K, V>> expired = new ArrayList<WheelEntry<K, V>>();
+
+        if (useLock) {
+            lock.lock();
+        }
+        try {
+            long currentTick = tickOf(now);
+            // only visit each bucket once even if we are behind with more than a full revolution
+            long from = Math.max(nextTick, currentTick - mask);
+
+            // need to find the expired entries in the buckets which has passed since last time
+            for (long tick = from; tick <= currentTick; tick++) {
+                WheelEntry<K, V> head = wheel[(int) (tick & mask)];
+                for (WheelEntry<K, V> entry = head.next; entry != head; entry = entry.next) {
+                    // the bucket can contain entries for a later revolution of the wheel
+                    if (entry.getExpireTime() < now && isValidForEviction(entry)) {
+                        if (log.isDebugEnabled()) {
+                            log.debug("Evicting inactive request for correlationID: " + entry);
+                        }
+                        expired.add(entry);
+                    }
+                }
+            }
+            // the current tick is not yet fully passed so we must visit it again next time
+            nextTick = currentTick;
+
+            // if we found any expired then we need to sort, onEviction and remove
+            if (!expired.isEmpty()) {
+                // sort according to the expired time so we got the first expired first
+                Collections.sort(expired, new Comparator<WheelEntry<K, V>>() {
+                    public int compare(WheelEntry<K, V> a, WheelEntry<K, V> b) {
+                        long diff = a.getExpireTime() - b.getExpireTime();
+                        if (diff == 0) {
+                            return 0;
+                        }
+                        return diff > 0 ? 1 : -1;
+                    }
+                });
+
+                for (WheelEntry<K, V> entry : expired) {
+                    boolean evict = false;
+                    try {
+                        evict = onEviction(entry.getKey(), entry.getValue());
+                    } finally {
+                        // the entry may have been removed or replaced during the eviction notification
+                        if (map.get(entry.getKey()) == entry) {
+                            if (evict) {
+                                // okay this entry should be evicted
+                                map.remove(entry.getKey());
+                                entry.unlink();
+                            } else {
+                                // keep it in the bucket which is visited on next purge
+                                link(entry, currentTick);
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            if (useLock) {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Properties
+    // -------------------------------------------------------------------------
+
+    public long getPurgePollTime() {
+        return purgePollTime;
+    }
+
+    public ScheduledExecutorService getExecutor() {
+        return executor;
+    }
+
+    public int getTicksPerWheel() {
+        return wheel.length;
+    }
+
+    // Implementation methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * lets schedule each time to allow folks to change the time at runtime
+     */
+    protected void schedulePoll() {
+        if (executor != null) {
+            executor.scheduleWithFixedDelay(this, initialDelay, purgePollTime, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * A hook to allow derivations to avoid evicting the current entry
+     */
+    protected boolean isValidForEviction(TimeoutMapEntry<K, V> entry) {
+        return true;
+    }
+
+    public boolean onEviction(K key, V value) {
+        return true;
+    }
+
+    protected void updateExpireTime(TimeoutMapEntry<K, V> entry) {
+        long now = currentTime();
+        entry.setExpireTime(entry.getTimeout() + now);
+    }
+
+    protected long currentTime() {
+        return System.currentTimeMillis();
+    }
+
+    private long tickOf(long time) {
+        return (time - startTime) / purgePollTime;
+    }
+
+    private void schedule(WheelEntry<K, V> entry) {
+        // never schedule into a bucket which has already been purged
+        link(entry, Math.max(tickOf(entry.getExpireTime()), nextTick));
+    }
+
+    private void link(WheelEntry<K, V> entry, long tick) {
+        entry.unlink();
+        WheelEntry<K, V> head = wheel[(int) (tick & mask)];
+        entry.prev = head.prev;
+        entry.next = head;
+        head.prev.next = entry;
+        head.prev = entry;
+    }
+
+    public void start() throws Exception {
+    }
+
+    public void stop() throws Exception {
+        if (executor != null) {
+            executor.shutdown();
+        }
+        if (useLock) {
+            lock.lock();
+        }
+        try {
+            map.clear();
+            for (WheelEntry<K, V> head : wheel) {
+                head.next = head;
+                head.prev = head;
+            }
+        } finally {
+            if (useLock) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * An entry which is linked into a bucket of the wheel.
+     */
+    private static final class WheelEntry<K, V> extends TimeoutMapEntry<K, V> {
+        private WheelEntry<K, V> prev = this;
+        private WheelEntry<K, V> next = this;
+
+        private WheelEntry(K key, V value, long timeout) {
+            super(key, value, timeout);
+        }
+
+        private void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = this;
+            next = this;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.util.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter which is striped over a number of cells, so threads updating the counter concurrently
+ * rarely contend on the same cell. The value is the sum of the cells, and is thus more expensive to read.
+ * <p/>
+ * The cells is padded to be in separate cache lines to avoid false sharing.
+ *
+ * @version $Revision$
+ */
+public final class StripedCounter {
+
+    // 8 longs is 64 bytes which is the typical size of a cache line
+    private static final int PADDING = 8;
+    private static final int MAX_STRIPES = 8;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    public StripedCounter() {
+        int stripes = 1;
+        int processors = Runtime.getRuntime().availableProcessors();
+        while (stripes < processors && stripes < MAX_STRIPES) {
+            stripes <<= 1;
+        }
+        this.cells = new AtomicLongArray(stripes * PADDING);
+        this.mask = stripes - 1;
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    public void add(long delta) {
+        cells.getAndAdd(cell(), delta);
+    }
+
+    /**
+     * Gets the current value, which is not an atomic snapshot if the counter is updated concurrently.
+     */
+    public long get() {
+        long answer = 0;
+        for (int i = 0; i <= mask; i++) {
+            answer += cells.get(i * PADDING);
+        }
+        return answer;
+    }
+
+    public void reset() {
+        for (int i = 0; i <= mask; i++) {
+            cells.set(i * PADDING, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(get());
+    }
+
+    private int cell() {
+        long id = Thread.currentThread().getId();
+        return ((int) (id ^ (id >>> 32)) & mask) * PADDING;
+    }
+}
@@ -79,6 +79,15 @@ public class ExpressionBuilderTest extends TestSupport {
         assertPredicate(predicate, exchange, false);
     }
 
+    public void testTokenizeGroupWithRegexToken() throws Exception {
+        try {
+            tokenizeExpression(headerExpression("location"), "[,;]", 2);
+            fail("Should have thrown an exception");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Grouping tokens is only supported with a literal token, was: [,;]", e.getMessage());
+        }
+    }
+
     public void testTokenizeLines() throws Exception {
         Expression expression = regexTokenizeExpression(bodyExpression(), "[\r|\n]");
         exchange.getIn().setBody("Hello World\nBye World\rSee you again");
@@ -0,0 +1,132 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.bean;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.TestCase;
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Body;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.Header;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.DefaultExchange;
+
+/**
+ * @version $Revision$
+ */
+public class MethodInfoParameterBindingTest extends TestCase {
+    private static final AsyncCallback CALLBACK = new AsyncCallback() {
+        public void done(boolean doneSync) {
+            // noop
+        }
+    };
+
+    protected CamelContext camelContext = new DefaultCamelContext();
+
+    public void testNoParameters() throws Exception {
+        MethodInfo info = createMethodInfo("ping");
+        Exchange exchange = new DefaultExchange(camelContext);
+
+        Object[] args = info.getParametersExpression().evaluate(exchange, Object[].class);
+        assertEquals(0, args.length);
+        assertEquals("pong", info.createMethodInvocation(new MyBean(), exchange).proceed(CALLBACK, new AtomicBoolean()));
+    }
+
+    public void testBodyAndHeaderBinding() throws Exception {
+        MethodInfo info = createMethodInfo("hello");
+        Exchange exchange = new DefaultExchange(camelContext);
+        String body = "World";
+        exchange.getIn().setBody(body);
+        exchange.getIn().setHeader("times", "3");
+
+        Object[] args = info.getParametersExpression().evaluate(exchange, Object[].class);
+        assertSame("Should not convert a value which is already the expected type", body, args[0]);
+        assertEquals(3, args[1]);
+
+        exchange.getIn().setHeader("times", 2);
+        assertEquals("Hello World 2", info.createMethodInvocation(new MyBean(), exchange).proceed(CALLBACK, new AtomicBoolean()));
+    }
+
+    public void testNullHeader() throws Exception {
+        MethodInfo info = createMethodInfo("greet");
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setBody(123);
+
+        Object[] args = info.getParametersExpression().evaluate(exchange, Object[].class);
+        assertEquals("123", args[0]);
+        assertNull(args[1]);
+    }
+
+    public void testMultiParameterArray() throws Exception {
+        MethodInfo info = createMethodInfo("greet");
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setBody(new Object[]{"Camel", "Hi"});
+        exchange.getIn().setHeader(Exchange.BEAN_MULTI_PARAMETER_ARRAY, "true");
+
+        Object[] args = info.getParametersExpression().evaluate(exchange, Object[].class);
+        assertEquals("Camel", args[0]);
+        assertEquals("Hi", args[1]);
+    }
+
+    public void testInvocationByMethodIsIntrospectedOnce() throws Exception {
+        BeanInfo beanInfo = new BeanInfo(camelContext, MyBean.class);
+        Method method = MyBean.class.getMethod("hello", String.class, int.class);
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setBody("Camel");
+        exchange.getIn().setHeader("times", 1);
+
+        MethodInfo info = beanInfo.getInvocationMethodInfo(method);
+        int before = beanInfo.getMethods().size();
+        for (int i = 0; i < 10; i++) {
+            MethodInvocation invocation = beanInfo.createInvocation(method, new MyBean(), exchange);
+            assertEquals("Hello Camel 1", invocation.proceed(CALLBACK, new AtomicBoolean()));
+            // the same method info and thus its precomputed parameter binding is reused
+            assertSame(info, beanInfo.getInvocationMethodInfo(method));
+            assertSame(info.getParametersExpression(), beanInfo.getInvocationMethodInfo(method).getParametersExpression());
+        }
+        assertEquals(before, beanInfo.getMethods().size());
+    }
+
+    private MethodInfo createMethodInfo(String name) {
+        BeanInfo beanInfo = new BeanInfo(camelContext, MyBean.class);
+        for (MethodInfo info : beanInfo.getMethods()) {
+            if (info.getMethod().getName().equals(name)) {
+                return info;
+            }
+        }
+        fail("Method " + name + " not found");
+        return null;
+    }
+
+    public static class MyBean {
+
+        public String ping() {
+            return "pong";
+        }
+
+        public String hello(@Body String body, @Header("times") int times) {
+            return "Hello " + body + " " + times;
+        }
+
+        public String greet(@Body String body, @Header("greeting") String greeting) {
+            return greeting + " " + body;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.seda;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * @version $Revision$
+ */
+public class RingBufferBlockingQueueTest extends TestCase {
+
+    public void testOfferAndPoll() throws Exception {
+        RingBufferBlockingQueue<String> queue = new RingBufferBlockingQueue<String>(4);
+        assertEquals(4, queue.getCapacity());
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+        assertNull(queue.peek());
+
+        assertTrue(queue.offer("A"));
+        assertTrue(queue.offer("B"));
+        assertTrue(queue.offer("C"));
+        assertTrue(queue.offer("D"));
+        // its full
+        assertFalse(queue.offer("E"));
+        assertEquals(4, queue.size());
+        assertEquals(0, queue.remainingCapacity());
+
+        assertEquals("A", queue.peek());
+        assertEquals("A", queue.poll());
+        assertEquals(3, queue.size());
+        // there is now room again
+        assertTrue(queue.offer("E"));
+
+        assertEquals("B", queue.poll());
+        assertEquals("C", queue.poll());
+        assertEquals("D", queue.poll());
+        assertEquals("E", queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    public void testCapacityRoundedToPowerOfTwo() throws Exception {
+        RingBufferBlockingQueue<String> queue = new RingBufferBlockingQueue<String>(100);
+        assertEquals(128, queue.getCapacity());
+        assertEquals(128, queue.remainingCapacity());
+    }
+
+    public void testAddWhenFull() throws Exception {
+        RingBufferBlockingQueue<String> queue = new RingBufferBlockingQueue<String>(1);
+        // the capacity is at least 2
+        assertEquals(2, queue.getCapacity());
+        queue.add("A");
+        queue.add("B");
+        try {
+            queue.add("C");
+            fail("Should have thrown an exception");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    public void testIteratorAndDrainTo() throws Exception {
+        RingBufferBlockingQueue<String> queue = new RingBufferBlockingQueue<String>(8);
+        queue.offer("A");
+        queue.offer("B");
+        queue.offer("C");
+
+        List<String> list = new ArrayList<String>(queue);
+        assertEquals(3, list.size());
+        assertEquals("A", list.get(0));
+        assertEquals("C", list.get(2));
+
+        List<String> drained = new ArrayList<String>();
+        assertEquals(2, queue.drainTo(drained, 2));
+        assertEquals("A", drained.get(0));
+        assertEquals("B", drained.get(1));
+        assertEquals(1, queue.drainTo(drained));
+        assertEquals("C", drained.get(2));
+        assertTrue(queue.isEmpty());
+    }
+
+    public void testPollTimeout() throws Exception {
+        for (WaitStrategy strategy : WaitStrategy.values()) {
+            RingBufferBlockingQueue<String> queue = new RingBufferBlockingQueue<String>(1, strategy);
+            long start = System.currentTimeMillis();
+            assertNull(queue.poll(100, TimeUnit.MILLISECONDS));
+            assertTrue("Should have waited", System.currentTimeMillis() - start >= 90);
+
+            queue.put("A");
+            queue.put("B");
+            assertFalse(queue.offer("C", 100, TimeUnit.MILLISECONDS));
+            assertEquals("A", queue.take());
+            assertEquals("B", queue.take());
+        }
+    }
+
+    public void testConcurrentProducersAndConsumersBlocking() throws Exception {
+        doTestConcurrentProducersAndConsumers(WaitStrategy.Blocking);
+    }
+
+    public void testConcurrentProducersAndConsumersYielding() throws Exception {
+        doTestConcurrentProducersAndConsumers(WaitStrategy.Yielding);
+    }
+
+    public void testConcurrentProducersAndConsumersBusySpin() throws Exception {
+        doTestConcurrentProducersAndConsumers(WaitStrategy.BusySpin);
+    }
+
+    private void doTestConcurrentProducersAndConsumers(WaitStrategy strategy) throws Exception {
+        // use a small queue so the producers have to wait for the consumers
+        final RingBufferBlockingQueue<Integer> queue = new RingBufferBlockingQueue<Integer>(16, strategy);
+        final int producers = 2;
+        final int consumers = 2;
+        final int count = 2000;
+
+        final List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch latch = new CountDownLatch(producers * count);
+
+        for (int i = 0; i < consumers; i++) {
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        while (true) {
+                            Integer value = queue.poll(100, TimeUnit.MILLISECONDS);
+                            if (value != null) {
+                                received.add(value);
+                                latch.countDown();
+                            } else if (latch.getCount() == 0) {
+                                return;
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        // ignore
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        for (int i = 0; i < producers; i++) {
+            final int offset = i * count;
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        for (int j = 0; j < count; j++) {
+                            queue.put(offset + j);
+                        }
+                    } catch (InterruptedException e) {
+                        // ignore
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        assertTrue("Should receive all messages using " + strategy, latch.await(30, TimeUnit.SECONDS));
+
+        // each message should be received exactly once
+        List<Integer> sorted = new ArrayList<Integer>(received);
+        Collections.sort(sorted);
+        assertEquals(producers * count, sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(i, sorted.get(i).intValue());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+}
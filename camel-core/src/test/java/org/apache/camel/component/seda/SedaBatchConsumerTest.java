@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.seda;
+
+import java.util.List;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+
+/**
+ * @version $Revision$
+ */
+public class SedaBatchConsumerTest extends ContextTestSupport {
+
+    @Override
+    public boolean isUseRouteBuilder() {
+        return false;
+    }
+
+    public void testSedaBatchConsumer() throws Exception {
+        // send the messages before the consumer is started so they are drained in one batch
+        for (int i = 0; i < 5; i++) {
+            template.sendBody("seda:foo?maxMessagesPerPoll=10&batchConsumer=true", "Message " + i);
+        }
+
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedBodiesReceived("Message 0", "Message 1", "Message 2", "Message 3", "Message 4");
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("seda:foo?maxMessagesPerPoll=10&batchConsumer=true").to("mock:result");
+            }
+        });
+        context.start();
+
+        assertMockEndpointsSatisfied();
+
+        List<Exchange> exchanges = mock.getReceivedExchanges();
+        for (int i = 0; i < 5; i++) {
+            Exchange exchange = exchanges.get(i);
+            assertEquals(i, exchange.getProperty(Exchange.BATCH_INDEX, Integer.class).intValue());
+            assertEquals(5, exchange.getProperty(Exchange.BATCH_SIZE, Integer.class).intValue());
+            assertEquals(i == 4, exchange.getProperty(Exchange.BATCH_COMPLETE, Boolean.class).booleanValue());
+        }
+    }
+
+    public void testSedaBatchConsumerLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            template.sendBody("seda:foo?maxMessagesPerPoll=2&batchConsumer=true", "Message " + i);
+        }
+
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedMessageCount(5);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("seda:foo?maxMessagesPerPoll=2&batchConsumer=true").to("mock:result");
+            }
+        });
+        context.start();
+
+        assertMockEndpointsSatisfied();
+
+        // the messages is taken 2 at a time
+        List<Exchange> exchanges = mock.getReceivedExchanges();
+        assertEquals(2, exchanges.get(0).getProperty(Exchange.BATCH_SIZE, Integer.class).intValue());
+        assertEquals(2, exchanges.get(3).getProperty(Exchange.BATCH_SIZE, Integer.class).intValue());
+        assertEquals(1, exchanges.get(4).getProperty(Exchange.BATCH_SIZE, Integer.class).intValue());
+        assertEquals(true, exchanges.get(4).getProperty(Exchange.BATCH_COMPLETE, Boolean.class).booleanValue());
+    }
+
+    public void testSedaDrainWithoutBatchProperties() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            template.sendBody("seda:foo?maxMessagesPerPoll=0", "Message " + i);
+        }
+
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedBodiesReceived("Message 0", "Message 1", "Message 2", "Message 3", "Message 4");
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("seda:foo?maxMessagesPerPoll=0").to("mock:result");
+            }
+        });
+        context.start();
+
+        assertMockEndpointsSatisfied();
+
+        assertNull(mock.getReceivedExchanges().get(0).getProperty(Exchange.BATCH_SIZE));
+    }
+
+}
@@ -0,0 +1,84 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.seda;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+
+/**
+ * @version $Revision$
+ */
+public class SedaRingBufferTest extends ContextTestSupport {
+
+    public void testSedaRingBuffer() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedMessageCount(200);
+
+        for (int i = 0; i < 200; i++) {
+            template.sendBody("seda:foo", "Message " + i);
+        }
+
+        assertMockEndpointsSatisfied();
+
+        SedaEndpoint seda = context.getEndpoint("seda:foo", SedaEndpoint.class);
+        assertIsInstanceOf(RingBufferBlockingQueue.class, seda.getQueue());
+        assertEquals(QueueType.RingBuffer, seda.getQueueType());
+        assertEquals(WaitStrategy.Yielding, seda.getWaitStrategy());
+        assertEquals(256, seda.getSize());
+    }
+
+    public void testSedaRingBufferInOut() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedBodiesReceived("Hello World");
+
+        String out = template.requestBody("seda:foo", "Hello World", String.class);
+        assertEquals("Hello World", out);
+
+        assertMockEndpointsSatisfied();
+    }
+
+    public void testSedaRingBufferBounded() throws Exception {
+        SedaEndpoint seda = context.getEndpoint("seda:bar?queueType=RingBuffer&size=4", SedaEndpoint.class);
+        assertEquals(4, seda.getSize());
+        assertEquals(WaitStrategy.Blocking, seda.getWaitStrategy());
+
+        for (int i = 0; i < 4; i++) {
+            template.sendBody("seda:bar", "Message " + i);
+        }
+        assertEquals(4, seda.getQueue().size());
+
+        // sending one more hit the limit
+        try {
+            template.sendBody("seda:bar", "Message overflow");
+            fail("Should thrown an exception");
+        } catch (Exception e) {
+            assertIsInstanceOf(IllegalStateException.class, e.getCause());
+        }
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("seda:foo?queueType=RingBuffer&waitStrategy=Yielding&size=200&concurrentConsumers=5")
+                    .to("mock:result");
+            }
+        };
+    }
+}
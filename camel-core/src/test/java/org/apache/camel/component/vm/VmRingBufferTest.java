@@ -0,0 +1,53 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.vm;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.component.seda.RingBufferBlockingQueue;
+import org.apache.camel.component.seda.SedaEndpoint;
+
+/**
+ * @version $Revision$
+ */
+public class VmRingBufferTest extends ContextTestSupport {
+
+    public void testVmRingBuffer() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedMessageCount(100);
+
+        for (int i = 0; i < 100; i++) {
+            template.sendBody("vm:foo", "Message " + i);
+        }
+
+        assertMockEndpointsSatisfied();
+
+        SedaEndpoint vm = context.getEndpoint("vm:foo", SedaEndpoint.class);
+        assertIsInstanceOf(RingBufferBlockingQueue.class, vm.getQueue());
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("vm:foo?queueType=RingBuffer&concurrentConsumers=3").to("mock:result");
+            }
+        };
+    }
+}
@@ -0,0 +1,221 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.converter.stream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.StreamCache;
+import org.apache.camel.converter.IOConverter;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.impl.DefaultUnitOfWork;
+
+/**
+ * @version $Revision$
+ */
+public class StreamCachePoolTest extends ContextTestSupport {
+
+    private StreamCachePool pool;
+
+    @Override
+    protected void setUp() throws Exception {
+        deleteDirectory("target/spooldir");
+        super.setUp();
+    }
+
+    @Override
+    protected CamelContext createCamelContext() throws Exception {
+        CamelContext context = super.createCamelContext();
+        pool = new StreamCachePool();
+        pool.setChunkSize(64);
+        pool.setMaxMemory(256);
+        pool.setSpoolDirectory(new File("target/spooldir"));
+        context.setStreamCachePool(pool);
+        context.getProperties().put(CachedOutputStream.THRESHOLD, "128");
+        return context;
+    }
+
+    private Exchange createExchange() {
+        Exchange exchange = new DefaultExchange(context);
+        exchange.setUnitOfWork(new DefaultUnitOfWork(exchange));
+        return exchange;
+    }
+
+    private static String data(int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        return sb.toString();
+    }
+
+    private static String read(StreamCache cache) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        cache.writeTo(bos);
+        return bos.toString("UTF-8");
+    }
+
+    public void testCacheInMemory() throws Exception {
+        Exchange exchange = createExchange();
+        CachedOutputStream cos = new CachedOutputStream(exchange);
+        String text = data(100);
+        cos.write(text.getBytes("UTF-8"));
+
+        StreamCache cache = cos.getStreamCache();
+        assertTrue(cache instanceof PooledInputStreamCache);
+        assertEquals(text, IOConverter.toString((InputStream) cache, exchange));
+        cache.reset();
+        assertEquals(text, read(cache));
+
+        assertEquals(128, pool.getMemoryUsed());
+        assertEquals(0, pool.getSpoolUsed());
+        assertNull("Should not create spool file", pool.getSpoolFile());
+
+        exchange.getUnitOfWork().done(exchange);
+        assertEquals(0, pool.getMemoryUsed());
+        // the statistics is updated when a chunk is full or the stream is closed
+        assertEquals(100, pool.getTotalInMemoryBytes());
+
+        try {
+            cache.reset();
+            read(cache);
+            fail("Should have thrown an exception");
+        } catch (IOException e) {
+            // expected as the chunks has been released
+        }
+    }
+
+    public void testSpoolAboveThreshold() throws Exception {
+        Exchange exchange = createExchange();
+        CachedOutputStream cos = new CachedOutputStream(exchange);
+        String text = data(300);
+        cos.write(text.getBytes("UTF-8"));
+
+        // the first 128 bytes is kept in memory and the rest is spooled
+        assertEquals(128, pool.getMemoryUsed());
+        assertEquals(192, pool.getSpoolUsed());
+        assertNotNull(pool.getSpoolFile());
+        assertEquals(1, new File("target/spooldir").list().length);
+
+        InputStream is = cos.getInputStream();
+        assertEquals(text, IOConverter.toString(is, exchange));
+
+        exchange.getUnitOfWork().done(exchange);
+        assertEquals(0, pool.getMemoryUsed());
+        assertEquals(0, pool.getSpoolUsed());
+        assertEquals(128, pool.getTotalInMemoryBytes());
+        assertEquals(172, pool.getTotalSpooledBytes());
+    }
+
+    public void testNotPooledWhenNotClosedOnCompletion() throws Exception {
+        Exchange exchange = createExchange();
+        // the caller is responsible for closing this stream, so it must not take chunks from the pool
+        CachedOutputStream cos = new CachedOutputStream(exchange, false);
+        String text = data(100);
+        cos.write(text.getBytes("UTF-8"));
+
+        StreamCache cache = cos.getStreamCache();
+        assertFalse(cache instanceof PooledInputStreamCache);
+        assertEquals(text, read(cache));
+        assertEquals(0, pool.getMemoryUsed());
+        assertEquals(0, pool.getSpoolUsed());
+
+        exchange.getUnitOfWork().done(exchange);
+        cos.close();
+    }
+
+    public void testReadAfterReleaseWhileReading() throws Exception {
+        Exchange exchange = createExchange();
+        CachedOutputStream cos = new CachedOutputStream(exchange);
+        cos.write(data(100).getBytes("UTF-8"));
+        InputStream is = cos.getInputStream();
+        assertEquals('a', is.read());
+
+        // release the chunks while the cache is being read
+        exchange.getUnitOfWork().done(exchange);
+        try {
+            is.read(new byte[10], 0, 10);
+            fail("Should have thrown an exception");
+        } catch (IOException e) {
+            // expected as the chunks has been released
+        }
+    }
+
+    public void testSpoolWhenMemoryBudgetUsed() throws Exception {
+        Exchange first = createExchange();
+        Exchange second = createExchange();
+        String text = data(128);
+
+        CachedOutputStream cos1 = new CachedOutputStream(first);
+        cos1.write(text.getBytes("UTF-8"));
+        CachedOutputStream cos2 = new CachedOutputStream(second);
+        cos2.write(text.getBytes("UTF-8"));
+        assertEquals(256, pool.getMemoryUsed());
+        assertEquals(0, pool.getSpoolUsed());
+
+        // the memory budget is now used so the next stream is spooled
+        Exchange third = createExchange();
+        CachedOutputStream cos3 = new CachedOutputStream(third);
+        cos3.write(text.getBytes("UTF-8"));
+        assertEquals(256, pool.getMemoryAllocated());
+        assertEquals(128, pool.getSpoolUsed());
+        assertEquals(text, read(cos3.getStreamCache()));
+
+        first.getUnitOfWork().done(first);
+        second.getUnitOfWork().done(second);
+        third.getUnitOfWork().done(third);
+        assertEquals(0, pool.getMemoryUsed());
+        assertEquals(0, pool.getSpoolUsed());
+    }
+
+    public void testSpoolSlotsAreReused() throws Exception {
+        String text = data(1000);
+        long spoolSize = 0;
+        for (int i = 0; i < 5; i++) {
+            Exchange exchange = createExchange();
+            CachedOutputStream cos = new CachedOutputStream(exchange);
+            cos.write(text.getBytes("UTF-8"));
+            assertEquals(text, read(cos.getStreamCache()));
+            exchange.getUnitOfWork().done(exchange);
+
+            if (i == 0) {
+                spoolSize = pool.getSpoolSize();
+            } else {
+                assertEquals("Spool file should not grow", spoolSize, pool.getSpoolSize());
+            }
+        }
+        assertEquals(1, new File("target/spooldir").list().length);
+    }
+
+    public void testSpoolFileDeletedOnStop() throws Exception {
+        Exchange exchange = createExchange();
+        CachedOutputStream cos = new CachedOutputStream(exchange);
+        cos.write(data(500).getBytes("UTF-8"));
+        exchange.getUnitOfWork().done(exchange);
+
+        File spoolFile = pool.getSpoolFile();
+        assertTrue(spoolFile.exists());
+
+        context.stop();
+        assertFalse("Spool file should be deleted", spoolFile.exists());
+    }
+}
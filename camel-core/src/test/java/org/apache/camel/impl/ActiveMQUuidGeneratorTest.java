@@ -35,6 +35,17 @@ public class ActiveMQUuidGeneratorTest extends TestCase {
         assertNotSame(firstUUID, secondUUID);
     }
 
+    public void testSequence() {
+        ActiveMQUuidGenerator uuidGenerator = new ActiveMQUuidGenerator();
+
+        String first = uuidGenerator.generateUuid();
+        String prefix = first.substring(0, first.lastIndexOf('-') + 1);
+        assertEquals(prefix + "1", first);
+        for (int i = 2; i <= 1000; i++) {
+            assertEquals(prefix + i, uuidGenerator.generateUuid());
+        }
+    }
+
     public void testPerformance() {
         ActiveMQUuidGenerator uuidGenerator = new ActiveMQUuidGenerator();
         StopWatch watch = new StopWatch();
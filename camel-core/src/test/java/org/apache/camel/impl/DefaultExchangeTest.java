@@ -18,7 +18,17 @@ package org.apache.camel.impl;
 
 import java.io.IOException;
 import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.camel.Exchange;
 import org.apache.camel.ExchangeTestSupport;
 import org.apache.camel.InvalidPayloadException;
 import org.apache.camel.RuntimeCamelException;
@@ -112,6 +122,143 @@ public class DefaultExchangeTest extends ExchangeTestSupport {
         assertEquals("banana", exchange.getProperty("beer", "banana", String.class));
     }
 
+    public void testCopyOnWriteProperties() throws Exception {
+        exchange.setProperty("fruit", "apple");
+
+        Exchange copy = exchange.copy();
+        assertEquals("apple", copy.getProperty("fruit"));
+
+        // changing the copy should not affect the original
+        copy.setProperty("fruit", "banana");
+        copy.setProperty("beer", "Carlsberg");
+        assertEquals("banana", copy.getProperty("fruit"));
+        assertEquals("apple", exchange.getProperty("fruit"));
+        assertNull(exchange.getProperty("beer"));
+
+        // and changing the original should not affect another copy
+        Exchange copy2 = exchange.copy();
+        exchange.removeProperty("fruit");
+        assertNull(exchange.getProperty("fruit"));
+        assertEquals("apple", copy2.getProperty("fruit"));
+
+        // mutating the properties map from the copy should not affect the original either
+        exchange.setProperty("wine", "Bordeaux");
+        Exchange copy3 = exchange.copy();
+        copy3.getProperties().clear();
+        assertFalse(copy3.hasProperties());
+        assertEquals("Bordeaux", exchange.getProperty("wine"));
+    }
+
+    public void testCopyAfterGetProperties() throws Exception {
+        exchange.setProperty("fruit", "apple");
+
+        // the caller holds on to the map so the copy must not share it
+        Map<String, Object> properties = exchange.getProperties();
+        Exchange copy = exchange.copy();
+        properties.put("fruit", "banana");
+        properties.put("beer", "Carlsberg");
+
+        assertEquals("banana", exchange.getProperty("fruit"));
+        assertEquals("apple", copy.getProperty("fruit"));
+        assertNull(copy.getProperty("beer"));
+
+        // and the other way around
+        Map<String, Object> copyProperties = copy.getProperties();
+        Exchange copy2 = copy.copy();
+        copyProperties.remove("fruit");
+        assertNull(copy.getProperty("fruit"));
+        assertEquals("apple", copy2.getProperty("fruit"));
+    }
+
+    public void testCopyAfterSetProperties() throws Exception {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("fruit", "apple");
+        DefaultExchange source = new DefaultExchange(context);
+        source.setProperties(properties);
+
+        Exchange copy = source.copy();
+        properties.put("fruit", "banana");
+
+        assertEquals("banana", source.getProperty("fruit"));
+        assertEquals("apple", copy.getProperty("fruit"));
+    }
+
+    public void testCopyOfCopyProperties() throws Exception {
+        DefaultExchange source = new DefaultExchange(context);
+        source.setProperty("fruit", "apple");
+        source.setProperty("beer", "Carlsberg");
+        Map<String, Object> shared = ((DefaultExchange) source.copy()).getPropertyHolder("fruit");
+
+        // each copy of a copy only sets and removes properties on top of the shared properties
+        DefaultExchange copy = source;
+        for (int i = 0; i < 10; i++) {
+            copy = (DefaultExchange) copy.copy();
+            copy.setProperty("index", i);
+            copy.removeProperty("beer");
+            copy.setProperty("beer", "Tuborg" + i);
+        }
+        assertEquals("apple", copy.getProperty("fruit"));
+        assertEquals(9, copy.getProperty("index"));
+        assertEquals("Tuborg9", copy.getProperty("beer"));
+
+        // setting and removing properties on the copies did not copy the shared properties
+        assertSame(shared, source.getPropertyHolder("fruit"));
+        assertEquals("Carlsberg", source.getProperty("beer"));
+        assertNull(source.getProperty("index"));
+
+        copy.removeProperty("fruit");
+        copy.removeProperty("beer");
+        copy.removeProperty("index");
+        assertFalse(copy.hasProperties());
+        assertTrue(copy.getProperties().isEmpty());
+        assertEquals("apple", source.getProperty("fruit"));
+    }
+
+    public void testCopyOnWritePropertiesConcurrent() throws Exception {
+        exchange.setProperty("fruit", "apple");
+        final Exchange source = exchange.copy();
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        List<Future<Exchange>> futures = new ArrayList<Future<Exchange>>();
+        for (int i = 0; i < 100; i++) {
+            final int index = i;
+            futures.add(executor.submit(new Callable<Exchange>() {
+                public Exchange call() throws Exception {
+                    Exchange copy = source.copy();
+                    copy.setProperty("fruit", "banana" + index);
+                    copy.setProperty("index", index);
+                    return copy;
+                }
+            }));
+        }
+        for (int i = 0; i < 100; i++) {
+            Exchange copy = futures.get(i).get(10, TimeUnit.SECONDS);
+            assertEquals("banana" + i, copy.getProperty("fruit"));
+            assertEquals(i, copy.getProperty("index"));
+        }
+        executor.shutdownNow();
+
+        assertEquals("apple", source.getProperty("fruit"));
+        assertNull(source.getProperty("index"));
+        assertEquals("apple", exchange.getProperty("fruit"));
+    }
+
+    public void testCopyOnWriteHeaders() throws Exception {
+        Exchange copy = exchange.copy();
+        assertEquals("abc", copy.getIn().getHeader("foo"));
+
+        copy.getIn().setHeader("foo", "cake");
+        copy.getIn().setHeader("beer", "Carlsberg");
+        assertEquals("cake", copy.getIn().getHeader("foo"));
+        assertEquals("abc", exchange.getIn().getHeader("foo"));
+        assertNull(exchange.getIn().getHeader("beer"));
+
+        Exchange copy2 = exchange.copy();
+        exchange.getIn().removeHeader("foo");
+        assertNull(exchange.getIn().getHeader("foo"));
+        assertEquals("abc", copy2.getIn().getHeader("foo"));
+    }
+
     public void testInType() throws Exception {
         exchange.setIn(new MyMessage());
 
@@ -16,6 +16,8 @@
  */
 package org.apache.camel.impl;
 
+import java.util.List;
+
 import org.apache.camel.ContextTestSupport;
 import org.apache.camel.Exchange;
 import org.apache.camel.spi.InflightRepository;
@@ -44,4 +46,42 @@ public class DefaultInflightRepositoryTest extends ContextTestSupport {
         repo.remove(e1);
         assertEquals(0, repo.size());
     }
+
+    public void testBrowse() throws Exception {
+        InflightRepository repo = new DefaultInflightRepository();
+
+        Exchange e1 = new DefaultExchange(context);
+        repo.add(e1);
+        // not enabled so nothing to browse
+        assertEquals(0, repo.browse(10).size());
+        repo.remove(e1);
+
+        repo.setInflightBrowseEnabled(true);
+
+        e1.setFromRouteId("foo");
+        repo.add(e1);
+        Thread.sleep(20);
+        Exchange e2 = new DefaultExchange(context);
+        repo.add(e2);
+
+        List<InflightRepository.InflightExchange> list = repo.browse(10);
+        assertEquals(2, list.size());
+        // oldest first
+        assertSame(e1, list.get(0).getExchange());
+        assertEquals("foo", list.get(0).getFromRouteId());
+        assertTrue(list.get(0).getDuration() >= list.get(1).getDuration());
+        assertSame(e2, list.get(1).getExchange());
+
+        list = repo.browse(1);
+        assertEquals(1, list.size());
+        assertSame(e1, list.get(0).getExchange());
+
+        repo.remove(e1);
+        list = repo.browse(10);
+        assertEquals(1, list.size());
+        assertSame(e2, list.get(0).getExchange());
+
+        repo.remove(e2);
+        assertEquals(0, repo.browse(10).size());
+    }
 }
@@ -32,7 +32,8 @@ public class DefaultUnitOfWorkTest extends TestCase {
     }
 
     public void testGetId() {
-        assertEquals("2", unitOfWork.getId());
-        assertEquals("2", unitOfWork.getId());
+        // the message id of the copied original message is not created until needed
+        assertEquals("1", unitOfWork.getId());
+        assertEquals("1", unitOfWork.getId());
     }
 }
\ No newline at end of file
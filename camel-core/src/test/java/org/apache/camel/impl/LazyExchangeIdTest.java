@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.spi.UuidGenerator;
+
+/**
+ * @version $Revision$
+ */
+public class LazyExchangeIdTest extends ContextTestSupport {
+
+    private final CountingUuidGenerator generator = new CountingUuidGenerator();
+
+    @Override
+    protected CamelContext createCamelContext() throws Exception {
+        CamelContext context = super.createCamelContext();
+        context.setUuidGenerator(generator);
+        return context;
+    }
+
+    public void testNoIdsCreatedWhenNotUsed() throws Exception {
+        getMockEndpoint("mock:result").expectedMessageCount(10);
+
+        generator.count.set(0);
+        for (int i = 0; i < 10; i++) {
+            template.sendBody("direct:start", "Hello World");
+        }
+
+        assertMockEndpointsSatisfied();
+        assertEquals("Should not create any ids", 0, generator.count.get());
+    }
+
+    public void testIdsSharedThroughPipeline() throws Exception {
+        MockEndpoint result = getMockEndpoint("mock:result");
+        result.expectedMessageCount(1);
+
+        Exchange exchange = template.send("direct:start", new DefaultExchange(context));
+        assertMockEndpointsSatisfied();
+
+        Exchange received = result.getReceivedExchanges().get(0);
+        assertEquals(received.getExchangeId(), exchange.getExchangeId());
+        // only a single exchange id is created for all the snapshots of the exchange
+        assertEquals(1, generator.count.get());
+    }
+
+    public void testMessageIdShared() throws Exception {
+        DefaultMessage message = new DefaultMessage();
+        message.setExchange(new DefaultExchange(context));
+        Message copy = message.copy();
+        Message copyOfCopy = copy.copy();
+        assertEquals(0, generator.count.get());
+
+        String id = copyOfCopy.getMessageId();
+        assertEquals(id, message.getMessageId());
+        assertEquals(id, copy.getMessageId());
+        assertEquals(1, generator.count.get());
+
+        // changing the id of a copy does not affect the others
+        copy.setMessageId("foo");
+        assertEquals("foo", copy.getMessageId());
+        assertEquals(id, message.getMessageId());
+    }
+
+    public void testConcurrentCopiesShareId() throws Exception {
+        final DefaultMessage message = new DefaultMessage();
+        message.setExchange(new DefaultExchange(context));
+        final DefaultExchange exchange = new DefaultExchange(context);
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        List<Future<String[]>> futures = new ArrayList<Future<String[]>>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(executor.submit(new Callable<String[]>() {
+                public String[] call() throws Exception {
+                    Message copy = message.copy();
+                    DefaultExchange other = new DefaultExchange(context);
+                    other.shareExchangeId(exchange);
+                    return new String[]{copy.getMessageId(), other.getExchangeId()};
+                }
+            }));
+        }
+
+        // copying must not give the copies different ids, and the sources keep the id of their copies
+        for (Future<String[]> future : futures) {
+            String[] ids = future.get(10, TimeUnit.SECONDS);
+            assertEquals(message.getMessageId(), ids[0]);
+            assertEquals(exchange.getExchangeId(), ids[1]);
+        }
+        executor.shutdownNow();
+        assertEquals(2, generator.count.get());
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start").to("log:foo?level=TRACE").to("direct:noop").to("mock:result");
+
+                from("direct:noop").setHeader("foo", constant("bar"));
+            }
+        };
+    }
+
+    private static final class CountingUuidGenerator implements UuidGenerator {
+        private final UuidGenerator delegate = new SimpleUuidGenerator();
+        private final AtomicInteger count = new AtomicInteger();
+
+        public String generateUuid() {
+            count.incrementAndGet();
+            return delegate.generateUuid();
+        }
+    }
+}
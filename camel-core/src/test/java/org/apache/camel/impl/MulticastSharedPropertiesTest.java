@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.impl;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+
+/**
+ * Tests that the copies of an exchange made by a multicast followed by a pipeline share the properties
+ * rather than copy them.
+ *
+ * @version $Revision$
+ */
+public class MulticastSharedPropertiesTest extends ContextTestSupport {
+
+    private static final int BRANCHES = 20;
+
+    private final Map<Map<String, Object>, Object> copies = new IdentityHashMap<Map<String, Object>, Object>();
+
+    public void testMulticastSharesProperties() throws Exception {
+        MockEndpoint branch = getMockEndpoint("mock:branch");
+        branch.expectedMessageCount(BRANCHES);
+        MockEndpoint result = getMockEndpoint("mock:result");
+        result.expectedMessageCount(1);
+        result.expectedPropertyReceived("fruit", "apple");
+
+        template.send("direct:start", new Processor() {
+            public void process(Exchange exchange) throws Exception {
+                exchange.setProperty("fruit", "apple");
+            }
+        });
+
+        assertMockEndpointsSatisfied();
+
+        // each branch sets its own properties on top of the properties it shares with the others
+        for (Exchange exchange : branch.getReceivedExchanges()) {
+            assertEquals("apple", exchange.getProperty("fruit"));
+            assertNotNull(exchange.getProperty("branch"));
+            countCopy(exchange);
+        }
+        assertEquals("The branches should not copy the properties", 1, copies.size());
+
+        // and neither does copying the results of the branches and the pipeline back into the original
+        countCopy(result.getReceivedExchanges().get(0));
+        assertEquals("The properties should not be copied", 1, copies.size());
+    }
+
+    private void countCopy(Exchange exchange) {
+        copies.put(((DefaultExchange) exchange).getPropertyHolder("fruit"), exchange);
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                String[] branches = new String[BRANCHES];
+                for (int i = 0; i < BRANCHES; i++) {
+                    branches[i] = "direct:branch";
+                }
+
+                from("direct:start")
+                    .process(new Processor() {
+                        public void process(Exchange exchange) throws Exception {
+                            countCopy(exchange);
+                        }
+                    })
+                    .multicast().to(branches).end()
+                    .to("mock:result");
+
+                from("direct:branch")
+                    .setProperty("branch", property(Exchange.MULTICAST_INDEX))
+                    .to("mock:branch");
+            }
+        };
+    }
+}
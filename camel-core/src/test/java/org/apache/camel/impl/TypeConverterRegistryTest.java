@@ -53,6 +53,24 @@ public class TypeConverterRegistryTest extends TestCase {
         assertEquals(123, order.getId());
     }
 
+    public void testAddTypeConverterAfterMiss() throws Exception {
+        DefaultCamelContext context = new DefaultCamelContext();
+        context.start();
+
+        // cannot convert so its cached as a miss
+        assertNull(context.getTypeConverter().convertTo(MyOrder.class, "123"));
+        assertNull(context.getTypeConverter().convertTo(MyOrder.class, "123"));
+
+        // adding a type converter should clear the cached miss
+        context.getTypeConverterRegistry().addTypeConverter(MyOrder.class, String.class, new MyOrderTypeConverter());
+
+        MyOrder order = context.getTypeConverter().convertTo(MyOrder.class, "123");
+        assertNotNull(order);
+        assertEquals(123, order.getId());
+
+        context.stop();
+    }
+
     private class MyOrder {
         private int id;
 
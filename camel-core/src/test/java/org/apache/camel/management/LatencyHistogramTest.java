@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.management;
+
+import junit.framework.TestCase;
+
+/**
+ * @version $Revision$
+ */
+public class LatencyHistogramTest extends TestCase {
+
+    private long time = 10000;
+
+    private LatencyHistogram histogram = new LatencyHistogram() {
+        @Override
+        protected long currentTime() {
+            return time;
+        }
+    };
+
+    public void testEmpty() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0.0, histogram.getThroughput());
+    }
+
+    public void testPercentiles() {
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(1000, histogram.getCount());
+
+        assertWithinPrecision(500, histogram.getValueAtPercentile(50));
+        assertWithinPrecision(950, histogram.getValueAtPercentile(95));
+        assertWithinPrecision(990, histogram.getValueAtPercentile(99));
+        assertWithinPrecision(999, histogram.getValueAtPercentile(99.9));
+        assertWithinPrecision(1000, histogram.getValueAtPercentile(100));
+        assertEquals(1, histogram.getValueAtPercentile(0));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+    }
+
+    public void testSmallValuesAreExact() {
+        histogram.record(0);
+        histogram.record(3);
+        histogram.record(63);
+        assertEquals(0, histogram.getValueAtPercentile(10));
+        assertEquals(3, histogram.getValueAtPercentile(50));
+        assertEquals(63, histogram.getValueAtPercentile(100));
+    }
+
+    public void testLargeValue() {
+        histogram.record(Long.MAX_VALUE);
+        assertWithinPrecision(LatencyHistogram.MAX_VALUE, histogram.getValueAtPercentile(50));
+    }
+
+    public void testBuckets() {
+        // the buckets should be contiguous
+        for (long value = 0; value < 100000; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(value <= LatencyHistogram.highestValueAt(index));
+            if (index > 0) {
+                assertTrue(value > LatencyHistogram.highestValueAt(index - 1));
+            }
+        }
+    }
+
+    public void testThroughput() {
+        // 120 per second in the last 2 seconds
+        for (int i = 0; i < 120; i++) {
+            histogram.record(5);
+        }
+        time += 1000;
+        for (int i = 0; i < 120; i++) {
+            histogram.record(5);
+        }
+        // the current second is not counted
+        assertEquals(2.0, histogram.getThroughput());
+
+        time += 1000;
+        assertEquals(4.0, histogram.getThroughput());
+
+        // a minute later they have all left the window
+        time += 60000;
+        assertEquals(0.0, histogram.getThroughput());
+    }
+
+    public void testConcurrentRecord() throws Exception {
+        // the values recorded by each thread goes to different stripes but is summed when read
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        histogram.record(5);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(8000, histogram.getCount());
+        assertEquals(5, histogram.getValueAtPercentile(99));
+        time += 1000;
+        assertEquals(8000 / 60.0, histogram.getThroughput(), 0.001);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0.0, histogram.getThroughput());
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue("Expected " + expected + " but was " + actual, actual >= expected && actual <= expected * 1.04);
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.management;
+
+import java.util.Set;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+
+/**
+ * @version $Revision$
+ */
+public class ManagedErrorHandlerPendingRedeliveriesTest extends ContextTestSupport {
+
+    private static volatile boolean fail;
+
+    @Override
+    protected boolean useJmx() {
+        return true;
+    }
+
+    @Override
+    protected CamelContext createCamelContext() throws Exception {
+        CamelContext context = super.createCamelContext();
+        DefaultManagementNamingStrategy naming = (DefaultManagementNamingStrategy) context.getManagementStrategy().getManagementNamingStrategy();
+        naming.setHostName("localhost");
+        naming.setDomainName("org.apache.camel");
+        return context;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testPendingRedeliveries() throws Exception {
+        MBeanServer mbeanServer = context.getManagementStrategy().getManagementAgent().getMBeanServer();
+
+        Set<ObjectName> set = mbeanServer.queryNames(new ObjectName("*:type=errorhandlers,*"), null);
+        assertEquals(1, set.size());
+        ObjectName on = set.iterator().next();
+
+        assertEquals(Boolean.TRUE, mbeanServer.getAttribute(on, "AsyncDelayedRedelivery"));
+        assertEquals(2, ((Integer) mbeanServer.getAttribute(on, "MaximumPendingRedeliveries")).intValue());
+        assertEquals(0, ((Integer) mbeanServer.getAttribute(on, "PendingRedeliveryCount")).intValue());
+
+        getMockEndpoint("mock:result").expectedMessageCount(3);
+
+        fail = true;
+        template.sendBody("seda:start", "A");
+        template.sendBody("seda:start", "B");
+        template.sendBody("seda:start", "C");
+
+        // the first two exchanges are redelivered asynchronously, the third must wait on the consumer thread
+        int max = 0;
+        for (int i = 0; i < 50; i++) {
+            int pending = (Integer) mbeanServer.getAttribute(on, "PendingRedeliveryCount");
+            max = Math.max(max, pending);
+            Thread.sleep(20);
+        }
+        assertEquals("Should not exceed the maximum pending redeliveries", 2, max);
+
+        fail = false;
+        assertMockEndpointsSatisfied();
+
+        int pending = -1;
+        for (int i = 0; i < 50 && pending != 0; i++) {
+            pending = (Integer) mbeanServer.getAttribute(on, "PendingRedeliveryCount");
+            Thread.sleep(20);
+        }
+        assertEquals(0, pending);
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                errorHandler(defaultErrorHandler().maximumRedeliveries(-1).redeliveryDelay(100)
+                    .asyncDelayedRedelivery().maximumPendingRedeliveries(2));
+
+                from("seda:start")
+                    .process(new Processor() {
+                        public void process(Exchange exchange) throws Exception {
+                            if (fail) {
+                                throw new IllegalArgumentException("Forced");
+                            }
+                        }
+                    })
+                    .to("mock:result");
+            }
+        };
+    }
+}
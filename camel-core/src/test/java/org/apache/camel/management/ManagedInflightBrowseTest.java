@@ -0,0 +1,113 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.management;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+
+/**
+ * @version $Revision$
+ */
+public class ManagedInflightBrowseTest extends ContextTestSupport {
+
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    @Override
+    protected boolean useJmx() {
+        return true;
+    }
+
+    @Override
+    protected CamelContext createCamelContext() throws Exception {
+        CamelContext context = super.createCamelContext();
+        DefaultManagementNamingStrategy naming = (DefaultManagementNamingStrategy) context.getManagementStrategy().getManagementNamingStrategy();
+        naming.setHostName("localhost");
+        naming.setDomainName("org.apache.camel");
+        return context;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testBrowseInflight() throws Exception {
+        MBeanServer mbeanServer = context.getManagementStrategy().getManagementAgent().getMBeanServer();
+
+        ObjectName on = ObjectName.getInstance("org.apache.camel:context=localhost/camel-1,type=context,name=\"camel-1\"");
+        assertEquals(Boolean.FALSE, mbeanServer.getAttribute(on, "InflightBrowseEnabled"));
+        mbeanServer.setAttribute(on, new Attribute("InflightBrowseEnabled", Boolean.TRUE));
+        assertEquals(Boolean.TRUE, mbeanServer.getAttribute(on, "InflightBrowseEnabled"));
+
+        Set<ObjectName> set = mbeanServer.queryNames(new ObjectName("*:type=routes,*"), null);
+        assertEquals(1, set.size());
+        ObjectName route = set.iterator().next();
+
+        getMockEndpoint("mock:result").expectedMessageCount(1);
+        template.sendBody("seda:start", "Hello World");
+
+        String[] inflight = new String[0];
+        for (int i = 0; i < 50 && inflight.length == 0; i++) {
+            Thread.sleep(20);
+            inflight = (String[]) mbeanServer.invoke(on, "browseInflightExchanges", new Object[]{10}, new String[]{"int"});
+        }
+        assertEquals(1, inflight.length);
+        assertTrue(inflight[0], inflight[0].contains("routeId: foo"));
+
+        assertEquals(1, ((Integer) mbeanServer.getAttribute(on, "InflightExchanges")).intValue());
+        assertEquals(1, ((Integer) mbeanServer.getAttribute(route, "InflightExchanges")).intValue());
+
+        latch.countDown();
+        assertMockEndpointsSatisfied();
+
+        for (int i = 0; i < 50 && inflight.length > 0; i++) {
+            Thread.sleep(20);
+            inflight = (String[]) mbeanServer.invoke(on, "browseInflightExchanges", new Object[]{10}, new String[]{"int"});
+        }
+        assertEquals(0, inflight.length);
+        assertEquals(0, ((Integer) mbeanServer.getAttribute(on, "InflightExchanges")).intValue());
+        assertEquals(0, ((Integer) mbeanServer.getAttribute(route, "InflightExchanges")).intValue());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        latch.countDown();
+        super.tearDown();
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("seda:start").routeId("foo")
+                    .process(new Processor() {
+                        public void process(Exchange exchange) throws Exception {
+                            latch.await(10, TimeUnit.SECONDS);
+                        }
+                    })
+                    .to("mock:result");
+            }
+        };
+    }
+}
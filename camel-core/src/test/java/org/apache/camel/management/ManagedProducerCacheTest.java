@@ -76,6 +76,24 @@ public class ManagedProducerCacheTest extends ContextTestSupport {
 
         String source = (String) mbeanServer.getAttribute(on, "Source");
         assertEquals("sendTo(Endpoint[mock://result])", source);
+
+        Long misses = (Long) mbeanServer.getAttribute(on, "Misses");
+        assertEquals(1, misses.longValue());
+
+        Long evicted = (Long) mbeanServer.getAttribute(on, "Evicted");
+        assertEquals(0, evicted.longValue());
+
+        // the producer was created when the route was started so the first message was a hit
+        Long hits = (Long) mbeanServer.getAttribute(on, "Hits");
+        assertEquals(1, hits.longValue());
+
+        template.sendBody("direct:start", "Bye World");
+        hits = (Long) mbeanServer.getAttribute(on, "Hits");
+        assertEquals(2, hits.longValue());
+
+        mbeanServer.invoke(on, "resetStatistics", null, null);
+        hits = (Long) mbeanServer.getAttribute(on, "Hits");
+        assertEquals(0, hits.longValue());
     }
 
     @Override
@@ -88,6 +88,11 @@ public class ManagedRoutePerformanceCounterTest extends ContextTestSupport {
         assertTrue("Should take around 3 sec: was " + last, last > 2900);
         assertTrue("Should be around 5 sec now: was " + total, total > 4900);
 
+        Long p50 = (Long) mbeanServer.getAttribute(on, "P50ProcessingTime");
+        Long p99 = (Long) mbeanServer.getAttribute(on, "P99ProcessingTime");
+        assertTrue("Should take around 3 sec: was " + p50, p50 > 2900);
+        assertTrue("Should take around 3 sec: was " + p99, p99 > 2900 && p99 < 3500);
+
         Date lastFailed = (Date) mbeanServer.getAttribute(on, "LastExchangeFailureTimestamp");
         Date firstFailed = (Date) mbeanServer.getAttribute(on, "FirstExchangeFailureTimestamp");
         assertNull(lastFailed);
@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.management;
+
+import java.io.ByteArrayInputStream;
+import java.util.Set;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.converter.stream.CachedOutputStream;
+import org.apache.camel.converter.stream.StreamCachePool;
+
+/**
+ * @version $Revision$
+ */
+public class ManagedStreamCachePoolTest extends ContextTestSupport {
+
+    @Override
+    protected boolean useJmx() {
+        return true;
+    }
+
+    @Override
+    protected CamelContext createCamelContext() throws Exception {
+        CamelContext context = super.createCamelContext();
+        DefaultManagementNamingStrategy naming = (DefaultManagementNamingStrategy) context.getManagementStrategy().getManagementNamingStrategy();
+        naming.setHostName("localhost");
+        naming.setDomainName("org.apache.camel");
+
+        StreamCachePool pool = new StreamCachePool(1024);
+        pool.setChunkSize(256);
+        context.setStreamCachePool(pool);
+        context.getProperties().put(CachedOutputStream.THRESHOLD, "512");
+        return context;
+    }
+
+    public void testManageStreamCachePool() throws Exception {
+        getMockEndpoint("mock:result").expectedMessageCount(1);
+
+        template.sendBody("direct:start", new ByteArrayInputStream(new byte[1000]));
+
+        assertMockEndpointsSatisfied();
+
+        MBeanServer mbeanServer = context.getManagementStrategy().getManagementAgent().getMBeanServer();
+        Set<ObjectName> set = mbeanServer.queryNames(new ObjectName("*:type=services,name=StreamCachePool*,*"), null);
+        assertEquals(1, set.size());
+        ObjectName on = set.iterator().next();
+
+        assertEquals(1024L, mbeanServer.getAttribute(on, "MaxMemory"));
+        assertEquals(512L, mbeanServer.getAttribute(on, "TotalInMemoryBytes"));
+        assertEquals(488L, mbeanServer.getAttribute(on, "TotalSpooledBytes"));
+        // the exchange is done so the chunks are released
+        assertEquals(0L, mbeanServer.getAttribute(on, "MemoryUsed"));
+        assertEquals(0L, mbeanServer.getAttribute(on, "SpoolUsed"));
+
+        mbeanServer.invoke(on, "resetStatistics", null, null);
+        assertEquals(0L, mbeanServer.getAttribute(on, "TotalSpooledBytes"));
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start").streamCaching().to("mock:result");
+            }
+        };
+    }
+
+}
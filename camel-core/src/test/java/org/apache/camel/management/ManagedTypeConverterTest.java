@@ -0,0 +1,103 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.management;
+
+import java.util.Set;
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.builder.RouteBuilder;
+
+/**
+ * @version $Revision$
+ */
+public class ManagedTypeConverterTest extends ContextTestSupport {
+
+    @Override
+    protected boolean useJmx() {
+        return true;
+    }
+
+    @Override
+    protected CamelContext createCamelContext() throws Exception {
+        CamelContext context = super.createCamelContext();
+        DefaultManagementNamingStrategy naming = (DefaultManagementNamingStrategy) context.getManagementStrategy().getManagementNamingStrategy();
+        naming.setHostName("localhost");
+        naming.setDomainName("org.apache.camel");
+        return context;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testManageTypeConverter() throws Exception {
+        MBeanServer mbeanServer = context.getManagementStrategy().getManagementAgent().getMBeanServer();
+        Set<ObjectName> set = mbeanServer.queryNames(new ObjectName("*:type=services,*"), null);
+        ObjectName on = null;
+        for (ObjectName name : set) {
+            if (name.getCanonicalName().contains("DefaultTypeConverter")) {
+                on = name;
+                break;
+            }
+        }
+        assertNotNull("Should have found DefaultTypeConverter", on);
+
+        Integer converters = (Integer) mbeanServer.getAttribute(on, "NumberOfTypeConverters");
+        assertTrue("Should have type converters", converters.intValue() > 0);
+
+        // statistics is disabled by default
+        Boolean enabled = (Boolean) mbeanServer.getAttribute(on, "StatisticsEnabled");
+        assertEquals(Boolean.FALSE, enabled);
+        mbeanServer.setAttribute(on, new Attribute("StatisticsEnabled", Boolean.TRUE));
+
+        getMockEndpoint("mock:result").expectedBodiesReceived(123);
+
+        template.sendBody("direct:start", "123");
+        // cannot convert to a camel context
+        assertNull(context.getTypeConverter().convertTo(CamelContext.class, "Hello World"));
+        assertNull(context.getTypeConverter().convertTo(CamelContext.class, "Bye World"));
+
+        assertMockEndpointsSatisfied();
+
+        Long hit = (Long) mbeanServer.getAttribute(on, "HitCounter");
+        assertTrue("Should have hits", hit.longValue() > 0);
+        Long miss = (Long) mbeanServer.getAttribute(on, "MissCounter");
+        assertEquals(2, miss.longValue());
+        Long fallback = (Long) mbeanServer.getAttribute(on, "FallbackCounter");
+        assertTrue("Should have invoked fallback converters", fallback.longValue() > 0);
+        Integer cache = (Integer) mbeanServer.getAttribute(on, "CacheSize");
+        assertTrue("Should have cached conversions", cache.intValue() > 0);
+
+        mbeanServer.invoke(on, "resetStatistics", null, null);
+        hit = (Long) mbeanServer.getAttribute(on, "HitCounter");
+        assertEquals(0, hit.longValue());
+        miss = (Long) mbeanServer.getAttribute(on, "MissCounter");
+        assertEquals(0, miss.longValue());
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start").convertBodyTo(Integer.class).to("mock:result");
+            }
+        };
+    }
+
+}
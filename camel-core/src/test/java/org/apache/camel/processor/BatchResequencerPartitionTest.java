@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+
+/**
+ * @version $Revision$
+ */
+public class BatchResequencerPartitionTest extends ContextTestSupport {
+
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    public void testOrderedWithinPartition() throws Exception {
+        MockEndpoint result = getMockEndpoint("mock:result");
+        result.expectedMessageCount(6);
+
+        sendMessage("A", 5);
+        sendMessage("B", 6);
+        sendMessage("A", 1);
+        sendMessage("B", 3);
+        sendMessage("A", 4);
+        sendMessage("B", 2);
+
+        assertMockEndpointsSatisfied();
+
+        List<Object> a = new ArrayList<Object>();
+        List<Object> b = new ArrayList<Object>();
+        for (Exchange exchange : result.getReceivedExchanges()) {
+            if ("A".equals(exchange.getIn().getHeader("customer"))) {
+                a.add(exchange.getIn().getBody());
+            } else {
+                b.add(exchange.getIn().getBody());
+            }
+        }
+        assertEquals("[1, 4, 5]", a.toString());
+        assertEquals("[2, 3, 6]", b.toString());
+    }
+
+    public void testPartitionsAreSentIndependently() throws Exception {
+        MockEndpoint blocked = getMockEndpoint("mock:blocked");
+        blocked.expectedBodiesReceived(1, 5, 6);
+
+        // partition 0 is blocked while sending its first exchange
+        template.sendBodyAndHeader("direct:blocking", 6, "key", 0);
+        template.sendBodyAndHeader("direct:blocking", 1, "key", 0);
+        template.sendBodyAndHeader("direct:blocking", 5, "key", 0);
+
+        MockEndpoint result = getMockEndpoint("mock:other");
+        result.expectedBodiesReceived(2, 3, 4);
+
+        template.sendBodyAndHeader("direct:blocking", 3, "key", 1);
+        template.sendBodyAndHeader("direct:blocking", 2, "key", 1);
+        template.sendBodyAndHeader("direct:blocking", 4, "key", 1);
+
+        // partition 1 should not wait for partition 0
+        result.assertIsSatisfied();
+        latch.countDown();
+        blocked.assertIsSatisfied();
+    }
+
+    public void testPartitionedResequencer() throws Exception {
+        Resequencer resequencer = null;
+        for (Processor processor : context.getRoute("partitioned").navigate().next()) {
+            if (processor instanceof DefaultChannel) {
+                processor = ((DefaultChannel) processor).getNextProcessor();
+            }
+            if (processor instanceof Resequencer) {
+                resequencer = (Resequencer) processor;
+            }
+        }
+        assertNotNull("Should have found the resequencer", resequencer);
+        assertTrue(resequencer.isPartitioned());
+        assertEquals(2, resequencer.getPartitions());
+        assertNotNull(resequencer.getExecutorService());
+    }
+
+    private void sendMessage(String customer, int seq) {
+        template.sendBodyAndHeader("direct:start", seq, "customer", customer);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        latch.countDown();
+        super.tearDown();
+    }
+
+    protected RouteBuilder createRouteBuilder() {
+        return new RouteBuilder() {
+            public void configure() {
+                from("direct:start").routeId("partitioned")
+                    .resequence(body()).batch().partitions(2).partitionExpression(header("customer")).timeout(200)
+                    .to("mock:result");
+
+                from("direct:blocking")
+                    .resequence(body()).batch().size(3).partitions(2).partitionExpression(header("key"))
+                    .choice()
+                        .when(header("key").isEqualTo(0))
+                            .process(new Processor() {
+                                public void process(Exchange exchange) throws Exception {
+                                    assertTrue(latch.await(10, TimeUnit.SECONDS));
+                                }
+                            })
+                            .to("mock:blocked")
+                        .otherwise()
+                            .to("mock:other");
+            }
+        };
+    }
+}
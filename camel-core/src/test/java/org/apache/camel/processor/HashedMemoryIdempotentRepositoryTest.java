@@ -0,0 +1,177 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.processor.idempotent.HashedMemoryIdempotentRepository;
+
+/**
+ * @version $Revision$
+ */
+public class HashedMemoryIdempotentRepositoryTest extends ContextTestSupport {
+    private MyRepository repo = new MyRepository(100);
+
+    public void testIdempotentConsumer() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedBodiesReceived("one", "two", "three");
+
+        template.sendBodyAndHeader("direct:start", "one", "messageId", "1");
+        template.sendBodyAndHeader("direct:start", "two", "messageId", "2");
+        template.sendBodyAndHeader("direct:start", "one again", "messageId", "1");
+        template.sendBodyAndHeader("direct:start", "three", "messageId", "3");
+        template.sendBodyAndHeader("direct:start", "two again", "messageId", "2");
+
+        assertMockEndpointsSatisfied();
+        assertEquals(3, repo.size());
+    }
+
+    public void testAddContainsRemove() throws Exception {
+        assertFalse(repo.contains("foo"));
+        assertTrue(repo.add("foo"));
+        assertFalse(repo.add("foo"));
+        assertTrue(repo.contains("foo"));
+        assertEquals(1, repo.size());
+
+        assertTrue(repo.remove("foo"));
+        assertFalse(repo.remove("foo"));
+        assertFalse(repo.contains("foo"));
+        assertEquals(0, repo.size());
+
+        assertTrue(repo.add("foo"));
+        assertTrue(repo.contains("foo"));
+
+        repo.clear();
+        assertFalse(repo.contains("foo"));
+        assertEquals(0, repo.size());
+    }
+
+    public void testEvictOldestWhenFull() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            repo.add("key-" + i);
+        }
+        assertTrue("Should be bounded, was " + repo.size(), repo.size() <= 100);
+        assertTrue(repo.contains("key-999"));
+        assertFalse(repo.contains("key-0"));
+
+        // all the keys should still be found after the many evictions
+        for (int i = 0; i < 1000; i++) {
+            if (repo.contains("key-" + i)) {
+                assertFalse(repo.add("key-" + i));
+            }
+        }
+    }
+
+    public void testRemoveAndAddAgainIsNotEvictedByOldPosition() throws Exception {
+        repo = new MyRepository(2, 1);
+        repo.add("A");
+        repo.add("B");
+        repo.remove("A");
+        repo.add("A");
+        // A is now the newest so adding C evicts B
+        repo.add("C");
+        assertTrue(repo.contains("A"));
+        assertTrue(repo.contains("C"));
+        assertFalse(repo.contains("B"));
+    }
+
+    public void testTimeToLive() throws Exception {
+        repo.setTimeToLive(1000);
+        repo.time = 0;
+        repo.add("A");
+        repo.time = 500;
+        repo.add("B");
+        assertTrue(repo.contains("A"));
+
+        repo.time = 1000;
+        assertFalse(repo.contains("A"));
+        assertTrue(repo.contains("B"));
+        assertTrue(repo.add("A"));
+
+        repo.time = 1600;
+        assertFalse(repo.contains("B"));
+        assertTrue(repo.contains("A"));
+    }
+
+    public void testConcurrentAdd() throws Exception {
+        // large enough so no keys is evicted
+        repo = new MyRepository(1000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(executor.submit(new Callable<Integer>() {
+                public Integer call() throws Exception {
+                    int added = 0;
+                    for (int i = 0; i < 50; i++) {
+                        if (repo.add("key-" + i)) {
+                            added++;
+                        }
+                    }
+                    return added;
+                }
+            }));
+        }
+
+        int total = 0;
+        for (Future<Integer> future : futures) {
+            total += future.get();
+        }
+        executor.shutdownNow();
+
+        // each key should only be added once
+        assertEquals(50, total);
+        assertEquals(50, repo.size());
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start")
+                    .idempotentConsumer(header("messageId"), repo)
+                    .to("mock:result");
+            }
+        };
+    }
+
+    private static class MyRepository extends HashedMemoryIdempotentRepository {
+        private volatile long time;
+
+        MyRepository(int maxEntries) {
+            super(maxEntries);
+        }
+
+        MyRepository(int maxEntries, int concurrencyLevel) {
+            super(maxEntries, concurrencyLevel);
+        }
+
+        @Override
+        protected long currentTime() {
+            return time;
+        }
+    }
+}
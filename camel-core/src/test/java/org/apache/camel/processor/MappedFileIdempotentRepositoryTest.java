@@ -0,0 +1,193 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.processor.idempotent.MappedFileIdempotentRepository;
+
+/**
+ * @version $Revision$
+ */
+public class MappedFileIdempotentRepositoryTest extends ContextTestSupport {
+    private File store = new File("target/idempotentmappedfilestore.dat");
+    private MappedFileIdempotentRepository repo;
+
+    @Override
+    protected void setUp() throws Exception {
+        deleteDirectory("target/idempotentmappedfilestore.dat");
+        repo = new MappedFileIdempotentRepository(store, 100);
+        super.setUp();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        repo.stop();
+    }
+
+    public void testIdempotentConsumer() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedBodiesReceived("one", "two", "three");
+
+        template.sendBodyAndHeader("direct:start", "one", "messageId", "1");
+        template.sendBodyAndHeader("direct:start", "two", "messageId", "2");
+        template.sendBodyAndHeader("direct:start", "one again", "messageId", "1");
+        template.sendBodyAndHeader("direct:start", "three", "messageId", "3");
+        template.sendBodyAndHeader("direct:start", "two again", "messageId", "2");
+
+        assertMockEndpointsSatisfied();
+        assertEquals(3, repo.size());
+    }
+
+    public void testAddContainsRemove() throws Exception {
+        assertFalse(repo.contains("foo"));
+        assertTrue(repo.add("foo"));
+        assertFalse(repo.add("foo"));
+        assertTrue(repo.contains("foo"));
+        assertEquals(1, repo.size());
+
+        assertTrue(repo.remove("foo"));
+        assertFalse(repo.remove("foo"));
+        assertFalse(repo.contains("foo"));
+        assertEquals(0, repo.size());
+
+        // can be added again after being removed
+        assertTrue(repo.add("foo"));
+        assertTrue(repo.contains("foo"));
+    }
+
+    public void testReopen() throws Exception {
+        repo.add("foo");
+        repo.add("bar");
+        repo.add("København");
+        repo.remove("bar");
+        repo.stop();
+
+        // the keys should be available from the file without loading them
+        MappedFileIdempotentRepository repo2 = new MappedFileIdempotentRepository(store, 100);
+        try {
+            assertEquals(2, repo2.size());
+            assertTrue(repo2.contains("foo"));
+            assertFalse(repo2.contains("bar"));
+            assertTrue(repo2.contains("København"));
+        } finally {
+            repo2.stop();
+        }
+    }
+
+    public void testUseAfterStop() throws Exception {
+        repo.add("foo");
+        repo.stop();
+
+        // the store is opened again on demand
+        assertTrue(repo.contains("foo"));
+        assertTrue(repo.add("bar"));
+        assertTrue(repo.remove("foo"));
+        assertEquals(1, repo.size());
+    }
+
+    public void testEvictOldestWhenFull() throws Exception {
+        for (int i = 0; i < 500; i++) {
+            repo.add("key-" + i);
+        }
+        repo.compact();
+
+        assertTrue("Should be bounded, was " + repo.size(), repo.size() <= 100);
+        // the newest keys should be kept
+        assertTrue(repo.contains("key-499"));
+        assertTrue(repo.contains("key-450"));
+        assertFalse(repo.contains("key-0"));
+    }
+
+    public void testCompactKeepsKeys() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            repo.add("key-" + i);
+        }
+        for (int i = 0; i < 50; i += 2) {
+            repo.remove("key-" + i);
+        }
+        repo.compact();
+
+        assertEquals(25, repo.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("key-" + i, i % 2 == 1, repo.contains("key-" + i));
+        }
+    }
+
+    public void testSmallFileStore() throws Exception {
+        repo.stop();
+        repo = new MappedFileIdempotentRepository(store, 1000);
+        repo.setMaxFileStoreSize(32 * 1024);
+
+        // should compact and evict to stay within the file size
+        for (int i = 0; i < 2000; i++) {
+            assertTrue(repo.add("a-rather-long-key-to-fill-the-log-quickly-" + i));
+        }
+        assertTrue(repo.contains("a-rather-long-key-to-fill-the-log-quickly-1999"));
+        assertTrue(store.length() <= 32 * 1024);
+    }
+
+    public void testConcurrentAdd() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(executor.submit(new Callable<Integer>() {
+                public Integer call() throws Exception {
+                    int added = 0;
+                    for (int i = 0; i < 50; i++) {
+                        if (repo.add("key-" + i)) {
+                            added++;
+                        }
+                    }
+                    return added;
+                }
+            }));
+        }
+
+        int total = 0;
+        for (Future<Integer> future : futures) {
+            total += future.get();
+        }
+        executor.shutdownNow();
+
+        // each key should only be added once
+        assertEquals(50, total);
+        assertEquals(50, repo.size());
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start")
+                    .idempotentConsumer(header("messageId"), repo)
+                    .to("mock:result");
+            }
+        };
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+
+/**
+ * @version $Revision$
+ */
+public class SplitTokenizerGroupTest extends ContextTestSupport {
+
+    @Override
+    protected void setUp() throws Exception {
+        deleteDirectory("target/splitgroup");
+        super.setUp();
+    }
+
+    public void testSplitFileStreaming() throws Exception {
+        getMockEndpoint("mock:line").expectedBodiesReceived("A", "B", "C", "D", "E");
+
+        template.sendBodyAndHeader("file:target/splitgroup/line", "A\nB\nC\nD\nE\n", Exchange.FILE_NAME, "lines.txt");
+
+        assertMockEndpointsSatisfied();
+    }
+
+    public void testSplitFileGroup() throws Exception {
+        getMockEndpoint("mock:group").expectedBodiesReceived("A\nB", "C\nD", "E");
+
+        template.sendBodyAndHeader("file:target/splitgroup/group", "A\nB\nC\nD\nE\n", Exchange.FILE_NAME, "lines.txt");
+
+        assertMockEndpointsSatisfied();
+    }
+
+    public void testSplitStringGroup() throws Exception {
+        getMockEndpoint("mock:string").expectedBodiesReceived("A,B,C", "D,E");
+
+        template.sendBody("direct:string", "A,B,C,D,E");
+
+        assertMockEndpointsSatisfied();
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("file:target/splitgroup/line?delete=true")
+                    .split(body().tokenize("\n")).streaming()
+                        .to("mock:line");
+
+                from("file:target/splitgroup/group?delete=true")
+                    .split(body().tokenize("\n", 2)).streaming()
+                        .to("mock:group");
+
+                from("direct:string")
+                    .split(body().tokenize(",", 3))
+                        .to("mock:string");
+            }
+        };
+    }
+}
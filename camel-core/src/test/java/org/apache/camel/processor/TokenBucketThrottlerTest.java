@@ -0,0 +1,182 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.camel.CamelExecutionException;
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+
+/**
+ * @version $Revision$
+ */
+public class TokenBucketThrottlerTest extends ContextTestSupport {
+
+    public void testBurst() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:burst");
+        mock.expectedMessageCount(5);
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            template.sendBody("direct:burst", "Hello " + i);
+        }
+        assertMockEndpointsSatisfied();
+        long delta = System.currentTimeMillis() - start;
+        assertTrue("Burst should not be throttled, was: " + delta, delta < 1000);
+
+        // the burst is used so the next should be throttled
+        mock.reset();
+        mock.expectedMessageCount(2);
+        start = System.currentTimeMillis();
+        template.sendBody("direct:burst", "Hello 5");
+        template.sendBody("direct:burst", "Hello 6");
+        assertMockEndpointsSatisfied();
+        delta = System.currentTimeMillis() - start;
+        assertTrue("Should be throttled, was: " + delta, delta >= 400);
+    }
+
+    public void testContinuesOnSchedulerThread() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:burst");
+        mock.expectedMessageCount(6);
+
+        final String caller = Thread.currentThread().getName();
+        for (int i = 0; i < 6; i++) {
+            template.sendBody("direct:burst", "Hello " + i);
+        }
+        assertMockEndpointsSatisfied();
+
+        // the throttled exchange should continue on another thread as we do not block the caller
+        String name = mock.getReceivedExchanges().get(5).getProperty("threadName", String.class);
+        assertFalse(caller.equals(name));
+        assertTrue("Should be a throttle thread, was: " + name, name.contains("Throttle"));
+    }
+
+    public void testPerCorrelationKey() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:key");
+        mock.expectedBodiesReceived("A1", "B1", "C1");
+
+        template.sendBodyAndHeader("direct:key", "A1", "customer", "A");
+        template.sendBodyAndHeader("direct:key", "B1", "customer", "B");
+        template.asyncRequestBodyAndHeader("direct:key", "A2", "customer", "A");
+        template.sendBodyAndHeader("direct:key", "C1", "customer", "C");
+
+        // A2 is throttled for 10 seconds
+        assertMockEndpointsSatisfied();
+    }
+
+    public void testRejectWhenQueueIsFull() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:reject");
+        mock.expectedBodiesReceived("Hello 1");
+
+        template.sendBody("direct:reject", "Hello 1");
+        try {
+            template.sendBody("direct:reject", "Hello 2");
+            fail("Should have thrown an exception");
+        } catch (CamelExecutionException e) {
+            assertIsInstanceOf(RejectedExecutionException.class, e.getCause());
+        }
+
+        assertMockEndpointsSatisfied();
+    }
+
+    public void testTokenBucketCalculus() throws Exception {
+        MyThrottler throttler = new MyThrottler(2, 1000);
+        throttler.setBurstSize(3);
+        throttler.start();
+        try {
+            TokenBucketThrottler.TokenBucket bucket = throttler.getBucket(null);
+            // the burst is available at once
+            assertEquals(0, bucket.acquire(throttler.now));
+            assertEquals(0, bucket.acquire(throttler.now));
+            assertEquals(0, bucket.acquire(throttler.now));
+            // then a permit every 500 millis
+            assertEquals(500000000L, bucket.acquire(throttler.now));
+            assertEquals(1000000000L, bucket.acquire(throttler.now));
+
+            // after a second has passed we are back on track
+            throttler.now += 1000000000L;
+            assertEquals(500000000L, bucket.acquire(throttler.now));
+        } finally {
+            throttler.stop();
+            throttler.getExecutorService().shutdownNow();
+        }
+    }
+
+    public void testGetBucketAfterStop() throws Exception {
+        MyThrottler throttler = new MyThrottler(2, 1000);
+        throttler.start();
+        try {
+            TokenBucketThrottler.TokenBucket bucket = throttler.getBucket(null);
+            assertEquals(0, bucket.acquire(throttler.now));
+            assertEquals(0, bucket.acquire(throttler.now));
+
+            // an exchange in flight while stopping must not fail
+            throttler.stop();
+            assertNotNull(throttler.getBucket(null));
+
+            // and the buckets are full again when restarted
+            throttler.start();
+            assertEquals(0, throttler.getBucket(null).acquire(throttler.now));
+        } finally {
+            throttler.stop();
+            throttler.getExecutorService().shutdownNow();
+        }
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:burst")
+                    .throttle(2).timePeriodMillis(1000).burstSize(5)
+                    .process(new Processor() {
+                        public void process(Exchange exchange) throws Exception {
+                            exchange.setProperty("threadName", Thread.currentThread().getName());
+                        }
+                    })
+                    .to("mock:burst");
+
+                from("direct:key")
+                    .throttle(1).timePeriodMillis(10000).correlationExpression(header("customer"))
+                    .to("mock:key");
+
+                from("direct:reject")
+                    .throttle(1).timePeriodMillis(10000).maximumQueueSize(0)
+                    .to("mock:reject");
+            }
+        };
+    }
+
+    private static class MyThrottler extends TokenBucketThrottler {
+        private long now = 1000000000L;
+
+        MyThrottler(long maximumRequestsPerPeriod, long timePeriodMillis) {
+            super(null, maximumRequestsPerPeriod, timePeriodMillis, Executors.newScheduledThreadPool(1));
+        }
+
+        @Override
+        protected long currentNanoTime() {
+            return now;
+        }
+    }
+}
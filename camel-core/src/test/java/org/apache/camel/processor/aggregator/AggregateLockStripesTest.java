@@ -0,0 +1,166 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.aggregator;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.processor.BodyInAggregatingStrategy;
+import org.apache.camel.processor.SendProcessor;
+import org.apache.camel.processor.aggregate.AggregateProcessor;
+import org.apache.camel.processor.aggregate.MemoryAggregationRepository;
+
+/**
+ * Compares aggregating with a single shared lock against using lock stripes, using
+ * a repository which simulates being IO bound.
+ *
+ * @version $Revision$
+ */
+public class AggregateLockStripesTest extends ContextTestSupport {
+
+    private static final int GROUPS = 20;
+    private static final int SIZE = 5;
+
+    @Override
+    public boolean isUseRouteBuilder() {
+        return false;
+    }
+
+    public void testSingleLock() throws Exception {
+        doSendMessages(0);
+    }
+
+    public void testLockStripes() throws Exception {
+        doSendMessages(16);
+    }
+
+    public void testLockStripesSameKeyInSequence() throws Exception {
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start")
+                    .aggregate(header("id"), new BodyInAggregatingStrategy()).lockStripes(8)
+                        .completionSize(3)
+                        .to("mock:result");
+            }
+        });
+        context.start();
+
+        getMockEndpoint("mock:result").expectedBodiesReceivedInAnyOrder("A+B+C", "D+E+F");
+
+        template.sendBodyAndHeader("direct:start", "A", "id", 1);
+        template.sendBodyAndHeader("direct:start", "D", "id", 2);
+        template.sendBodyAndHeader("direct:start", "B", "id", 1);
+        template.sendBodyAndHeader("direct:start", "E", "id", 2);
+        template.sendBodyAndHeader("direct:start", "C", "id", 1);
+        template.sendBodyAndHeader("direct:start", "F", "id", 2);
+
+        assertMockEndpointsSatisfied();
+    }
+
+    public void testLockStripesNotAllowedWithBatchConsumer() throws Exception {
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        AggregateProcessor ap = new AggregateProcessor(context, new SendProcessor(context.getEndpoint("mock:result")),
+                header("id"), new BodyInAggregatingStrategy(), executorService);
+        ap.setCompletionFromBatchConsumer(true);
+        ap.setLockStripes(8);
+        try {
+            ap.start();
+            fail("Should have thrown an exception");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Option lockStripes cannot be used together with completionFromBatchConsumer.", e.getMessage());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void doSendMessages(final int lockStripes) throws Exception {
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start")
+                    .aggregate(header("id"), new BodyInAggregatingStrategy())
+                        .aggregationRepository(new SlowAggregationRepository()).lockStripes(lockStripes)
+                        .completionSize(SIZE)
+                        .to("mock:result");
+            }
+        });
+        context.start();
+
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedMessageCount(GROUPS);
+        mock.setResultWaitTime(30000);
+
+        long start = System.currentTimeMillis();
+
+        ExecutorService executor = Executors.newFixedThreadPool(GROUPS);
+        for (int i = 0; i < GROUPS; i++) {
+            final String id = "group" + i;
+            executor.submit(new Callable<Object>() {
+                public Object call() throws Exception {
+                    for (int j = 0; j < SIZE; j++) {
+                        template.sendBodyAndHeader("direct:start", "" + j, "id", id);
+                    }
+                    return null;
+                }
+            });
+        }
+
+        assertMockEndpointsSatisfied();
+        executor.shutdownNow();
+
+        for (Exchange exchange : mock.getReceivedExchanges()) {
+            // the same correlation key is aggregated in sequence
+            assertEquals("0+1+2+3+4", exchange.getIn().getBody(String.class));
+        }
+
+        long delta = System.currentTimeMillis() - start;
+        log.info("Aggregated " + GROUPS * SIZE + " messages using " + lockStripes + " lock stripes took " + delta + " ms");
+    }
+
+    /**
+     * Simulates an IO bound repository.
+     */
+    private final class SlowAggregationRepository extends MemoryAggregationRepository {
+
+        @Override
+        public Exchange add(CamelContext camelContext, String key, Exchange exchange) {
+            simulateIO();
+            return super.add(camelContext, key, exchange);
+        }
+
+        @Override
+        public Exchange get(CamelContext camelContext, String key) {
+            simulateIO();
+            return super.get(camelContext, key);
+        }
+
+        private void simulateIO() {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                // ignore
+            }
+        }
+    }
+}
@@ -16,7 +16,7 @@
  */
 package org.apache.camel.processor.resequencer;
 
-public class IntegerComparator implements SequenceElementComparator<Integer> {
+public class IntegerComparator implements SequenceNumberComparator<Integer> {
 
     public boolean predecessor(Integer o1, Integer o2) {
         return o1.intValue() == (o2.intValue() - 1);
@@ -30,4 +30,8 @@ public class IntegerComparator implements SequenceElementComparator<Integer> {
         return o1.compareTo(o2);
     }
 
+    public long getSequenceNumber(Integer o) {
+        return o.longValue();
+    }
+
 }
@@ -0,0 +1,176 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.resequencer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * @version $Revision$
+ */
+public class RingBufferResequencerEngineTest extends TestCase {
+
+    private RingBufferResequencerEngine<Integer> engine;
+    private SequenceBuffer<Integer> buffer;
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (engine != null) {
+            engine.stop();
+        }
+    }
+
+    private void initEngine(long timeout, int capacity) {
+        buffer = new SequenceBuffer<Integer>();
+        engine = new RingBufferResequencerEngine<Integer>(new IntegerComparator());
+        engine.setSequenceSender(buffer);
+        engine.setTimeout(timeout);
+        engine.setCapacity(capacity);
+        engine.start();
+    }
+
+    public void testInSequence() throws Exception {
+        initEngine(500, 16);
+        engine.setLastDelivered(0);
+        engine.insert(1);
+        engine.insert(2);
+        engine.insert(3);
+        engine.deliver();
+
+        assertEquals(3, buffer.size());
+        assertEquals((Integer) 1, buffer.take());
+        assertEquals((Integer) 2, buffer.take());
+        assertEquals((Integer) 3, buffer.take());
+        assertEquals((Integer) 3, engine.getLastDelivered());
+        assertEquals(0, engine.size());
+    }
+
+    public void testOutOfSequence() throws Exception {
+        initEngine(500, 16);
+        engine.setLastDelivered(2);
+        engine.insert(5);
+        engine.insert(4);
+        engine.deliver();
+        assertEquals(0, buffer.size());
+
+        engine.insert(3);
+        engine.deliver();
+        assertEquals((Integer) 3, buffer.take());
+        assertEquals((Integer) 4, buffer.take());
+        assertEquals((Integer) 5, buffer.take());
+        assertEquals(0, engine.getGapCount());
+    }
+
+    public void testFirstElementWaitsForTimeout() throws Exception {
+        initEngine(200, 16);
+        engine.insert(4);
+        engine.deliver();
+        assertEquals(0, buffer.size());
+
+        // an earlier element arriving within the timeout is delivered first
+        engine.insert(3);
+        Thread.sleep(250);
+        engine.deliver();
+        assertEquals((Integer) 3, buffer.take());
+        assertEquals((Integer) 4, buffer.take());
+        assertEquals((Integer) 4, engine.getLastDelivered());
+    }
+
+    public void testGapTimeout() throws Exception {
+        initEngine(200, 16);
+        engine.setLastDelivered(2);
+        engine.insert(4);
+        engine.insert(5);
+        engine.deliver();
+        assertEquals(0, buffer.size());
+
+        Thread.sleep(250);
+        engine.deliver();
+        assertEquals((Integer) 4, buffer.take());
+        assertEquals((Integer) 5, buffer.take());
+        assertEquals(1, engine.getGapCount());
+    }
+
+    public void testLateElement() throws Exception {
+        initEngine(200, 16);
+        engine.setLastDelivered(5);
+        engine.insert(3);
+        engine.insert(6);
+        engine.deliver();
+
+        assertEquals((Integer) 3, buffer.take());
+        assertEquals((Integer) 6, buffer.take());
+        assertEquals(1, engine.getLateCount());
+    }
+
+    public void testDuplicateIgnored() throws Exception {
+        initEngine(200, 16);
+        engine.setLastDelivered(0);
+        engine.insert(2);
+        engine.insert(2);
+        assertEquals(1, engine.size());
+    }
+
+    public void testWindowMovesWhenNothingPending() throws Exception {
+        initEngine(200, 16);
+        engine.setLastDelivered(0);
+        engine.insert(100);
+        assertEquals(1, engine.size());
+        assertEquals(0, engine.getOutOfWindowCount());
+    }
+
+    public void testBackpressureBeyondWindow() throws Exception {
+        initEngine(5000, 4);
+        engine.setLastDelivered(0);
+        engine.insert(2);
+
+        // 5 is beyond the window 1..4 so the insert waits
+        final CountDownLatch inserted = new CountDownLatch(1);
+        Thread producer = new Thread() {
+            public void run() {
+                engine.insert(5);
+                inserted.countDown();
+            }
+        };
+        producer.start();
+        assertFalse("Should wait for the window to move", inserted.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(1, engine.getOutOfWindowCount());
+
+        engine.insert(1);
+        engine.deliver();
+        assertTrue("Should be inserted when the window has moved", inserted.await(5, TimeUnit.SECONDS));
+
+        assertEquals((Integer) 1, buffer.take());
+        assertEquals((Integer) 2, buffer.take());
+        assertEquals(1, engine.size());
+    }
+
+    public void testReverse() throws Exception {
+        initEngine(100, 128);
+        for (int i = 99; i >= 0; i--) {
+            engine.insert(i);
+        }
+        Thread.sleep(150);
+        engine.deliver();
+        for (int i = 0; i < 100; i++) {
+            assertEquals((Integer) i, buffer.take());
+        }
+        assertEquals(0, engine.getGapCount());
+    }
+}
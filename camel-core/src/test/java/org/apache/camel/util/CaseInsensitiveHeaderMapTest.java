@@ -0,0 +1,715 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * @version $Revision$
+ */
+public class CaseInsensitiveHeaderMapTest extends TestCase {
+
+    private static final Log LOG = LogFactory.getLog(CaseInsensitiveHeaderMapTest.class);
+
+    public void testLookupCaseAgnostic() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        assertNull(map.get("foo"));
+
+        map.put("foo", "cheese");
+
+        assertEquals("cheese", map.get("foo"));
+        assertEquals("cheese", map.get("Foo"));
+        assertEquals("cheese", map.get("FOO"));
+    }
+
+    public void testLookupCaseAgnosticAddHeader() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        assertNull(map.get("foo"));
+
+        map.put("foo", "cheese");
+
+        assertEquals("cheese", map.get("foo"));
+        assertEquals("cheese", map.get("Foo"));
+        assertEquals("cheese", map.get("FOO"));
+        assertNull(map.get("unknown"));
+
+        map.put("bar", "beer");
+
+        assertEquals("beer", map.get("bar"));
+        assertEquals("beer", map.get("Bar"));
+        assertEquals("beer", map.get("BAR"));
+        assertNull(map.get("unknown"));
+    }
+
+    public void testLookupCaseAgnosticAddHeader2() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        assertNull(map.get("foo"));
+
+        map.put("foo", "cheese");
+
+        assertEquals("cheese", map.get("FOO"));
+        assertEquals("cheese", map.get("foo"));
+        assertEquals("cheese", map.get("Foo"));
+        assertNull(map.get("unknown"));
+
+        map.put("bar", "beer");
+
+        assertEquals("beer", map.get("BAR"));
+        assertEquals("beer", map.get("bar"));
+        assertEquals("beer", map.get("Bar"));
+        assertNull(map.get("unknown"));
+    }
+
+    public void testLookupCaseAgnosticAddHeaderRemoveHeader() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        assertNull(map.get("foo"));
+
+        map.put("foo", "cheese");
+
+        assertEquals("cheese", map.get("foo"));
+        assertEquals("cheese", map.get("Foo"));
+        assertEquals("cheese", map.get("FOO"));
+        assertNull(map.get("unknown"));
+
+        map.put("bar", "beer");
+
+        assertEquals("beer", map.get("bar"));
+        assertEquals("beer", map.get("Bar"));
+        assertEquals("beer", map.get("BAR"));
+        assertNull(map.get("unknown"));
+
+        map.remove("bar");
+        assertNull(map.get("bar"));
+        assertNull(map.get("unknown"));
+    }
+
+    public void testSetWithDifferentCase() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        assertNull(map.get("foo"));
+
+        map.put("foo", "cheese");
+        map.put("Foo", "bar");
+
+        assertEquals("bar", map.get("FOO"));
+        assertEquals("bar", map.get("foo"));
+        assertEquals("bar", map.get("Foo"));
+    }
+
+    public void testRemoveWithDifferentCase() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        assertNull(map.get("foo"));
+
+        map.put("foo", "cheese");
+        map.put("Foo", "bar");
+
+        assertEquals("bar", map.get("FOO"));
+        assertEquals("bar", map.get("foo"));
+        assertEquals("bar", map.get("Foo"));
+
+        map.remove("FOO");
+
+        assertEquals(null, map.get("foo"));
+        assertEquals(null, map.get("Foo"));
+        assertEquals(null, map.get("FOO"));
+
+        assertTrue(map.isEmpty());
+    }
+
+    public void testPutAll() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        assertNull(map.get("foo"));
+
+        Map<String, Object> other = new CaseInsensitiveHeaderMap();
+        other.put("Foo", "cheese");
+        other.put("bar", 123);
+
+        map.putAll(other);
+
+        assertEquals("cheese", map.get("FOO"));
+        assertEquals("cheese", map.get("foo"));
+        assertEquals("cheese", map.get("Foo"));
+
+        assertEquals(123, map.get("BAR"));
+        assertEquals(123, map.get("bar"));
+        assertEquals(123, map.get("BaR"));
+
+        // key case should be preserved
+        Map<String, Object> keys = new HashMap<String, Object>();
+        keys.putAll(map);
+
+        assertEquals("cheese", keys.get("Foo"));
+        assertNull(keys.get("foo"));
+        assertNull(keys.get("FOO"));
+
+        assertEquals(123, keys.get("bar"));
+        assertNull(keys.get("Bar"));
+        assertNull(keys.get("BAR"));
+    }
+
+    public void testPutAllOther() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        assertNull(map.get("foo"));
+
+        Map<String, Object> other = new HashMap<String, Object>();
+        other.put("Foo", "cheese");
+        other.put("bar", 123);
+
+        map.putAll(other);
+
+        assertEquals("cheese", map.get("FOO"));
+        assertEquals("cheese", map.get("foo"));
+        assertEquals("cheese", map.get("Foo"));
+
+        assertEquals(123, map.get("BAR"));
+        assertEquals(123, map.get("bar"));
+        assertEquals(123, map.get("BaR"));
+    }
+
+    public void testPutAllEmpty() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        map.put("foo", "cheese");
+
+        Map<String, Object> other = new HashMap<String, Object>();
+        map.putAll(other);
+
+        assertEquals("cheese", map.get("FOO"));
+        assertEquals("cheese", map.get("foo"));
+        assertEquals("cheese", map.get("Foo"));
+
+        assertEquals(1, map.size());
+    }
+
+    public void testConstructFromOther() {
+        Map<String, Object> other = new HashMap<String, Object>();
+        other.put("Foo", "cheese");
+        other.put("bar", 123);
+
+        Map<String, Object> map = new CaseInsensitiveHeaderMap(other);
+
+        assertEquals("cheese", map.get("FOO"));
+        assertEquals("cheese", map.get("foo"));
+        assertEquals("cheese", map.get("Foo"));
+
+        assertEquals(123, map.get("BAR"));
+        assertEquals(123, map.get("bar"));
+        assertEquals(123, map.get("BaR"));
+    }
+
+    public void testKeySet() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        map.put("Foo", "cheese");
+        map.put("BAR", 123);
+        map.put("baZ", "beer");
+
+        Set keys = map.keySet();
+
+        // we should be able to lookup no matter what case
+        assertTrue(keys.contains("Foo"));
+        assertTrue(keys.contains("foo"));
+        assertTrue(keys.contains("FOO"));
+
+        assertTrue(keys.contains("BAR"));
+        assertTrue(keys.contains("bar"));
+        assertTrue(keys.contains("Bar"));
+
+        assertTrue(keys.contains("baZ"));
+        assertTrue(keys.contains("baz"));
+        assertTrue(keys.contains("Baz"));
+        assertTrue(keys.contains("BAZ"));
+    }
+
+    public void testRetainKeysCopyToAnotherMap() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        map.put("Foo", "cheese");
+        map.put("BAR", 123);
+        map.put("baZ", "beer");
+
+        Map<String, Object> other = new HashMap<String, Object>(map);
+
+        // we should retain the cases of the original keys
+        // when its copied to another map
+        assertTrue(other.containsKey("Foo"));
+        assertFalse(other.containsKey("foo"));
+        assertFalse(other.containsKey("FOO"));
+
+        assertTrue(other.containsKey("BAR"));
+        assertFalse(other.containsKey("bar"));
+        assertFalse(other.containsKey("Bar"));
+
+        assertTrue(other.containsKey("baZ"));
+        assertFalse(other.containsKey("baz"));
+        assertFalse(other.containsKey("Baz"));
+        assertFalse(other.containsKey("BAZ"));
+    }
+
+    public void testValues() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        map.put("Foo", "cheese");
+        map.put("BAR", "123");
+        map.put("baZ", "Beer");
+
+        Iterator it = map.values().iterator();
+
+        // should be String values
+        assertEquals("String", it.next().getClass().getSimpleName());
+        assertEquals("String", it.next().getClass().getSimpleName());
+        assertEquals("String", it.next().getClass().getSimpleName());
+
+        Collection values = map.values();
+        assertEquals(3, values.size());
+        assertTrue(values.contains("cheese"));
+        assertTrue(values.contains("123"));
+        assertTrue(values.contains("Beer"));
+    }
+
+    public void testRomeks() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        map.put("foo", "cheese");
+
+        assertEquals(1, map.size());
+        assertEquals("cheese", map.get("fOo"));
+        assertEquals(true, map.containsKey("foo"));
+        assertEquals(true, map.containsKey("FOO"));
+
+        assertEquals(true, map.keySet().contains("FOO"));
+
+        map.put("FOO", "cake");
+        assertEquals(1, map.size());
+        assertEquals(true, map.containsKey("foo"));
+        assertEquals(true, map.containsKey("FOO"));
+
+        assertEquals("cake", map.get("fOo"));
+    }
+
+    public void testRomeksUsingRegularHashMap() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("foo", "cheese");
+
+        assertEquals(1, map.size());
+        assertEquals(null, map.get("fOo"));
+        assertEquals(true, map.containsKey("foo"));
+        assertEquals(false, map.containsKey("FOO"));
+
+        assertEquals(false, map.keySet().contains("FOO"));
+
+        map.put("FOO", "cake");
+        assertEquals(2, map.size());
+        assertEquals(true, map.containsKey("foo"));
+        assertEquals(true, map.containsKey("FOO"));
+
+        assertEquals(null, map.get("fOo"));
+        assertEquals("cheese", map.get("foo"));
+        assertEquals("cake", map.get("FOO"));
+    }
+
+    public void testRomeksTransferredToHashMapAfterwards() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        map.put("Foo", "cheese");
+        map.put("FOO", "cake");
+        assertEquals(1, map.size());
+        assertEquals(true, map.containsKey("foo"));
+        assertEquals(true, map.containsKey("FOO"));
+
+        Map<String, Object> other = new HashMap<String, Object>(map);
+        assertEquals(false, other.containsKey("foo"));
+        assertEquals(true, other.containsKey("FOO"));
+        assertEquals(1, other.size());
+    }
+
+    public void testSerialization() throws Exception {
+        CaseInsensitiveHeaderMap testMap = new CaseInsensitiveHeaderMap();
+        testMap.put("key", "value");
+        // force entry set to be created which could cause the map to be non serializable
+        testMap.entrySet();
+
+        ByteArrayOutputStream bStream = new ByteArrayOutputStream();
+        ObjectOutputStream objStream = new ObjectOutputStream(bStream);
+        objStream.writeObject(testMap);
+
+        ObjectInputStream inStream = new ObjectInputStream(new ByteArrayInputStream(bStream.toByteArray()));
+        CaseInsensitiveHeaderMap testMapCopy = (CaseInsensitiveHeaderMap) inStream.readObject();
+
+        assertTrue(testMapCopy.containsKey("key"));
+    }
+
+    public void testCopyToAnotherMapPreserveKeyCaseEntrySet() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        map.put("Foo", "cheese");
+        map.put("BAR", "cake");
+        assertEquals(2, map.size());
+        assertEquals(true, map.containsKey("foo"));
+        assertEquals(true, map.containsKey("bar"));
+
+        Map<String, Object> other = new HashMap<String, Object>();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            other.put(key, value);
+        }
+
+        assertEquals(false, other.containsKey("foo"));
+        assertEquals(true, other.containsKey("Foo"));
+        assertEquals(false, other.containsKey("bar"));
+        assertEquals(true, other.containsKey("BAR"));
+        assertEquals(2, other.size());
+    }
+
+    public void testCopyToAnotherMapPreserveKeyCasePutAll() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        map.put("Foo", "cheese");
+        map.put("BAR", "cake");
+        assertEquals(2, map.size());
+        assertEquals(true, map.containsKey("foo"));
+        assertEquals(true, map.containsKey("bar"));
+
+        Map<String, Object> other = new HashMap<String, Object>();
+        other.putAll(map);
+
+        assertEquals(false, other.containsKey("foo"));
+        assertEquals(true, other.containsKey("Foo"));
+        assertEquals(false, other.containsKey("bar"));
+        assertEquals(true, other.containsKey("BAR"));
+        assertEquals(2, other.size());
+    }
+
+    public void testCopyToAnotherMapPreserveKeyCaseCtr() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        map.put("Foo", "cheese");
+        map.put("BAR", "cake");
+        assertEquals(2, map.size());
+        assertEquals(true, map.containsKey("foo"));
+        assertEquals(true, map.containsKey("bar"));
+
+        Map<String, Object> other = new HashMap<String, Object>(map);
+
+        assertEquals(false, other.containsKey("foo"));
+        assertEquals(true, other.containsKey("Foo"));
+        assertEquals(false, other.containsKey("bar"));
+        assertEquals(true, other.containsKey("BAR"));
+        assertEquals(2, other.size());
+    }
+
+    public void testCopyToAnotherMapPreserveKeyKeySet() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        map.put("Foo", "cheese");
+        map.put("BAR", "cake");
+        assertEquals(2, map.size());
+        assertEquals(true, map.containsKey("foo"));
+        assertEquals(true, map.containsKey("bar"));
+
+        Map<String, Object> other = new HashMap<String, Object>();
+
+        for (String key : map.keySet()) {
+            Object value = map.get(key);
+            other.put(key, value);
+        }
+
+        // the key set also preserves the case of the keys
+        assertEquals(false, other.containsKey("foo"));
+        assertEquals(true, other.containsKey("Foo"));
+        assertEquals(false, other.containsKey("bar"));
+        assertEquals(true, other.containsKey("BAR"));
+        assertEquals(2, other.size());
+    }
+
+    public void testSerializationManyKeys() throws Exception {
+        CaseInsensitiveHeaderMap testMap = new CaseInsensitiveHeaderMap();
+        for (int i = 0; i < 100; i++) {
+            testMap.put("Key" + i, i);
+        }
+
+        ByteArrayOutputStream bStream = new ByteArrayOutputStream();
+        ObjectOutputStream objStream = new ObjectOutputStream(bStream);
+        objStream.writeObject(testMap);
+
+        ObjectInputStream inStream = new ObjectInputStream(new ByteArrayInputStream(bStream.toByteArray()));
+        CaseInsensitiveHeaderMap testMapCopy = (CaseInsensitiveHeaderMap) inStream.readObject();
+
+        assertEquals(100, testMapCopy.size());
+        assertEquals(testMap, testMapCopy);
+        assertEquals(42, testMapCopy.get("KEY42"));
+    }
+
+    public void testCopyOnWrite() {
+        CaseInsensitiveHeaderMap map = new CaseInsensitiveHeaderMap();
+        map.put("Foo", "cheese");
+        map.put("BAR", "cake");
+
+        CaseInsensitiveHeaderMap copy = map.copy();
+        assertEquals(2, copy.size());
+        assertEquals("cheese", copy.get("foo"));
+        assertEquals("cake", copy.get("bar"));
+
+        // changing the copy should not affect the original
+        copy.put("foo", "beer");
+        copy.put("Baz", "wine");
+        copy.remove("BAR");
+
+        assertEquals(2, map.size());
+        assertEquals("cheese", map.get("FOO"));
+        assertEquals("cake", map.get("BAR"));
+        assertNull(map.get("baz"));
+
+        assertEquals(2, copy.size());
+        assertEquals("beer", copy.get("FOO"));
+        assertEquals("wine", copy.get("baz"));
+        assertNull(copy.get("bar"));
+
+        // and changing the original should not affect the copy
+        CaseInsensitiveHeaderMap copy2 = map.copy();
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(2, copy2.size());
+        assertEquals("cheese", copy2.get("foo"));
+        assertEquals("cake", copy2.get("bar"));
+    }
+
+    public void testCopyOnWriteSetValue() {
+        CaseInsensitiveHeaderMap map = new CaseInsensitiveHeaderMap();
+        map.put("Foo", "cheese");
+
+        CaseInsensitiveHeaderMap copy = map.copy();
+        copy.put("FOO", "beer");
+
+        assertEquals("cheese", map.get("foo"));
+        assertEquals("Foo", map.keySet().iterator().next());
+        assertEquals("beer", copy.get("foo"));
+        assertEquals("FOO", copy.keySet().iterator().next());
+    }
+
+    public void testPutAllShares() {
+        CaseInsensitiveHeaderMap map = new CaseInsensitiveHeaderMap();
+        map.put("Foo", "cheese");
+
+        CaseInsensitiveHeaderMap other = new CaseInsensitiveHeaderMap();
+        other.putAll(map);
+        other.put("bar", "beer");
+
+        assertEquals(1, map.size());
+        assertEquals(2, other.size());
+        assertEquals("cheese", other.get("FOO"));
+    }
+
+    public void testCopyOnWriteEntrySetValue() {
+        CaseInsensitiveHeaderMap map = new CaseInsensitiveHeaderMap();
+        for (int i = 0; i < 10; i++) {
+            map.put("Foo" + i, i);
+        }
+        CaseInsensitiveHeaderMap copy = map.copy();
+
+        // changing the values using the entries of the original should not affect the copy
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            Integer old = (Integer) entry.getValue();
+            assertEquals(old, entry.setValue(old + 100));
+            assertEquals(old + 100, entry.getValue());
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i + 100, map.get("foo" + i));
+            assertEquals(i, copy.get("foo" + i));
+        }
+
+        // and the other way around
+        for (Map.Entry<String, Object> entry : copy.entrySet()) {
+            entry.setValue("copy");
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i + 100, map.get("foo" + i));
+            assertEquals("copy", copy.get("foo" + i));
+        }
+    }
+
+    public void testPutAllEntrySetValue() {
+        CaseInsensitiveHeaderMap map = new CaseInsensitiveHeaderMap();
+        map.put("Foo", "cheese");
+
+        CaseInsensitiveHeaderMap other = new CaseInsensitiveHeaderMap();
+        other.putAll(map);
+
+        Map.Entry<String, Object> entry = other.entrySet().iterator().next();
+        entry.setValue("beer");
+
+        assertEquals("beer", other.get("foo"));
+        assertEquals("cheese", map.get("foo"));
+
+        // the entry is still connected to the map it came from
+        entry.setValue("wine");
+        assertEquals("wine", other.get("foo"));
+        assertEquals("cheese", map.get("foo"));
+    }
+
+    public void testEntrySetValueAfterRemove() {
+        CaseInsensitiveHeaderMap map = new CaseInsensitiveHeaderMap();
+        map.put("Foo", "cheese");
+        CaseInsensitiveHeaderMap copy = map.copy();
+
+        Map.Entry<String, Object> entry = map.entrySet().iterator().next();
+        map.remove("foo");
+        assertEquals("cheese", entry.setValue("beer"));
+        assertEquals("beer", entry.getValue());
+
+        assertTrue(map.isEmpty());
+        assertEquals("cheese", copy.get("foo"));
+    }
+
+    public void testRemoveWhileIterating() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        for (int i = 0; i < 10; i++) {
+            map.put("Foo" + i, i);
+        }
+
+        // remove using the map while iterating
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            Integer value = (Integer) entry.getValue();
+            if (value % 2 == 0) {
+                map.remove(entry.getKey());
+            }
+        }
+        assertEquals(5, map.size());
+
+        // remove using the iterator
+        for (Iterator<String> it = map.keySet().iterator(); it.hasNext();) {
+            String key = it.next();
+            if (key.equals("Foo3")) {
+                it.remove();
+            }
+        }
+        assertEquals(4, map.size());
+        assertNull(map.get("foo3"));
+        assertEquals(1, map.get("foo1"));
+    }
+
+    public void testRemoveWhileIteratingShared() {
+        CaseInsensitiveHeaderMap map = new CaseInsensitiveHeaderMap();
+        for (int i = 0; i < 10; i++) {
+            map.put("Foo" + i, i);
+        }
+        CaseInsensitiveHeaderMap copy = map.copy();
+
+        int count = 0;
+        for (Map.Entry<String, Object> entry : copy.entrySet()) {
+            copy.remove(entry.getKey());
+            count++;
+        }
+        assertEquals(10, count);
+        assertEquals(0, copy.size());
+        assertEquals(10, map.size());
+    }
+
+    public void testManyKeys() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        for (int i = 0; i < 1000; i++) {
+            map.put("Key" + i, i);
+        }
+        assertEquals(1000, map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, map.get("KEY" + i));
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            assertEquals(i, map.remove("key" + i));
+        }
+        assertEquals(500, map.size());
+        assertEquals(500, map.entrySet().size());
+        int count = 0;
+        for (String key : map.keySet()) {
+            assertTrue(key.startsWith("Key"));
+            count++;
+        }
+        assertEquals(500, count);
+    }
+
+    public void testNonAsciiKeys() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        map.put("Stra\u00dfe", "street");
+        map.put("\u00c6BLE", "apple");
+
+        assertEquals("street", map.get("STRA\u00dfE"));
+        assertEquals("apple", map.get("\u00e6ble"));
+        assertEquals("apple", map.get("\u00c6ble"));
+    }
+
+    public void testNullKey() {
+        Map<String, Object> map = new CaseInsensitiveHeaderMap();
+        assertNull(map.get(null));
+        assertFalse(map.containsKey(null));
+        assertNull(map.remove(null));
+    }
+
+    public void testPerformance() {
+        doTestPerformance(10);
+        doTestPerformance(50);
+    }
+
+    private void doTestPerformance(int headers) {
+        String[] keys = new String[headers];
+        String[] lookups = new String[headers];
+        for (int i = 0; i < headers; i++) {
+            keys[i] = "CamelHeader" + i;
+            lookups[i] = "camelheader" + i;
+        }
+
+        int rounds = 20000;
+        StopWatch watch = new StopWatch();
+        for (int j = 0; j < rounds; j++) {
+            Map<String, Object> map = new CaseInsensitiveMap();
+            doPerformanceRound(map, keys, lookups);
+        }
+        long old = watch.stop();
+
+        watch = new StopWatch();
+        for (int j = 0; j < rounds; j++) {
+            Map<String, Object> map = new CaseInsensitiveHeaderMap();
+            doPerformanceRound(map, keys, lookups);
+        }
+        long taken = watch.stop();
+
+        LOG.info("Put/get/copy/iterate " + headers + " headers " + rounds + " times: CaseInsensitiveMap took "
+                + TimeUtils.printDuration(old) + ", CaseInsensitiveHeaderMap took " + TimeUtils.printDuration(taken));
+    }
+
+    private void doPerformanceRound(Map<String, Object> map, String[] keys, String[] lookups) {
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        for (int i = 0; i < lookups.length; i++) {
+            map.get(lookups[i]);
+            map.containsKey(lookups[i]);
+        }
+        Map<String, Object> copy;
+        if (map instanceof CaseInsensitiveHeaderMap) {
+            copy = ((CaseInsensitiveHeaderMap) map).copy();
+        } else {
+            copy = new CaseInsensitiveMap(map);
+        }
+        copy.put(keys[0], "changed");
+        for (Map.Entry<String, Object> entry : copy.entrySet()) {
+            entry.getValue();
+        }
+    }
+
+}
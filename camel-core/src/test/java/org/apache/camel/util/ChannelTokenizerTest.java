@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * @version $Revision$
+ */
+public class ChannelTokenizerTest extends TestCase {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private List<Object> tokenize(String text, String delimiter, int group) throws Exception {
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(text.getBytes("UTF-8")));
+        ChannelTokenizer tokenizer = new ChannelTokenizer(channel, UTF8, delimiter, group, true);
+        List<Object> answer = new ArrayList<Object>();
+        while (tokenizer.hasNext()) {
+            answer.add(tokenizer.next());
+        }
+        return answer;
+    }
+
+    private String tokens(String text, String delimiter, int group) throws Exception {
+        return tokenize(text, delimiter, group).toString();
+    }
+
+    public void testTokenize() throws Exception {
+        assertEquals("[a, b, c]", tokens("a,b,c", ",", 1));
+        assertEquals("[Hello, World]", tokens("Hello\nWorld\n", "\n", 1));
+        assertEquals("[a, b, c]", tokens("a<>b<>c", "<>", 1));
+        assertEquals("[æøå, €]", tokens("æøå;€", ";", 1));
+    }
+
+    public void testTokenizeLikeScanner() throws Exception {
+        assertEquals("[a, , b]", tokens("a,,b", ",", 1));
+        assertEquals("[a, b]", tokens(",a,b", ",", 1));
+        assertEquals("[a, b]", tokens("a,b,", ",", 1));
+        assertEquals("[a, b, ]", tokens("a,b,,", ",", 1));
+        assertEquals("[]", tokens("", ",", 1));
+        assertEquals("[]", tokens(",", ",", 1));
+    }
+
+    public void testGroup() throws Exception {
+        assertEquals("[a\nb, c\nd, e]", tokens("a\nb\nc\nd\ne\n", "\n", 2));
+        assertEquals("[a,b,c, d,e,f]", tokens("a,b,c,d,e,f", ",", 3));
+        assertEquals("[a,b]", tokens("a,b", ",", 5));
+    }
+
+    public void testTokenLargerThanBuffer() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < ChannelTokenizer.DEFAULT_BUFFER_SIZE * 3; i++) {
+            sb.append('x');
+        }
+        String big = sb.toString();
+
+        List<Object> tokens = tokenize("a," + big + ",b", ",", 1);
+        assertEquals(3, tokens.size());
+        assertEquals("a", tokens.get(0));
+        assertEquals(big, tokens.get(1));
+        assertEquals("b", tokens.get(2));
+    }
+
+    public void testMappedFile() throws Exception {
+        File file = new File("target/tokenizer/mapped.txt");
+        file.getParentFile().mkdirs();
+        int lines = 20000;
+        FileOutputStream fos = new FileOutputStream(file);
+        try {
+            for (int i = 0; i < lines; i++) {
+                fos.write(("line-" + i + "\r\n").getBytes("UTF-8"));
+            }
+        } finally {
+            fos.close();
+        }
+
+        // use small regions so the file is mapped many times and tokens span regions
+        FileInputStream fis = new FileInputStream(file);
+        ChannelTokenizer tokenizer = new ChannelTokenizer(fis.getChannel(), UTF8, "\r\n", 1, true, 1000);
+        int count = 0;
+        while (tokenizer.hasNext()) {
+            assertEquals("line-" + count, tokenizer.next());
+            count++;
+        }
+        assertEquals(lines, count);
+        assertFalse("Channel should be closed", fis.getChannel().isOpen());
+    }
+
+    public void testNextBuffer() throws Exception {
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream("abc|de".getBytes("UTF-8")));
+        ChannelTokenizer tokenizer = new ChannelTokenizer(channel, UTF8, "|");
+
+        ByteBuffer buffer = tokenizer.nextBuffer();
+        assertEquals(3, buffer.remaining());
+        assertEquals('a', buffer.get(0));
+        assertEquals("de", tokenizer.nextCharBuffer().toString());
+        assertFalse(tokenizer.hasNext());
+    }
+
+    public void testUnsupportedCharset() throws Exception {
+        assertTrue(ChannelTokenizer.isSupportedCharset(Charset.forName("ISO-8859-1")));
+        assertTrue(ChannelTokenizer.isSupportedCharset(Charset.forName("US-ASCII")));
+        assertFalse(ChannelTokenizer.isSupportedCharset(Charset.forName("UTF-16")));
+
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(new byte[0]));
+        try {
+            new ChannelTokenizer(channel, Charset.forName("UTF-16"), ",");
+            fail("Should have thrown an exception");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+import org.apache.camel.Service;
+
+/**
+ * @version $Revision$
+ */
+public class ConcurrentLRUCacheTest extends TestCase {
+
+    private ConcurrentLRUCache<String, Service> cache;
+
+    @Override
+    protected void setUp() throws Exception {
+        cache = new ConcurrentLRUCache<String, Service>(3);
+    }
+
+    public void testConcurrentLRUCache() {
+        MyService service1 = new MyService();
+        MyService service2 = new MyService();
+
+        cache.put("A", service1);
+        cache.put("B", service2);
+
+        assertEquals(2, cache.size());
+
+        assertSame(service1, cache.get("A"));
+        assertSame(service2, cache.get("B"));
+        assertNull(cache.get("C"));
+
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.getEvicted());
+
+        cache.resetStatistics();
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+
+    public void testEvictLeastRecentlyUsed() {
+        cache.put("A", new MyService());
+        cache.put("B", new MyService());
+        cache.put("C", new MyService());
+
+        // A is used so B should be evicted
+        cache.get("A");
+        cache.put("D", new MyService());
+
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvicted());
+        assertTrue(cache.containsKey("A"));
+        assertFalse(cache.containsKey("B"));
+        assertTrue(cache.containsKey("C"));
+        assertTrue(cache.containsKey("D"));
+    }
+
+    public void testPutIfAbsentAndRemove() {
+        MyService service1 = new MyService();
+        MyService service2 = new MyService();
+
+        assertNull(cache.putIfAbsent("A", service1));
+        assertSame(service1, cache.putIfAbsent("A", service2));
+        assertSame(service1, cache.put("A", service2));
+        assertSame(service2, cache.get("A"));
+        assertEquals(1, cache.size());
+
+        assertFalse(cache.remove("A", service1));
+        assertTrue(cache.remove("A", service2));
+        assertEquals(0, cache.size());
+        assertNull(cache.remove("A"));
+
+        cache.put("B", service1);
+        cache.put("C", service2);
+        assertEquals(2, cache.values().size());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertTrue(cache.isEmpty());
+    }
+
+    public void testConcurrentLRUCacheStop() throws Exception {
+        MyService service1 = new MyService();
+        MyService service2 = new MyService();
+
+        cache.put("A", service1);
+        cache.put("B", service2);
+
+        assertEquals(false, service1.isStopped());
+        assertEquals(false, service2.isStopped());
+
+        cache.stop();
+
+        assertEquals(0, cache.size());
+
+        assertEquals(true, service1.isStopped());
+        assertEquals(true, service2.isStopped());
+    }
+
+    public void testConcurrentPut() throws Exception {
+        final ConcurrentLRUCache<Integer, Integer> cache = new ConcurrentLRUCache<Integer, Integer>(100);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Object>> futures = new ArrayList<Future<Object>>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(executor.submit(new Callable<Object>() {
+                public Object call() throws Exception {
+                    for (int i = 0; i < 1000; i++) {
+                        cache.put(i, i);
+                        cache.get(i / 2);
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (Future<Object> future : futures) {
+            future.get();
+        }
+        executor.shutdownNow();
+
+        assertEquals(100, cache.size());
+        assertEquals(100, cache.entrySet().size());
+        // the last added should be kept
+        assertEquals(Integer.valueOf(999), cache.get(999));
+    }
+
+    private final class MyService implements Service {
+
+        private boolean stopped;
+
+        public void start() throws Exception {
+        }
+
+        public void stop() throws Exception {
+            stopped = true;
+        }
+
+        public boolean isStopped() {
+            return stopped;
+        }
+    }
+}
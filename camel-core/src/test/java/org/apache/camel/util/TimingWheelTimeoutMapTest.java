@@ -0,0 +1,259 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import junit.framework.TestCase;
+import org.apache.camel.util.concurrent.ExecutorServiceHelper;
+
+/**
+ * @version $Revision$
+ */
+public class TimingWheelTimeoutMapTest extends TestCase {
+
+    public void testTimingWheelTimeoutMap() {
+        TimingWheelTimeoutMap map = new TimingWheelTimeoutMap();
+        assertTrue(map.currentTime() > 0);
+
+        assertEquals(0, map.size());
+        assertEquals(TimingWheelTimeoutMap.DEFAULT_TICKS_PER_WHEEL, map.getTicksPerWheel());
+    }
+
+    public void testTicksPerWheelPowerOfTwo() {
+        TimingWheelTimeoutMap map = new TimingWheelTimeoutMap(null, 100, true, 100);
+        assertEquals(128, map.getTicksPerWheel());
+    }
+
+    public void testTimingWheelTimeoutMapPurge() throws Exception {
+        TimingWheelTimeoutMap<String, Integer> map = new TimingWheelTimeoutMap<String, Integer>(null, 100);
+
+        map.put("A", 123, 500);
+        map.put("B", 456, 5000);
+        assertEquals(2, map.size());
+
+        Thread.sleep(1000);
+
+        // will purge and remove old entries
+        map.purge();
+
+        assertEquals(1, map.size());
+        assertEquals(456, (int) map.get("B"));
+    }
+
+    public void testTimingWheelTimeoutMapGetPurge() throws Exception {
+        TimingWheelTimeoutMap<String, Integer> map = new TimingWheelTimeoutMap<String, Integer>(null, 100);
+
+        map.put("A", 123, 1000);
+        assertEquals(1, map.size());
+
+        Thread.sleep(700);
+
+        // will refresh the timeout
+        assertEquals(123, (int) map.get("A"));
+
+        Thread.sleep(700);
+
+        // will purge and remove old entries
+        map.purge();
+
+        // but we just used get to get it so its refreshed
+        assertEquals(1, map.size());
+    }
+
+    public void testTimingWheelTimeoutMapPutReplace() throws Exception {
+        TimingWheelTimeoutMap<String, Integer> map = new TimingWheelTimeoutMap<String, Integer>(null, 100);
+
+        map.put("A", 123, 200);
+        map.put("A", 456, 5000);
+        assertEquals(1, map.size());
+
+        Thread.sleep(1000);
+        map.purge();
+
+        assertEquals(456, (int) map.get("A"));
+    }
+
+    public void testTimingWheelTimeoutMapGetRemove() throws Exception {
+        TimingWheelTimeoutMap<String, Integer> map = new TimingWheelTimeoutMap<String, Integer>();
+
+        map.put("A", 123, 500);
+        assertEquals(1, map.size());
+
+        assertEquals(123, (int) map.get("A"));
+
+        Object old = map.remove("A");
+        assertEquals(123, old);
+        assertEquals(null, map.get("A"));
+        assertEquals(0, map.size());
+        assertEquals(null, map.remove("A"));
+    }
+
+    public void testTimingWheelTimeoutMapGetKeys() throws Exception {
+        TimingWheelTimeoutMap<String, Integer> map = new TimingWheelTimeoutMap<String, Integer>();
+
+        map.put("A", 123, 500);
+        map.put("B", 456, 500);
+        assertEquals(2, map.size());
+
+        Object[] keys = map.getKeys();
+        assertNotNull(keys);
+        assertEquals(2, keys.length);
+    }
+
+    public void testLaterRevolution() throws Exception {
+        final List<String> keys = new ArrayList<String>();
+
+        // a small wheel which does a full revolution in 400 millis
+        TimingWheelTimeoutMap<String, Integer> map = new TimingWheelTimeoutMap<String, Integer>(null, 100, true, 4) {
+            @Override
+            public boolean onEviction(String key, Integer value) {
+                keys.add(key);
+                return true;
+            }
+        };
+
+        map.put("A", 1, 200);
+        map.put("B", 2, 1200);
+
+        Thread.sleep(500);
+        map.purge();
+
+        assertEquals(1, keys.size());
+        assertEquals("A", keys.get(0));
+
+        Thread.sleep(1000);
+        map.purge();
+
+        assertEquals(2, keys.size());
+        assertEquals("B", keys.get(1));
+        assertEquals(0, map.size());
+    }
+
+    public void testExecutor() throws Exception {
+        ScheduledExecutorService e = ExecutorServiceHelper.newScheduledThreadPool(2, null, "foo", true);
+
+        TimingWheelTimeoutMap<String, Integer> map = new TimingWheelTimeoutMap<String, Integer>(e, 500);
+        assertEquals(500, map.getPurgePollTime());
+
+        map.put("A", 123, 1000);
+        assertEquals(1, map.size());
+
+        Thread.sleep(2500);
+
+        // should be gone now
+        assertEquals(0, map.size());
+
+        assertSame(e, map.getExecutor());
+    }
+
+    public void testExpiredInCorrectOrder() throws Exception {
+        final List<String> keys = new ArrayList<String>();
+        final List<Integer> values = new ArrayList<Integer>();
+
+        TimingWheelTimeoutMap<String, Integer> map = new TimingWheelTimeoutMap<String, Integer>() {
+            @Override
+            public boolean onEviction(String key, Integer value) {
+                keys.add(key);
+                values.add(value);
+                return true;
+            }
+        };
+        assertEquals(0, map.size());
+
+        map.put("A", 1, 500);
+        map.put("B", 2, 300);
+        map.put("C", 3, 400);
+        map.put("D", 4, 200);
+        map.put("E", 5, 400);
+        // is not expired
+        map.put("F", 6, 8000);
+
+        Thread.sleep(2000);
+
+        // force purge
+        map.purge();
+
+        assertEquals("D", keys.get(0));
+        assertEquals(4, values.get(0).intValue());
+        assertEquals("B", keys.get(1));
+        assertEquals(2, values.get(1).intValue());
+        assertEquals("C", keys.get(2));
+        assertEquals(3, values.get(2).intValue());
+        assertEquals("E", keys.get(3));
+        assertEquals(5, values.get(3).intValue());
+        assertEquals("A", keys.get(4));
+        assertEquals(1, values.get(4).intValue());
+
+        assertEquals(1, map.size());
+    }
+
+    public void testExpiredNotEvicted() throws Exception {
+        final List<String> keys = new ArrayList<String>();
+
+        TimingWheelTimeoutMap<String, Integer> map = new TimingWheelTimeoutMap<String, Integer>(null, 100) {
+            @Override
+            public boolean onEviction(String key, Integer value) {
+                // do not evict special key
+                if ("gold".equals(key)) {
+                    return false;
+                }
+                keys.add(key);
+                return true;
+            }
+        };
+
+        map.put("A", 1, 300);
+        map.put("gold", 9, 400);
+        map.put("C", 3, 500);
+
+        Thread.sleep(1000);
+        map.purge();
+
+        assertEquals(2, keys.size());
+        assertEquals("A", keys.get(0));
+        assertEquals("C", keys.get(1));
+
+        // and keep the gold in the map, also after the next purge
+        Thread.sleep(300);
+        map.purge();
+        assertEquals(1, map.size());
+        assertEquals(Integer.valueOf(9), map.get("gold"));
+    }
+
+    public void testManyEntries() throws Exception {
+        TimingWheelTimeoutMap<Integer, Integer> map = new TimingWheelTimeoutMap<Integer, Integer>(null, 100);
+
+        for (int i = 0; i < 100000; i++) {
+            // half of them expire
+            map.put(i, i, i % 2 == 0 ? 200 : 60000);
+        }
+        assertEquals(100000, map.size());
+
+        Thread.sleep(500);
+        map.purge();
+
+        assertEquals(50000, map.size());
+        for (int i = 1; i < 100000; i += 2) {
+            assertEquals(Integer.valueOf(i), map.remove(i));
+        }
+        assertEquals(0, map.size());
+    }
+
+}
@@ -35,6 +35,7 @@ import org.apache.camel.builder.RouteBuilder;
 import org.apache.camel.component.properties.PropertiesComponent;
 import org.apache.camel.component.properties.PropertiesParser;
 import org.apache.camel.component.properties.PropertiesResolver;
+import org.apache.camel.converter.stream.StreamCachePool;
 import org.apache.camel.core.xml.scan.PatternBasedPackageScanFilter;
 import org.apache.camel.management.DefaultManagementAgent;
 import org.apache.camel.management.DefaultManagementLifecycleStrategy;
@@ -202,6 +203,11 @@ public abstract class AbstractCamelContextFactoryBean<T extends CamelContext> ex
             LOG.info("Using custom InflightRepository: " + inflightRepository);
             getContext().setInflightRepository(inflightRepository);
         }
+        StreamCachePool streamCachePool = getBeanForType(StreamCachePool.class);
+        if (streamCachePool != null) {
+            LOG.info("Using custom StreamCachePool: " + streamCachePool);
+            getContext().setStreamCachePool(streamCachePool);
+        }
         ManagementStrategy managementStrategy = getBeanForType(ManagementStrategy.class);
         if (managementStrategy != null) {
             LOG.info("Using custom ManagementStrategy: " + managementStrategy);
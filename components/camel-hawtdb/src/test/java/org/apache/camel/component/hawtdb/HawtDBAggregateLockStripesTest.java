@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hawtdb;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.processor.aggregate.AggregationStrategy;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.junit.Test;
+
+/**
+ * Compares aggregating many different groups with a single shared lock against using lock stripes.
+ *
+ * @version $Revision$
+ */
+public class HawtDBAggregateLockStripesTest extends CamelTestSupport {
+
+    private static final int GROUPS = 50;
+    private static final int SIZE = 10;
+
+    @Override
+    public void setUp() throws Exception {
+        deleteDirectory("target/data");
+        super.setUp();
+    }
+
+    @Override
+    public boolean isUseRouteBuilder() {
+        return false;
+    }
+
+    @Test
+    public void testSingleLock() throws Exception {
+        doSendMessages(0);
+    }
+
+    @Test
+    public void testLockStripes() throws Exception {
+        doSendMessages(16);
+    }
+
+    private void doSendMessages(final int lockStripes) throws Exception {
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                HawtDBAggregationRepository repo = new HawtDBAggregationRepository("repo1", "target/data/hawtdb.dat");
+
+                from("direct:start")
+                    .aggregate(header("id"), new MyAggregationStrategy())
+                        .aggregationRepository(repo).lockStripes(lockStripes)
+                        .completionSize(SIZE)
+                        .to("mock:aggregated");
+            }
+        });
+        context.start();
+
+        MockEndpoint mock = getMockEndpoint("mock:aggregated");
+        mock.expectedMessageCount(GROUPS);
+        mock.setResultWaitTime(60 * 1000L);
+
+        long start = System.currentTimeMillis();
+
+        ExecutorService executor = Executors.newFixedThreadPool(GROUPS);
+        for (int i = 0; i < GROUPS; i++) {
+            final String id = "group" + i;
+            executor.submit(new Callable<Object>() {
+                public Object call() throws Exception {
+                    for (int j = 0; j < SIZE; j++) {
+                        template.sendBodyAndHeader("direct:start", "" + j, "id", id);
+                    }
+                    return null;
+                }
+            });
+        }
+
+        assertMockEndpointsSatisfied();
+        executor.shutdownNow();
+
+        long delta = System.currentTimeMillis() - start;
+        log.info("Aggregated " + GROUPS * SIZE + " messages using " + lockStripes + " lock stripes took " + delta + " ms");
+    }
+
+    private class MyAggregationStrategy implements AggregationStrategy {
+
+        public Exchange aggregate(Exchange oldExchange, Exchange newExchange) {
+            if (oldExchange == null) {
+                return newExchange;
+            }
+            String body1 = oldExchange.getIn().getBody(String.class);
+            String body2 = newExchange.getIn().getBody(String.class);
+
+            oldExchange.getIn().setBody(body1 + body2);
+            return oldExchange;
+        }
+    }
+
+}
@@ -17,13 +17,20 @@
 package org.apache.camel.component.http;
 
 import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.camel.AsyncCallback;
 import org.apache.camel.Exchange;
 import org.apache.camel.ExchangePattern;
 import org.apache.camel.impl.DefaultExchange;
@@ -31,6 +38,15 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 /**
+ * A servlet to use as a Camel route as entry.
+ * <p/>
+ * Set the <tt>async</tt> init parameter to <tt>true</tt> to let the servlet use the Servlet 3.0 asynchronous
+ * API, which releases the container thread while the route is processing the exchange and completes the
+ * request from the {@link AsyncCallback}. The optional <tt>asyncTimeout</tt> init parameter sets the timeout
+ * in millis of the async context, and the request fails with status 503 if the exchange is not done in time.
+ * When the container does not support Servlet 3.0, or the async context cannot be started, then the request
+ * is processed synchronously.
+ *
  * @version $Revision$
  */
 public class CamelServlet extends HttpServlet {
@@ -39,7 +55,52 @@ public class CamelServlet extends HttpServlet {
     protected final transient Log log = LogFactory.getLog(getClass());
 
     private ConcurrentHashMap<String, HttpConsumer> consumers = new ConcurrentHashMap<String, HttpConsumer>();
-   
+    private boolean async;
+    private long asyncTimeout;
+    // the Servlet 3.0 methods which are looked up by reflection as we compile against an older servlet API
+    private transient Method startAsyncMethod;
+    private transient Method setTimeoutMethod;
+    private transient Method completeMethod;
+    private transient Method addListenerMethod;
+    private transient Class<?> asyncListenerType;
+    private transient volatile boolean asyncFailureLogged;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        String value = getInitParameter("async");
+        if (value != null) {
+            setAsync(Boolean.valueOf(value.trim()));
+        }
+        value = getInitParameter("asyncTimeout");
+        if (value != null) {
+            setAsyncTimeout(Long.valueOf(value.trim()));
+        }
+        if (isAsync()) {
+            try {
+                Method method = ServletRequest.class.getMethod("startAsync");
+                initAsyncMethods(method.getReturnType(),
+                    Class.forName("javax.servlet.AsyncListener", true, ServletRequest.class.getClassLoader()));
+                startAsyncMethod = method;
+            } catch (Exception e) {
+                log.warn("The servlet container does not support the Servlet 3.0 asynchronous API,"
+                    + " will process requests synchronously");
+                startAsyncMethod = null;
+            }
+        }
+    }
+
+    /**
+     * Looks up the methods of the given async context and listener types, which are the Servlet 3.0
+     * <tt>AsyncContext</tt> and <tt>AsyncListener</tt> when running in a container which supports them.
+     */
+    void initAsyncMethods(Class<?> asyncContextType, Class<?> listenerType) throws NoSuchMethodException {
+        setTimeoutMethod = asyncContextType.getMethod("setTimeout", long.class);
+        completeMethod = asyncContextType.getMethod("complete");
+        addListenerMethod = asyncContextType.getMethod("addListener", listenerType);
+        asyncListenerType = listenerType;
+    }
+
     @Override
     protected void service(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         try {
@@ -67,6 +128,14 @@ public class CamelServlet extends HttpServlet {
             }
             exchange.setIn(new HttpMessage(exchange, request, response));
 
+            if (startAsyncMethod != null) {
+                Object asyncContext = startAsync(request);
+                if (asyncContext != null) {
+                    processAsync(consumer, exchange, response, asyncContext);
+                    return;
+                }
+            }
+
             // Have the camel process the HTTP exchange.
             consumer.getProcessor().process(exchange);
 
@@ -79,6 +148,129 @@ public class CamelServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Starts the Servlet 3.0 async context of the request.
+     *
+     * @return the async context, or <tt>null</tt> if the request cannot be processed asynchronously
+     */
+    private Object startAsync(HttpServletRequest request) throws Exception {
+        Object asyncContext;
+        try {
+            asyncContext = startAsyncMethod.invoke(request);
+        } catch (InvocationTargetException e) {
+            // such as the servlet or a filter has not been configured with async-supported
+            if (!asyncFailureLogged) {
+                asyncFailureLogged = true;
+                log.warn("Cannot start async context, will process requests synchronously."
+                    + " Make sure async-supported is enabled for the servlet and its filters.", e.getCause());
+            } else if (log.isDebugEnabled()) {
+                log.debug("Cannot start async context, will process the request synchronously", e.getCause());
+            }
+            return null;
+        }
+        if (asyncTimeout > 0) {
+            setTimeoutMethod.invoke(asyncContext, asyncTimeout);
+        }
+        return asyncContext;
+    }
+
+    /**
+     * Processes the exchange using the asynchronous routing engine, where the request is completed
+     * from the callback, unless the async context has timed out or failed before the exchange is done.
+     * <p/>
+     * The async context has been started, so this method must not throw an exception as the container would
+     * then not complete the request until the async context times out. Instead the request is completed
+     * with status 500 if the exchange cannot be processed.
+     */
+    void processAsync(final HttpConsumer consumer, final Exchange exchange, final HttpServletResponse response,
+                      final Object asyncContext) {
+        // only one of the callback and the async listener may write the response and complete the request,
+        // as the container recycles the response once the request is completed
+        final AtomicBoolean completed = new AtomicBoolean();
+
+        Object listener = Proxy.newProxyInstance(asyncListenerType.getClassLoader(), new Class<?>[] {asyncListenerType},
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    String name = method.getName();
+                    if ("onTimeout".equals(name)) {
+                        if (completed.compareAndSet(false, true)) {
+                            log.warn("Async context timed out before the response was written for exchangeId: " + exchange.getExchangeId());
+                            sendError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                            complete(asyncContext, exchange);
+                        }
+                    } else if ("onError".equals(name)) {
+                        // the container will complete the request
+                        if (completed.compareAndSet(false, true)) {
+                            log.warn("Error in async context of exchangeId: " + exchange.getExchangeId());
+                        }
+                    } else if ("equals".equals(name)) {
+                        return proxy == args[0];
+                    } else if ("hashCode".equals(name)) {
+                        return System.identityHashCode(proxy);
+                    } else if ("toString".equals(name)) {
+                        return "AsyncListener[" + exchange.getExchangeId() + "]";
+                    }
+                    return null;
+                }
+            });
+
+        try {
+            addListenerMethod.invoke(asyncContext, listener);
+
+            if (log.isTraceEnabled()) {
+                log.trace("Processing asynchronously exchangeId: " + exchange.getExchangeId());
+            }
+            // use the asynchronous API to process the exchange
+            consumer.getAsyncProcessor().process(exchange, new AsyncCallback() {
+                public void done(boolean doneSync) {
+                    if (!completed.compareAndSet(false, true)) {
+                        if (log.isDebugEnabled()) {
+                            log.debug("Async context has already been completed, cannot write response of exchangeId: " + exchange.getExchangeId());
+                        }
+                        return;
+                    }
+                    if (log.isTraceEnabled()) {
+                        log.trace("Writing response of exchangeId: " + exchange.getExchangeId());
+                    }
+                    try {
+                        // now lets output to the response
+                        consumer.getBinding().writeResponse(exchange, response);
+                    } catch (Exception e) {
+                        log.error("Error writing response of exchangeId: " + exchange.getExchangeId(), e);
+                        sendError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                    } finally {
+                        complete(asyncContext, exchange);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+            log.error("Error processing request asynchronously for exchangeId: " + exchange.getExchangeId(), cause);
+            if (completed.compareAndSet(false, true)) {
+                sendError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                complete(asyncContext, exchange);
+            }
+        }
+    }
+
+    private void sendError(HttpServletResponse response, int code) {
+        try {
+            if (!response.isCommitted()) {
+                response.sendError(code);
+            }
+        } catch (IOException e) {
+            log.debug("Error sending error response. This exception will be ignored.", e);
+        }
+    }
+
+    private void complete(Object asyncContext, Exchange exchange) {
+        try {
+            completeMethod.invoke(asyncContext);
+        } catch (Exception e) {
+            log.warn("Error completing async context of exchangeId: " + exchange.getExchangeId(), e);
+        }
+    }
+
     protected HttpConsumer resolve(HttpServletRequest request) {
         String path = request.getPathInfo();
         if (path == null) {
@@ -104,5 +296,21 @@ public class CamelServlet extends HttpServlet {
     public void disconnect(HttpConsumer consumer) {
         consumers.remove(consumer.getPath());
     }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public long getAsyncTimeout() {
+        return asyncTimeout;
+    }
+
+    public void setAsyncTimeout(long asyncTimeout) {
+        this.asyncTimeout = asyncTimeout;
+    }
     
 }
@@ -0,0 +1,223 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.http;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.Processor;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the asynchronous processing of {@link CamelServlet} using an async context and listener which
+ * mimics the Servlet 3.0 <tt>AsyncContext</tt> and <tt>AsyncListener</tt>, as the servlet API used for
+ * testing does not have them.
+ *
+ * @version $Revision$
+ */
+public class CamelServletAsyncTest extends CamelTestSupport {
+
+    private CamelServlet servlet;
+    private HttpEndpoint endpoint;
+    private MyAsyncContext asyncContext;
+    private MyResponse response;
+    private final AtomicInteger written = new AtomicInteger();
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        servlet = new CamelServlet();
+        servlet.initAsyncMethods(AsyncContext.class, AsyncListener.class);
+
+        endpoint = context.getEndpoint("http://localhost/async", HttpEndpoint.class);
+        endpoint.setBinding(new DefaultHttpBinding() {
+            @Override
+            public void writeResponse(Exchange exchange, HttpServletResponse response) throws IOException {
+                written.incrementAndGet();
+            }
+        });
+        asyncContext = new MyAsyncContext();
+        response = new MyResponse();
+    }
+
+    @Test
+    public void testCompletedFromCallback() throws Exception {
+        HttpConsumer consumer = new HttpConsumer(endpoint, new Processor() {
+            public void process(Exchange exchange) throws Exception {
+                exchange.getOut().setBody("Bye World");
+            }
+        });
+
+        servlet.processAsync(consumer, createExchange(), response.proxy(), asyncContext);
+
+        assertEquals(1, written.get());
+        assertEquals(1, asyncContext.completed.get());
+        assertEquals(0, response.status.get());
+    }
+
+    @Test
+    public void testProcessorThrows() throws Exception {
+        HttpConsumer consumer = new HttpConsumer(endpoint, null) {
+            @Override
+            public synchronized AsyncProcessor getAsyncProcessor() {
+                return new AsyncProcessor() {
+                    public boolean process(Exchange exchange, AsyncCallback callback) {
+                        throw new IllegalStateException("Forced");
+                    }
+
+                    public void process(Exchange exchange) throws Exception {
+                        throw new IllegalStateException("Forced");
+                    }
+                };
+            }
+        };
+
+        servlet.processAsync(consumer, createExchange(), response.proxy(), asyncContext);
+
+        assertEquals(0, written.get());
+        assertEquals(1, asyncContext.completed.get());
+        assertEquals(500, response.status.get());
+    }
+
+    @Test
+    public void testAddListenerFails() throws Exception {
+        asyncContext.failAddListener = true;
+        final AtomicInteger processed = new AtomicInteger();
+        HttpConsumer consumer = new HttpConsumer(endpoint, new Processor() {
+            public void process(Exchange exchange) throws Exception {
+                processed.incrementAndGet();
+            }
+        });
+
+        servlet.processAsync(consumer, createExchange(), response.proxy(), asyncContext);
+
+        assertEquals(0, processed.get());
+        assertEquals(1, asyncContext.completed.get());
+        assertEquals(500, response.status.get());
+    }
+
+    @Test
+    public void testTimeoutBeforeDone() throws Exception {
+        final AtomicReference<AsyncCallback> pending = new AtomicReference<AsyncCallback>();
+        HttpConsumer consumer = new HttpConsumer(endpoint, null) {
+            @Override
+            public synchronized AsyncProcessor getAsyncProcessor() {
+                return new AsyncProcessor() {
+                    public boolean process(Exchange exchange, AsyncCallback callback) {
+                        // continue later
+                        pending.set(callback);
+                        return false;
+                    }
+
+                    public void process(Exchange exchange) throws Exception {
+                        // noop
+                    }
+                };
+            }
+        };
+
+        servlet.processAsync(consumer, createExchange(), response.proxy(), asyncContext);
+        assertEquals(0, asyncContext.completed.get());
+
+        asyncContext.listener.onTimeout(null);
+        assertEquals(1, asyncContext.completed.get());
+        assertEquals(503, response.status.get());
+
+        // the exchange completing afterwards must not write to the recycled response
+        pending.get().done(false);
+        assertEquals(0, written.get());
+        assertEquals(1, asyncContext.completed.get());
+    }
+
+    private Exchange createExchange() {
+        return new DefaultExchange(context, ExchangePattern.InOut);
+    }
+
+    public interface AsyncListener {
+        void onComplete(Object event) throws IOException;
+
+        void onTimeout(Object event) throws IOException;
+
+        void onError(Object event) throws IOException;
+
+        void onStartAsync(Object event) throws IOException;
+    }
+
+    public interface AsyncContext {
+        void setTimeout(long timeout);
+
+        void complete();
+
+        void addListener(AsyncListener listener);
+    }
+
+    private static final class MyAsyncContext implements AsyncContext {
+        private final AtomicInteger completed = new AtomicInteger();
+        private volatile boolean failAddListener;
+        private volatile AsyncListener listener;
+
+        public void setTimeout(long timeout) {
+            // noop
+        }
+
+        public void complete() {
+            completed.incrementAndGet();
+        }
+
+        public void addListener(AsyncListener listener) {
+            if (failAddListener) {
+                throw new IllegalStateException("Forced");
+            }
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * A response which only records the error status sent
+     */
+    private static final class MyResponse implements InvocationHandler {
+        private final AtomicInteger status = new AtomicInteger();
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("sendError".equals(name)) {
+                status.set((Integer) args[0]);
+            } else if ("isCommitted".equals(name)) {
+                return status.get() != 0;
+            }
+            return null;
+        }
+
+        HttpServletResponse proxy() {
+            return (HttpServletResponse) Proxy.newProxyInstance(HttpServletResponse.class.getClassLoader(),
+                    new Class<?>[] {HttpServletResponse.class}, this);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.jms;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+
+import org.apache.camel.RuntimeCamelException;
+import org.apache.camel.StreamCache;
+import org.apache.camel.util.IOHelper;
+
+/**
+ * An {@link InputStream} which reads the body of a {@link BytesMessage} lazily, instead of
+ * copying the whole body into a byte array up front.
+ * <p/>
+ * As a {@link StreamCache} it can be {@link #reset()} to be read again.
+ *
+ * @version $Revision$
+ */
+public class BytesMessageInputStream extends InputStream implements StreamCache {
+    private final BytesMessage message;
+    private final long length;
+    private long position;
+    private byte[] buffer;
+
+    public BytesMessageInputStream(BytesMessage message) throws JMSException {
+        this.message = message;
+        this.length = message.getBodyLength();
+    }
+
+    public BytesMessage getMessage() {
+        return message;
+    }
+
+    /**
+     * The length of the body of the message
+     */
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position >= length) {
+            return -1;
+        }
+        try {
+            int answer = message.readUnsignedByte();
+            position++;
+            return answer;
+        } catch (JMSException e) {
+            throw IOHelper.createIOException(e);
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (position >= length) {
+            return -1;
+        }
+        if (len == 0) {
+            return 0;
+        }
+        try {
+            int read;
+            if (off == 0) {
+                read = message.readBytes(b, len);
+            } else {
+                // the message can only read into the start of an array
+                if (buffer == null || buffer.length < len) {
+                    buffer = new byte[len];
+                }
+                read = message.readBytes(buffer, len);
+                if (read > 0) {
+                    System.arraycopy(buffer, 0, b, off, read);
+                }
+            }
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        } catch (JMSException e) {
+            throw IOHelper.createIOException(e);
+        }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long remaining = Math.min(n, length - position);
+        if (remaining <= 0) {
+            return 0;
+        }
+        // the message has no skip so read and discard the bytes
+        byte[] discard = new byte[(int) Math.min(remaining, 4096)];
+        long skipped = 0;
+        while (skipped < remaining) {
+            int read = read(discard, 0, (int) Math.min(discard.length, remaining - skipped));
+            if (read <= 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(length - position, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void reset() {
+        try {
+            message.reset();
+            position = 0;
+        } catch (JMSException e) {
+            throw new RuntimeCamelException(e);
+        }
+    }
+
+    public void writeTo(OutputStream os) throws IOException {
+        IOHelper.copy(this, os);
+    }
+
+    @Override
+    public String toString() {
+        return "BytesMessageInputStream[length=" + length + ", position=" + position + "]";
+    }
+}
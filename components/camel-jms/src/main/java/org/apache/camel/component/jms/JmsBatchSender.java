@@ -0,0 +1,236 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.jms;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.jms.Destination;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.apache.camel.component.jms.JmsConfiguration.CamelJmsTemplate;
+import org.apache.camel.impl.ServiceSupport;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.jms.core.MessageCreator;
+
+/**
+ * Sends the InOnly exchanges of a {@link JmsProducer} in batches.
+ * <p/>
+ * Exchanges arriving within the <tt>producerBatchTimeout</tt> window, up till <tt>producerBatchSize</tt>
+ * exchanges, are sent using a single session which is committed once when transacted. The callback of each
+ * exchange is done when its batch has been sent. Batches are sent one at a time in the order they were filled.
+ * <p/>
+ * Transacted exchanges are not batched by the {@link JmsProducer} as they must be sent in the transaction of the caller.
+ *
+ * @version $Revision$
+ */
+public class JmsBatchSender extends ServiceSupport {
+    private static final transient Log LOG = LogFactory.getLog(JmsBatchSender.class);
+    private static final long SHUTDOWN_TIMEOUT = 30000;
+    private final JmsProducer producer;
+    private final int batchSize;
+    private final long batchTimeout;
+    // the batch being filled, guarded by this
+    private List<BatchEntry> batch = new ArrayList<BatchEntry>();
+    private ScheduledFuture<?> timeoutTask;
+    private ScheduledExecutorService executorService;
+
+    public JmsBatchSender(JmsProducer producer, int batchSize, long batchTimeout) {
+        this.producer = producer;
+        this.batchSize = batchSize;
+        this.batchTimeout = batchTimeout;
+    }
+
+    /**
+     * Adds the exchange to the current batch.
+     *
+     * @param exchange        the exchange
+     * @param callback        the callback to be done when the batch has been sent
+     * @param destinationName the destination name
+     * @param destination     the destination (if no name provided)
+     * @param messageCreator  the creator to create the {@link javax.jms.Message} to send
+     * @return <tt>true</tt> if the callback was done synchronously, which happens if this sender is stopped
+     */
+    public boolean send(Exchange exchange, AsyncCallback callback, String destinationName, Destination destination, MessageCreator messageCreator) {
+        if (destination == null && destinationName == null) {
+            throw new IllegalArgumentException("Neither destination nor destinationName is specified on this endpoint: " + producer.getEndpoint());
+        }
+
+        BatchEntry entry = new BatchEntry(exchange, callback, destinationName, destination, messageCreator);
+        final List<BatchEntry> full;
+        synchronized (this) {
+            batch.add(entry);
+            if (batch.size() >= batchSize) {
+                full = takeBatch();
+            } else {
+                full = null;
+                if (batch.size() == 1) {
+                    // the first exchange of a batch starts the time window
+                    try {
+                        timeoutTask = executorService.schedule(new Runnable() {
+                            public void run() {
+                                List<BatchEntry> entries;
+                                synchronized (JmsBatchSender.this) {
+                                    entries = takeBatch();
+                                }
+                                sendBatch(entries);
+                            }
+                        }, batchTimeout, TimeUnit.MILLISECONDS);
+                    } catch (RejectedExecutionException e) {
+                        // we have been stopped
+                        batch.remove(entry);
+                        exchange.setException(e);
+                        callback.done(true);
+                        return true;
+                    }
+                }
+            }
+        }
+
+        if (full != null) {
+            try {
+                executorService.execute(new Runnable() {
+                    public void run() {
+                        sendBatch(full);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // we have been stopped so fail the batch, where our own exchange is done synchronously
+                for (BatchEntry other : full) {
+                    other.getExchange().setException(e);
+                    other.getCallback().done(other == entry);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        executorService = producer.getEndpoint().getCamelContext().getExecutorServiceStrategy()
+                .newScheduledThreadPool(this, "JmsBatchSender[" + producer.getEndpoint().getEndpointUri() + "]", 1);
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        List<BatchEntry> entries;
+        synchronized (this) {
+            entries = takeBatch();
+        }
+
+        // let the batches already full be sent and then send the remainder ourselves
+        producer.getEndpoint().getCamelContext().getExecutorServiceStrategy().shutdown(executorService);
+        if (!executorService.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+            LOG.warn("Timeout waiting for batches to be sent using endpoint: " + producer.getEndpoint());
+        }
+        sendBatch(entries);
+    }
+
+    private List<BatchEntry> takeBatch() {
+        if (timeoutTask != null) {
+            timeoutTask.cancel(false);
+            timeoutTask = null;
+        }
+        List<BatchEntry> answer = batch;
+        batch = new ArrayList<BatchEntry>();
+        return answer;
+    }
+
+    private void sendBatch(List<BatchEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Sending batch of " + entries.size() + " messages using endpoint: " + producer.getEndpoint());
+        }
+        Exception failure = null;
+        try {
+            CamelJmsTemplate template = (CamelJmsTemplate) producer.getInOnlyTemplate();
+            template.send(entries);
+        } catch (Exception e) {
+            failure = e;
+        }
+
+        for (BatchEntry entry : entries) {
+            Exchange exchange = entry.getExchange();
+            if (entry.getCause() != null) {
+                exchange.setException(entry.getCause());
+            } else if (failure != null) {
+                exchange.setException(failure);
+            } else {
+                // after sending then set the OUT message id to the JMSMessageID so its identical
+                producer.setMessageId(exchange);
+            }
+            entry.getCallback().done(false);
+        }
+    }
+
+    /**
+     * An exchange waiting in a batch.
+     */
+    public static final class BatchEntry {
+        private final Exchange exchange;
+        private final AsyncCallback callback;
+        private final String destinationName;
+        private final Destination destination;
+        private final MessageCreator messageCreator;
+        private Exception cause;
+
+        private BatchEntry(Exchange exchange, AsyncCallback callback, String destinationName, Destination destination, MessageCreator messageCreator) {
+            this.exchange = exchange;
+            this.callback = callback;
+            this.destinationName = destinationName;
+            this.destination = destination;
+            this.messageCreator = messageCreator;
+        }
+
+        public Exchange getExchange() {
+            return exchange;
+        }
+
+        public AsyncCallback getCallback() {
+            return callback;
+        }
+
+        public String getDestinationName() {
+            return destinationName;
+        }
+
+        public Destination getDestination() {
+            return destination;
+        }
+
+        public MessageCreator getMessageCreator() {
+            return messageCreator;
+        }
+
+        public Exception getCause() {
+            return cause;
+        }
+
+        public void setCause(Exception cause) {
+            this.cause = cause;
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.apache.camel.component.jms;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.io.Serializable;
@@ -50,6 +51,7 @@ import org.apache.camel.impl.DefaultExchangeHolder;
 import org.apache.camel.spi.HeaderFilterStrategy;
 import org.apache.camel.util.CamelContextHelper;
 import org.apache.camel.util.ExchangeHelper;
+import org.apache.camel.util.IOHelper;
 import org.apache.camel.util.ObjectHelper;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -67,6 +69,7 @@ import static org.apache.camel.component.jms.JmsMessageType.Text;
  */
 public class JmsBinding {
     private static final transient Log LOG = LogFactory.getLog(JmsBinding.class);
+    private static final int STREAM_CHUNK_SIZE = 64 * 1024;
     private final JmsEndpoint endpoint;
     private final HeaderFilterStrategy headerFilterStrategy;
     private final JmsKeyFormatStrategy jmsKeyFormatStrategy;
@@ -145,6 +148,10 @@ public class JmsBinding {
                 if (LOG.isTraceEnabled()) {
                     LOG.trace("Extracting body as a BytesMessage from JMS message: " + message);
                 }
+                if (endpoint != null && endpoint.getConfiguration().isStreamBytesMessage()) {
+                    // read the body lazily instead of copying it
+                    return new BytesMessageInputStream((BytesMessage)message);
+                }
                 return createByteArrayFromBytesMessage((BytesMessage)message);
             } else if (message instanceof StreamMessage) {
                 if (LOG.isTraceEnabled()) {
@@ -514,6 +521,10 @@ public class JmsBinding {
         }
         case Bytes: {
             BytesMessage message = session.createBytesMessage();
+            if (endpoint != null && endpoint.getConfiguration().isStreamBytesMessage()
+                    && writeBytesMessageInChunks(message, exchange, body, context)) {
+                return message;
+            }
             byte[] payload = context.getTypeConverter().convertTo(byte[].class, exchange, body);
             message.writeBytes(payload);
             return message;
@@ -540,6 +551,64 @@ public class JmsBinding {
         }
         return null;
     }
+
+    /**
+     * Writes the body to the {@link BytesMessage} in chunks, without converting the body to a byte array first.
+     *
+     * @return <tt>true</tt> if the body was written, <tt>false</tt> if the body is not a stream, buffer or file
+     */
+    protected boolean writeBytesMessageInChunks(BytesMessage message, Exchange exchange, Object body, CamelContext context) throws JMSException {
+        if (body instanceof ByteBuffer) {
+            ByteBuffer buffer = ((ByteBuffer) body).duplicate();
+            if (buffer.hasArray()) {
+                message.writeBytes(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            } else {
+                byte[] chunk = new byte[Math.min(buffer.remaining(), STREAM_CHUNK_SIZE)];
+                while (buffer.hasRemaining()) {
+                    int size = Math.min(buffer.remaining(), chunk.length);
+                    buffer.get(chunk, 0, size);
+                    message.writeBytes(chunk, 0, size);
+                }
+            }
+            return true;
+        }
+
+        InputStream is;
+        boolean close;
+        if (body instanceof InputStream) {
+            is = (InputStream) body;
+            // a stream cache is reset after writing so it can be read again, a plain stream is consumed
+            close = !(body instanceof StreamCache);
+        } else if (body instanceof GenericFile || body instanceof File) {
+            is = context.getTypeConverter().convertTo(InputStream.class, exchange, body);
+            close = true;
+        } else {
+            return false;
+        }
+        if (is == null) {
+            return false;
+        }
+
+        try {
+            byte[] chunk = new byte[STREAM_CHUNK_SIZE];
+            int size;
+            while ((size = is.read(chunk)) != -1) {
+                message.writeBytes(chunk, 0, size);
+            }
+        } catch (IOException e) {
+            JMSException cause = new MessageFormatException("Failed to write body to BytesMessage due to " + e.getMessage());
+            cause.initCause(e);
+            throw cause;
+        } finally {
+            if (close) {
+                IOHelper.close(is, "body", LOG);
+            } else {
+                ((StreamCache) is).reset();
+            }
+        }
+        return true;
+    }
+
     /**
      * Populates a {@link MapMessage} from a {@link Map} instance.
      */
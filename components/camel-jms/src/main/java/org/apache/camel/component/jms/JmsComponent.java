@@ -259,6 +259,22 @@ public class JmsComponent extends DefaultComponent implements ApplicationContext
         getConfiguration().setUseMessageIDAsCorrelationID(useMessageIDAsCorrelationID);
     }
 
+    public void setTimingWheelTimeout(boolean timingWheelTimeout) {
+        getConfiguration().setTimingWheelTimeout(timingWheelTimeout);
+    }
+
+    public void setProducerBatchSize(int producerBatchSize) {
+        getConfiguration().setProducerBatchSize(producerBatchSize);
+    }
+
+    public void setProducerBatchTimeout(long producerBatchTimeout) {
+        getConfiguration().setProducerBatchTimeout(producerBatchTimeout);
+    }
+
+    public void setStreamBytesMessage(boolean streamBytesMessage) {
+        getConfiguration().setStreamBytesMessage(streamBytesMessage);
+    }
+
     public void setPriority(int priority) {
         getConfiguration().setPriority(priority);
     }
@@ -16,6 +16,9 @@
  */
 package org.apache.camel.component.jms;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import javax.jms.ConnectionFactory;
 import javax.jms.Destination;
 import javax.jms.ExceptionListener;
@@ -117,6 +120,10 @@ public class JmsConfiguration implements Cloneable {
     private boolean transferExchange;
     private boolean transferException;
     private boolean testConnectionOnStartup;
+    private boolean timingWheelTimeout;
+    private int producerBatchSize;
+    private long producerBatchTimeout = 100L;
+    private boolean streamBytesMessage;
 
     public JmsConfiguration() {
     }
@@ -185,6 +192,64 @@ public class JmsConfiguration implements Cloneable {
             }, false);
         }
 
+        /**
+         * Sends the messages of the batch using a single session, which is committed once
+         * after all the messages have been sent, when the session is transacted.
+         * <p/>
+         * A message which cannot be created is skipped and its cause is set on the entry,
+         * any other failure rolls back the batch and is thrown.
+         */
+        public void send(final List<JmsBatchSender.BatchEntry> batch) throws JmsException {
+            execute(new SessionCallback() {
+                public Object doInJms(Session session) throws JMSException {
+                    // reuse the producer for messages sent to the same destination
+                    Map<Destination, MessageProducer> producers = new HashMap<Destination, MessageProducer>();
+                    try {
+                        for (JmsBatchSender.BatchEntry entry : batch) {
+                            Message message;
+                            try {
+                                message = entry.getMessageCreator().createMessage(session);
+                            } catch (Exception e) {
+                                entry.setCause(e);
+                                continue;
+                            }
+
+                            Destination destination = entry.getDestination();
+                            if (destination == null) {
+                                destination = resolveDestinationName(session, entry.getDestinationName());
+                            }
+                            MessageProducer producer = producers.get(destination);
+                            if (producer == null) {
+                                producer = createProducer(session, destination);
+                                producers.put(destination, producer);
+                            }
+                            doSend(producer, message);
+                        }
+                        // Check commit - avoid commit call within a JTA transaction.
+                        if (session.getTransacted() && isSessionLocallyTransacted(session)) {
+                            // Transacted session created by this template -> commit.
+                            JmsUtils.commitIfNecessary(session);
+                        }
+                    } catch (JMSException e) {
+                        if (session.getTransacted() && isSessionLocallyTransacted(session)) {
+                            JmsUtils.rollbackIfNecessary(session);
+                        }
+                        throw e;
+                    } catch (RuntimeException e) {
+                        if (session.getTransacted() && isSessionLocallyTransacted(session)) {
+                            JmsUtils.rollbackIfNecessary(session);
+                        }
+                        throw e;
+                    } finally {
+                        for (MessageProducer producer : producers.values()) {
+                            JmsUtils.closeMessageProducer(producer);
+                        }
+                    }
+                    return null;
+                }
+            }, false);
+        }
+
         private Object doSendToDestination(final Destination destination,
                                            final MessageCreator messageCreator,
                                            final MessageSentCallback callback,
@@ -1060,6 +1125,54 @@ public class JmsConfiguration implements Cloneable {
         this.requestTimeout = requestTimeout;
     }
 
+    public boolean isTimingWheelTimeout() {
+        return timingWheelTimeout;
+    }
+
+    /**
+     * Whether to use a timing wheel to keep track of the request timeouts, which scales better
+     * when having many outstanding requests.
+     */
+    public void setTimingWheelTimeout(boolean timingWheelTimeout) {
+        this.timingWheelTimeout = timingWheelTimeout;
+    }
+
+    public int getProducerBatchSize() {
+        return producerBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of InOnly exchanges the producer sends together in one session,
+     * which is committed once per batch when transacted. Use 0 or 1 to send each exchange on its own.
+     */
+    public void setProducerBatchSize(int producerBatchSize) {
+        this.producerBatchSize = producerBatchSize;
+    }
+
+    public long getProducerBatchTimeout() {
+        return producerBatchTimeout;
+    }
+
+    /**
+     * Sets the time in millis the producer waits for more exchanges before sending a batch which is not full.
+     */
+    public void setProducerBatchTimeout(long producerBatchTimeout) {
+        this.producerBatchTimeout = producerBatchTimeout;
+    }
+
+    public boolean isStreamBytesMessage() {
+        return streamBytesMessage;
+    }
+
+    /**
+     * Whether the body of a consumed {@link javax.jms.BytesMessage} is read lazily as a stream instead of being
+     * copied into a byte array, and whether stream, buffer and file bodies are written to a produced
+     * {@link javax.jms.BytesMessage} in chunks instead of being converted to a byte array first.
+     */
+    public void setStreamBytesMessage(boolean streamBytesMessage) {
+        this.streamBytesMessage = streamBytesMessage;
+    }
+
     public String getReplyTo() {
         return replyToDestination;
     }
@@ -621,6 +621,26 @@ public class JmsEndpoint extends DefaultEndpoint implements HeaderFilterStrategy
         return getConfiguration().isUseMessageIDAsCorrelationID();
     }
 
+    @ManagedAttribute
+    public boolean isTimingWheelTimeout() {
+        return getConfiguration().isTimingWheelTimeout();
+    }
+
+    @ManagedAttribute
+    public int getProducerBatchSize() {
+        return getConfiguration().getProducerBatchSize();
+    }
+
+    @ManagedAttribute
+    public long getProducerBatchTimeout() {
+        return getConfiguration().getProducerBatchTimeout();
+    }
+
+    @ManagedAttribute
+    public boolean isStreamBytesMessage() {
+        return getConfiguration().isStreamBytesMessage();
+    }
+
     @ManagedAttribute
     public void setAcceptMessagesWhileStopping(boolean acceptMessagesWhileStopping) {
         getConfiguration().setAcceptMessagesWhileStopping(acceptMessagesWhileStopping);
@@ -849,6 +869,22 @@ public class JmsEndpoint extends DefaultEndpoint implements HeaderFilterStrategy
         getConfiguration().setUseMessageIDAsCorrelationID(useMessageIDAsCorrelationID);
     }
 
+    public void setTimingWheelTimeout(boolean timingWheelTimeout) {
+        getConfiguration().setTimingWheelTimeout(timingWheelTimeout);
+    }
+
+    public void setProducerBatchSize(int producerBatchSize) {
+        getConfiguration().setProducerBatchSize(producerBatchSize);
+    }
+
+    public void setProducerBatchTimeout(long producerBatchTimeout) {
+        getConfiguration().setProducerBatchTimeout(producerBatchTimeout);
+    }
+
+    public void setStreamBytesMessage(boolean streamBytesMessage) {
+        getConfiguration().setStreamBytesMessage(streamBytesMessage);
+    }
+
     public JmsMessageType getJmsMessageType() {
         return getConfiguration().getJmsMessageType();
     }
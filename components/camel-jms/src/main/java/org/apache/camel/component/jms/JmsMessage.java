@@ -71,7 +71,7 @@ public class JmsMessage extends DefaultMessage {
         }
 
         if (copyMessageId) {
-            setMessageId(that.getMessageId());
+            copyMessageIdFrom(that);
         }
         setBody(that.getBody());
         getHeaders().putAll(that.getHeaders());
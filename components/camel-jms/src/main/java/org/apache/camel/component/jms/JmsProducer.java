@@ -32,6 +32,7 @@ import org.apache.camel.component.jms.reply.UseMessageIdAsCorrelationIdMessageSe
 import org.apache.camel.impl.DefaultAsyncProducer;
 import org.apache.camel.spi.UuidGenerator;
 import org.apache.camel.util.ObjectHelper;
+import org.apache.camel.util.ServiceHelper;
 import org.apache.camel.util.ValueHolder;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -50,6 +51,7 @@ public class JmsProducer extends DefaultAsyncProducer {
     private JmsOperations inOutTemplate;
     private UuidGenerator uuidGenerator;
     private ReplyManager replyManager;
+    private volatile JmsBatchSender batchSender;
 
     public JmsProducer(JmsEndpoint endpoint) {
         super(endpoint);
@@ -266,6 +268,13 @@ public class JmsProducer extends DefaultAsyncProducer {
             }
         };
 
+        // transacted exchanges must be sent in the transaction of the caller, so they cannot be batched
+        JmsBatchSender sender = batchSender;
+        if (sender != null && !exchange.isTransacted()) {
+            // the callback is done when the batch has been sent
+            return sender.send(exchange, callback, destinationName, destination, messageCreator);
+        }
+
         doSend(false, destinationName, destination, messageCreator, null);
 
         // after sending then set the OUT message id to the JMSMessageID so its identical
@@ -370,9 +379,16 @@ public class JmsProducer extends DefaultAsyncProducer {
             // use the generator configured on the camel context
             uuidGenerator = getEndpoint().getCamelContext().getUuidGenerator();
         }
+        if (endpoint.getConfiguration().getProducerBatchSize() > 1) {
+            batchSender = new JmsBatchSender(this, endpoint.getConfiguration().getProducerBatchSize(),
+                    endpoint.getConfiguration().getProducerBatchTimeout());
+            ServiceHelper.startService(batchSender);
+        }
     }
 
     protected void doStop() throws Exception {
+        ServiceHelper.stopService(batchSender);
+        batchSender = null;
         super.doStop();
     }
 }
\ No newline at end of file
@@ -0,0 +1,169 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.jms;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.jms.ConnectionFactory;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.impl.DefaultUnitOfWork;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.junit.Test;
+import static org.apache.camel.component.jms.JmsComponent.jmsComponentClientAcknowledge;
+
+/**
+ * @version $Revision$
+ */
+public class JmsProducerBatchTest extends CamelTestSupport {
+
+    @Test
+    public void testBatchCompletedBySize() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedMessageCount(10);
+        mock.expectsNoDuplicates(body());
+        // the batch timeout is 1 minute so the batches must have been sent because they were full
+        mock.setResultWaitTime(10000);
+
+        sendConcurrent("direct:size", 10);
+
+        assertMockEndpointsSatisfied();
+    }
+
+    @Test
+    public void testBatchCompletedByTimeout() throws Exception {
+        getMockEndpoint("mock:result").expectedBodiesReceived("Hello World");
+
+        template.sendBody("direct:timeout", "Hello World");
+
+        assertMockEndpointsSatisfied();
+    }
+
+    @Test
+    public void testTransactedBatch() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedMessageCount(20);
+        mock.expectsNoDuplicates(body());
+
+        sendConcurrent("direct:transacted", 20);
+
+        assertMockEndpointsSatisfied();
+    }
+
+    @Test
+    public void testTransactedExchangeNotBatched() throws Exception {
+        // the batch timeout is 1 minute so the message must have been sent without batching
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedBodiesReceived("Hello World");
+        mock.setResultWaitTime(10000);
+
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody("Hello World");
+        DefaultUnitOfWork uow = new DefaultUnitOfWork(exchange);
+        uow.beginTransactedBy("myTransaction");
+        exchange.setUnitOfWork(uow);
+        assertTrue(exchange.isTransacted());
+
+        JmsProducer producer = (JmsProducer) context.getEndpoint("jms:queue:foo?producerBatchSize=5&producerBatchTimeout=60000").createProducer();
+        producer.start();
+        try {
+            final CountDownLatch latch = new CountDownLatch(1);
+            boolean sync = producer.process(exchange, new AsyncCallback() {
+                public void done(boolean doneSync) {
+                    latch.countDown();
+                }
+            });
+            assertTrue("Should send transacted exchange synchronously", sync);
+            assertEquals(0, latch.getCount());
+        } finally {
+            producer.stop();
+        }
+
+        assertMockEndpointsSatisfied();
+    }
+
+    @Test
+    public void testSendAfterStop() throws Exception {
+        JmsProducer producer = (JmsProducer) context.getEndpoint("jms:queue:foo").createProducer();
+        JmsBatchSender sender = new JmsBatchSender(producer, 5, 60000);
+        sender.start();
+        sender.stop();
+
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody("Hello World");
+        final AtomicBoolean doneSync = new AtomicBoolean();
+        boolean sync = sender.send(exchange, new AsyncCallback() {
+            public void done(boolean sync) {
+                doneSync.set(sync);
+            }
+        }, "foo", null, null);
+
+        assertTrue("Should be done synchronously", sync);
+        assertTrue("Should be done synchronously", doneSync.get());
+        assertIsInstanceOf(RejectedExecutionException.class, exchange.getException());
+    }
+
+    private void sendConcurrent(final String uri, int count) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            executor.submit(new Callable<Object>() {
+                public Object call() throws Exception {
+                    template.sendBody(uri, "Message " + index);
+                    return null;
+                }
+            });
+        }
+        executor.shutdown();
+    }
+
+    protected CamelContext createCamelContext() throws Exception {
+        CamelContext camelContext = super.createCamelContext();
+
+        ConnectionFactory connectionFactory = new ActiveMQConnectionFactory("vm://localhost?broker.persistent=false");
+        camelContext.addComponent("jms", jmsComponentClientAcknowledge(connectionFactory));
+
+        return camelContext;
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:size").to("jms:queue:foo?producerBatchSize=5&producerBatchTimeout=60000");
+
+                from("direct:timeout").to("jms:queue:foo?producerBatchSize=100&producerBatchTimeout=200");
+
+                from("direct:transacted").to("jms:queue:foo?producerBatchSize=5&transacted=true");
+
+                from("jms:queue:foo").to("mock:result");
+            }
+        };
+    }
+
+}
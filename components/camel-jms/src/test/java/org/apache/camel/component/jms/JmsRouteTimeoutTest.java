@@ -52,6 +52,23 @@ public class JmsRouteTimeoutTest extends CamelTestSupport {
         assertEquals("Bye World", out);
     }
 
+    @Test
+    public void testTimeoutTimingWheel() throws Exception {
+        try {
+            // send a in-out with a timeout for 1 sec using a timing wheel to detect the timeout
+            template.requestBody("activemq:queue:slow?requestTimeout=1000&timingWheelTimeout=true", "Hello World");
+            fail("Should have timed out with an exception");
+        } catch (RuntimeCamelException e) {
+            assertTrue("Should have timed out with an exception", e.getCause() instanceof ExchangeTimedOutException);
+        }
+    }
+
+    @Test
+    public void testNoTimeoutTimingWheel() throws Exception {
+        Object out = template.requestBody("activemq:queue:slow?requestTimeout=5000&timingWheelTimeout=true", "Hello World");
+        assertEquals("Bye World", out);
+    }
+
     protected CamelContext createCamelContext() throws Exception {
         CamelContext camelContext = super.createCamelContext();
 
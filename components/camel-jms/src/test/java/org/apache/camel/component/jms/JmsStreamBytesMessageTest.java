@@ -0,0 +1,180 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.jms;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import javax.jms.ConnectionFactory;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.apache.camel.util.StopWatch;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+import static org.apache.camel.component.jms.JmsComponent.jmsComponentClientAcknowledge;
+
+/**
+ * @version $Revision$
+ */
+public class JmsStreamBytesMessageTest extends CamelTestSupport {
+    private static final transient Log LOG = LogFactory.getLog(JmsStreamBytesMessageTest.class);
+    @Test
+    public void testConsumeAsStream() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:stream");
+        mock.expectedMessageCount(1);
+
+        template.sendBody("jms:queue:stream", "Hello World".getBytes());
+
+        assertMockEndpointsSatisfied();
+
+        Exchange exchange = mock.getReceivedExchanges().get(0);
+        BytesMessageInputStream body = assertIsInstanceOf(BytesMessageInputStream.class, exchange.getIn().getBody());
+        assertEquals(11, body.getLength());
+        assertEquals("Hello World", exchange.getIn().getBody(String.class));
+
+        // can be read again
+        body.reset();
+        assertEquals("Hello World", exchange.getIn().getBody(String.class));
+    }
+
+    @Test
+    public void testProduceFromStreamAndBuffer() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:bytes");
+        mock.expectedMessageCount(2);
+
+        template.sendBody("jms:queue:bytes?streamBytesMessage=true", new ByteArrayInputStream("Hello World".getBytes()));
+        template.sendBody("jms:queue:bytes?streamBytesMessage=true", ByteBuffer.wrap("Bye World".getBytes()));
+
+        assertMockEndpointsSatisfied();
+
+        assertTrue(Arrays.equals("Hello World".getBytes(), (byte[]) mock.getReceivedExchanges().get(0).getIn().getBody()));
+        assertTrue(Arrays.equals("Bye World".getBytes(), (byte[]) mock.getReceivedExchanges().get(1).getIn().getBody()));
+    }
+
+    @Test
+    public void testLargePayload() throws Exception {
+        // larger than the buffer used for streaming so the payload is written and read in chunks
+        byte[] payload = new byte[1024 * 1024 + 17];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+
+        MockEndpoint mock = getMockEndpoint("mock:stream");
+        mock.expectedMessageCount(1);
+
+        template.sendBody("jms:queue:stream?streamBytesMessage=true", new ByteArrayInputStream(payload));
+
+        assertMockEndpointsSatisfied();
+
+        Exchange exchange = mock.getReceivedExchanges().get(0);
+        BytesMessageInputStream body = assertIsInstanceOf(BytesMessageInputStream.class, exchange.getIn().getBody());
+        assertEquals(payload.length, body.getLength());
+        assertTrue(Arrays.equals(payload, exchange.getIn().getBody(byte[].class)));
+    }
+
+    @Test
+    public void testLargePayloadBenchmark() throws Exception {
+        byte[] payload = new byte[1024 * 1024];
+        Arrays.fill(payload, (byte) 'A');
+        int size = 20;
+
+        // warm up both modes before measuring
+        doBenchmark("jms:queue:bytes", payload, 5);
+        doBenchmark("jms:queue:bytes?streamBytesMessage=true", payload, 5);
+
+        long bytes = doBenchmark("jms:queue:bytes", payload, size);
+        long stream = doBenchmark("jms:queue:bytes?streamBytesMessage=true", payload, size);
+        if (bytes < 0 || stream < 0) {
+            LOG.warn("Cannot measure the allocated bytes on this JVM so the allocations are not compared");
+            return;
+        }
+        assertTrue("Streaming should allocate clearly less per message, was " + stream + " bytes vs " + bytes + " bytes",
+                stream < bytes * 3 / 4);
+    }
+
+    /**
+     * Sends the payload the given number of times and returns the bytes allocated per message
+     * by the sending thread, or <tt>-1</tt> if that cannot be measured.
+     */
+    private long doBenchmark(String uri, byte[] payload, int size) throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:bytes");
+        mock.reset();
+        mock.expectedMessageCount(size);
+
+        long before = allocatedBytes();
+        StopWatch watch = new StopWatch();
+        for (int i = 0; i < size; i++) {
+            template.sendBody(uri, new ByteArrayInputStream(payload));
+        }
+        long taken = watch.stop();
+        long after = allocatedBytes();
+
+        assertMockEndpointsSatisfied();
+        if (before < 0 || after < 0) {
+            LOG.info("Sent " + size + " messages of " + payload.length + " bytes to " + uri + " in " + taken + " millis");
+            return -1;
+        }
+        long answer = (after - before) / size;
+        LOG.info("Sent " + size + " messages of " + payload.length + " bytes to " + uri + " in " + taken
+                + " millis allocating " + answer + " bytes per message");
+        return answer;
+    }
+
+    /**
+     * Gets the bytes allocated by the current thread, using the JVM specific thread bean when available
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        try {
+            Method method = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", long.class);
+            return (Long) method.invoke(bean, Thread.currentThread().getId());
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    protected CamelContext createCamelContext() throws Exception {
+        CamelContext camelContext = super.createCamelContext();
+
+        ConnectionFactory connectionFactory = new ActiveMQConnectionFactory("vm://localhost?broker.persistent=false");
+        camelContext.addComponent("jms", jmsComponentClientAcknowledge(connectionFactory));
+
+        return camelContext;
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("jms:queue:stream?streamBytesMessage=true").to("mock:stream");
+
+                from("jms:queue:bytes").to("mock:bytes");
+            }
+        };
+    }
+
+}
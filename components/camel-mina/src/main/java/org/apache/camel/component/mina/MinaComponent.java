@@ -26,6 +26,7 @@ import java.util.Map;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
 import org.apache.camel.ExchangePattern;
+import org.apache.camel.Expression;
 import org.apache.camel.impl.DefaultComponent;
 import org.apache.camel.util.ObjectHelper;
 import org.apache.commons.logging.Log;
@@ -87,6 +88,10 @@ public class MinaComponent extends DefaultComponent {
         config.setPort(u.getPort());
         config.setProtocol(u.getScheme());
         config.setFilters(resolveAndRemoveReferenceListParameter(parameters, "filters", IoFilter.class));
+        Expression correlationExpression = resolveAndRemoveReferenceParameter(parameters, "correlationExpression", Expression.class, null);
+        if (correlationExpression != null) {
+            config.setCorrelationExpression(correlationExpression);
+        }
         setProperties(config, parameters);
 
         return createEndpoint(uri, config);
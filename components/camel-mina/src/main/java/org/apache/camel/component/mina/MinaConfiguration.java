@@ -19,6 +19,7 @@ package org.apache.camel.component.mina;
 import java.nio.charset.Charset;
 import java.util.List;
 
+import org.apache.camel.Expression;
 import org.apache.camel.LoggingLevel;
 import org.apache.camel.RuntimeCamelException;
 import org.apache.mina.common.IoFilter;
@@ -47,6 +48,9 @@ public class MinaConfiguration implements Cloneable {
     private boolean disconnect;
     private boolean disconnectOnNoReply = true;
     private LoggingLevel noReplyLogLevel = LoggingLevel.WARN;
+    private boolean multiplexed;
+    private int multiplexedSessions = 1;
+    private Expression correlationExpression;
 
     /**
      * Returns a copy of this configuration
@@ -225,4 +229,28 @@ public class MinaConfiguration implements Cloneable {
     public void setNoReplyLogLevel(LoggingLevel noReplyLogLevel) {
         this.noReplyLogLevel = noReplyLogLevel;
     }
+
+    public boolean isMultiplexed() {
+        return multiplexed;
+    }
+
+    public void setMultiplexed(boolean multiplexed) {
+        this.multiplexed = multiplexed;
+    }
+
+    public int getMultiplexedSessions() {
+        return multiplexedSessions;
+    }
+
+    public void setMultiplexedSessions(int multiplexedSessions) {
+        this.multiplexedSessions = multiplexedSessions;
+    }
+
+    public Expression getCorrelationExpression() {
+        return correlationExpression;
+    }
+
+    public void setCorrelationExpression(Expression correlationExpression) {
+        this.correlationExpression = correlationExpression;
+    }
 }
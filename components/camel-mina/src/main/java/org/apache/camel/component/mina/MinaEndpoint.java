@@ -70,6 +70,9 @@ public class MinaEndpoint extends DefaultEndpoint implements MultipleConsumersSu
         if (!configuration.getProtocol().equalsIgnoreCase("vm")) {
             ObjectHelper.notNull(connectorConfig, "connectorConfig");
         }
+        if (configuration.isMultiplexed()) {
+            return new MinaMultiplexedProducer(this);
+        }
         return new MinaProducer(this);
     }
 
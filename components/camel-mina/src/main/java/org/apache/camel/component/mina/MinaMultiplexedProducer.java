@@ -0,0 +1,546 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.mina;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.CamelException;
+import org.apache.camel.CamelExchangeException;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangeTimedOutException;
+import org.apache.camel.Expression;
+import org.apache.camel.converter.IOConverter;
+import org.apache.camel.impl.DefaultAsyncProducer;
+import org.apache.camel.processor.Logger;
+import org.apache.camel.util.ExchangeHelper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.mina.common.ConnectFuture;
+import org.apache.mina.common.IoFuture;
+import org.apache.mina.common.IoFutureListener;
+import org.apache.mina.common.IoHandlerAdapter;
+import org.apache.mina.common.IoSession;
+import org.apache.mina.common.WriteFuture;
+import org.apache.mina.transport.socket.nio.SocketConnector;
+
+/**
+ * An asynchronous {@link org.apache.camel.Producer} for MINA which multiplexes many in-flight
+ * requests over a small number of sessions, enabled with the <tt>multiplexed</tt> option.
+ * <p/>
+ * No thread waits for a reply: the exchange is continued when the reply is received on the session.
+ * The exchange is continued on a thread from a thread pool, and not on the thread of the session, as the
+ * session handles its events one at a time, so a slow step in the rest of the route would otherwise hold up
+ * the replies to all the other requests on the session.
+ * Replies are correlated with their requests using the <tt>correlationExpression</tt>, which is evaluated
+ * on both the request and the reply exchange, or if no expression is configured in the order the requests
+ * were written to the session, in which case the remote server must reply in order. Without a correlation
+ * expression a request which times out closes its session, failing the other requests waiting on the session,
+ * as its late reply would otherwise be taken for the reply of the next request.
+ *
+ * @version $Revision$
+ */
+public class MinaMultiplexedProducer extends DefaultAsyncProducer {
+    private static final transient Log LOG = LogFactory.getLog(MinaMultiplexedProducer.class);
+    private final MinaEndpoint endpoint;
+    private final MinaConfiguration configuration;
+    private final Expression correlationExpression;
+    private final Connection[] connections;
+    private final Object[] locks;
+    private final AtomicInteger counter = new AtomicInteger();
+    private final long timeout;
+    private final Logger noReplyLogger;
+    private ScheduledExecutorService timeoutChecker;
+    private volatile ExecutorService replyExecutor;
+
+    public MinaMultiplexedProducer(MinaEndpoint endpoint) {
+        super(endpoint);
+        this.endpoint = endpoint;
+        this.configuration = endpoint.getConfiguration();
+        this.correlationExpression = configuration.getCorrelationExpression();
+        this.timeout = configuration.getTimeout();
+        this.noReplyLogger = new Logger(LOG, configuration.getNoReplyLogLevel());
+
+        int size = Math.max(1, configuration.getMultiplexedSessions());
+        this.connections = new Connection[size];
+        this.locks = new Object[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public boolean isSingleton() {
+        // the sessions are shared by all the in-flight exchanges so a single producer is enough
+        return true;
+    }
+
+    public boolean process(final Exchange exchange, final AsyncCallback callback) {
+        if (!isRunAllowed()) {
+            if (exchange.getException() == null) {
+                exchange.setException(new RejectedExecutionException());
+            }
+            callback.done(true);
+            return true;
+        }
+
+        // set the exchange encoding property
+        if (configuration.getCharsetName() != null) {
+            exchange.setProperty(Exchange.CHARSET_NAME, IOConverter.normalizeCharset(configuration.getCharsetName()));
+        }
+
+        Object body = MinaPayloadHelper.getIn(endpoint, exchange);
+        if (body == null) {
+            noReplyLogger.log("No payload to send for exchange: " + exchange);
+            callback.done(true);
+            return true;
+        }
+
+        Connection connection;
+        PendingReply pending = null;
+        try {
+            // if textline enabled then covert to a String which must be used for textline
+            if (configuration.isTextline()) {
+                body = endpoint.getCamelContext().getTypeConverter().mandatoryConvertTo(String.class, exchange, body);
+            }
+
+            if (configuration.isSync()) {
+                Object key = null;
+                if (correlationExpression != null) {
+                    key = correlationExpression.evaluate(exchange, Object.class);
+                    if (key == null) {
+                        throw new CamelExchangeException("Correlation expression " + correlationExpression + " returned null", exchange);
+                    }
+                }
+                pending = new PendingReply(exchange, callback, key, System.currentTimeMillis() + timeout);
+            }
+            connection = getConnection();
+        } catch (Exception e) {
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        }
+
+        // log what we are writing
+        if (LOG.isDebugEnabled()) {
+            Object out = body;
+            if (body instanceof byte[]) {
+                // byte arrays is not readable so convert to string
+                out = exchange.getContext().getTypeConverter().convertTo(String.class, body);
+            }
+            LOG.debug("Writing body : " + out);
+        }
+
+        if (pending != null) {
+            // the exchange is continued when the reply is received
+            connection.send(body, pending);
+            return false;
+        }
+
+        // no reply expected so continue when the body has been written
+        WriteFuture future = connection.getSession().write(body);
+        future.addListener(new IoFutureListener() {
+            public void operationComplete(IoFuture writeFuture) {
+                if (!((WriteFuture) writeFuture).isWritten()) {
+                    exchange.setException(new CamelExchangeException("Cannot write body", exchange));
+                }
+                closeSessionIfNeeded(writeFuture.getSession(), exchange);
+                callback.done(false);
+            }
+        });
+        return false;
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        super.doStart();
+
+        if (configuration.isSync()) {
+            replyExecutor = endpoint.getCamelContext().getExecutorServiceStrategy().newDefaultThreadPool(this, "MinaMultiplexedReply");
+        }
+        if (configuration.isSync() && timeout > 0) {
+            long interval = Math.max(10, Math.min(timeout / 2, 1000));
+            timeoutChecker = endpoint.getCamelContext().getExecutorServiceStrategy().newScheduledThreadPool(this, "MinaTimeoutChecker", 1);
+            timeoutChecker.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    checkTimeouts();
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
+
+        if (!configuration.isLazySessionCreation()) {
+            for (int i = 0; i < connections.length; i++) {
+                synchronized (locks[i]) {
+                    connections[i] = openConnection();
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Stopping connector: " + endpoint.getConnector() + " at address: " + endpoint.getAddress());
+        }
+        if (timeoutChecker != null) {
+            endpoint.getCamelContext().getExecutorServiceStrategy().shutdownNow(timeoutChecker);
+            timeoutChecker = null;
+        }
+
+        if (endpoint.getConnector() instanceof SocketConnector) {
+            // Change the worker timeout to 0 second to make the I/O thread quit soon when there's no connection to manage.
+            ((SocketConnector) endpoint.getConnector()).setWorkerTimeout(0);
+        }
+        for (int i = 0; i < connections.length; i++) {
+            Connection connection;
+            synchronized (locks[i]) {
+                connection = connections[i];
+                connections[i] = null;
+            }
+            // any request still waiting for a reply is failed when the session is closed
+            if (connection != null) {
+                connection.getSession().close().join();
+            }
+        }
+        if (replyExecutor != null) {
+            // let the exchanges already handed over continue
+            endpoint.getCamelContext().getExecutorServiceStrategy().shutdown(replyExecutor);
+            replyExecutor = null;
+        }
+        super.doStop();
+    }
+
+    /**
+     * Number of requests waiting for a reply.
+     */
+    public int getPendingCount() {
+        int answer = 0;
+        for (int i = 0; i < connections.length; i++) {
+            Connection connection;
+            synchronized (locks[i]) {
+                connection = connections[i];
+            }
+            if (connection != null) {
+                answer += connection.getPendingCount();
+            }
+        }
+        return answer;
+    }
+
+    private Connection getConnection() throws CamelException {
+        // spread the exchanges over the sessions
+        int index = (counter.getAndIncrement() & Integer.MAX_VALUE) % connections.length;
+        synchronized (locks[index]) {
+            Connection connection = connections[index];
+            if (connection == null || connection.isClosing() || !connection.getSession().isConnected()) {
+                connection = openConnection();
+                connections[index] = connection;
+            }
+            return connection;
+        }
+    }
+
+    private Connection openConnection() throws CamelException {
+        long connectTimeout = endpoint.getConnectorConfig() != null ? endpoint.getConnectorConfig().getConnectTimeoutMillis() : timeout;
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Creating connector to address: " + endpoint.getAddress() + " using connector: " + endpoint.getConnector()
+                    + " connect timeout: " + connectTimeout + " millis.");
+        }
+        Connection connection = new Connection();
+        // connect and wait until the connection is established, but no longer than the connect timeout
+        ConnectFuture future = endpoint.getConnector().connect(endpoint.getAddress(), connection, endpoint.getConnectorConfig());
+        if (!future.join(connectTimeout)) {
+            throw new CamelException("Cannot connect to address: " + endpoint.getAddress() + " within " + connectTimeout + " millis");
+        }
+        connection.session = future.getSession();
+        return connection;
+    }
+
+    private void checkTimeouts() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < connections.length; i++) {
+            Connection connection;
+            synchronized (locks[i]) {
+                connection = connections[i];
+            }
+            if (connection != null) {
+                connection.checkTimeouts(now);
+            }
+        }
+    }
+
+    private void closeSessionIfNeeded(IoSession session, Exchange exchange) {
+        // should session be closed after complete?
+        Boolean close;
+        if (ExchangeHelper.isOutCapable(exchange)) {
+            close = exchange.getOut().getHeader(MinaConstants.MINA_CLOSE_SESSION_WHEN_COMPLETE, Boolean.class);
+        } else {
+            close = exchange.getIn().getHeader(MinaConstants.MINA_CLOSE_SESSION_WHEN_COMPLETE, Boolean.class);
+        }
+
+        // should we disconnect, the header can override the configuration
+        boolean disconnect = configuration.isDisconnect();
+        if (close != null) {
+            disconnect = close;
+        }
+        if (disconnect) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Closing session when complete at address: " + endpoint.getAddress());
+            }
+            session.close();
+        }
+    }
+
+    /**
+     * A request waiting for its reply.
+     */
+    private final class PendingReply {
+        private final Exchange exchange;
+        private final AsyncCallback callback;
+        private final Object key;
+        private final long deadline;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private PendingReply(Exchange exchange, AsyncCallback callback, Object key, long deadline) {
+            this.exchange = exchange;
+            this.callback = callback;
+            this.key = key;
+            this.deadline = deadline;
+        }
+
+        private void reply(IoSession session, Object message) {
+            if (!done.compareAndSet(false, true)) {
+                // already timed out
+                return;
+            }
+            // set the result on either IN or OUT on the original exchange depending on its pattern
+            if (ExchangeHelper.isOutCapable(exchange)) {
+                MinaPayloadHelper.setOut(exchange, message);
+            } else {
+                MinaPayloadHelper.setIn(exchange, message);
+            }
+            try {
+                closeSessionIfNeeded(session, exchange);
+            } finally {
+                continueRouting();
+            }
+        }
+
+        private void fail(Exception cause) {
+            if (done.compareAndSet(false, true)) {
+                exchange.setException(cause);
+                continueRouting();
+            }
+        }
+
+        /**
+         * Continues routing the exchange on a thread from the reply thread pool, so the session thread or the
+         * timeout checker is not held up by the rest of the route.
+         */
+        private void continueRouting() {
+            ExecutorService executor = replyExecutor;
+            if (executor != null) {
+                try {
+                    executor.execute(new Runnable() {
+                        public void run() {
+                            callback.done(false);
+                        }
+                    });
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // we are stopping so continue on this thread
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Reply thread pool rejected exchangeId: " + exchange.getExchangeId() + ", continuing on the current thread");
+                    }
+                }
+            }
+            callback.done(false);
+        }
+    }
+
+    /**
+     * A session and the requests written to it which are waiting for a reply.
+     */
+    private final class Connection extends IoHandlerAdapter {
+        private volatile IoSession session;
+        // whether the session is being closed and must not be used for new requests
+        private volatile boolean closing;
+        // guarded by this
+        private final LinkedList<PendingReply> fifo = new LinkedList<PendingReply>();
+        private final Map<Object, PendingReply> correlated = new HashMap<Object, PendingReply>();
+
+        public IoSession getSession() {
+            return session;
+        }
+
+        public synchronized int getPendingCount() {
+            return fifo.size() + correlated.size();
+        }
+
+        public void send(Object body, final PendingReply pending) {
+            WriteFuture future;
+            synchronized (this) {
+                if (closing) {
+                    pending.fail(new CamelExchangeException("Session closed as a previous request timed out waiting for its reply", pending.exchange));
+                    return;
+                }
+                if (pending.key != null) {
+                    if (correlated.containsKey(pending.key)) {
+                        pending.fail(new CamelExchangeException("Duplicate correlation key " + pending.key + " of a request still waiting for a reply", pending.exchange));
+                        return;
+                    }
+                    correlated.put(pending.key, pending);
+                } else {
+                    fifo.add(pending);
+                }
+                // write while holding the lock so the order of the writes is the same as the order of the requests
+                future = session.write(body);
+            }
+
+            future.addListener(new IoFutureListener() {
+                public void operationComplete(IoFuture writeFuture) {
+                    if (!((WriteFuture) writeFuture).isWritten()) {
+                        LOG.warn("Cannot write body using session: " + writeFuture.getSession());
+                        // the session is closed so the replies to any other requests are lost as well
+                        writeFuture.getSession().close();
+                        pending.fail(new CamelExchangeException("Cannot write body", pending.exchange));
+                    }
+                }
+            });
+        }
+
+        public boolean isClosing() {
+            return closing;
+        }
+
+        public void checkTimeouts(long now) {
+            List<PendingReply> timedOut = new ArrayList<PendingReply>();
+            List<PendingReply> aborted = new ArrayList<PendingReply>();
+            boolean close = false;
+            synchronized (this) {
+                for (Iterator<PendingReply> it = correlated.values().iterator(); it.hasNext();) {
+                    PendingReply pending = it.next();
+                    if (pending.deadline <= now) {
+                        it.remove();
+                        timedOut.add(pending);
+                    }
+                }
+                // the requests is in the order they were sent, so if any has timed out then the first has
+                if (!fifo.isEmpty() && fifo.getFirst().deadline <= now) {
+                    // with strict ordering a late reply would be taken for the reply of the next request,
+                    // so the session cannot be used anymore and all its requests must be failed
+                    closing = true;
+                    close = true;
+                    for (PendingReply pending : fifo) {
+                        if (pending.deadline <= now) {
+                            timedOut.add(pending);
+                        } else {
+                            aborted.add(pending);
+                        }
+                    }
+                    fifo.clear();
+                }
+            }
+
+            for (PendingReply pending : timedOut) {
+                pending.fail(new ExchangeTimedOutException(pending.exchange, timeout));
+            }
+            for (PendingReply pending : aborted) {
+                pending.fail(new CamelExchangeException("Session closed as a previous request timed out waiting for its reply", pending.exchange));
+            }
+            if (close) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Closing session as a request timed out waiting for its reply: " + session);
+                }
+                // a new session is created for the next request
+                session.close();
+            }
+        }
+
+        private synchronized List<PendingReply> removeAll() {
+            List<PendingReply> answer = new ArrayList<PendingReply>(fifo);
+            answer.addAll(correlated.values());
+            fifo.clear();
+            correlated.clear();
+            return answer;
+        }
+
+        @Override
+        public void messageReceived(IoSession ioSession, Object message) throws Exception {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Message received: " + message);
+            }
+
+            PendingReply pending;
+            if (correlationExpression != null) {
+                Exchange reply = endpoint.createExchange();
+                MinaPayloadHelper.setIn(reply, message);
+                Object key = correlationExpression.evaluate(reply, Object.class);
+                synchronized (this) {
+                    pending = correlated.remove(key);
+                }
+            } else {
+                synchronized (this) {
+                    pending = fifo.isEmpty() ? null : fifo.removeFirst();
+                }
+            }
+
+            if (pending == null) {
+                LOG.warn("Message received on session: " + ioSession + " without any request waiting for it. Ignoring message: " + message);
+                return;
+            }
+            pending.reply(ioSession, message);
+        }
+
+        @Override
+        public void sessionClosed(IoSession ioSession) throws Exception {
+            List<PendingReply> pendings = removeAll();
+            if (!pendings.isEmpty() && LOG.isDebugEnabled()) {
+                LOG.debug("Session closed but no message received for " + pendings.size() + " requests from address: " + endpoint.getAddress());
+            }
+            // session was closed but no message received. This could be because the remote server had an internal error
+            // and could not return a response
+            for (PendingReply pending : pendings) {
+                pending.fail(new CamelExchangeException("No response received from remote server: " + endpoint.getEndpointUri(), pending.exchange));
+            }
+        }
+
+        @Override
+        public void exceptionCaught(IoSession ioSession, Throwable cause) {
+            LOG.error("Exception on receiving message from address: " + endpoint.getAddress()
+                    + " using connector: " + endpoint.getConnector(), cause);
+            for (PendingReply pending : removeAll()) {
+                pending.fail(new CamelExchangeException("Error occurred in ResponseHandler", pending.exchange, cause));
+            }
+            if (ioSession != null) {
+                ioSession.close();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,200 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.mina;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.CamelExchangeException;
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangeTimedOutException;
+import org.apache.camel.Processor;
+import org.apache.camel.Producer;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.ExpressionAdapter;
+import org.apache.camel.impl.JndiRegistry;
+
+/**
+ * @version $Revision$
+ */
+public class MinaMultiplexedProducerTest extends ContextTestSupport {
+
+    private static final int PORT = 6340;
+    private static final String URI = "mina:tcp://localhost:" + PORT + "?textline=true&sync=true&multiplexed=true";
+
+    public void testMultiplexedProducerIsSingleton() throws Exception {
+        Producer producer = context.getEndpoint(URI).createProducer();
+        assertIsInstanceOf(MinaMultiplexedProducer.class, producer);
+        assertTrue(producer.isSingleton());
+    }
+
+    public void testOrderedReplies() throws Exception {
+        List<String> replies = sendConcurrent(URI + "&multiplexedSessions=2", 100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("Bye " + i, replies.get(i));
+        }
+    }
+
+    public void testCorrelationExpression() throws Exception {
+        List<String> replies = sendConcurrent(URI + "&correlationExpression=#myCorrelation", 100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("Bye " + i, replies.get(i));
+        }
+    }
+
+    public void testTimeout() throws Exception {
+        String uri = URI + "&timeout=500";
+        try {
+            template.requestBody(uri, "slow", String.class);
+            fail("Should have thrown an exception");
+        } catch (Exception e) {
+            assertIsInstanceOf(ExchangeTimedOutException.class, e.getCause());
+        }
+
+        // the late reply must not be mistaken for the reply of the next request
+        assertEquals("Bye 1", template.requestBody(uri, "1", String.class));
+    }
+
+    public void testTimeoutFailsRequestsBehindIt() throws Exception {
+        final String uri = URI + "&timeout=500";
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<String> slow = executor.submit(new Callable<String>() {
+            public String call() throws Exception {
+                return template.requestBody(uri, "slow", String.class);
+            }
+        });
+        Thread.sleep(100);
+        Future<String> next = executor.submit(new Callable<String>() {
+            public String call() throws Exception {
+                return template.requestBody(uri, "2", String.class);
+            }
+        });
+
+        try {
+            slow.get();
+            fail("Should have thrown an exception");
+        } catch (ExecutionException e) {
+            assertIsInstanceOf(ExchangeTimedOutException.class, e.getCause().getCause());
+        }
+        // the request behind the timed out request is failed as well, as the session is closed
+        try {
+            next.get();
+            fail("Should have thrown an exception");
+        } catch (ExecutionException e) {
+            assertIsInstanceOf(CamelExchangeException.class, e.getCause().getCause());
+        }
+        executor.shutdownNow();
+
+        // and a new session is used for the next request
+        assertEquals("Bye 3", template.requestBody(uri, "3", String.class));
+    }
+
+    public void testSlowDownstreamDoesNotBlockOtherReplies() throws Exception {
+        final String uri = URI + "&timeout=5000";
+        final CountDownLatch latch = new CountDownLatch(1);
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                from("direct:slowDownstream").to(uri).process(new Processor() {
+                    public void process(Exchange exchange) throws Exception {
+                        if ("Bye block".equals(exchange.getIn().getBody(String.class))) {
+                            latch.await(10, TimeUnit.SECONDS);
+                        }
+                    }
+                });
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<String> blocked = executor.submit(new Callable<String>() {
+            public String call() throws Exception {
+                return template.requestBody("direct:slowDownstream", "block", String.class);
+            }
+        });
+        Thread.sleep(500);
+
+        // the reply to the next request on the same session is not held up by the slow step of the first
+        Future<String> next = executor.submit(new Callable<String>() {
+            public String call() throws Exception {
+                return template.requestBody("direct:slowDownstream", "2", String.class);
+            }
+        });
+        assertEquals("Bye 2", next.get(3, TimeUnit.SECONDS));
+        assertFalse(blocked.isDone());
+
+        latch.countDown();
+        assertEquals("Bye block", blocked.get(5, TimeUnit.SECONDS));
+        executor.shutdownNow();
+    }
+
+    private List<String> sendConcurrent(final String uri, int count) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        List<Future<String>> futures = new ArrayList<Future<String>>();
+        for (int i = 0; i < count; i++) {
+            final String body = "" + i;
+            futures.add(executor.submit(new Callable<String>() {
+                public String call() throws Exception {
+                    return template.requestBody(uri, body, String.class);
+                }
+            }));
+        }
+
+        List<String> answer = new ArrayList<String>();
+        for (Future<String> future : futures) {
+            answer.add(future.get());
+        }
+        executor.shutdownNow();
+        return answer;
+    }
+
+    @Override
+    protected JndiRegistry createRegistry() throws Exception {
+        JndiRegistry jndi = super.createRegistry();
+        // the request and reply ends with the same number
+        jndi.bind("myCorrelation", new ExpressionAdapter() {
+            public Object evaluate(Exchange exchange) {
+                String body = exchange.getIn().getBody(String.class);
+                return body.substring(body.lastIndexOf(' ') + 1);
+            }
+        });
+        return jndi;
+    }
+
+    protected RouteBuilder createRouteBuilder() {
+        return new RouteBuilder() {
+            public void configure() {
+                from("mina:tcp://localhost:" + PORT + "?textline=true&sync=true").process(new Processor() {
+                    public void process(Exchange exchange) throws Exception {
+                        String body = exchange.getIn().getBody(String.class);
+                        if ("slow".equals(body)) {
+                            Thread.sleep(1000);
+                        }
+                        exchange.getOut().setBody("Bye " + body);
+                    }
+                });
+            }
+        };
+    }
+
+}
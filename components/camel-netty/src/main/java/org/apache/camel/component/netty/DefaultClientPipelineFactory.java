@@ -42,7 +42,23 @@ public class DefaultClientPipelineFactory extends ClientPipelineFactory {
         // create a new pipeline
         ChannelPipeline channelPipeline = Channels.pipeline();
 
-        SslHandler sslHandler = configureClientSSLOnDemand();
+        addCodecs(channelPipeline, producer.getConfiguration());
+
+        // our handler must be added last
+        channelPipeline.addLast("handler", new ClientChannelHandler(producer, exchange, callback));
+
+        return channelPipeline;
+    }
+
+    /**
+     * Adds the SSL handler (if enabled) and the configured encoders and decoders to the pipeline.
+     *
+     * @param channelPipeline the pipeline
+     * @param configuration   the configuration
+     * @throws Exception is thrown if the SSL handler could not be created
+     */
+    static void addCodecs(ChannelPipeline channelPipeline, NettyConfiguration configuration) throws Exception {
+        SslHandler sslHandler = configureClientSSLOnDemand(configuration);
         if (sslHandler != null) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Client SSL handler configured and added to the ChannelPipeline");
@@ -50,45 +66,40 @@ public class DefaultClientPipelineFactory extends ClientPipelineFactory {
             channelPipeline.addLast("ssl", sslHandler);
         }
 
-        List<ChannelUpstreamHandler> decoders = producer.getConfiguration().getDecoders();
+        List<ChannelUpstreamHandler> decoders = configuration.getDecoders();
         for (int x = 0; x < decoders.size(); x++) {
             channelPipeline.addLast("decoder-" + x, decoders.get(x));
         }
 
-        List<ChannelDownstreamHandler> encoders = producer.getConfiguration().getEncoders();
+        List<ChannelDownstreamHandler> encoders = configuration.getEncoders();
         for (int x = 0; x < encoders.size(); x++) {
             channelPipeline.addLast("encoder-" + x, encoders.get(x));
         }
-
-        // our handler must be added last
-        channelPipeline.addLast("handler", new ClientChannelHandler(producer, exchange, callback));
-
-        return channelPipeline;
     }
 
-    private SslHandler configureClientSSLOnDemand() throws Exception {
-        if (!producer.getConfiguration().isSsl()) {
+    private static SslHandler configureClientSSLOnDemand(NettyConfiguration configuration) throws Exception {
+        if (!configuration.isSsl()) {
             return null;
         }
 
-        if (producer.getConfiguration().getSslHandler() != null) {
-            return producer.getConfiguration().getSslHandler();
+        if (configuration.getSslHandler() != null) {
+            return configuration.getSslHandler();
         } else {
-            if (producer.getConfiguration().getKeyStoreFile() == null) {
+            if (configuration.getKeyStoreFile() == null) {
                 LOG.debug("keystorefile is null");
             }
-            if (producer.getConfiguration().getTrustStoreFile() == null) {
+            if (configuration.getTrustStoreFile() == null) {
                 LOG.debug("truststorefile is null");
             }
-            if (producer.getConfiguration().getPassphrase().toCharArray() == null) {
+            if (configuration.getPassphrase().toCharArray() == null) {
                 LOG.debug("passphrase is null");
             }
             SSLEngineFactory sslEngineFactory = new SSLEngineFactory(
-                producer.getConfiguration().getKeyStoreFormat(),
-                producer.getConfiguration().getSecurityProvider(),
-                producer.getConfiguration().getKeyStoreFile(),
-                producer.getConfiguration().getTrustStoreFile(),
-                producer.getConfiguration().getPassphrase().toCharArray());
+                configuration.getKeyStoreFormat(),
+                configuration.getSecurityProvider(),
+                configuration.getKeyStoreFile(),
+                configuration.getTrustStoreFile(),
+                configuration.getPassphrase().toCharArray());
             SSLEngine sslEngine = sslEngineFactory.createClientSSLEngine();
             return new SslHandler(sslEngine);
         }
@@ -0,0 +1,540 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.netty;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.CamelContext;
+import org.apache.camel.CamelException;
+import org.apache.camel.Exchange;
+import org.apache.camel.component.netty.handlers.PooledClientChannelHandler;
+import org.apache.camel.impl.ServiceSupport;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.jboss.netty.bootstrap.ClientBootstrap;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFactory;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.group.ChannelGroup;
+import org.jboss.netty.channel.group.DefaultChannelGroup;
+import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
+
+/**
+ * A pool of keep-alive TCP channels shared by the producers of a {@link NettyEndpoint}.
+ * <p/>
+ * Borrowing a channel never blocks: the {@link BorrowCallback} is invoked when a channel is available,
+ * which may be at once, when a new connection has been established, or when another exchange releases
+ * its channel in case the pool has reached <tt>producerPoolMaxActive</tt>.
+ * <p/>
+ * Channels idle for longer than <tt>producerPoolMinEvictableIdle</tt> are evicted, and channels no longer
+ * connected are discarded, by a background task which also keeps at least <tt>producerPoolMinIdle</tt>
+ * channels connected. When <tt>producerPoolMaxPipelined</tt> is greater than 1 several requests can be
+ * outstanding on the same channel, and replies are correlated to requests in the order they were written.
+ *
+ * @version $Revision$
+ */
+public class NettyChannelPool extends ServiceSupport {
+    private static final transient Log LOG = LogFactory.getLog(NettyChannelPool.class);
+    private final NettyEndpoint endpoint;
+    private final NettyConfiguration configuration;
+    private final ChannelGroup allChannels;
+    // the connected channels and the callbacks waiting for a channel, guarded by this
+    private final List<PooledChannel> channels = new ArrayList<PooledChannel>();
+    private final LinkedList<BorrowCallback> waiters = new LinkedList<BorrowCallback>();
+    private int connecting;
+    private ChannelFactory channelFactory;
+    private ScheduledExecutorService evictor;
+
+    /**
+     * Callback invoked when a borrowed channel is available, or could not be created.
+     */
+    public interface BorrowCallback {
+
+        /**
+         * The channel which must be released back to the pool when done.
+         */
+        void onChannel(PooledChannel channel);
+
+        /**
+         * No channel could be created.
+         */
+        void onFailure(Throwable cause);
+    }
+
+    public NettyChannelPool(NettyEndpoint endpoint) {
+        this.endpoint = endpoint;
+        this.configuration = endpoint.getConfiguration();
+        this.allChannels = new DefaultChannelGroup("NettyChannelPool[" + configuration.getAddress() + "]");
+    }
+
+    /**
+     * Borrows a channel from the pool without blocking.
+     *
+     * @param callback the callback invoked when a channel is available
+     */
+    public void borrow(BorrowCallback callback) {
+        if (!isRunAllowed()) {
+            callback.onFailure(new RejectedExecutionException("NettyChannelPool for " + configuration.getAddress() + " is not started"));
+            return;
+        }
+
+        List<PooledChannel> stale = new ArrayList<PooledChannel>();
+        PooledChannel answer;
+        boolean connect = false;
+        synchronized (this) {
+            answer = reserve(stale);
+            if (answer == null) {
+                int max = configuration.getProducerPoolMaxActive();
+                if (max < 0 || channels.size() + connecting < max) {
+                    connecting++;
+                    connect = true;
+                } else {
+                    if (LOG.isTraceEnabled()) {
+                        LOG.trace("Pool exhausted with " + max + " channels, waiting for a channel to be released");
+                    }
+                    waiters.add(callback);
+                }
+            }
+        }
+
+        closeChannels(stale);
+        if (answer != null) {
+            callback.onChannel(answer);
+        } else if (connect) {
+            connect(callback);
+        }
+    }
+
+    /**
+     * Releases a borrowed channel back to the pool, or hands it over to an exchange waiting for a channel.
+     *
+     * @param channel the channel
+     */
+    public void release(PooledChannel channel) {
+        BorrowCallback waiter = null;
+        synchronized (this) {
+            channel.inUse--;
+            channel.lastUsed = System.currentTimeMillis();
+            if (!channel.invalid && channel.isHealthy() && !waiters.isEmpty()) {
+                waiter = waiters.removeFirst();
+                channel.inUse++;
+            }
+        }
+
+        if (waiter != null) {
+            waiter.onChannel(channel);
+        }
+    }
+
+    /**
+     * Removes the channel from the pool and closes it. Borrowers which still hold the channel must
+     * still release it.
+     *
+     * @param channel the channel
+     */
+    public void invalidate(PooledChannel channel) {
+        BorrowCallback waiter = null;
+        synchronized (this) {
+            channel.invalid = true;
+            if (channels.remove(channel) && !waiters.isEmpty() && isRunAllowed()) {
+                // a slot is free so open a new channel for the next waiter
+                waiter = waiters.removeFirst();
+                connecting++;
+            }
+        }
+
+        if (channel.getChannel().isOpen()) {
+            NettyHelper.close(channel.getChannel());
+        }
+        if (waiter != null) {
+            connect(waiter);
+        }
+    }
+
+    /**
+     * Invalidates the channel and fails all the requests outstanding on it.
+     *
+     * @param channel the channel
+     * @param cause   the cause to set on the exchanges
+     */
+    public void fail(PooledChannel channel, Throwable cause) {
+        // drain before closing the channel, as closing fails the outstanding requests without the cause
+        List<Request> requests = channel.drainRequests();
+        invalidate(channel);
+        for (Request request : requests) {
+            request.getExchange().setException(cause);
+            release(channel);
+            request.getCallback().done(false);
+        }
+    }
+
+    /**
+     * Number of channels connected, both idle and in use.
+     */
+    public synchronized int getChannelCount() {
+        return channels.size();
+    }
+
+    /**
+     * Number of connected channels not in use.
+     */
+    public synchronized int getIdleCount() {
+        int answer = 0;
+        for (PooledChannel channel : channels) {
+            if (channel.inUse == 0) {
+                answer++;
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Number of exchanges waiting for a channel to be released.
+     */
+    public synchronized int getWaitingCount() {
+        return waiters.size();
+    }
+
+    public NettyConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public ChannelGroup getAllChannels() {
+        return allChannels;
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        CamelContext context = endpoint.getCamelContext();
+        if (channelFactory == null) {
+            ExecutorService bossExecutor = context.getExecutorServiceStrategy().newThreadPool(this, "NettyChannelPoolBoss",
+                    configuration.getCorePoolSize(), configuration.getMaxPoolSize());
+            ExecutorService workerExecutor = context.getExecutorServiceStrategy().newThreadPool(this, "NettyChannelPoolWorker",
+                    configuration.getCorePoolSize(), configuration.getMaxPoolSize());
+            channelFactory = new NioClientSocketChannelFactory(bossExecutor, workerExecutor);
+        }
+
+        long interval = configuration.getProducerPoolMinEvictableIdle() > 0 ? Math.max(configuration.getProducerPoolMinEvictableIdle() / 2, 10) : 30000;
+        evictor = context.getExecutorServiceStrategy().newScheduledThreadPool(this, "NettyChannelPoolEvictor", 1);
+        evictor.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                evict();
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+
+        // connect the minimum idle channels up front
+        evict();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        if (evictor != null) {
+            endpoint.getCamelContext().getExecutorServiceStrategy().shutdownNow(evictor);
+            evictor = null;
+        }
+
+        List<BorrowCallback> pending;
+        synchronized (this) {
+            pending = new ArrayList<BorrowCallback>(waiters);
+            waiters.clear();
+            channels.clear();
+        }
+        for (BorrowCallback waiter : pending) {
+            waiter.onFailure(new RejectedExecutionException("NettyChannelPool for " + configuration.getAddress() + " is stopping"));
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Closing " + allChannels.size() + " pooled channels to address: " + configuration.getAddress());
+        }
+        allChannels.close().awaitUninterruptibly();
+
+        if (channelFactory != null) {
+            channelFactory.releaseExternalResources();
+            channelFactory = null;
+        }
+    }
+
+    /**
+     * Evicts idle and broken channels and connects new channels to keep the minimum number of idle channels.
+     */
+    protected void evict() {
+        List<PooledChannel> evicted = new ArrayList<PooledChannel>();
+        int create;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            long minEvictableIdle = configuration.getProducerPoolMinEvictableIdle();
+            for (Iterator<PooledChannel> it = channels.iterator(); it.hasNext();) {
+                PooledChannel channel = it.next();
+                if (channel.inUse > 0) {
+                    continue;
+                }
+                boolean idle = minEvictableIdle > 0 && now - channel.lastUsed >= minEvictableIdle && channels.size() > configuration.getProducerPoolMinIdle();
+                if (idle || !channel.isHealthy()) {
+                    it.remove();
+                    channel.invalid = true;
+                    evicted.add(channel);
+                }
+            }
+
+            create = configuration.getProducerPoolMinIdle() - (channels.size() + connecting);
+            int max = configuration.getProducerPoolMaxActive();
+            if (max >= 0) {
+                create = Math.min(create, max - (channels.size() + connecting));
+            }
+            if (create > 0 && isRunAllowed()) {
+                connecting += create;
+            } else {
+                create = 0;
+            }
+        }
+
+        if (!evicted.isEmpty() && LOG.isDebugEnabled()) {
+            LOG.debug("Evicting " + evicted.size() + " idle channels to address: " + configuration.getAddress());
+        }
+        closeChannels(evicted);
+        for (int i = 0; i < create; i++) {
+            connect(null);
+        }
+    }
+
+    private PooledChannel reserve(List<PooledChannel> stale) {
+        PooledChannel idle = null;
+        PooledChannel shared = null;
+        for (Iterator<PooledChannel> it = channels.iterator(); it.hasNext();) {
+            PooledChannel channel = it.next();
+            if (!channel.isHealthy()) {
+                it.remove();
+                channel.invalid = true;
+                stale.add(channel);
+            } else if (channel.inUse == 0) {
+                // prefer the most recently used channel so surplus channels become idle and can be evicted
+                if (idle == null || channel.lastUsed > idle.lastUsed) {
+                    idle = channel;
+                }
+            } else if (channel.inUse < configuration.getProducerPoolMaxPipelined()) {
+                if (shared == null || channel.inUse < shared.inUse) {
+                    shared = channel;
+                }
+            }
+        }
+
+        PooledChannel answer = idle != null ? idle : shared;
+        if (answer != null) {
+            answer.inUse++;
+        }
+        return answer;
+    }
+
+    private void connect(final BorrowCallback callback) {
+        final PooledChannel pooled = new PooledChannel(this);
+
+        ChannelPipeline pipeline = Channels.pipeline();
+        try {
+            DefaultClientPipelineFactory.addCodecs(pipeline, configuration);
+        } catch (Exception e) {
+            connectFailed(callback, e);
+            return;
+        }
+        // our handler must be added last
+        pipeline.addLast("handler", new PooledClientChannelHandler(pooled));
+
+        ClientBootstrap bootstrap = new ClientBootstrap(channelFactory);
+        bootstrap.setOption("keepAlive", true);
+        bootstrap.setOption("tcpNoDelay", configuration.isTcpNoDelay());
+        bootstrap.setOption("reuseAddress", configuration.isReuseAddress());
+        bootstrap.setOption("connectTimeoutMillis", configuration.getConnectTimeout());
+        bootstrap.setPipeline(pipeline);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Creating pooled channel to address: " + configuration.getAddress());
+        }
+        ChannelFuture future = bootstrap.connect(new InetSocketAddress(configuration.getHost(), configuration.getPort()));
+        pooled.channel = future.getChannel();
+        future.addListener(new ChannelFutureListener() {
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (future.isSuccess()) {
+                    connected(pooled, callback);
+                } else {
+                    connectFailed(callback, future.getCause());
+                }
+            }
+        });
+    }
+
+    private void connected(PooledChannel channel, BorrowCallback callback) {
+        BorrowCallback borrower = callback;
+        boolean running;
+        synchronized (this) {
+            connecting--;
+            running = isRunAllowed();
+            if (running) {
+                channel.lastUsed = System.currentTimeMillis();
+                channels.add(channel);
+                if (borrower == null && !waiters.isEmpty()) {
+                    // a channel connected to keep the minimum idle can serve a waiter right away
+                    borrower = waiters.removeFirst();
+                }
+                if (borrower != null) {
+                    channel.inUse++;
+                }
+            }
+        }
+
+        if (!running) {
+            NettyHelper.close(channel.getChannel());
+            if (borrower != null) {
+                borrower.onFailure(new RejectedExecutionException("NettyChannelPool for " + configuration.getAddress() + " is stopping"));
+            }
+        } else if (borrower != null) {
+            borrower.onChannel(channel);
+        }
+    }
+
+    private void connectFailed(BorrowCallback callback, Throwable cause) {
+        List<BorrowCallback> failed = new ArrayList<BorrowCallback>();
+        synchronized (this) {
+            connecting--;
+            if (channels.isEmpty() && connecting == 0) {
+                // no channel will ever be released so do not let the waiters wait forever
+                failed.addAll(waiters);
+                waiters.clear();
+            }
+        }
+        if (callback != null) {
+            failed.add(0, callback);
+        } else {
+            LOG.warn("Cannot create pooled channel to address: " + configuration.getAddress(), cause);
+        }
+
+        for (BorrowCallback waiter : failed) {
+            waiter.onFailure(new CamelException("Cannot connect to " + configuration.getAddress(), cause));
+        }
+    }
+
+    private void closeChannels(List<PooledChannel> channels) {
+        for (PooledChannel channel : channels) {
+            NettyHelper.close(channel.getChannel());
+        }
+    }
+
+    /**
+     * A request written to a pooled channel which is waiting for its reply.
+     */
+    public static final class Request {
+        private final Exchange exchange;
+        private final AsyncCallback callback;
+
+        private Request(Exchange exchange, AsyncCallback callback) {
+            this.exchange = exchange;
+            this.callback = callback;
+        }
+
+        public Exchange getExchange() {
+            return exchange;
+        }
+
+        public AsyncCallback getCallback() {
+            return callback;
+        }
+    }
+
+    /**
+     * A channel managed by the pool, which keeps track of the requests outstanding on the channel.
+     */
+    public static final class PooledChannel {
+        private final NettyChannelPool pool;
+        private final LinkedList<Request> requests = new LinkedList<Request>();
+        private volatile Channel channel;
+        // guarded by the pool
+        private int inUse;
+        private long lastUsed;
+        private boolean invalid;
+
+        private PooledChannel(NettyChannelPool pool) {
+            this.pool = pool;
+        }
+
+        public NettyChannelPool getPool() {
+            return pool;
+        }
+
+        public Channel getChannel() {
+            return channel;
+        }
+
+        public boolean isHealthy() {
+            return channel != null && channel.isConnected();
+        }
+
+        /**
+         * Writes the body to the channel.
+         *
+         * @param body     the body
+         * @param exchange the exchange
+         * @param callback the callback to signal when the reply is received, or <tt>null</tt> if no reply is expected
+         * @return the future of the write
+         */
+        public ChannelFuture write(Object body, Exchange exchange, AsyncCallback callback) {
+            // keep the order of the outstanding requests the same as the order of the writes
+            synchronized (requests) {
+                if (callback != null) {
+                    requests.add(new Request(exchange, callback));
+                }
+                return channel.write(body);
+            }
+        }
+
+        /**
+         * Gets the oldest outstanding request, which the reply just received belongs to.
+         *
+         * @return the request, or <tt>null</tt> if no request is outstanding
+         */
+        public Request pollRequest() {
+            synchronized (requests) {
+                return requests.isEmpty() ? null : requests.removeFirst();
+            }
+        }
+
+        /**
+         * Removes all the outstanding requests.
+         */
+        public List<Request> drainRequests() {
+            synchronized (requests) {
+                List<Request> answer = new ArrayList<Request>(requests);
+                requests.clear();
+                return answer;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "PooledChannel[" + channel + "]";
+        }
+    }
+}
@@ -76,6 +76,11 @@ public class NettyConfiguration implements Cloneable {
     private boolean disconnectOnNoReply = true;
     private LoggingLevel noReplyLogLevel = LoggingLevel.WARN;
     private boolean allowDefaultCodec = true;
+    private boolean producerPoolEnabled;
+    private int producerPoolMinIdle;
+    private int producerPoolMaxActive = 100;
+    private long producerPoolMinEvictableIdle = 5 * 60 * 1000L;
+    private int producerPoolMaxPipelined = 1;
     private ClientPipelineFactory clientPipelineFactory;
     private ServerPipelineFactory serverPipelineFactory;
     
@@ -456,6 +461,46 @@ public class NettyConfiguration implements Cloneable {
         this.allowDefaultCodec = allowDefaultCodec;
     }
 
+    public boolean isProducerPoolEnabled() {
+        return producerPoolEnabled;
+    }
+
+    public void setProducerPoolEnabled(boolean producerPoolEnabled) {
+        this.producerPoolEnabled = producerPoolEnabled;
+    }
+
+    public int getProducerPoolMinIdle() {
+        return producerPoolMinIdle;
+    }
+
+    public void setProducerPoolMinIdle(int producerPoolMinIdle) {
+        this.producerPoolMinIdle = producerPoolMinIdle;
+    }
+
+    public int getProducerPoolMaxActive() {
+        return producerPoolMaxActive;
+    }
+
+    public void setProducerPoolMaxActive(int producerPoolMaxActive) {
+        this.producerPoolMaxActive = producerPoolMaxActive;
+    }
+
+    public long getProducerPoolMinEvictableIdle() {
+        return producerPoolMinEvictableIdle;
+    }
+
+    public void setProducerPoolMinEvictableIdle(long producerPoolMinEvictableIdle) {
+        this.producerPoolMinEvictableIdle = producerPoolMinEvictableIdle;
+    }
+
+    public int getProducerPoolMaxPipelined() {
+        return producerPoolMaxPipelined;
+    }
+
+    public void setProducerPoolMaxPipelined(int producerPoolMaxPipelined) {
+        this.producerPoolMaxPipelined = producerPoolMaxPipelined;
+    }
+
     public String getAddress() {
         return host + ":" + port;
     }
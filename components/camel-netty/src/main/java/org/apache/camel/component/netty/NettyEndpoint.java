@@ -30,6 +30,7 @@ import org.jboss.netty.util.Timer;
 public class NettyEndpoint extends DefaultEndpoint {
     private NettyConfiguration configuration;
     private Timer timer;
+    private NettyChannelPool producerChannelPool;
 
     public NettyEndpoint(String endpointUri, NettyComponent component, NettyConfiguration configuration) {
         super(endpointUri, component);
@@ -70,6 +71,18 @@ public class NettyEndpoint extends DefaultEndpoint {
         this.configuration = configuration;
     }
 
+    /**
+     * Gets the pool of channels shared by the producers of this endpoint, creating it on first use.
+     */
+    public synchronized NettyChannelPool getProducerChannelPool() throws Exception {
+        if (producerChannelPool == null) {
+            producerChannelPool = new NettyChannelPool(this);
+            // let CamelContext manage the lifecycle of the pool so its channels are closed on shutdown
+            getCamelContext().addService(producerChannelPool);
+        }
+        return producerChannelPool;
+    }
+
     public void setTimer(Timer timer) {
         this.timer = timer;
     }
@@ -21,6 +21,7 @@ import java.net.SocketAddress;
 import org.apache.camel.CamelExchangeException;
 import org.apache.camel.Exchange;
 import org.apache.camel.NoTypeConversionAvailableException;
+import org.apache.camel.util.ExchangeHelper;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.jboss.netty.channel.Channel;
@@ -108,6 +109,25 @@ public final class NettyHelper {
         }
     }
 
+    /**
+     * Whether the channel should be closed when the exchange is complete.
+     * <p/>
+     * The {@link NettyConstants#NETTY_CLOSE_CHANNEL_WHEN_COMPLETE} header can override the configured disconnect option.
+     *
+     * @param configuration the configuration
+     * @param exchange      the exchange
+     * @return <tt>true</tt> to close the channel
+     */
+    public static boolean isCloseChannelWhenComplete(NettyConfiguration configuration, Exchange exchange) {
+        Boolean close;
+        if (ExchangeHelper.isOutCapable(exchange)) {
+            close = exchange.getOut().getHeader(NettyConstants.NETTY_CLOSE_CHANNEL_WHEN_COMPLETE, Boolean.class);
+        } else {
+            close = exchange.getIn().getHeader(NettyConstants.NETTY_CLOSE_CHANNEL_WHEN_COMPLETE, Boolean.class);
+        }
+        return close != null ? close : configuration.isDisconnect();
+    }
+
     /**
      * Closes the given channel
      *
@@ -55,6 +55,7 @@ public class NettyProducer extends DefaultAsyncProducer implements ServicePoolAw
     private ChannelFactory channelFactory;
     private DatagramChannelFactory datagramChannelFactory;
     private Logger noReplyLogger;
+    private NettyChannelPool channelPool;
 
     public NettyProducer(NettyEndpoint nettyEndpoint, NettyConfiguration configuration) {
         super(nettyEndpoint);
@@ -87,6 +88,16 @@ public class NettyProducer extends DefaultAsyncProducer implements ServicePoolAw
     protected void doStart() throws Exception {
         super.doStart();
 
+        if (configuration.isProducerPoolEnabled() && isTcp()) {
+            if (configuration.getClientPipelineFactory() != null) {
+                throw new IllegalArgumentException("The producerPoolEnabled option cannot be used together with a custom clientPipelineFactory");
+            }
+            // the pool has its own channel factory and connects its minimum idle channels when started,
+            // so this producer does not need any boss and worker threads of its own
+            channelPool = getEndpoint().getProducerChannelPool();
+            return;
+        }
+
         if (isTcp()) {
             setupTCPCommunication();
         } else {
@@ -147,6 +158,22 @@ public class NettyProducer extends DefaultAsyncProducer implements ServicePoolAw
             exchange.setProperty(Exchange.CHARSET_NAME, IOConverter.normalizeCharset(getConfiguration().getCharsetName()));
         }
 
+        if (channelPool != null) {
+            final Object payload = body;
+            channelPool.borrow(new NettyChannelPool.BorrowCallback() {
+                public void onChannel(NettyChannelPool.PooledChannel channel) {
+                    writeToPooledChannel(channel, payload, exchange, callback);
+                }
+
+                public void onFailure(Throwable cause) {
+                    exchange.setException(cause);
+                    callback.done(false);
+                }
+            });
+            // continue routing asynchronously
+            return false;
+        }
+
         ChannelFuture channelFuture;
         final Channel channel;
         try {
@@ -212,6 +239,47 @@ public class NettyProducer extends DefaultAsyncProducer implements ServicePoolAw
         return false;
     }
 
+    private void writeToPooledChannel(final NettyChannelPool.PooledChannel channel, Object body, final Exchange exchange, final AsyncCallback callback) {
+        // log what we are writing
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Writing body: " + body + " to pooled channel: " + channel.getChannel());
+        }
+        // when we expect a reply the channel is released when the reply is received
+        ChannelFuture future = channel.write(body, exchange, configuration.isSync() ? callback : null);
+
+        future.addListener(new ChannelFutureListener() {
+            public void operationComplete(ChannelFuture channelFuture) throws Exception {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Operation complete " + channelFuture);
+                }
+                NettyChannelPool pool = channel.getPool();
+                if (configuration.isSync()) {
+                    if (!channelFuture.isSuccess()) {
+                        // the channel is broken so fail this and any other request outstanding on it
+                        pool.fail(channel, channelFuture.getCause());
+                    }
+                    return;
+                }
+
+                // we do not expect any reply so release the channel and signal callback to continue routing
+                try {
+                    if (!channelFuture.isSuccess()) {
+                        exchange.setException(channelFuture.getCause());
+                        pool.invalidate(channel);
+                    } else if (NettyHelper.isCloseChannelWhenComplete(configuration, exchange)) {
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug("Closing pooled channel when complete at address: " + configuration.getAddress());
+                        }
+                        pool.invalidate(channel);
+                    }
+                } finally {
+                    pool.release(channel);
+                    callback.done(false);
+                }
+            }
+        });
+    }
+
     protected void setupTCPCommunication() throws Exception {
         if (channelFactory == null) {
             ExecutorService bossExecutor = context.getExecutorServiceStrategy().newThreadPool(this, "NettyTCPBoss",
@@ -318,6 +386,10 @@ public class NettyProducer extends DefaultAsyncProducer implements ServicePoolAw
         this.channelFactory = channelFactory;
     }
 
+    public NettyChannelPool getChannelPool() {
+        return channelPool;
+    }
+
     public ChannelGroup getAllChannels() {
         return ALL_CHANNELS;
     }
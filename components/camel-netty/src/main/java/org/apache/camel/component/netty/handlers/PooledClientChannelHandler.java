@@ -0,0 +1,130 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.netty.handlers;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.CamelExchangeException;
+import org.apache.camel.Exchange;
+import org.apache.camel.NoTypeConversionAvailableException;
+import org.apache.camel.component.netty.NettyChannelPool;
+import org.apache.camel.component.netty.NettyConfiguration;
+import org.apache.camel.component.netty.NettyHelper;
+import org.apache.camel.component.netty.NettyPayloadHelper;
+import org.apache.camel.util.ExchangeHelper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.ExceptionEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+
+/**
+ * Client handler for a channel in the {@link NettyChannelPool}, which correlates the replies
+ * with the requests outstanding on the channel. Cannot be shared.
+ */
+public class PooledClientChannelHandler extends SimpleChannelUpstreamHandler {
+    private static final transient Log LOG = LogFactory.getLog(PooledClientChannelHandler.class);
+    private final NettyChannelPool.PooledChannel channel;
+    private final NettyConfiguration configuration;
+
+    public PooledClientChannelHandler(NettyChannelPool.PooledChannel channel) {
+        super();
+        this.channel = channel;
+        this.configuration = channel.getPool().getConfiguration();
+    }
+
+    @Override
+    public void channelOpen(ChannelHandlerContext ctx, ChannelStateEvent channelStateEvent) throws Exception {
+        // to keep track of open sockets
+        channel.getPool().getAllChannels().add(channelStateEvent.getChannel());
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent exceptionEvent) throws Exception {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Closing pooled channel as an exception was thrown from Netty", exceptionEvent.getCause());
+        }
+        // the channel cannot be trusted anymore so fail all the requests waiting for a reply
+        channel.getPool().fail(channel, exceptionEvent.getCause());
+    }
+
+    @Override
+    public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Pooled channel closed: " + ctx.getChannel());
+        }
+
+        NettyChannelPool pool = channel.getPool();
+        pool.invalidate(channel);
+        for (NettyChannelPool.Request request : channel.drainRequests()) {
+            // channel was closed but no message received. This could be because the remote server had an internal error
+            // and could not return a response
+            Exchange exchange = request.getExchange();
+            exchange.setException(new CamelExchangeException("No response received from remote server: " + configuration.getAddress(), exchange));
+            pool.release(channel);
+            request.getCallback().done(false);
+        }
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent messageEvent) throws Exception {
+        Object body = messageEvent.getMessage();
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Message received: " + body);
+        }
+
+        NettyChannelPool.Request request = channel.pollRequest();
+        if (request == null) {
+            LOG.warn("Message received on pooled channel: " + ctx.getChannel() + " without any outstanding request. Ignoring message: " + body);
+            return;
+        }
+        Exchange exchange = request.getExchange();
+        AsyncCallback callback = request.getCallback();
+
+        try {
+            // if textline enabled then covert to a String which must be used for textline
+            if (configuration.isTextline()) {
+                try {
+                    body = exchange.getContext().getTypeConverter().mandatoryConvertTo(String.class, exchange, body);
+                } catch (NoTypeConversionAvailableException e) {
+                    exchange.setException(e);
+                    return;
+                }
+            }
+
+            // set the result on either IN or OUT on the original exchange depending on its pattern
+            if (ExchangeHelper.isOutCapable(exchange)) {
+                NettyPayloadHelper.setOut(exchange, body);
+            } else {
+                NettyPayloadHelper.setIn(exchange, body);
+            }
+
+            if (NettyHelper.isCloseChannelWhenComplete(configuration, exchange)) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Closing pooled channel when complete at address: " + configuration.getAddress());
+                }
+                channel.getPool().invalidate(channel);
+            }
+        } finally {
+            // release the channel before signaling so the next exchange can use it right away
+            channel.getPool().release(channel);
+            callback.done(false);
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.netty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.junit.Test;
+
+/**
+ * @version $Revision$
+ */
+public class NettyProducerPoolTest extends CamelTestSupport {
+
+    private static final String POOLED = "netty:tcp://localhost:5153?textline=true&sync=true&producerPoolEnabled=true";
+
+    @Test
+    public void testReuseChannel() throws Exception {
+        String uri = POOLED + "&producerPoolMaxActive=2";
+        for (int i = 0; i < 5; i++) {
+            assertEquals("Bye " + i, template.requestBody(uri, "" + i, String.class));
+        }
+
+        // the same channel should be reused as the exchanges were sent one at a time
+        NettyChannelPool pool = context.getEndpoint(uri, NettyEndpoint.class).getProducerChannelPool();
+        assertEquals(1, pool.getChannelCount());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testMaxActive() throws Exception {
+        String uri = POOLED + "&producerPoolMaxActive=2";
+        List<String> replies = sendConcurrent(uri, 20);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("Bye " + i, replies.get(i));
+        }
+
+        NettyChannelPool pool = context.getEndpoint(uri, NettyEndpoint.class).getProducerChannelPool();
+        assertTrue("Should not use more than 2 channels", pool.getChannelCount() <= 2);
+        assertEquals(0, pool.getWaitingCount());
+    }
+
+    @Test
+    public void testPipelining() throws Exception {
+        String uri = POOLED + "&producerPoolMaxActive=1&producerPoolMaxPipelined=10";
+        List<String> replies = sendConcurrent(uri, 20);
+
+        // the replies should be correlated to their requests
+        for (int i = 0; i < 20; i++) {
+            assertEquals("Bye " + i, replies.get(i));
+        }
+
+        NettyChannelPool pool = context.getEndpoint(uri, NettyEndpoint.class).getProducerChannelPool();
+        assertEquals(1, pool.getChannelCount());
+    }
+
+    @Test
+    public void testEvictIdle() throws Exception {
+        String uri = POOLED + "&producerPoolMinEvictableIdle=200";
+        assertEquals("Bye World", template.requestBody(uri, "World", String.class));
+
+        NettyChannelPool pool = context.getEndpoint(uri, NettyEndpoint.class).getProducerChannelPool();
+        for (int i = 0; i < 50 && pool.getChannelCount() > 0; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals("Idle channel should have been evicted", 0, pool.getChannelCount());
+
+        // and a new channel is created on demand
+        assertEquals("Bye Again", template.requestBody(uri, "Again", String.class));
+        assertEquals(1, pool.getChannelCount());
+    }
+
+    private List<String> sendConcurrent(final String uri, int count) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        List<Future<String>> futures = new ArrayList<Future<String>>();
+        for (int i = 0; i < count; i++) {
+            final String body = "" + i;
+            futures.add(executor.submit(new Callable<String>() {
+                public String call() throws Exception {
+                    return template.requestBody(uri, body, String.class);
+                }
+            }));
+        }
+
+        List<String> answer = new ArrayList<String>();
+        for (Future<String> future : futures) {
+            answer.add(future.get());
+        }
+        executor.shutdownNow();
+        return answer;
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("netty:tcp://localhost:5153?textline=true&sync=true")
+                    .process(new Processor() {
+                        public void process(Exchange exchange) throws Exception {
+                            String body = exchange.getIn().getBody(String.class);
+                            exchange.getOut().setBody("Bye " + body);
+                        }
+                    });
+            }
+        };
+    }
+}
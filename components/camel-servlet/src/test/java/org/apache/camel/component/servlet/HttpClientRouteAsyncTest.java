@@ -0,0 +1,31 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.servlet;
+
+/**
+ * Runs the same routes with the <tt>async</tt> init parameter enabled. The servlet container used
+ * for testing does not support the Servlet 3.0 asynchronous API, so the servlet must fall back to
+ * processing the requests synchronously.
+ */
+public class HttpClientRouteAsyncTest extends HttpClientRouteTest {
+
+    @Override
+    protected String getConfiguration() {
+        return "/org/apache/camel/component/servlet/web-async.xml";
+    }
+
+}